@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * Measures the startup time of the cli, that is the wall time of a
+ * <code>--dry-run</code> import of a small report, in a new JVM for every run.
+ * The runs of the modes are interleaved, and the median, p90 and minimum wall
+ * time of every mode is printed and appended to a csv history file, so that the
+ * startup time can be tracked from build to build. The modes are:
+ * <ul>
+ * <li><code>no-cds</code>: without class-data sharing
+ * (<code>-Xshare:off</code>)</li>
+ * <li><code>jdk-cds</code>: with the default archive of the JDK classes</li>
+ * <li><code>app-cds</code>: with the archive of the cli
+ * (<code>cuke-to-reportportal.jsa</code>), when it exists</li>
+ * </ul>
+ * The benchmark is configured with system properties:
+ * <ul>
+ * <li><code>startup.runs</code>: the measured runs of every mode (default
+ * 10)</li>
+ * <li><code>startup.warmup</code>: the runs of every mode that are not
+ * measured, to warm up the file system cache (default 2)</li>
+ * <li><code>startup.history</code>: the csv file that the results are appended
+ * to (default <code>startup-history.csv</code> in the cli directory)</li>
+ * <li><code>startup.maxMs</code>: when greater than 0, the benchmark fails if
+ * the median of the fastest mode is above it (default 0)</li>
+ * </ul>
+ */
+public class StartupBenchmark {
+
+	private static final String ARCHIVE = "cuke-to-reportportal.jsa";
+
+	/**
+	 * Runs the benchmark
+	 * 
+	 * @param args The cli directory, with the cli jar and its archive, and the
+	 *             report to import
+	 * @throws IOException          if a run cannot be started or the history
+	 *                              cannot be written
+	 * @throws InterruptedException if the benchmark is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length != 2) {
+			throw new RPImporterException("Usage: StartupBenchmark <cli directory> <report>");
+		}
+		Path cliDirectory = Paths.get(args[0]).toAbsolutePath();
+		Path jar = findJar(cliDirectory);
+		Path archive = cliDirectory.resolve(ARCHIVE);
+		int runs = Integer.getInteger("startup.runs", 10);
+		int warmup = Integer.getInteger("startup.warmup", 2);
+		long maxMs = Long.getLong("startup.maxMs", 0);
+		Path history = Paths.get(System.getProperty("startup.history",
+				cliDirectory.resolve("startup-history.csv").toString()));
+
+		Map<String, List<String>> modes = new LinkedHashMap<>();
+		modes.put("no-cds", List.of("-Xshare:off"));
+		modes.put("jdk-cds", List.of());
+		if (Files.isRegularFile(archive)) {
+			modes.put("app-cds", List.of("-XX:SharedArchiveFile=" + archive));
+		} else {
+			System.out.printf("No archive %s, the app-cds mode is skipped%n", archive);
+		}
+
+		Map<String, List<Long>> times = new LinkedHashMap<>();
+		modes.keySet().forEach(mode -> times.put(mode, new ArrayList<>()));
+		for (int i = 0; i < warmup + runs; i++) {
+			for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+				long ms = run(mode.getValue(), jar, args[1]);
+				if (i >= warmup) {
+					times.get(mode.getKey()).add(ms);
+				}
+			}
+		}
+
+		String version = jar.getFileName().toString().replaceAll("^cuke-to-reportportal-(.*)-cli\\.jar$", "$1");
+		Instant timestamp = Instant.now();
+		List<String> lines = new ArrayList<>();
+		if (!Files.exists(history)) {
+			lines.add("timestamp,version,java,mode,runs,medianMs,p90Ms,minMs");
+		}
+		String fastest = null;
+		long fastestMedian = Long.MAX_VALUE;
+		System.out.printf("%-10s %10s %10s %10s%n", "mode", "median ms", "p90 ms", "min ms");
+		for (Map.Entry<String, List<Long>> mode : times.entrySet()) {
+			List<Long> sorted = mode.getValue().stream().sorted().toList();
+			long median = percentile(sorted, 50);
+			long p90 = percentile(sorted, 90);
+			System.out.printf(Locale.ROOT, "%-10s %10d %10d %10d%n", mode.getKey(), median, p90, sorted.get(0));
+			lines.add(String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%d,%d", timestamp, version,
+					System.getProperty("java.version"), mode.getKey(), sorted.size(), median, p90, sorted.get(0)));
+			if (median < fastestMedian) {
+				fastest = mode.getKey();
+				fastestMedian = median;
+			}
+		}
+		Files.write(history, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		System.out.printf("Appended the results to %s%n", history);
+
+		if (maxMs > 0 && fastestMedian > maxMs) {
+			throw new RPImporterException(String.format("The median startup time of %s is %d ms, above %d ms",
+					fastest, fastestMedian, maxMs));
+		}
+	}
+
+	private static long run(List<String> jvmOptions, Path jar, String report)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmOptions);
+		command.addAll(List.of("-jar", jar.toString(), "--dry-run", "--launch.name=startup-benchmark",
+				"--reportPortal.endpoint=http://localhost:8080", "--reportPortal.projectName=startup_benchmark",
+				"--reportPortal.apiKey=startup-benchmark", report));
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		int exitCode = process.waitFor();
+		long ms = (System.nanoTime() - start) / 1_000_000;
+		if (exitCode != ImporterCli.EXIT_OK) {
+			throw new RPImporterException(String.format("%s exited with %d", command, exitCode));
+		}
+		return ms;
+	}
+
+	private static Path findJar(Path cliDirectory) throws IOException {
+		try (Stream<Path> files = Files.list(cliDirectory)) {
+			return files.filter(f -> f.getFileName().toString().matches("cuke-to-reportportal-.*-cli\\.jar"))
+					.findFirst().orElseThrow(() -> new RPImporterException(
+							String.format("No cuke-to-reportportal-*-cli.jar in %s", cliDirectory)));
+		}
+	}
+
+	private static long percentile(List<Long> sorted, int percentile) {
+		return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(percentile / 100d * sorted.size()) - 1));
+	}
+}
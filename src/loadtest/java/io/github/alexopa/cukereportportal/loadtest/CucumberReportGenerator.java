@@ -0,0 +1,365 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.loadtest;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import javax.imageio.ImageIO;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Generates a synthetic cucumber json report and streams it straight to disk,
+ * so that reports with tens of thousands of scenarios can be generated without
+ * holding them in memory. The output can be used as
+ * <code>rp.importer.cucumberJsonFiles</code> in benchmarks and tests.
+ * <p>
+ * The generation is deterministic for a given {@link Settings#getSeed()}.
+ * Image embeddings are real PNG images of random noise, so their size does not
+ * shrink when they are compressed. A few images per size are rendered and
+ * reused across the report.
+ */
+public class CucumberReportGenerator {
+
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+	private static final String[] KEYWORDS = { "Given ", "When ", "And ", "Then " };
+	private static final int PREPARED_IMAGES = 4;
+	private static final int BASE64_CHUNK = 3 * 16 * 1024;
+
+	/**
+	 * The shape of a generated report
+	 */
+	@Builder
+	@Getter
+	public static class Settings {
+		/** The number of features */
+		@Builder.Default
+		private final int features = 10;
+		/** The number of scenarios of every feature */
+		@Builder.Default
+		private final int scenariosPerFeature = 50;
+		/** The number of steps of every scenario */
+		@Builder.Default
+		private final int stepsPerScenario = 8;
+		/** The number of before and after hooks of every scenario */
+		@Builder.Default
+		private final int scenarioHooks = 2;
+		/** The number of before step and after step hooks of every step */
+		@Builder.Default
+		private final int stepHooks = 0;
+		/** The ratio of scenarios, between 0 and 1, that fail */
+		@Builder.Default
+		private final double failureRatio = 0.05;
+		/** The ratio of steps, between 0 and 1, that have a data table */
+		@Builder.Default
+		private final double tableRatio = 0.2;
+		/** The number of rows of a data table, including the header */
+		@Builder.Default
+		private final int tableRows = 5;
+		/** The number of columns of a data table */
+		@Builder.Default
+		private final int tableColumns = 4;
+		/**
+		 * The number of distinct data tables. Lower values repeat the same tables,
+		 * as scenario outlines and backgrounds do
+		 */
+		@Builder.Default
+		private final int distinctTables = 20;
+		/** The ratio of steps, between 0 and 1, that have a doc string */
+		@Builder.Default
+		private final double docStringRatio = 0.1;
+		/** The ratio of steps, between 0 and 1, that have an embedding */
+		@Builder.Default
+		private final double embeddingRatio = 0.05;
+		/** The ratio of embeddings, between 0 and 1, that are PNG images */
+		@Builder.Default
+		private final double imageEmbeddingRatio = 0.5;
+		/** The minimum size in bytes of an embedding */
+		@Builder.Default
+		private final int minEmbeddingBytes = 10 * 1024;
+		/** The maximum size in bytes of an embedding */
+		@Builder.Default
+		private final int maxEmbeddingBytes = 1024 * 1024;
+		/** The seed of the generation */
+		@Builder.Default
+		private final long seed = 42;
+	}
+
+	private final Settings settings;
+	private final Random random;
+	private final List<byte[]> images = new ArrayList<>();
+	private final List<List<List<String>>> tables = new ArrayList<>();
+	private LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	/**
+	 * Creates a new {@link CucumberReportGenerator}
+	 * 
+	 * @param settings The {@link Settings} of the generated report
+	 */
+	public CucumberReportGenerator(Settings settings) {
+		this.settings = settings;
+		this.random = new Random(settings.getSeed());
+	}
+
+	/**
+	 * Generates a report with the default {@link Settings}, overridden by the
+	 * <code>generator.*</code> system properties that match the settings names
+	 * (ie. <code>-Dgenerator.features=100</code>). A file that ends with
+	 * <code>.gz</code> is gzip compressed
+	 * 
+	 * @param args The path of the report to generate
+	 * @throws IOException if the report cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			throw new IllegalArgumentException("Usage: CucumberReportGenerator <output file>");
+		}
+		new CucumberReportGenerator(settingsFromSystemProperties()).generate(Paths.get(args[0]));
+	}
+
+	/**
+	 * Returns the default {@link Settings}, overridden by the
+	 * <code>generator.*</code> system properties that match the settings names
+	 * 
+	 * @return The {@link Settings} of the system properties
+	 */
+	public static Settings settingsFromSystemProperties() {
+		Settings defaults = Settings.builder().build();
+		return Settings.builder().features(Integer.getInteger("generator.features", defaults.getFeatures()))
+				.scenariosPerFeature(
+						Integer.getInteger("generator.scenariosPerFeature", defaults.getScenariosPerFeature()))
+				.stepsPerScenario(Integer.getInteger("generator.stepsPerScenario", defaults.getStepsPerScenario()))
+				.scenarioHooks(Integer.getInteger("generator.scenarioHooks", defaults.getScenarioHooks()))
+				.stepHooks(Integer.getInteger("generator.stepHooks", defaults.getStepHooks()))
+				.failureRatio(doubleProperty("generator.failureRatio", defaults.getFailureRatio()))
+				.tableRatio(doubleProperty("generator.tableRatio", defaults.getTableRatio()))
+				.tableRows(Integer.getInteger("generator.tableRows", defaults.getTableRows()))
+				.tableColumns(Integer.getInteger("generator.tableColumns", defaults.getTableColumns()))
+				.distinctTables(Integer.getInteger("generator.distinctTables", defaults.getDistinctTables()))
+				.docStringRatio(doubleProperty("generator.docStringRatio", defaults.getDocStringRatio()))
+				.embeddingRatio(doubleProperty("generator.embeddingRatio", defaults.getEmbeddingRatio()))
+				.imageEmbeddingRatio(
+						doubleProperty("generator.imageEmbeddingRatio", defaults.getImageEmbeddingRatio()))
+				.minEmbeddingBytes(
+						Integer.getInteger("generator.minEmbeddingBytes", defaults.getMinEmbeddingBytes()))
+				.maxEmbeddingBytes(
+						Integer.getInteger("generator.maxEmbeddingBytes", defaults.getMaxEmbeddingBytes()))
+				.seed(Long.getLong("generator.seed", defaults.getSeed())).build();
+	}
+
+	/**
+	 * Generates a report. A file that ends with <code>.gz</code> is gzip
+	 * compressed
+	 * 
+	 * @param output A {@link Path} with the report to generate
+	 * @throws IOException if the report cannot be written
+	 */
+	public void generate(Path output) throws IOException {
+		boolean gzip = output.getFileName().toString().endsWith(".gz");
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(
+				gzip ? new GZIPOutputStream(Files.newOutputStream(output)) : Files.newOutputStream(output),
+				StandardCharsets.UTF_8), 64 * 1024)) {
+			out.write('[');
+			for (int f = 0; f < settings.getFeatures(); f++) {
+				if (f > 0) {
+					out.write(',');
+				}
+				writeFeature(out, f);
+			}
+			out.write("]\n");
+		}
+	}
+
+	private void writeFeature(Writer out, int f) throws IOException {
+		out.write(String.format("{\"uri\":\"classpath:features/generated_%1$d.feature\",\"id\":\"feature-%1$d\","
+				+ "\"keyword\":\"Feature\",\"name\":\"Generated feature %1$d\",\"description\":\"\",\"line\":1,"
+				+ "\"tags\":[{\"name\":\"@generated\",\"line\":1}],\"elements\":[", f));
+		for (int s = 0; s < settings.getScenariosPerFeature(); s++) {
+			if (s > 0) {
+				out.write(',');
+			}
+			writeScenario(out, f, s);
+		}
+		out.write("]}");
+	}
+
+	private void writeScenario(Writer out, int f, int s) throws IOException {
+		boolean failed = random.nextDouble() < settings.getFailureRatio();
+		int failedStep = failed ? random.nextInt(settings.getStepsPerScenario()) : -1;
+		int line = 3 + s * (settings.getStepsPerScenario() + 2);
+		timestamp = timestamp.plusSeconds(1);
+
+		out.write(String.format("{\"id\":\"feature-%1$d;scenario-%2$d\",\"keyword\":\"Scenario\","
+				+ "\"name\":\"Generated scenario %2$d\",\"description\":\"\",\"line\":%3$d,\"type\":\"scenario\","
+				+ "\"start_timestamp\":\"%4$s\",\"tags\":[{\"name\":\"@scenario%5$d\",\"line\":%6$d}],", f, s, line,
+				TIMESTAMP_FORMAT.format(timestamp), s % 10, line - 1));
+		writeHooks(out, "before", "hooks.Hooks.before", settings.getScenarioHooks());
+		out.write(",\"steps\":[");
+		for (int i = 0; i < settings.getStepsPerScenario(); i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			String status = failedStep < 0 || i < failedStep ? "passed" : i == failedStep ? "failed" : "skipped";
+			writeStep(out, line + 1 + i, i, status);
+		}
+		out.write("],");
+		writeHooks(out, "after", "hooks.Hooks.after", settings.getScenarioHooks());
+		out.write('}');
+	}
+
+	private void writeStep(Writer out, int line, int index, String status) throws IOException {
+		out.write(String.format("{\"keyword\":\"%s\",\"name\":\"the generated step %d is executed\",\"line\":%d,"
+				+ "\"match\":{\"location\":\"steps.GeneratedSteps.step%d(java.lang.String)\"},",
+				KEYWORDS[index % KEYWORDS.length], index, line, index));
+		writeResult(out, status, "failed".equals(status) ? "java.lang.AssertionError: generated failure\n"
+				+ "\tat steps.GeneratedSteps.step(GeneratedSteps.java:" + line + ")\n"
+				+ "\tat java.base/jdk.internal.reflect.NativeMethodAccessorImpl.invoke0(Native Method)" : null);
+
+		if (random.nextDouble() < settings.getTableRatio()) {
+			out.write(",\"rows\":[");
+			List<List<String>> table = table(random.nextInt(Math.max(1, settings.getDistinctTables())));
+			for (int r = 0; r < table.size(); r++) {
+				out.write(r > 0 ? ",{\"cells\":[" : "{\"cells\":[");
+				for (int c = 0; c < table.get(r).size(); c++) {
+					out.write(c > 0 ? ",\"" : "\"");
+					out.write(table.get(r).get(c));
+					out.write('"');
+				}
+				out.write("]}");
+			}
+			out.write(']');
+		}
+		if (random.nextDouble() < settings.getDocStringRatio()) {
+			out.write(String.format(",\"doc_string\":{\"content_type\":\"\",\"value\":\"{\\n  \\\"step\\\": %d,"
+					+ "\\n  \\\"payload\\\": \\\"generated\\\"\\n}\",\"line\":%d}", index, line + 1));
+		}
+		if (random.nextDouble() < settings.getEmbeddingRatio()) {
+			writeEmbedding(out);
+		}
+		if (settings.getStepHooks() > 0) {
+			out.write(',');
+			writeHooks(out, "before", "hooks.Hooks.beforeStep", settings.getStepHooks());
+			out.write(',');
+			writeHooks(out, "after", "hooks.Hooks.afterStep", settings.getStepHooks());
+		}
+		out.write('}');
+	}
+
+	private void writeHooks(Writer out, String name, String location, int count) throws IOException {
+		out.write("\"" + name + "\":[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			out.write("{\"match\":{\"location\":\"" + location + i + "()\"},");
+			writeResult(out, "passed", null);
+			out.write('}');
+		}
+		out.write(']');
+	}
+
+	private void writeResult(Writer out, String status, String errorMessage) throws IOException {
+		out.write("\"result\":{\"status\":\"" + status + "\",\"duration\":" + (1_000_000L + random.nextInt(50_000_000)));
+		if (errorMessage != null) {
+			out.write(",\"error_message\":\"" + errorMessage.replace("\n", "\\n").replace("\t", "\\t") + "\"");
+		}
+		out.write('}');
+	}
+
+	private void writeEmbedding(Writer out) throws IOException {
+		boolean image = random.nextDouble() < settings.getImageEmbeddingRatio();
+		byte[] data = image ? image() : json();
+		out.write(String.format(",\"embeddings\":[{\"mime_type\":\"%s\",\"name\":\"%s\",\"data\":\"",
+				image ? "image/png" : "application/json", image ? "screenshot" : "payload"));
+		Base64.Encoder encoder = Base64.getEncoder();
+		for (int offset = 0; offset < data.length; offset += BASE64_CHUNK) {
+			byte[] chunk = Arrays.copyOfRange(data, offset, Math.min(data.length, offset + BASE64_CHUNK));
+			out.write(encoder.encodeToString(chunk));
+		}
+		out.write("\"}]");
+	}
+
+	private List<List<String>> table(int index) {
+		while (tables.size() <= index) {
+			List<List<String>> table = new ArrayList<>();
+			for (int r = 0; r < settings.getTableRows(); r++) {
+				List<String> row = new ArrayList<>();
+				for (int c = 0; c < settings.getTableColumns(); c++) {
+					row.add(r == 0 ? "column" + c : "value-" + tables.size() + "-" + r + "-" + c);
+				}
+				table.add(row);
+			}
+			tables.add(table);
+		}
+		return tables.get(index);
+	}
+
+	private byte[] json() {
+		int size = embeddingSize();
+		StringBuilder json = new StringBuilder(size + 32).append("{\"items\":[");
+		for (int i = 0; json.length() < size; i++) {
+			json.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"value\":\"generated\"}");
+		}
+		return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private byte[] image() throws IOException {
+		if (images.size() < PREPARED_IMAGES) {
+			// noise does not compress, so 3 bytes per pixel give roughly the requested size
+			int side = Math.max(1, (int) Math.sqrt(embeddingSize() / 3d));
+			BufferedImage img = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+			for (int y = 0; y < side; y++) {
+				for (int x = 0; x < side; x++) {
+					img.setRGB(x, y, random.nextInt(0x1000000));
+				}
+			}
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+			ImageIO.write(img, "png", png);
+			images.add(png.toByteArray());
+		}
+		return images.get(random.nextInt(images.size()));
+	}
+
+	private int embeddingSize() {
+		int min = settings.getMinEmbeddingBytes();
+		return min + random.nextInt(Math.max(1, settings.getMaxEmbeddingBytes() - min + 1));
+	}
+
+	private static double doubleProperty(String name, double defaultValue) {
+		String value = System.getProperty(name);
+		return value == null ? defaultValue : Double.parseDouble(value);
+	}
+}
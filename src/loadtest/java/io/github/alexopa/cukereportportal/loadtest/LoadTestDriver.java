@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Properties;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClients;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.service.ReportPortalImporter;
+
+/**
+ * Runs {@link ReportPortalImporter} against a {@link MockReportPortalServer}
+ * for a list of thread settings, and prints the requests per second, the p50
+ * and p99 latency of the calls and the total wall time of every run.
+ * <p>
+ * The driver is configured with system properties:
+ * <ul>
+ * <li><code>loadtest.report</code>: the cucumber json report to import
+ * (default <code>loadtest-report.json</code>)</li>
+ * <li><code>loadtest.generated</code>: when <code>true</code>, the report is
+ * generated by {@link CucumberReportGenerator} with the
+ * <code>generator.*</code> system properties instead</li>
+ * <li><code>loadtest.copies</code>: how many times the report is imported in
+ * the same launch (default 20)</li>
+ * <li><code>loadtest.threads</code>: a comma separated list of
+ * <code>features x scenarios</code> thread settings (default
+ * <code>1x1,2x2,4x4,8x8</code>)</li>
+ * <li><code>loadtest.latencyMs</code>, <code>loadtest.jitterMs</code>,
+ * <code>loadtest.errorRate</code>, <code>loadtest.maxRequestsPerSecond</code>:
+ * the {@link MockReportPortalServer.Settings}</li>
+ * </ul>
+ */
+public class LoadTestDriver {
+
+	/**
+	 * Runs the load test
+	 * 
+	 * @param args not used
+	 * @throws IOException if the mock server cannot be started
+	 */
+	public static void main(String[] args) throws IOException {
+		MockReportPortalServer.Settings settings = MockReportPortalServer.Settings.builder()
+				.latencyMs(Long.getLong("loadtest.latencyMs", 5))
+				.jitterMs(Long.getLong("loadtest.jitterMs", 5))
+				.errorRate(Double.parseDouble(System.getProperty("loadtest.errorRate", "0")))
+				.maxRequestsPerSecond(Integer.getInteger("loadtest.maxRequestsPerSecond", 0))
+				.build();
+
+		String report = Boolean.getBoolean("loadtest.generated") ? generateReport()
+				: System.getProperty("loadtest.report", "loadtest-report.json");
+		int copies = Integer.getInteger("loadtest.copies", 20);
+
+		try (MockReportPortalServer server = new MockReportPortalServer(settings)) {
+			System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "threads", "requests", "failures", "req/s",
+					"p50 ms", "p99 ms", "wall ms");
+			for (String threads : System.getProperty("loadtest.threads", "1x1,2x2,4x4,8x8").split(",")) {
+				String[] featuresAndScenarios = threads.trim().split("x");
+				server.reset();
+
+				Properties props = new Properties();
+				props.setProperty(RPImporterProperties.RP_IMPORTER_CUCUMBER_JSON_FILES.getPropertyName(),
+						String.join(";", Collections.nCopies(copies, report)));
+				props.setProperty(RPImporterProperties.RP_IMPORTER_LAUNCH_NAME.getPropertyName(), "load-test");
+				props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_ENDPOINT.getPropertyName(),
+						server.getEndpoint());
+				props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_PROJECT_NAME.getPropertyName(),
+						"load_test");
+				props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_API_KEY.getPropertyName(), "key");
+				props.setProperty(RPImporterProperties.RP_IMPORTER_THREADS_FEATURES.getPropertyName(),
+						featuresAndScenarios[0]);
+				props.setProperty(RPImporterProperties.RP_IMPORTER_THREADS_SCENARIOS.getPropertyName(),
+						featuresAndScenarios[1]);
+				RPImporterPropertyHandler propertyHandler = new RPImporterPropertyHandler(props);
+
+				try (TimingReportPortalClient rpClient = new TimingReportPortalClient(
+						ReportPortalClients.create(propertyHandler.getConfig()))) {
+					long start = System.nanoTime();
+					new ReportPortalImporter(propertyHandler, rpClient).importCucumberReports();
+					double wallMs = (System.nanoTime() - start) / 1_000_000d;
+
+					System.out.printf(Locale.ROOT, "%-10s %10d %10d %10.1f %10.2f %10.2f %10.0f%n", threads.trim(),
+							server.getRequests(), rpClient.getFailures(), server.getRequests() / (wallMs / 1000),
+							rpClient.percentileMs(50), rpClient.percentileMs(99), wallMs);
+				}
+			}
+		}
+	}
+
+	private static String generateReport() throws IOException {
+		Path report = Files.createTempFile("loadtest-report_", ".json");
+		report.toFile().deleteOnExit();
+		new CucumberReportGenerator(CucumberReportGenerator.settingsFromSystemProperties()).generate(report);
+		System.out.printf("Generated report %s of %d bytes%n", report, Files.size(report));
+		return report.toAbsolutePath().toString();
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * An in-process stand-in of the ReportPortal api. Every request is answered
+ * with a json body that carries the fields of all the responses the importer
+ * reads (launch, item, log and finish responses), after the configured latency
+ * and jitter. Requests can also fail randomly with <code>503</code> or be
+ * throttled with <code>429</code> when they exceed the configured rate.
+ */
+public class MockReportPortalServer implements AutoCloseable {
+
+	/**
+	 * The behavior of a {@link MockReportPortalServer}
+	 */
+	@Builder
+	@Getter
+	public static class Settings {
+		/** The fixed latency in milliseconds that is added to every request */
+		private final long latencyMs;
+		/** The maximum random latency in milliseconds on top of the fixed one */
+		private final long jitterMs;
+		/** The ratio of requests, between 0 and 1, that fail with 503 */
+		private final double errorRate;
+		/** The maximum requests per second, 0 for unlimited */
+		private final int maxRequestsPerSecond;
+	}
+
+	private final Settings settings;
+	private final HttpServer server;
+	private final ExecutorService executorService = Executors.newCachedThreadPool();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+
+	private long currentSecond;
+	private int requestsInSecond;
+
+	/**
+	 * Creates and starts a new {@link MockReportPortalServer} on a random local
+	 * port
+	 * 
+	 * @param settings The {@link Settings} of the server
+	 * @throws IOException if the server cannot be started
+	 */
+	public MockReportPortalServer(Settings settings) throws IOException {
+		this.settings = settings;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(executorService);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	/**
+	 * Returns the endpoint of the server, without the api path
+	 * 
+	 * @return A {@link String} with the endpoint of the server
+	 */
+	public String getEndpoint() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns the number of requests that were received
+	 * 
+	 * @return a <code>long</code> with the number of requests
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * Returns the number of requests that failed with 503
+	 * 
+	 * @return a <code>long</code> with the number of failed requests
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Returns the number of requests that were throttled with 429
+	 * 
+	 * @return a <code>long</code> with the number of throttled requests
+	 */
+	public long getThrottled() {
+		return throttled.get();
+	}
+
+	/**
+	 * Resets the request counters
+	 */
+	public void reset() {
+		requests.set(0);
+		errors.set(0);
+		throttled.set(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			try (InputStream body = exchange.getRequestBody()) {
+				body.transferTo(OutputStream.nullOutputStream());
+			}
+			requests.incrementAndGet();
+
+			if (isThrottled()) {
+				throttled.incrementAndGet();
+				respond(exchange, 429, "{\"message\":\"Too many requests\"}");
+				return;
+			}
+			sleep(settings.getLatencyMs()
+					+ (settings.getJitterMs() > 0 ? ThreadLocalRandom.current().nextLong(settings.getJitterMs() + 1)
+							: 0));
+			if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+				errors.incrementAndGet();
+				respond(exchange, 503, "{\"message\":\"Service unavailable\"}");
+				return;
+			}
+
+			String id = UUID.randomUUID().toString();
+			respond(exchange, "POST".equals(exchange.getRequestMethod()) ? 201 : 200,
+					String.format("{\"id\":\"%1$s\",\"uuid\":\"%1$s\",\"number\":1,\"link\":\"%2$s/ui/#launches/%1$s\","
+							+ "\"message\":\"ok\",\"responses\":[{\"id\":\"%1$s\"}]}", id, getEndpoint()));
+		}
+	}
+
+	private synchronized boolean isThrottled() {
+		if (settings.getMaxRequestsPerSecond() <= 0) {
+			return false;
+		}
+		long second = System.currentTimeMillis() / 1000;
+		if (second != currentSecond) {
+			currentSecond = second;
+			requestsInSecond = 0;
+		}
+		return ++requestsInSecond > settings.getMaxRequestsPerSecond();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	private static void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executorService.shutdownNow();
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.loadtest;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@link ReportPortalClient} that records the latency of every call of
+ * another {@link ReportPortalClient}
+ */
+@RequiredArgsConstructor
+class TimingReportPortalClient implements ReportPortalClient {
+
+	private final ReportPortalClient delegate;
+
+	private long[] latencies = new long[1024];
+	private int count;
+	private int failures;
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return time(() -> delegate.startLaunch(props));
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		return time(() -> delegate.finishLaunch(props));
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return time(() -> delegate.startItem(props));
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		time(() -> {
+			delegate.finishItem(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		time(() -> {
+			delegate.addLog(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		time(() -> {
+			delegate.addFileAttachment(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	/**
+	 * Returns the number of recorded calls
+	 * 
+	 * @return an <code>int</code> with the number of calls
+	 */
+	synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of calls that failed
+	 * 
+	 * @return an <code>int</code> with the number of failed calls
+	 */
+	synchronized int getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Returns a percentile of the recorded latencies
+	 * 
+	 * @param percentile The percentile, between 0 and 100
+	 * @return a <code>double</code> with the latency in milliseconds
+	 */
+	synchronized double percentileMs(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * count) - 1;
+		return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000d;
+	}
+
+	private <T> T time(Supplier<T> call) {
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			T result = call.get();
+			failed = false;
+			return result;
+		} finally {
+			record(System.nanoTime() - start, failed);
+		}
+	}
+
+	private synchronized void record(long nanos, boolean failed) {
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+		latencies[count++] = nanos;
+		if (failed) {
+			failures++;
+		}
+	}
+}
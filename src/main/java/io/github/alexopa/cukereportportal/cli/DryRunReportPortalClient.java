@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.cli;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * A {@link ReportPortalClient} that does not call ReportPortal, but only counts
+ * the operations and returns random ids. It is used by the
+ * <code>--dry-run</code> option of {@link ImporterCli}, and by the run that
+ * records the class-data sharing archive of the cli
+ */
+class DryRunReportPortalClient implements ReportPortalClient {
+
+	private final AtomicInteger items = new AtomicInteger();
+	private final AtomicInteger logs = new AtomicInteger();
+	private final AtomicInteger attachments = new AtomicInteger();
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		StartLaunchResponse response = new StartLaunchResponse();
+		response.setId(UUID.randomUUID().toString());
+		return response;
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		FinishLaunchResponse response = new FinishLaunchResponse();
+		response.setId(props.getLaunchUuid());
+		return response;
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		items.incrementAndGet();
+		EntryCreatedResponse response = new EntryCreatedResponse();
+		response.setId(UUID.randomUUID().toString());
+		return response;
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		// nothing to finish
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		logs.incrementAndGet();
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		attachments.incrementAndGet();
+	}
+
+	/**
+	 * Returns a summary of the operations that would have been sent
+	 * 
+	 * @return A {@link String} with the number of items, logs and attachments
+	 */
+	String summary() {
+		return String.format("%d items, %d logs and %d attachments", items.get(), logs.get(), attachments.get());
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.cli;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClients;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.service.DistributedImporter;
+import io.github.alexopa.cukereportportal.service.ReportPortalImporter;
+import io.github.alexopa.cukereportportal.spool.SpoolRecordingClient;
+
+/**
+ * The command line interface of the importer. Every property of
+ * {@link RPImporterProperties} can be given as an option, with or without its
+ * <code>rp.importer.</code> prefix, ie. <code>--launch.name=nightly</code> or
+ * <code>--rp.importer.launch.name nightly</code>. The options override the
+ * system properties, which override the properties file. The arguments that
+ * are not options are the cucumber reports to import, and replace
+ * {@link RPImporterProperties#RP_IMPORTER_CUCUMBER_JSON_FILES}.
+ * <p>
+ * The other options are:
+ * <ul>
+ * <li><code>--properties &lt;file&gt;</code>: the properties file, instead of
+ * <code>rp-cucumber-import.properties</code></li>
+ * <li><code>--validate</code>: only validates the properties, including the
+ * ReportPortal endpoint, project, api key and launch name that an import
+ * needs</li>
+ * <li><code>--dry-run</code>: reads and imports the reports without calling
+ * ReportPortal</li>
+ * <li><code>--coordinate</code>, <code>--work</code>: runs the coordinator or a
+ * worker of a distributed import (see {@link DistributedImporter})</li>
+ * <li><code>--help</code>: prints the options and the default values of the
+ * properties</li>
+ * </ul>
+ * The process exits with {@value #EXIT_OK} when the reports are imported,
+ * {@value #EXIT_FAILED} when the import fails and {@value #EXIT_USAGE} when the
+ * options or the properties are invalid.
+ */
+public class ImporterCli {
+
+	/**
+	 * Exit code of a successful run
+	 */
+	public static final int EXIT_OK = 0;
+
+	/**
+	 * Exit code of a failed import
+	 */
+	public static final int EXIT_FAILED = 1;
+
+	/**
+	 * Exit code of invalid options or properties
+	 */
+	public static final int EXIT_USAGE = 2;
+
+	private static final String PROPERTY_PREFIX = "rp.importer.";
+	private static final String USAGE = "Usage: cuke-to-reportportal [options] [report ...]";
+
+	private final PrintStream out;
+	private final PrintStream err;
+
+	/**
+	 * Creates a new {@link ImporterCli}
+	 * 
+	 * @param out The {@link PrintStream} for the results
+	 * @param err The {@link PrintStream} for the errors
+	 */
+	public ImporterCli(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Runs the cli and exits the JVM with its exit code
+	 * 
+	 * @param args The options and the reports to import
+	 */
+	public static void main(String[] args) {
+		System.exit(new ImporterCli(System.out, System.err).run(args));
+	}
+
+	/**
+	 * Runs the cli
+	 * 
+	 * @param args The options and the reports to import
+	 * @return The exit code of the run
+	 */
+	public int run(String... args) {
+		Options options;
+		RPImporterPropertyHandler propertyHandler;
+		try {
+			options = parse(args);
+			if (options.help) {
+				printHelp();
+				return EXIT_OK;
+			}
+			propertyHandler = options.propertiesFile == null ? new RPImporterPropertyHandler(options.properties)
+					: new RPImporterPropertyHandler(options.propertiesFile, options.properties);
+			if (options.dryRun) {
+				propertyHandler = propertyHandler.withoutReportPortal();
+			}
+			propertyHandler.getConfig();
+		} catch (RPImporterException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			err.println("Use --help to list the options");
+			return EXIT_USAGE;
+		}
+		if (options.validate) {
+			out.println("The properties are valid");
+			return EXIT_OK;
+		}
+
+		try {
+			long start = System.nanoTime();
+			ReportPortalClient rpClient;
+			DryRunReportPortalClient dryRun = null;
+			if (options.dryRun) {
+				if (StringUtils.isNotBlank(propertyHandler.getReportPortalEndpoint())) {
+					// not used, but its settings are checked and its classes are loaded, so that
+					// they are also part of the class-data sharing archive that is recorded with a
+					// dry run
+					ReportPortalClients.create(propertyHandler.getConfig()).close();
+				}
+				rpClient = dryRun = new DryRunReportPortalClient();
+			} else if (StringUtils.isNotBlank(propertyHandler.getConfig().getSpoolFile())) {
+				rpClient = new SpoolRecordingClient(Paths.get(propertyHandler.getConfig().getSpoolFile()));
+			} else {
+				rpClient = ReportPortalClients.create(propertyHandler.getConfig());
+			}
+			CukeTestRun testRun;
+			try (rpClient) {
+				if (options.work) {
+					int units = new DistributedImporter(propertyHandler, rpClient).work();
+					out.printf("Imported %d work units in %d ms%n", units,
+							TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+					return EXIT_OK;
+				}
+				testRun = options.coordinate
+						? new DistributedImporter(propertyHandler, rpClient).coordinate()
+						: new ReportPortalImporter(propertyHandler, rpClient).importCucumberReports();
+			}
+			out.printf("Imported %d features in %d ms%n", testRun == null ? 0 : testRun.getFeatures().size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			if (dryRun != null) {
+				out.printf("Dry run, nothing was sent to ReportPortal: %s%n", dryRun.summary());
+			}
+			return EXIT_OK;
+		} catch (RuntimeException e) {
+			err.printf("Import failed: %s%n", e.getMessage());
+			e.printStackTrace(err);
+			return EXIT_FAILED;
+		}
+	}
+
+	private Options parse(String[] args) {
+		Map<String, RPImporterProperties> byOption = new LinkedHashMap<>();
+		for (RPImporterProperties prop : RPImporterProperties.values()) {
+			byOption.put(prop.getPropertyName(), prop);
+			byOption.put(StringUtils.removeStart(prop.getPropertyName(), PROPERTY_PREFIX), prop);
+		}
+
+		Options options = new Options();
+		List<String> reports = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("-")) {
+				reports.add(absolute(arg));
+				continue;
+			}
+			String option = StringUtils.removeStart(StringUtils.removeStart(arg, "-"), "-");
+			String name = StringUtils.substringBefore(option, "=");
+			String value = option.contains("=") ? StringUtils.substringAfter(option, "=") : null;
+			switch (name) {
+			case "h", "help" -> options.help = true;
+			case "validate" -> options.validate = true;
+			case "dry-run" -> options.dryRun = true;
+			case "coordinate" -> options.coordinate = true;
+			case "work" -> options.work = true;
+			case "properties" -> options.propertiesFile = absolute(value != null ? value : next(args, ++i, arg));
+			default -> {
+				RPImporterProperties prop = byOption.get(name);
+				if (prop == null) {
+					throw new RPImporterException(String.format("Unknown option %s", arg));
+				}
+				options.properties.setProperty(prop.getPropertyName(), value != null ? value : next(args, ++i, arg));
+			}
+			}
+		}
+		if (options.coordinate && options.work) {
+			throw new RPImporterException("--coordinate and --work cannot be combined");
+		}
+		if (!reports.isEmpty()) {
+			options.properties.setProperty(RPImporterProperties.RP_IMPORTER_CUCUMBER_JSON_FILES.getPropertyName(),
+					String.join(";", reports));
+		}
+		return options;
+	}
+
+	private static String next(String[] args, int i, String option) {
+		if (i >= args.length) {
+			throw new RPImporterException(String.format("Option %s needs a value", option));
+		}
+		return args[i];
+	}
+
+	/**
+	 * Relative paths are resolved by the importer from the classpath, so the paths
+	 * that are given on the command line are made absolute, relative to the working
+	 * directory. Glob patterns and <code>classpath:</code> entries are kept as they
+	 * are
+	 */
+	private static String absolute(String path) {
+		if (path.startsWith("classpath:") || StringUtils.containsAny(path, '*', '?', '[', '{')
+				|| Paths.get(path).isAbsolute()) {
+			return path;
+		}
+		return Paths.get(path).toAbsolutePath().normalize().toString();
+	}
+
+	private void printHelp() {
+		out.println(USAGE);
+		out.println();
+		out.println("Imports cucumber json reports to ReportPortal. The reports replace the value of --cucumberJsonFiles.");
+		out.println();
+		out.println("Options:");
+		out.printf("  %-40s %s%n", "--properties <file>", "the properties file (default rp-cucumber-import.properties)");
+		out.printf("  %-40s %s%n", "--validate", "only validate the properties");
+		out.printf("  %-40s %s%n", "--dry-run", "import without calling ReportPortal");
+		out.printf("  %-40s %s%n", "--coordinate", "coordinate a distributed import, see --distributed.*");
+		out.printf("  %-40s %s%n", "--work", "import work units of a distributed import");
+		out.printf("  %-40s %s%n", "--help", "print this help");
+		out.println();
+		out.println("Properties, as --<name>=<value> or --<name> <value>, with their default values:");
+		for (RPImporterProperties prop : RPImporterProperties.values()) {
+			out.printf("  --%-38s %s%n", StringUtils.removeStart(prop.getPropertyName(), PROPERTY_PREFIX),
+					StringUtils.defaultIfEmpty(prop.getDefaultValue(), "-"));
+		}
+	}
+
+	private static class Options {
+		private final Properties properties = new Properties();
+		private String propertiesFile;
+		private boolean help;
+		private boolean validate;
+		private boolean dryRun;
+		private boolean coordinate;
+		private boolean work;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A circuit breaker that is shared by all the importer threads of a launch.
+ * After a number of consecutive transient failures the circuit opens and every
+ * caller is paused until the open period elapses. Then a single probe call is
+ * let through: if it succeeds the circuit closes, otherwise it opens again.
+ */
+@Slf4j
+class CircuitBreaker {
+
+	private enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openDurationMs;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openUntil;
+	private boolean probeInFlight;
+
+	/**
+	 * Creates a new {@link CircuitBreaker}
+	 *
+	 * @param failureThreshold The number of consecutive failures that open the
+	 *                         circuit. A value lower than 1 disables the breaker
+	 * @param openDurationMs   The time in milliseconds that the circuit stays open
+	 */
+	CircuitBreaker(int failureThreshold, long openDurationMs) {
+		this.failureThreshold = failureThreshold;
+		this.openDurationMs = openDurationMs;
+	}
+
+	/**
+	 * Blocks the caller while the circuit is open, or while another caller probes
+	 * a half-open circuit
+	 *
+	 * @throws InterruptedException if the caller is interrupted while waiting
+	 */
+	synchronized void acquirePermission() throws InterruptedException {
+		while (true) {
+			if (state == State.CLOSED) {
+				return;
+			}
+			if (state == State.OPEN) {
+				long remaining = openUntil - System.currentTimeMillis();
+				if (remaining > 0) {
+					wait(remaining);
+					continue;
+				}
+				state = State.HALF_OPEN;
+				probeInFlight = false;
+			}
+			if (!probeInFlight) {
+				probeInFlight = true;
+				return;
+			}
+			wait();
+		}
+	}
+
+	/**
+	 * Records a successful call
+	 */
+	synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		if (state != State.CLOSED) {
+			log.info("ReportPortal is responding again, closing circuit");
+			state = State.CLOSED;
+		}
+		probeInFlight = false;
+		notifyAll();
+	}
+
+	/**
+	 * Records a transient failure
+	 */
+	synchronized void onFailure() {
+		consecutiveFailures++;
+		if (failureThreshold > 0 && (state == State.HALF_OPEN
+				|| (state == State.CLOSED && consecutiveFailures >= failureThreshold))) {
+			log.warn("ReportPortal failed {} consecutive calls, pausing calls for {} ms", consecutiveFailures,
+					openDurationMs);
+			state = State.OPEN;
+			openUntil = System.currentTimeMillis() + openDurationMs;
+		}
+		probeInFlight = false;
+		notifyAll();
+	}
+
+	/**
+	 * Releases the permission of a call that failed for a non transient reason.
+	 * The state of the circuit is not changed
+	 */
+	synchronized void release() {
+		probeInFlight = false;
+		notifyAll();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.nio.file.Path;
+
+import io.github.alexopa.reportportalclient.RPClient;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * A {@link ReportPortalClient} that calls ReportPortal through an
+ * {@link RPClient}, and imports launches through a {@link LaunchImportUploader}
+ */
+public class DefaultReportPortalClient implements ReportPortalClient {
+
+	private final RPClient rpClient;
+	private final LaunchImportUploader launchImportUploader;
+
+	/**
+	 * Creates a new {@link DefaultReportPortalClient}, that does not import
+	 * launches
+	 * 
+	 * @param rpClient The {@link RPClient} to call ReportPortal with
+	 */
+	public DefaultReportPortalClient(RPClient rpClient) {
+		this(rpClient, null);
+	}
+
+	/**
+	 * Creates a new {@link DefaultReportPortalClient}
+	 * 
+	 * @param rpClient             The {@link RPClient} to call ReportPortal with
+	 * @param launchImportUploader The {@link LaunchImportUploader} of the same
+	 *                             endpoint, or <code>null</code>
+	 */
+	DefaultReportPortalClient(RPClient rpClient, LaunchImportUploader launchImportUploader) {
+		this.rpClient = rpClient;
+		this.launchImportUploader = launchImportUploader;
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return rpClient.startLaunch(props);
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		return rpClient.finishLaunch(props);
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return rpClient.startItem(props);
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		rpClient.finishItem(props);
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		rpClient.addLog(props);
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		rpClient.addFileAttachment(props);
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		if (launchImportUploader == null) {
+			return ReportPortalClient.super.importLaunch(props, archive);
+		}
+		return launchImportUploader.upload(props, archive);
+	}
+}
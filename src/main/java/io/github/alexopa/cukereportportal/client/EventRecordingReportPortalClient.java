@@ -0,0 +1,153 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import io.github.alexopa.cukereportportal.jfr.ReportPortalCallEvent;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * A {@link ReportPortalClient} that emits a {@link ReportPortalCallEvent} for
+ * every call of another {@link ReportPortalClient}. The ids and the payload
+ * size of a call are only resolved when the event is enabled in a running
+ * recording.
+ */
+class EventRecordingReportPortalClient implements ReportPortalClient {
+
+	private final ReportPortalClient delegate;
+	private final String endpoint;
+
+	/**
+	 * Creates a new {@link EventRecordingReportPortalClient}
+	 * 
+	 * @param delegate The {@link ReportPortalClient} to decorate
+	 * @param endpoint A {@link String} with the ReportPortal endpoint that the
+	 *                 delegate calls
+	 */
+	EventRecordingReportPortalClient(ReportPortalClient delegate, String endpoint) {
+		this.delegate = delegate;
+		this.endpoint = endpoint;
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return record("startLaunch", () -> delegate.startLaunch(props),
+				(event, response) -> event.launchUuid = response.getId());
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		return record("finishLaunch", () -> delegate.finishLaunch(props),
+				(event, response) -> event.launchUuid = props.getLaunchUuid());
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return record("startItem", () -> delegate.startItem(props), (event, response) -> {
+			event.launchUuid = props.getLaunchUuid();
+			event.itemUuid = response.getId();
+		});
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		record("finishItem", () -> {
+			delegate.finishItem(props);
+			return null;
+		}, (event, response) -> {
+			event.launchUuid = props.getLaunchUuid();
+			event.itemUuid = props.getItemUuid();
+		});
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		record("addLog", () -> {
+			delegate.addLog(props);
+			return null;
+		}, (event, response) -> {
+			event.launchUuid = props.getLaunchId();
+			event.itemUuid = props.getItemId();
+			event.payloadSize = props.getMessage() == null ? 0
+					: props.getMessage().getBytes(StandardCharsets.UTF_8).length;
+		});
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		record("addFileAttachment", () -> {
+			delegate.addFileAttachment(props);
+			return null;
+		}, (event, response) -> {
+			event.launchUuid = props.getLaunchUuid();
+			event.itemUuid = props.getItemUuid();
+			event.payloadSize = new File(props.getFullPath()).length();
+		});
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		return record("importLaunch", () -> delegate.importLaunch(props, archive),
+				(event, response) -> event.payloadSize = archive.toFile().length());
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	private <T> T record(String operation, Supplier<T> call, Details<T> details) {
+		ReportPortalCallEvent event = new ReportPortalCallEvent();
+		event.begin();
+		T result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			if (event.shouldCommit()) {
+				event.operation = operation;
+				event.endpoint = endpoint;
+				event.failed = true;
+				event.commit();
+			}
+			throw e;
+		}
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.endpoint = endpoint;
+			details.fill(event, result);
+			event.commit();
+		}
+		return result;
+	}
+
+	@FunctionalInterface
+	private interface Details<T> {
+		void fill(ReportPortalCallEvent event, T response);
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ReportPortalClient} that hedges the finish calls of another
+ * {@link ReportPortalClient}. When a finish call takes longer than a percentile
+ * of the recent latencies of its operation, the same call is sent again and the
+ * first successful response is used, so a single stalled request does not delay
+ * the chain of calls of a scenario.
+ * <p>
+ * Only the finish calls are hedged, because they are idempotent. ReportPortal
+ * creates the uuid of a launch or an item on the start call, and a duplicate
+ * log call adds a second log entry, so the other calls are passed through. The
+ * number of duplicate calls is capped to a percentage of the hedged calls.
+ * <p>
+ * Once the threshold of an operation is known, both calls run in a pool of the
+ * client and the calling thread only waits for the first successful response,
+ * so it returns as soon as the duplicate succeeds even when the first call is
+ * stuck in blocking I/O. The slower call is abandoned, not interrupted: it is
+ * left to finish in the pool, and its failure is not counted against its
+ * endpoint (see {@link #isCancelled()}). At most {@value #MAX_HEDGES_IN_FLIGHT}
+ * hedged pairs run at the same time, so abandoned calls cannot hold an
+ * unbounded number of threads. The pool is shut down by {@link #close()}.
+ */
+@Slf4j
+class HedgingReportPortalClient implements ReportPortalClient {
+
+	private static final long TOKEN = 1000;
+	private static final long MAX_TOKENS = 10 * TOKEN;
+	private static final int MAX_HEDGES_IN_FLIGHT = (int) (MAX_TOKENS / TOKEN);
+	private static final long IDLE_SECONDS = 60;
+	private static final ThreadLocal<AtomicBoolean> CANCELLED = new ThreadLocal<>();
+
+	private final ReportPortalClient delegate;
+	private final LatencyTracker finishItemLatency;
+	private final LatencyTracker finishLaunchLatency;
+	private final long tokensPerCall;
+	private final AtomicLong tokens = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicInteger hedgesInFlight = new AtomicInteger();
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Creates a new {@link HedgingReportPortalClient}
+	 * 
+	 * @param delegate      The {@link ReportPortalClient} to decorate
+	 * @param percentile    The percentile (1-99) of the latency of an operation
+	 *                      after which a call is hedged
+	 * @param budgetPercent The maximum percentage (0-100) of the hedged calls that
+	 *                      are sent a second time
+	 */
+	HedgingReportPortalClient(ReportPortalClient delegate, int percentile, int budgetPercent) {
+		this.delegate = delegate;
+		this.finishItemLatency = new LatencyTracker(percentile);
+		this.finishLaunchLatency = new LatencyTracker(percentile);
+		this.tokensPerCall = TOKEN * budgetPercent / 100;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, IDLE_SECONDS, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), r -> {
+					Thread thread = new Thread(r, "rp-importer-hedging-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return delegate.startLaunch(props);
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		FinishLaunchResponse response = hedge("finishLaunch", finishLaunchLatency, () -> delegate.finishLaunch(props));
+		if (hedges.get() > 0) {
+			log.info("Sent {} hedged ReportPortal calls", hedges.get());
+		}
+		return response;
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return delegate.startItem(props);
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		hedge("finishItem", finishItemLatency, () -> {
+			delegate.finishItem(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		delegate.addLog(props);
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		delegate.addFileAttachment(props);
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		return delegate.importLaunch(props, archive);
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		delegate.close();
+	}
+
+	/**
+	 * Checks whether the call that runs in the current thread is a hedged call
+	 * that lost to its duplicate and was abandoned
+	 * 
+	 * @return <code>true</code> if the call of the current thread was abandoned
+	 */
+	static boolean isCancelled() {
+		AtomicBoolean cancelled = CANCELLED.get();
+		return cancelled != null && cancelled.get();
+	}
+
+	private <T> T hedge(String operation, LatencyTracker latency, Supplier<T> call) {
+		tokens.updateAndGet(t -> Math.min(MAX_TOKENS, t + tokensPerCall));
+		long start = System.nanoTime();
+		long threshold = latency.threshold();
+		// until the threshold is learned there is nothing to hedge against
+		T response = threshold == Long.MAX_VALUE ? call.get() : hedged(operation, threshold, call);
+		latency.record(System.nanoTime() - start);
+		return response;
+	}
+
+	private <T> T hedged(String operation, long threshold, Supplier<T> call) {
+		Attempt<T> first = submit(call);
+		if (first == null) {
+			// the client is closed
+			return call.get();
+		}
+		Attempt<T> second = null;
+		try {
+			try {
+				return first.response().get(threshold, TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				second = sendHedge(operation, threshold, call);
+			}
+			return second == null ? first.response().get() : firstSuccess(first, second).get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new RPImporterException(String.format("Call %s failed", operation), e.getCause());
+		} catch (InterruptedException e) {
+			first.abandon();
+			if (second != null) {
+				second.abandon();
+			}
+			Thread.currentThread().interrupt();
+			throw new RPImporterException(String.format("Interrupted while waiting for %s", operation), e);
+		}
+	}
+
+	private <T> Attempt<T> sendHedge(String operation, long threshold, Supplier<T> call) {
+		if (hedgesInFlight.incrementAndGet() > MAX_HEDGES_IN_FLIGHT
+				|| tokens.getAndUpdate(t -> t >= TOKEN ? t - TOKEN : t) < TOKEN) {
+			hedgesInFlight.decrementAndGet();
+			return null;
+		}
+		Attempt<T> second = submit(call);
+		if (second == null) {
+			tokens.updateAndGet(t -> Math.min(MAX_TOKENS, t + TOKEN));
+			hedgesInFlight.decrementAndGet();
+			return null;
+		}
+		hedges.incrementAndGet();
+		log.debug("Call {} is slower than {} ms, sending it again", operation,
+				TimeUnit.NANOSECONDS.toMillis(threshold));
+		return second;
+	}
+
+	/**
+	 * Completes with the first successful response of two attempts, or with the
+	 * failure of the attempt that fails last. The attempt that loses is
+	 * abandoned. The pair counts as in flight until both attempts are done
+	 */
+	private <T> CompletableFuture<T> firstSuccess(Attempt<T> first, Attempt<T> second) {
+		CompletableFuture<T> response = new CompletableFuture<>();
+		AtomicInteger failures = new AtomicInteger();
+		for (Attempt<T> attempt : List.of(first, second)) {
+			attempt.response().whenComplete((r, e) -> {
+				if (e == null) {
+					if (response.complete(r)) {
+						first.abandon();
+						second.abandon();
+					}
+				} else if (failures.incrementAndGet() == 2) {
+					response.completeExceptionally(e);
+				}
+			});
+		}
+		CompletableFuture.allOf(first.response(), second.response())
+				.whenComplete((r, e) -> hedgesInFlight.decrementAndGet());
+		return response;
+	}
+
+	private <T> Attempt<T> submit(Supplier<T> call) {
+		Attempt<T> attempt = new Attempt<>(new CompletableFuture<>(), new AtomicBoolean());
+		try {
+			executor.execute(() -> {
+				CANCELLED.set(attempt.cancelled());
+				try {
+					attempt.response().complete(call.get());
+				} catch (Throwable e) {
+					attempt.response().completeExceptionally(e);
+				} finally {
+					CANCELLED.remove();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			return null;
+		}
+		return attempt;
+	}
+
+	/**
+	 * A call that runs in the pool of the client. Abandoning it only marks it,
+	 * the pool thread is not interrupted, and the call finishes in the background
+	 */
+	private record Attempt<T>(CompletableFuture<T> response, AtomicBoolean cancelled) {
+
+		private void abandon() {
+			cancelled.set(true);
+		}
+	}
+}
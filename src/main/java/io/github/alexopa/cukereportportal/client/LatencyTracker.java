@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent calls of an operation, and derives a
+ * percentile of them. The percentile is recomputed every
+ * {@value #REFRESH_INTERVAL} calls, so it follows changes of the latency
+ * without sorting the samples on every call.
+ */
+class LatencyTracker {
+
+	private static final int SAMPLES = 1024;
+	private static final int MIN_SAMPLES = 100;
+	private static final int REFRESH_INTERVAL = 64;
+
+	private final int percentile;
+	private final long[] samples = new long[SAMPLES];
+	private long count;
+	private volatile long threshold = Long.MAX_VALUE;
+
+	/**
+	 * Creates a new {@link LatencyTracker}
+	 * 
+	 * @param percentile The percentile (1-99) of the latencies to track
+	 */
+	LatencyTracker(int percentile) {
+		this.percentile = percentile;
+	}
+
+	/**
+	 * Records the latency of a call
+	 * 
+	 * @param nanos The latency of the call in nanoseconds
+	 */
+	synchronized void record(long nanos) {
+		samples[(int) (count % SAMPLES)] = nanos;
+		count++;
+		if (count >= MIN_SAMPLES && count % REFRESH_INTERVAL == 0) {
+			long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+			Arrays.sort(sorted);
+			threshold = sorted[(int) ((sorted.length - 1L) * percentile / 100)];
+		}
+	}
+
+	/**
+	 * Returns the tracked percentile of the latencies
+	 * 
+	 * @return The percentile in nanoseconds, or <code>Long.MAX_VALUE</code> until
+	 *         enough calls are recorded
+	 */
+	long threshold() {
+		return threshold;
+	}
+}
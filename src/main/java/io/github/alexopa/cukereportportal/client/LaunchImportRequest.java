@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+
+/**
+ * The json part of a launch import request of ReportPortal, that describes the
+ * launch that is created for an imported archive
+ * 
+ * @param name        The name of the launch
+ * @param description The description of the launch
+ * @param attributes  The attributes of the launch
+ * @param mode        The mode of the launch
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record LaunchImportRequest(String name, String description, List<Attribute> attributes, String mode) {
+
+	private static final String ATTRIBUTE_SEPARATOR = ";";
+	private static final String KEY_SEPARATOR = ":";
+
+	/**
+	 * An attribute of a launch, with an optional key
+	 * 
+	 * @param key   The key of the attribute, or <code>null</code>
+	 * @param value The value of the attribute
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	record Attribute(String key, String value) {
+	}
+
+	/**
+	 * Creates the import request of the launch that
+	 * {@link ReportPortalClient#startLaunch(StartLaunchProperties)} would start.
+	 * The attributes are read the same way: attributes are separated with
+	 * semi-colon, and the key of an attribute is separated from its value with a
+	 * colon
+	 * 
+	 * @param props A {@link StartLaunchProperties} with the launch
+	 * @return A new {@link LaunchImportRequest}
+	 */
+	static LaunchImportRequest of(StartLaunchProperties props) {
+		return new LaunchImportRequest(StringUtils.trimToNull(props.getName()),
+				StringUtils.trimToNull(props.getDescription()), attributes(props.getAttributes()),
+				Optional.ofNullable(props.getMode()).map(Enum::name).orElse(null));
+	}
+
+	private static List<Attribute> attributes(String attributes) {
+		return Stream.of(StringUtils.split(StringUtils.defaultString(attributes), ATTRIBUTE_SEPARATOR))
+				.filter(StringUtils::isNotBlank).map(attribute -> attribute.contains(KEY_SEPARATOR)
+						? new Attribute(StringUtils.trimToNull(StringUtils.substringBefore(attribute, KEY_SEPARATOR)),
+								StringUtils.substringAfter(attribute, KEY_SEPARATOR).trim())
+						: new Attribute(null, attribute.trim()))
+				.toList();
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+
+/**
+ * Uploads zip archives of JUnit xml reports to the launch import api of a
+ * ReportPortal endpoint. The rest client has no launch import, so the
+ * multipart request is sent with the http client of the jdk. A failed response
+ * is thrown as a {@link RestClientResponseException} and an I/O error as an
+ * {@link UncheckedIOException}, like the failures of the rest client, so that
+ * the decorators of the {@link ReportPortalClient} handle them the same way.
+ */
+class LaunchImportUploader {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final long CONNECT_TIMEOUT_MS = 30000;
+
+	private final String endpoint;
+	private final String apiKey;
+	private final String project;
+	private final Duration timeout;
+
+	/**
+	 * Creates a new {@link LaunchImportUploader}
+	 * 
+	 * @param endpoint  A {@link String} with the ReportPortal endpoint
+	 * @param apiKey    A {@link String} with the api key
+	 * @param project   A {@link String} with the project of the launches
+	 * @param timeoutMs The time in milliseconds that an upload may take
+	 */
+	LaunchImportUploader(String endpoint, String apiKey, String project, long timeoutMs) {
+		this.endpoint = StringUtils.removeEnd(StringUtils.trim(endpoint), "/");
+		this.apiKey = apiKey;
+		this.project = project;
+		this.timeout = Duration.ofMillis(timeoutMs);
+	}
+
+	/**
+	 * Uploads an archive as a new launch
+	 * 
+	 * @param props   A {@link StartLaunchProperties} with the launch to create
+	 * @param archive A {@link Path} with the zip archive to upload
+	 * @return A {@link String} with the response of ReportPortal
+	 */
+	String upload(StartLaunchProperties props, Path archive) {
+		String boundary = UUID.randomUUID().toString();
+		String head = "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"launchImportRq\"\r\n"
+				+ "Content-Type: application/json\r\n\r\n";
+		String file = "\r\n--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"" + archive.getFileName() + "\"\r\n"
+				+ "Content-Type: application/zip\r\n\r\n";
+		String tail = "\r\n--" + boundary + "--\r\n";
+		byte[] launch;
+		try {
+			launch = OBJECT_MAPPER.writeValueAsBytes(LaunchImportRequest.of(props));
+		} catch (JsonProcessingException e) {
+			throw new RPImporterException("Failed to write the launch import request", e);
+		}
+
+		try {
+			// older ReportPortal versions only read the launch name of the query
+			HttpRequest request = HttpRequest
+					.newBuilder(URI.create(String.format("%s/api/v1/%s/launch/import%s", endpoint, project,
+							StringUtils.isBlank(props.getName()) ? ""
+									: "?launchName=" + URLEncoder.encode(props.getName(), StandardCharsets.UTF_8))))
+					.timeout(timeout)
+					.header("Authorization", "Bearer " + apiKey)
+					.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+					.POST(BodyPublishers.concat(BodyPublishers.ofString(head, StandardCharsets.UTF_8),
+							BodyPublishers.ofByteArray(launch), BodyPublishers.ofString(file, StandardCharsets.UTF_8),
+							BodyPublishers.ofFile(archive), BodyPublishers.ofString(tail)))
+					.build();
+			HttpResponse<String> response = HttpClient.newBuilder()
+					.connectTimeout(Duration.ofMillis(Math.min(timeout.toMillis(), CONNECT_TIMEOUT_MS))).build()
+					.send(request, BodyHandlers.ofString());
+			if (response.statusCode() / 100 != 2) {
+				throw new RestClientResponseException(
+						String.format("Failed to upload archive %s: %s %s", archive, response.statusCode(),
+								response.body()),
+						HttpStatusCode.valueOf(response.statusCode()), "", null,
+						response.body().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+			}
+			return response.body();
+		} catch (HttpTimeoutException e) {
+			throw new UncheckedIOException(String.format("Upload of archive %s did not complete within %d ms",
+					archive, timeout.toMillis()), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Failed to upload archive %s to %s", archive, endpoint), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RPImporterException(String.format("Interrupted while uploading archive %s", archive), e);
+		}
+	}
+}
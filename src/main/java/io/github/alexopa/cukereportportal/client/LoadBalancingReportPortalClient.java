@@ -0,0 +1,197 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ReportPortalClient} that spreads the calls over the clients of
+ * several replicas of the ReportPortal api. Every call picks two random
+ * endpoints and is sent to the one with the fewest calls in progress (power of
+ * two choices), so a slow replica gets less traffic.
+ * <p>
+ * An endpoint that fails a number of consecutive calls with a transient error
+ * is ejected and receives no calls for a while. After that it is tried again,
+ * and a single failure ejects it once more until a call succeeds. When all the
+ * endpoints are ejected, the one whose ejection ends first is used.
+ */
+@Slf4j
+class LoadBalancingReportPortalClient implements ReportPortalClient {
+
+	/**
+	 * A ReportPortal api replica
+	 */
+	@RequiredArgsConstructor
+	static final class Endpoint {
+		private final String url;
+		private final ReportPortalClient client;
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+		private volatile long ejectedUntil;
+	}
+
+	private final List<Endpoint> endpoints;
+	private final int ejectionThreshold;
+	private final long ejectionDurationMs;
+
+	/**
+	 * Creates a new {@link LoadBalancingReportPortalClient}
+	 * 
+	 * @param endpoints          A <code>List</code> with the {@link Endpoint} of
+	 *                           every replica
+	 * @param ejectionThreshold  The number of consecutive failures that eject an
+	 *                           endpoint. A value lower than 1 disables the
+	 *                           ejection
+	 * @param ejectionDurationMs The time in milliseconds that an ejected endpoint
+	 *                           receives no calls
+	 */
+	LoadBalancingReportPortalClient(List<Endpoint> endpoints, int ejectionThreshold, long ejectionDurationMs) {
+		this.endpoints = List.copyOf(endpoints);
+		this.ejectionThreshold = ejectionThreshold;
+		this.ejectionDurationMs = ejectionDurationMs;
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return execute(c -> c.startLaunch(props));
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		return execute(c -> c.finishLaunch(props));
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return execute(c -> c.startItem(props));
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		execute(c -> {
+			c.finishItem(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		execute(c -> {
+			c.addLog(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		execute(c -> {
+			c.addFileAttachment(props);
+			return null;
+		});
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		return execute(c -> c.importLaunch(props, archive));
+	}
+
+	@Override
+	public void close() {
+		endpoints.forEach(e -> e.client.close());
+	}
+
+	private <T> T execute(Function<ReportPortalClient, T> call) {
+		Endpoint endpoint = choose();
+		endpoint.outstanding.incrementAndGet();
+		try {
+			T result = call.apply(endpoint.client);
+			endpoint.consecutiveFailures.set(0);
+			return result;
+		} catch (RuntimeException e) {
+			// the losing call of a hedged pair is cancelled, its failure says nothing
+			// about the endpoint
+			if (ResilientReportPortalClient.isTransient(e) && !HedgingReportPortalClient.isCancelled()) {
+				onFailure(endpoint);
+			}
+			throw e;
+		} finally {
+			endpoint.outstanding.decrementAndGet();
+		}
+	}
+
+	private Endpoint choose() {
+		long now = System.currentTimeMillis();
+		Endpoint first = null;
+		Endpoint second = null;
+		int available = 0;
+		// reservoir sampling of two distinct available endpoints
+		for (Endpoint endpoint : endpoints) {
+			if (endpoint.ejectedUntil > now) {
+				continue;
+			}
+			available++;
+			if (available == 1) {
+				first = endpoint;
+			} else if (available == 2) {
+				second = endpoint;
+			} else {
+				int slot = ThreadLocalRandom.current().nextInt(available);
+				if (slot == 0) {
+					first = endpoint;
+				} else if (slot == 1) {
+					second = endpoint;
+				}
+			}
+		}
+		if (first == null) {
+			return endpoints.stream().min((a, b) -> Long.compare(a.ejectedUntil, b.ejectedUntil)).orElseThrow();
+		}
+		if (second == null) {
+			return first;
+		}
+		int difference = first.outstanding.get() - second.outstanding.get();
+		if (difference == 0) {
+			return ThreadLocalRandom.current().nextBoolean() ? first : second;
+		}
+		return difference < 0 ? first : second;
+	}
+
+	private void onFailure(Endpoint endpoint) {
+		int failures = endpoint.consecutiveFailures.incrementAndGet();
+		if (ejectionThreshold > 0 && failures >= ejectionThreshold && endpoints.size() > 1) {
+			endpoint.ejectedUntil = System.currentTimeMillis() + ejectionDurationMs;
+			log.warn("ReportPortal endpoint {} failed {} consecutive calls, ejecting it for {} ms", endpoint.url,
+					failures, ejectionDurationMs);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token bucket rate limits for the requests and the bytes that are sent to
+ * ReportPortal. Each limit is kept as the time at which its bucket will be
+ * full again, and a caller reserves its cost with a compare-and-set of that
+ * time, then sleeps until the reservation is due. A caller that is interrupted
+ * while it sleeps gives its reservation back. Each bucket can hold one second
+ * of its rate, so short bursts are not delayed.
+ * <p>
+ * The state is two <code>long</code> values in a direct buffer. When a shared
+ * file is used, the buffer is a memory mapping of the file, and the
+ * compare-and-set is atomic across all the processes of the host that map the
+ * same file, so together they stay under the limits.
+ * <p>
+ * The times are read from {@link System#nanoTime()}, and not from the wall
+ * clock, so a step of the wall clock neither blocks the callers nor lets a burst
+ * through. On Linux it reads the monotonic clock of the host, which all the
+ * processes share. A time that is more than {@value #STALE_SECONDS} seconds
+ * ahead, for example one that was written to the shared file before a reboot,
+ * is considered stale and the bucket starts full again.
+ */
+@Slf4j
+class RateLimiter {
+
+	private static final VarHandle STATE = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.nativeOrder());
+	private static final int REQUESTS = 0;
+	private static final int BYTES = Long.BYTES;
+	private static final int SIZE = 2 * Long.BYTES;
+	private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long STALE_SECONDS = 600;
+	private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(STALE_SECONDS);
+
+	private final ByteBuffer state;
+	private final double nanosPerRequest;
+	private final double nanosPerByte;
+
+	/**
+	 * Creates a new {@link RateLimiter}
+	 * 
+	 * @param requestsPerSecond The maximum number of requests per second. A value
+	 *                          of 0 disables the limit
+	 * @param bytesPerSecond    The maximum number of bytes per second. A value of
+	 *                          0 disables the limit
+	 * @param sharedFile        A {@link Path} with the file that holds the state
+	 *                          shared by the processes of the host, or
+	 *                          <code>null</code> for a limit of this process only
+	 * @throws RPImporterException if the shared file cannot be mapped
+	 */
+	RateLimiter(int requestsPerSecond, int bytesPerSecond, Path sharedFile) {
+		this.nanosPerRequest = requestsPerSecond > 0 ? 1e9 / requestsPerSecond : 0;
+		this.nanosPerByte = bytesPerSecond > 0 ? 1e9 / bytesPerSecond : 0;
+		this.state = sharedFile == null ? ByteBuffer.allocateDirect(SIZE) : map(sharedFile);
+	}
+
+	/**
+	 * Waits until a request of the given size can be sent
+	 * 
+	 * @param bytes The number of bytes of the request that count against the
+	 *              bytes limit
+	 * @throws InterruptedException if the caller is interrupted while waiting
+	 */
+	void acquire(long bytes) throws InterruptedException {
+		long requestCost = (long) nanosPerRequest;
+		long bytesCost = (long) (bytes * nanosPerByte);
+		long wait = Math.max(reserve(REQUESTS, requestCost), reserve(BYTES, bytesCost));
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				// the request is not sent, so its budget is left to the other callers
+				release(REQUESTS, requestCost);
+				release(BYTES, bytesCost);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Reserves the cost of a request in a bucket
+	 * 
+	 * @return The time in nanoseconds to wait before the request is sent
+	 */
+	private long reserve(int bucket, long cost) {
+		if (cost <= 0) {
+			return 0;
+		}
+		while (true) {
+			long now = System.nanoTime();
+			long full = (long) STATE.getVolatile(state, bucket);
+			long ahead = full - now;
+			// nanoTime values are only compared through their difference
+			long next = (ahead > 0 && ahead <= STALE_NANOS ? full : now) + cost;
+			if (STATE.compareAndSet(state, bucket, full, next)) {
+				return next - BURST_NANOS - now;
+			}
+		}
+	}
+
+	/**
+	 * Gives back the cost of a reservation that is not used
+	 */
+	private void release(int bucket, long cost) {
+		if (cost > 0) {
+			STATE.getAndAdd(state, bucket, -cost);
+		}
+	}
+
+	private static ByteBuffer map(Path sharedFile) {
+		try (FileChannel channel = FileChannel.open(sharedFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			log.info("Sharing ReportPortal rate limits through {}", sharedFile);
+			// the mapping grows the file to its size, and stays valid once the channel is closed
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to map rate limit file %s", sharedFile), e);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * A {@link ReportPortalClient} that waits for a {@link RateLimiter} before
+ * every call of another {@link ReportPortalClient}. Every call counts as one
+ * request. The UTF-8 bytes of the log messages and the bytes of the attachment
+ * files count against the bytes limit, plus {@link #REQUEST_OVERHEAD_BYTES} for
+ * the headers and the json body of every call.
+ */
+class RateLimitingReportPortalClient implements ReportPortalClient {
+
+	/**
+	 * The bytes that are charged for the headers and the json body of a call, on
+	 * top of its log message or attachment
+	 */
+	static final int REQUEST_OVERHEAD_BYTES = 512;
+
+	private final ReportPortalClient delegate;
+	private final RateLimiter rateLimiter;
+
+	/**
+	 * Creates a new {@link RateLimitingReportPortalClient}
+	 * 
+	 * @param delegate    The {@link ReportPortalClient} to decorate
+	 * @param rateLimiter The {@link RateLimiter} of the calls
+	 */
+	RateLimitingReportPortalClient(ReportPortalClient delegate, RateLimiter rateLimiter) {
+		this.delegate = delegate;
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		acquire("startLaunch", 0);
+		return delegate.startLaunch(props);
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		acquire("finishLaunch", 0);
+		return delegate.finishLaunch(props);
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		acquire("startItem", 0);
+		return delegate.startItem(props);
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		acquire("finishItem", 0);
+		delegate.finishItem(props);
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		acquire("addLog", utf8Length(props.getMessage()));
+		delegate.addLog(props);
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		acquire("addFileAttachment", new File(props.getFullPath()).length());
+		delegate.addFileAttachment(props);
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		acquire("importLaunch", archive.toFile().length());
+		return delegate.importLaunch(props, archive);
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	private void acquire(String operation, long bytes) {
+		try {
+			rateLimiter.acquire(REQUEST_OVERHEAD_BYTES + bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RPImporterException(String.format("Interrupted while waiting to call %s", operation), e);
+		}
+	}
+
+	/**
+	 * Returns the length of a {@link String} in UTF-8, without encoding it
+	 */
+	static long utf8Length(String value) {
+		if (value == null) {
+			return 0;
+		}
+		long length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.nio.file.Path;
+
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * The ReportPortal operations that are used by the importer. Implementations
+ * either call ReportPortal directly (see {@link DefaultReportPortalClient}) or
+ * decorate another {@link ReportPortalClient}
+ */
+public interface ReportPortalClient extends AutoCloseable {
+
+	/**
+	 * Starts a new launch
+	 *
+	 * @param props A {@link StartLaunchProperties} with the launch to start
+	 * @return A {@link StartLaunchResponse} with the started launch
+	 */
+	StartLaunchResponse startLaunch(StartLaunchProperties props);
+
+	/**
+	 * Finishes a launch
+	 *
+	 * @param props A {@link FinishLaunchProperties} with the launch to finish
+	 * @return A {@link FinishLaunchResponse} with the finished launch
+	 */
+	FinishLaunchResponse finishLaunch(FinishLaunchProperties props);
+
+	/**
+	 * Starts a new test item
+	 *
+	 * @param props A {@link StartTestItemProperties} with the item to start
+	 * @return An {@link EntryCreatedResponse} with the id of the started item
+	 */
+	EntryCreatedResponse startItem(StartTestItemProperties props);
+
+	/**
+	 * Finishes a test item
+	 *
+	 * @param props A {@link FinishTestItemProperties} with the item to finish
+	 */
+	void finishItem(FinishTestItemProperties props);
+
+	/**
+	 * Adds a log message to a test item
+	 *
+	 * @param props An {@link AddLogProperties} with the log to add
+	 */
+	void addLog(AddLogProperties props);
+
+	/**
+	 * Adds a file attachment to a launch or a test item
+	 *
+	 * @param props An {@link AddFileAttachmentProperties} with the attachment to
+	 *              add
+	 */
+	void addFileAttachment(AddFileAttachmentProperties props);
+
+	/**
+	 * Imports a zip archive of JUnit xml reports as a whole launch, with a single
+	 * request. The launch that is rerun is not sent, since the launch import api
+	 * does not support it. The default implementation does not import launches
+	 *
+	 * @param props   A {@link StartLaunchProperties} with the launch to create
+	 * @param archive A {@link Path} with the zip archive to import
+	 * @return A {@link String} with the response of ReportPortal
+	 * @throws UnsupportedOperationException if the client does not import launches
+	 */
+	default String importLaunch(StartLaunchProperties props, Path archive) {
+		throw new UnsupportedOperationException(
+				String.format("%s does not import launches", getClass().getSimpleName()));
+	}
+
+	/**
+	 * Releases the resources of the client, such as its threads. A decorator also
+	 * closes the client that it decorates. The default implementation does nothing
+	 */
+	@Override
+	default void close() {
+	}
+}
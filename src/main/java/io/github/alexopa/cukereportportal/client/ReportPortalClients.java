@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.reportportalclient.RPClient;
+import io.github.alexopa.reportportalclient.config.RPClientConfig;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Class that creates the {@link ReportPortalClient} that is used to call
+ * ReportPortal
+ */
+@UtilityClass
+public class ReportPortalClients {
+
+	/**
+	 * Creates a {@link ReportPortalClient} for the ReportPortal instance that is
+	 * defined in the configuration. When several endpoints are defined, the calls
+	 * are balanced over them
+	 * 
+	 * @param config The validated {@link RPImporterConfig} of the import
+	 * @return A {@link ReportPortalClient} that calls ReportPortal
+	 */
+	public static ReportPortalClient create(RPImporterConfig config) {
+		List<String> endpoints = config.getReportPortalEndpoints();
+		ReportPortalClient client;
+		if (endpoints.size() <= 1) {
+			String endpoint = endpoints.isEmpty() ? config.getReportPortalEndpoint() : endpoints.get(0);
+			client = endpointClient(config, endpoint);
+		} else {
+			List<LoadBalancingReportPortalClient.Endpoint> replicas = endpoints.stream()
+					.map(e -> new LoadBalancingReportPortalClient.Endpoint(e, endpointClient(config, e)))
+					.toList();
+			client = new LoadBalancingReportPortalClient(replicas, config.getLoadBalancerEjectionThreshold(),
+					config.getLoadBalancerEjectionDurationMs());
+		}
+		if (config.getRateLimitRequestsPerSecond() > 0 || config.getRateLimitBytesPerSecond() > 0) {
+			String sharedFile = config.getRateLimitSharedFile();
+			client = new RateLimitingReportPortalClient(client,
+					new RateLimiter(config.getRateLimitRequestsPerSecond(), config.getRateLimitBytesPerSecond(),
+							StringUtils.isNotBlank(sharedFile) ? Paths.get(sharedFile) : null));
+		}
+		if (config.isHedgingEnabled()) {
+			// above the balancer, so that a duplicate call may go to another endpoint
+			client = new HedgingReportPortalClient(client, config.getHedgingPercentile(),
+					config.getHedgingBudgetPercent());
+		}
+		return new ResilientReportPortalClient(client, config);
+	}
+
+	private static ReportPortalClient endpointClient(RPImporterConfig config, String endpoint) {
+		RPClientConfig rpClientConfig = new RPClientConfig();
+		rpClientConfig.setEndpoint(endpoint);
+		rpClientConfig.setApiKey(config.getReportPortalApiKey());
+		rpClientConfig.setProject(config.getReportPortalProjectName());
+		LaunchImportUploader launchImportUploader = new LaunchImportUploader(endpoint, config.getReportPortalApiKey(),
+				config.getReportPortalProjectName(), config.getExportUploadTimeoutMs());
+		return new EventRecordingReportPortalClient(
+				new DefaultReportPortalClient(new RPClient(rpClientConfig), launchImportUploader), endpoint);
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.web.client.RestClientResponseException;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ReportPortalClient} that retries failed calls of another
+ * {@link ReportPortalClient} with a jittered exponential backoff and pauses
+ * all the callers through a shared {@link CircuitBreaker} when ReportPortal
+ * keeps failing.
+ * <p>
+ * Finish calls are replayed on any transient failure, ie. an I/O error, a
+ * timeout or a 5xx, 408 or 429 response. Start, log, attachment and launch
+ * import calls create a new entity on every request, and the request properties of the rest client
+ * carry no client generated uuid that would let ReportPortal recognize a
+ * replay. They are therefore only replayed when ReportPortal did not process
+ * the request: when the connection could not be established at all, or when
+ * the request was rejected with a 429 or 503 response before anything was
+ * written. This avoids duplicate launches, items or log entries. Other failures
+ * are permanent: they are neither retried nor counted by the
+ * {@link CircuitBreaker}.
+ */
+@Slf4j
+public class ResilientReportPortalClient implements ReportPortalClient {
+
+	private final ReportPortalClient delegate;
+	private final int maxAttempts;
+	private final long initialBackoffMs;
+	private final long maxBackoffMs;
+	private final CircuitBreaker circuitBreaker;
+
+	/**
+	 * Creates a new {@link ResilientReportPortalClient}
+	 *
+	 * @param delegate The {@link ReportPortalClient} to decorate
+	 * @param config   The validated {@link RPImporterConfig} with the retry and
+	 *                 circuit breaker settings
+	 */
+	public ResilientReportPortalClient(ReportPortalClient delegate, RPImporterConfig config) {
+		this.delegate = delegate;
+		this.maxAttempts = Math.max(1, config.getRetryMaxAttempts());
+		this.initialBackoffMs = config.getRetryInitialBackoffMs();
+		this.maxBackoffMs = config.getRetryMaxBackoffMs();
+		this.circuitBreaker = new CircuitBreaker(config.getCircuitBreakerFailureThreshold(),
+				config.getCircuitBreakerOpenDurationMs());
+	}
+
+	@Override
+	public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		return execute("startLaunch", false, () -> delegate.startLaunch(props));
+	}
+
+	@Override
+	public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		return execute("finishLaunch", true, () -> delegate.finishLaunch(props));
+	}
+
+	@Override
+	public EntryCreatedResponse startItem(StartTestItemProperties props) {
+		return execute("startItem", false, () -> delegate.startItem(props));
+	}
+
+	@Override
+	public void finishItem(FinishTestItemProperties props) {
+		execute("finishItem", true, () -> {
+			delegate.finishItem(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addLog(AddLogProperties props) {
+		execute("addLog", false, () -> {
+			delegate.addLog(props);
+			return null;
+		});
+	}
+
+	@Override
+	public void addFileAttachment(AddFileAttachmentProperties props) {
+		execute("addFileAttachment", false, () -> {
+			delegate.addFileAttachment(props);
+			return null;
+		});
+	}
+
+	@Override
+	public String importLaunch(StartLaunchProperties props, Path archive) {
+		return execute("importLaunch", false, () -> delegate.importLaunch(props, archive));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	private <T> T execute(String operation, boolean idempotent, Supplier<T> call) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				circuitBreaker.acquirePermission();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RPImporterException(String.format("Interrupted while waiting to call %s", operation), e);
+			}
+
+			try {
+				T result = call.get();
+				circuitBreaker.onSuccess();
+				return result;
+			} catch (RuntimeException e) {
+				if (!isTransient(e)) {
+					circuitBreaker.release();
+					throw e;
+				}
+				circuitBreaker.onFailure();
+				if (attempt >= maxAttempts || !(idempotent || isNotProcessed(e))) {
+					throw e;
+				}
+				long backoff = backoff(attempt);
+				log.warn("Call {} failed (attempt {}/{}), retrying in {} ms: {}", operation, attempt, maxAttempts,
+						backoff, e.getMessage());
+				sleep(operation, backoff);
+			}
+		}
+	}
+
+	private long backoff(int attempt) {
+		long ceiling = initialBackoffMs << Math.min(attempt - 1, 20);
+		return ThreadLocalRandom.current().nextLong(Math.min(ceiling, maxBackoffMs) + 1);
+	}
+
+	private static void sleep(String operation, long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RPImporterException(String.format("Interrupted while retrying %s", operation), e);
+		}
+	}
+
+	/**
+	 * Returns whether a failed call may succeed if it is sent again. A failure is
+	 * transient if it was caused by an I/O error or a timeout, or if ReportPortal
+	 * answered with a 5xx, 408 or 429 status. Any other failure, like a 4xx
+	 * response or a bug, is permanent
+	 * 
+	 * @param e The <code>RuntimeException</code> of the failed call
+	 * @return <code>true</code> if the failure is transient
+	 */
+	static boolean isTransient(RuntimeException e) {
+		if (e instanceof RPImporterException || e instanceof IllegalArgumentException) {
+			return false;
+		}
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			OptionalInt status = httpStatus(cause);
+			if (status.isPresent()) {
+				int code = status.getAsInt();
+				return code / 100 == 5 || code == 408 || code == 429;
+			}
+			if (cause instanceof IOException || cause instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the http status of a failed response of the rest client, or an
+	 * empty {@link OptionalInt} if the failure is not an http response
+	 */
+	private static OptionalInt httpStatus(Throwable t) {
+		if (t instanceof RestClientResponseException response) {
+			return OptionalInt.of(response.getStatusCode().value());
+		}
+		return OptionalInt.empty();
+	}
+
+	/**
+	 * Returns whether ReportPortal did not process a failed call, so that it can
+	 * be sent again without creating a duplicate. That is the case when the
+	 * connection could not be established, or when the request was rejected with a
+	 * 429 (too many requests) or 503 (service unavailable) response
+	 */
+	private static boolean isNotProcessed(Throwable t) {
+		for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+			OptionalInt status = httpStatus(cause);
+			if (status.isPresent()) {
+				return status.getAsInt() == 429 || status.getAsInt() == 503;
+			}
+			if (cause instanceof ConnectException || cause instanceof UnknownHostException
+					|| cause instanceof NoRouteToHostException) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.rpmodel.Mode;
+import lombok.Getter;
+
+/**
+ * An immutable, typed snapshot of the importer properties. It is built once by
+ * {@link RPImporterPropertyHandler#getConfig()}, which parses and validates all
+ * the properties, so that the import reads plain fields and a misconfiguration
+ * fails before a launch is started.
+ */
+@Getter
+public final class RPImporterConfig {
+
+	private final List<String> cucumberJsonFiles;
+	private final String launchName;
+	private final String launchAttributes;
+	private final List<String> launchAttachments;
+	private final String launchDescription;
+	private final String launchRerunOf;
+	private final Mode launchMode;
+	private final int threadsFeatures;
+	private final int threadsScenarios;
+	private final String reportPortalProjectName;
+	private final String reportPortalApiKey;
+	private final String reportPortalEndpoint;
+	private final List<String> reportPortalEndpoints;
+	private final boolean rerunAttributeEnabled;
+	private final String rerunAttributeName;
+	private final int retryMaxAttempts;
+	private final int retryInitialBackoffMs;
+	private final int retryMaxBackoffMs;
+	private final int circuitBreakerFailureThreshold;
+	private final int circuitBreakerOpenDurationMs;
+	private final int loadBalancerEjectionThreshold;
+	private final int loadBalancerEjectionDurationMs;
+	private final boolean hedgingEnabled;
+	private final int hedgingPercentile;
+	private final int hedgingBudgetPercent;
+	private final int rateLimitRequestsPerSecond;
+	private final int rateLimitBytesPerSecond;
+	private final String rateLimitSharedFile;
+	private final String exportArchive;
+	private final boolean exportUploadEnabled;
+	private final int exportUploadTimeoutMs;
+	private final String spoolFile;
+	private final int spoolReplayThreads;
+	private final int formattedMessagesCacheMaxChars;
+	private final boolean deduplicationEnabled;
+	private final boolean rerunDeltaEnabled;
+	private final String snapshotFile;
+	private final int imagesMaxDimension;
+	private final String imagesFormat;
+	private final int imagesJpegQuality;
+	private final int imagesThreads;
+	private final List<String> fanOutTargets;
+	private final String distributedDirectory;
+	private final int distributedScenariosPerUnit;
+	private final int distributedLeaseMs;
+	private final int distributedPollMs;
+	private final int distributedPlanWaitMs;
+	private final boolean distributedCoordinatorImports;
+	private final int deadlineImportMs;
+	private final int deadlineGraceMs;
+	private final boolean shutdownHookEnabled;
+	private final int logSpillErrorChars;
+	private final int logSpillDocStringChars;
+	private final int logSpillDataTableChars;
+	private final int logSpillTextEmbeddingChars;
+	private final int logSpillHeadChars;
+
+	/**
+	 * The attribute that is added to every item of a rerun, or <code>null</code>
+	 * if the launch is not a rerun or the rerun attribute is disabled
+	 */
+	private final String rerunAttribute;
+
+	/**
+	 * Creates and validates a new {@link RPImporterConfig}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} with the
+	 *                        properties
+	 * @return The {@link RPImporterConfig} of the properties
+	 * @throws RPImporterException if a property has an invalid value. The
+	 *                             message lists all the invalid properties
+	 */
+	static RPImporterConfig of(RPImporterPropertyHandler propertyHandler) {
+		return new RPImporterConfig(propertyHandler, new ArrayList<>());
+	}
+
+	private RPImporterConfig(RPImporterPropertyHandler h, List<String> errors) {
+		cucumberJsonFiles = List.copyOf(h.getCucumberJsonFiles());
+		launchName = h.getLaunchName();
+		launchAttributes = h.getLaunchAttributes();
+		launchAttachments = List.copyOf(h.getLaunchAttachments());
+		launchDescription = h.getLaunchDescription();
+		launchRerunOf = h.getLaunchRerunOf();
+		launchMode = readMode(h, errors);
+		threadsFeatures = readInt(h, errors, RPImporterProperties.RP_IMPORTER_THREADS_FEATURES, h::getThreadsFeatures,
+				v -> v >= 1, "at least 1");
+		threadsScenarios = readInt(h, errors, RPImporterProperties.RP_IMPORTER_THREADS_SCENARIOS,
+				h::getThreadsScenarios, v -> v >= 1, "at least 1");
+		reportPortalProjectName = h.getReportPortalProjectName();
+		reportPortalApiKey = h.getReportPortalApiKey();
+		reportPortalEndpoint = h.getReportPortalEndpoint();
+		reportPortalEndpoints = h.getReportPortalEndpoints();
+		rerunAttributeEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_ATTRIBUTES_RERUN_ENABLED,
+				h::isRerunAttrbiuteEnabled);
+		rerunAttributeName = h.getRerunAttributeName();
+		retryMaxAttempts = readInt(h, errors, RPImporterProperties.RP_IMPORTER_RETRY_MAX_ATTEMPTS,
+				h::getRetryMaxAttempts, v -> v >= 1, "at least 1");
+		retryInitialBackoffMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS,
+				h::getRetryInitialBackoffMs, v -> v >= 0, "at least 0");
+		retryMaxBackoffMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_RETRY_MAX_BACKOFF_MS,
+				h::getRetryMaxBackoffMs, v -> v >= 0, "at least 0");
+		circuitBreakerFailureThreshold = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+				h::getCircuitBreakerFailureThreshold, v -> true, null);
+		circuitBreakerOpenDurationMs = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS, h::getCircuitBreakerOpenDurationMs,
+				v -> v >= 0, "at least 0");
+		loadBalancerEjectionThreshold = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD,
+				h::getLoadBalancerEjectionThreshold, v -> v >= 0, "at least 0");
+		loadBalancerEjectionDurationMs = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS,
+				h::getLoadBalancerEjectionDurationMs, v -> v >= 0, "at least 0");
+		hedgingEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_HEDGING_ENABLED, h::isHedgingEnabled);
+		hedgingPercentile = readInt(h, errors, RPImporterProperties.RP_IMPORTER_HEDGING_PERCENTILE,
+				h::getHedgingPercentile, v -> v >= 1 && v <= 99, "between 1 and 99");
+		hedgingBudgetPercent = readInt(h, errors, RPImporterProperties.RP_IMPORTER_HEDGING_BUDGET_PERCENT,
+				h::getHedgingBudgetPercent, v -> v >= 0 && v <= 100, "between 0 and 100");
+		rateLimitRequestsPerSecond = readInt(h, errors, RPImporterProperties.RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND,
+				h::getRateLimitRequestsPerSecond, v -> v >= 0, "at least 0");
+		rateLimitBytesPerSecond = readInt(h, errors, RPImporterProperties.RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND,
+				h::getRateLimitBytesPerSecond, v -> v >= 0, "at least 0");
+		rateLimitSharedFile = StringUtils.trimToNull(h.getRateLimitSharedFile());
+		exportArchive = h.getExportArchive();
+		exportUploadEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_EXPORT_UPLOAD,
+				h::isExportUploadEnabled);
+		exportUploadTimeoutMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS,
+				h::getExportUploadTimeoutMs, v -> v >= 1, "at least 1");
+		spoolFile = h.getSpoolFile();
+		spoolReplayThreads = readInt(h, errors, RPImporterProperties.RP_IMPORTER_SPOOL_REPLAY_THREADS,
+				h::getSpoolReplayThreads, v -> v >= 1, "at least 1");
+		formattedMessagesCacheMaxChars = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS,
+				h::getFormattedMessagesCacheMaxChars, v -> v >= 0, "at least 0");
+		deduplicationEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_DEDUPLICATION_ENABLED,
+				h::isDeduplicationEnabled);
+		rerunDeltaEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_RERUN_DELTA_ENABLED,
+				h::isRerunDeltaEnabled);
+		snapshotFile = h.getSnapshotFile();
+		imagesMaxDimension = readInt(h, errors, RPImporterProperties.RP_IMPORTER_IMAGES_MAX_DIMENSION,
+				h::getImagesMaxDimension, v -> v >= 0, "at least 0");
+		imagesFormat = StringUtils.lowerCase(StringUtils.trimToNull(h.getImagesFormat()));
+		imagesJpegQuality = readInt(h, errors, RPImporterProperties.RP_IMPORTER_IMAGES_JPEG_QUALITY,
+				h::getImagesJpegQuality, v -> v >= 0 && v <= 100, "between 0 and 100");
+		fanOutTargets = List.copyOf(h.getFanOutTargets());
+		imagesThreads = readInt(h, errors, RPImporterProperties.RP_IMPORTER_IMAGES_THREADS, h::getImagesThreads,
+				v -> v >= 1, "at least 1");
+		distributedDirectory = StringUtils.trimToNull(h.getDistributedDirectory());
+		distributedScenariosPerUnit = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT,
+				h::getDistributedScenariosPerUnit, v -> v >= 0, "at least 0");
+		distributedLeaseMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DISTRIBUTED_LEASE_MS,
+				h::getDistributedLeaseMs, v -> v >= 1000, "at least 1000");
+		distributedPollMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DISTRIBUTED_POLL_MS,
+				h::getDistributedPollMs, v -> v >= 1, "at least 1");
+		distributedPlanWaitMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS,
+				h::getDistributedPlanWaitMs, v -> v >= 0, "at least 0");
+		distributedCoordinatorImports = readBoolean(h, errors,
+				RPImporterProperties.RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS, h::isDistributedCoordinatorImports);
+		deadlineImportMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DEADLINE_IMPORT_MS,
+				h::getDeadlineImportMs, v -> v >= 0, "at least 0");
+		deadlineGraceMs = readInt(h, errors, RPImporterProperties.RP_IMPORTER_DEADLINE_GRACE_MS,
+				h::getDeadlineGraceMs, v -> v >= 0, "at least 0");
+		shutdownHookEnabled = readBoolean(h, errors, RPImporterProperties.RP_IMPORTER_SHUTDOWN_HOOK_ENABLED,
+				h::isShutdownHookEnabled);
+		logSpillErrorChars = readInt(h, errors, RPImporterProperties.RP_IMPORTER_LOG_SPILL_ERROR_CHARS,
+				h::getLogSpillErrorChars, v -> v >= 0, "at least 0");
+		logSpillDocStringChars = readInt(h, errors, RPImporterProperties.RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS,
+				h::getLogSpillDocStringChars, v -> v >= 0, "at least 0");
+		logSpillDataTableChars = readInt(h, errors, RPImporterProperties.RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS,
+				h::getLogSpillDataTableChars, v -> v >= 0, "at least 0");
+		logSpillTextEmbeddingChars = readInt(h, errors,
+				RPImporterProperties.RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS, h::getLogSpillTextEmbeddingChars,
+				v -> v >= 0, "at least 0");
+		logSpillHeadChars = readInt(h, errors, RPImporterProperties.RP_IMPORTER_LOG_SPILL_HEAD_CHARS,
+				h::getLogSpillHeadChars, v -> v >= 0, "at least 0");
+
+		requireNotBlank(errors, RPImporterProperties.RP_IMPORTER_LAUNCH_NAME, launchName);
+		requireNotBlank(errors, RPImporterProperties.RP_IMPORTER_REPORTPORTAL_PROJECT_NAME, reportPortalProjectName);
+		requireNotBlank(errors, RPImporterProperties.RP_IMPORTER_REPORTPORTAL_API_KEY, reportPortalApiKey);
+		// a dry run and an import recorded to a spool do not call ReportPortal
+		if (h.isReportPortalRequired() && StringUtils.isBlank(spoolFile)) {
+			requireNotBlank(errors, RPImporterProperties.RP_IMPORTER_REPORTPORTAL_ENDPOINT, reportPortalEndpoint);
+		}
+		if (imagesFormat != null && !"png".equals(imagesFormat) && !"jpeg".equals(imagesFormat)) {
+			errors.add(String.format("%s must be png or jpeg, but is '%s'",
+					RPImporterProperties.RP_IMPORTER_IMAGES_FORMAT.getPropertyName(), imagesFormat));
+		}
+		if (retryMaxBackoffMs < retryInitialBackoffMs) {
+			errors.add(String.format("%s must not be lower than %s",
+					RPImporterProperties.RP_IMPORTER_RETRY_MAX_BACKOFF_MS.getPropertyName(),
+					RPImporterProperties.RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS.getPropertyName()));
+		}
+		rerunAttribute = StringUtils.isNotBlank(launchRerunOf) && rerunAttributeEnabled
+				? ":" + rerunAttributeName
+				: null;
+
+		if (!errors.isEmpty()) {
+			throw new RPImporterException(
+					String.format("Invalid importer configuration: %s", String.join("; ", errors)));
+		}
+	}
+
+	/**
+	 * Returns if screenshots are downscaled or re-encoded before they are
+	 * uploaded
+	 * 
+	 * @return <code>true</code> if screenshots are processed
+	 */
+	public boolean isImageProcessingEnabled() {
+		return imagesMaxDimension > 0 || imagesFormat != null;
+	}
+
+	private static void requireNotBlank(List<String> errors, RPImporterProperties prop, String value) {
+		if (StringUtils.isBlank(value)) {
+			errors.add(String.format("%s must not be blank", prop.getPropertyName()));
+		}
+	}
+
+	private static Mode readMode(RPImporterPropertyHandler h, List<String> errors) {
+		try {
+			return h.getLaunchMode();
+		} catch (IllegalArgumentException e) {
+			errors.add(String.format("%s has invalid value '%s'",
+					RPImporterProperties.RP_IMPORTER_LAUNCH_MODE.getPropertyName(),
+					h.getRawProperty(RPImporterProperties.RP_IMPORTER_LAUNCH_MODE)));
+			return null;
+		}
+	}
+
+	private static int readInt(RPImporterPropertyHandler h, List<String> errors, RPImporterProperties prop,
+			IntSupplier getter, IntPredicate valid, String requirement) {
+		try {
+			int value = getter.getAsInt();
+			if (!valid.test(value)) {
+				errors.add(String.format("%s must be %s, but is %d", prop.getPropertyName(), requirement, value));
+			}
+			return value;
+		} catch (NumberFormatException e) {
+			errors.add(String.format("%s is not a number: '%s'", prop.getPropertyName(), h.getRawProperty(prop)));
+			return 0;
+		}
+	}
+
+	/**
+	 * Reads a boolean property. Only <code>true</code> and <code>false</code> are
+	 * accepted, as the getter of the property parses any other value as
+	 * <code>false</code>, which would silently disable a misspelled flag
+	 */
+	private static boolean readBoolean(RPImporterPropertyHandler h, List<String> errors, RPImporterProperties prop,
+			BooleanSupplier getter) {
+		String value = h.getRawProperty(prop);
+		if (value != null && !"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+			errors.add(String.format("%s must be true or false, but is '%s'", prop.getPropertyName(), value));
+			return false;
+		}
+		return getter.getAsBoolean();
+	}
+}
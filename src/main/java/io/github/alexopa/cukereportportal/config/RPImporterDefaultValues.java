@@ -54,4 +54,222 @@ public class RPImporterDefaultValues {
 	 */
 	protected static final String DEFAULT_RP_IMPORTER_ATTRIBUTES_RERUN_NAME = "rerun";
 	
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_ATTEMPTS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RETRY_MAX_ATTEMPTS = "4";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS = "250";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_BACKOFF_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RETRY_MAX_BACKOFF_MS = "10000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "10";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS = "15000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_EXPORT_UPLOAD = "false";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_SPOOL_REPLAY_THREADS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_SPOOL_REPLAY_THREADS = "8";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS = "4000000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEDUPLICATION_ENABLED} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DEDUPLICATION_ENABLED = "true";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RERUN_DELTA_ENABLED} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RERUN_DELTA_ENABLED = "false";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_IMAGES_MAX_DIMENSION} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_IMAGES_MAX_DIMENSION = "0";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_IMAGES_JPEG_QUALITY} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_IMAGES_JPEG_QUALITY = "80";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_IMAGES_THREADS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_IMAGES_THREADS = "2";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD = "3";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS = "30000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_HEDGING_ENABLED} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_HEDGING_ENABLED = "false";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_HEDGING_PERCENTILE} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_HEDGING_PERCENTILE = "95";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_HEDGING_BUDGET_PERCENT} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_HEDGING_BUDGET_PERCENT = "5";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND = "0";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND = "0";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT = "0";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_LEASE_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DISTRIBUTED_LEASE_MS = "60000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_POLL_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DISTRIBUTED_POLL_MS = "500";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS = "300000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS = "true";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEADLINE_IMPORT_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DEADLINE_IMPORT_MS = "0";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEADLINE_GRACE_MS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_DEADLINE_GRACE_MS = "30000";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_SHUTDOWN_HOOK_ENABLED} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_SHUTDOWN_HOOK_ENABLED = "true";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_ERROR_CHARS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOG_SPILL_ERROR_CHARS = "65536";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS = "65536";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS = "65536";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS = "65536";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_HEAD_CHARS} property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_LOG_SPILL_HEAD_CHARS = "4096";
+
+	/**
+	 * The default value of
+	 * {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS}
+	 * property
+	 */
+	protected static final String DEFAULT_RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS = "600000";
+
 }
@@ -29,7 +29,8 @@ public enum RPImporterProperties {
 
 	/**
 	 * Property that defines the cucumber report json files that will be imported
-	 * for a launch
+	 * for a launch. See {@link io.github.alexopa.cukereportportal.source.ReportSources}
+	 * for the supported entries
 	 */
 	RP_IMPORTER_CUCUMBER_JSON_FILES("rp.importer.cucumberJsonFiles", ""),
 
@@ -118,7 +119,319 @@ public enum RPImporterProperties {
 	 * {@link #RP_IMPORTER_ATTRIBUTES_RERUN_ENABLED} is enabled
 	 */
 	RP_IMPORTER_ATTRIBUTES_RERUN_NAME("rp.importer.attributes.rerun.name",
-			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_ATTRIBUTES_RERUN_NAME);
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_ATTRIBUTES_RERUN_NAME),
+
+	/**
+	 * Property that defines the maximum number of attempts for a call to
+	 * ReportPortal that fails with a transient error. A value of 1 disables the
+	 * retries
+	 */
+	RP_IMPORTER_RETRY_MAX_ATTEMPTS("rp.importer.retry.maxAttempts",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RETRY_MAX_ATTEMPTS),
+
+	/**
+	 * Property that defines the initial backoff in milliseconds between two
+	 * attempts of a failed call. The backoff is doubled on every attempt and a
+	 * random jitter is applied on it
+	 */
+	RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS("rp.importer.retry.initialBackoffMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS),
+
+	/**
+	 * Property that defines the maximum backoff in milliseconds between two
+	 * attempts of a failed call
+	 */
+	RP_IMPORTER_RETRY_MAX_BACKOFF_MS("rp.importer.retry.maxBackoffMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RETRY_MAX_BACKOFF_MS),
+
+	/**
+	 * Property that defines the number of consecutive failed calls after which all
+	 * the calls to ReportPortal are paused. A value of 0 disables the circuit
+	 * breaker
+	 */
+	RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD("rp.importer.circuitBreaker.failureThreshold",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD),
+
+	/**
+	 * Property that defines the time in milliseconds that the calls to
+	 * ReportPortal are paused, once
+	 * {@link #RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD} is reached
+	 */
+	RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS("rp.importer.circuitBreaker.openDurationMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS),
+
+	/**
+	 * Property that defines the path of the zip archive that is written by the
+	 * JUnit archive exporter. In case it is not defined, the archive is written
+	 * in a temporary file named after the launch
+	 */
+	RP_IMPORTER_EXPORT_ARCHIVE("rp.importer.export.archive", ""),
+
+	/**
+	 * Property that defines if the archive that is written by the JUnit archive
+	 * exporter is uploaded to ReportPortal with a single launch import request
+	 */
+	RP_IMPORTER_EXPORT_UPLOAD("rp.importer.export.upload",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_EXPORT_UPLOAD),
+
+	/**
+	 * Property that defines a spool file to record the import to. In case it is
+	 * defined, ReportPortal is not called during the import, and every
+	 * operation is written in the spool file instead, to be uploaded later with
+	 * the spool replayer
+	 */
+	RP_IMPORTER_SPOOL_FILE("rp.importer.spool.file", ""),
+
+	/**
+	 * Property that defines the number of threads used in parallel to upload
+	 * the operations of a spool file
+	 */
+	RP_IMPORTER_SPOOL_REPLAY_THREADS("rp.importer.spool.replayThreads",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_SPOOL_REPLAY_THREADS),
+
+	/**
+	 * Property that defines the maximum total length, in characters, of the
+	 * formatted data table and doc string log messages that are cached during an
+	 * import. Repeated tables and doc strings of scenario outlines and backgrounds
+	 * are then formatted once. With {@link #RP_IMPORTER_DEDUPLICATION_ENABLED} the
+	 * messages are cached by the shared instance of their table or doc string,
+	 * otherwise by its content. A value of 0 disables the cache
+	 */
+	RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS("rp.importer.cache.formattedMessages.maxChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS),
+
+	/**
+	 * Property that defines if the repeated strings and data tables of the test
+	 * run are canonicalized before the import, so that equal values share a
+	 * single instance in memory
+	 */
+	RP_IMPORTER_DEDUPLICATION_ENABLED("rp.importer.deduplication.enabled",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DEDUPLICATION_ENABLED),
+
+	/**
+	 * Property that defines if a rerun import only uploads the scenarios whose
+	 * outcome changed compared to the initial run. Scenarios are matched by
+	 * their code reference, line and name, and compared by the names, results
+	 * and error messages of their steps and hooks
+	 */
+	RP_IMPORTER_RERUN_DELTA_ENABLED("rp.importer.rerun.delta.enabled",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RERUN_DELTA_ENABLED),
+
+	/**
+	 * The file where a compact snapshot of every imported testrun is written. The
+	 * snapshot can later drive a rerun import in another process
+	 */
+	RP_IMPORTER_SNAPSHOT_FILE("rp.importer.snapshot.file", ""),
+
+	/**
+	 * The maximum width and height in pixels of the png screenshots that are
+	 * attached to steps. Larger screenshots are downscaled, keeping their
+	 * aspect ratio. 0 keeps the original size
+	 */
+	RP_IMPORTER_IMAGES_MAX_DIMENSION("rp.importer.images.maxDimension",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_IMAGES_MAX_DIMENSION),
+
+	/**
+	 * The format the png screenshots are re-encoded to, either png or jpeg.
+	 * When it is not defined, screenshots are only re-encoded if they are
+	 * downscaled
+	 */
+	RP_IMPORTER_IMAGES_FORMAT("rp.importer.images.format", ""),
+
+	/**
+	 * The quality, from 0 to 100, of the screenshots that are re-encoded to
+	 * jpeg
+	 */
+	RP_IMPORTER_IMAGES_JPEG_QUALITY("rp.importer.images.jpegQuality",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_IMAGES_JPEG_QUALITY),
+
+	/**
+	 * The number of threads that process screenshots, in parallel with the
+	 * calls to ReportPortal
+	 */
+	RP_IMPORTER_IMAGES_THREADS("rp.importer.images.threads",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_IMAGES_THREADS),
+
+	/**
+	 * Property that defines the properties files of the targets that a
+	 * {@link io.github.alexopa.cukereportportal.service.FanOutImporter} imports
+	 * the same testrun to, separated with semi-colon
+	 */
+	RP_IMPORTER_FANOUT_TARGETS("rp.importer.fanout.targets", ""),
+
+	/**
+	 * Property that defines the number of consecutive failed calls to one of
+	 * several ReportPortal endpoints, after which the endpoint is ejected from
+	 * the load balancing. A value of 0 disables the ejection
+	 */
+	RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD("rp.importer.loadBalancer.ejectionThreshold",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD),
+
+	/**
+	 * Property that defines the time in milliseconds that an ejected
+	 * ReportPortal endpoint receives no calls
+	 */
+	RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS("rp.importer.loadBalancer.ejectionDurationMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS),
+
+	/**
+	 * Property that defines if a finish call to ReportPortal that is slower
+	 * than the usual latency of its operation is sent a second time, and the
+	 * first response is used
+	 */
+	RP_IMPORTER_HEDGING_ENABLED("rp.importer.hedging.enabled",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_HEDGING_ENABLED),
+
+	/**
+	 * Property that defines the percentile of the observed latency of an
+	 * operation, after which a duplicate call is sent
+	 */
+	RP_IMPORTER_HEDGING_PERCENTILE("rp.importer.hedging.percentile",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_HEDGING_PERCENTILE),
+
+	/**
+	 * Property that defines the maximum percentage of the hedged calls that are
+	 * sent a second time
+	 */
+	RP_IMPORTER_HEDGING_BUDGET_PERCENT("rp.importer.hedging.budgetPercent",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_HEDGING_BUDGET_PERCENT),
+
+	/**
+	 * Property that defines the maximum number of calls per second that are
+	 * sent to ReportPortal. A value of 0 disables the limit
+	 */
+	RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND("rp.importer.rateLimit.requestsPerSecond",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND),
+
+	/**
+	 * Property that defines the maximum number of log and attachment bytes per
+	 * second that are sent to ReportPortal. A value of 0 disables the limit
+	 */
+	RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND("rp.importer.rateLimit.bytesPerSecond",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND),
+
+	/**
+	 * Property that defines a file that holds the state of the rate limits, so
+	 * that all the imports on the same host that use the same file share the
+	 * limits
+	 */
+	RP_IMPORTER_RATE_LIMIT_SHARED_FILE("rp.importer.rateLimit.sharedFile", ""),
+
+	/**
+	 * Property that defines the shared directory of the work queue of a
+	 * distributed import, that the coordinator and all the workers of the
+	 * launch use
+	 */
+	RP_IMPORTER_DISTRIBUTED_DIRECTORY("rp.importer.distributed.directory", ""),
+
+	/**
+	 * Property that defines the maximum number of scenarios of a work unit of a
+	 * distributed import. A value of 0 makes every feature a single work unit
+	 */
+	RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT("rp.importer.distributed.scenariosPerUnit",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT),
+
+	/**
+	 * Property that defines the time in milliseconds that a claimed work unit
+	 * of a distributed import stays leased to a worker without being renewed,
+	 * before another worker can claim it
+	 */
+	RP_IMPORTER_DISTRIBUTED_LEASE_MS("rp.importer.distributed.leaseMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DISTRIBUTED_LEASE_MS),
+
+	/**
+	 * Property that defines the time in milliseconds between two checks of the
+	 * work queue of a distributed import, when there is no work unit to claim
+	 */
+	RP_IMPORTER_DISTRIBUTED_POLL_MS("rp.importer.distributed.pollMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DISTRIBUTED_POLL_MS),
+
+	/**
+	 * Property that defines the maximum time in milliseconds that a worker of a
+	 * distributed import waits for the coordinator to publish the work units
+	 */
+	RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS("rp.importer.distributed.planWaitMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS),
+
+	/**
+	 * Property that defines if the coordinator of a distributed import also
+	 * claims and imports work units, while it waits for the workers
+	 */
+	RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS("rp.importer.distributed.coordinatorImports",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS),
+
+	/**
+	 * Property that defines the time in milliseconds from the start of the
+	 * launch, after which no more features and scenarios are imported. The ones
+	 * in progress are given the grace period to finish, and the launch is then
+	 * finished as interrupted. A value of 0 disables the deadline
+	 */
+	RP_IMPORTER_DEADLINE_IMPORT_MS("rp.importer.deadline.importMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DEADLINE_IMPORT_MS),
+
+	/**
+	 * Property that defines the time in milliseconds that the features and
+	 * scenarios in progress are given to finish, once the deadline is reached
+	 * or the JVM shuts down
+	 */
+	RP_IMPORTER_DEADLINE_GRACE_MS("rp.importer.deadline.graceMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_DEADLINE_GRACE_MS),
+
+	/**
+	 * Property that defines if a shutdown hook finishes the launch in progress
+	 * when the JVM shuts down, ie. on SIGTERM. The hook stops the import, gives
+	 * the scenarios in progress the grace period to finish, and finishes the
+	 * launch as interrupted
+	 */
+	RP_IMPORTER_SHUTDOWN_HOOK_ENABLED("rp.importer.shutdownHook.enabled",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_SHUTDOWN_HOOK_ENABLED),
+
+	/**
+	 * Property that defines the length in characters above which the error
+	 * message of a step is sent as a truncated head, with the full text in a
+	 * gzip compressed attachment. A value of 0 always sends the message inline
+	 */
+	RP_IMPORTER_LOG_SPILL_ERROR_CHARS("rp.importer.logSpill.errorChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOG_SPILL_ERROR_CHARS),
+
+	/**
+	 * Property that defines the length in characters above which the doc string
+	 * of a step is sent as a truncated head, with the full text in a gzip
+	 * compressed attachment. A value of 0 always sends the doc string inline
+	 */
+	RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS("rp.importer.logSpill.docStringChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS),
+
+	/**
+	 * Property that defines the length in characters above which the formatted
+	 * data table of a step is sent as a truncated head, with the full table in
+	 * a gzip compressed attachment. A value of 0 always sends the table inline
+	 */
+	RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS("rp.importer.logSpill.dataTableChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS),
+
+	/**
+	 * Property that defines the length in characters above which a text/plain
+	 * embedding of a step is sent as a truncated head, with the full text in a
+	 * gzip compressed attachment. A value of 0 always sends the text inline
+	 */
+	RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS("rp.importer.logSpill.textEmbeddingChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS),
+
+	/**
+	 * Property that defines the number of characters of a spilled log message
+	 * that are still sent inline
+	 */
+	RP_IMPORTER_LOG_SPILL_HEAD_CHARS("rp.importer.logSpill.headChars",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_LOG_SPILL_HEAD_CHARS),
+
+	/**
+	 * Property that defines the time in milliseconds that the upload of the
+	 * archive that is written by the JUnit archive exporter may take, before it
+	 * fails
+	 */
+	RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS("rp.importer.export.uploadTimeoutMs",
+			RPImporterDefaultValues.DEFAULT_RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS);
 
 	private final String propertyName;
 	private final String defaultValue;
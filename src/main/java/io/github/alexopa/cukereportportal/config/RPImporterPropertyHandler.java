@@ -43,6 +43,8 @@ public class RPImporterPropertyHandler {
 	private static final String PROPERTIES_FILE = "rp-cucumber-import.properties";
 
 	private Properties props = new Properties();
+	private boolean reportPortalRequired = true;
+	private volatile RPImporterConfig config;
 
 	/**
 	 * Creates a new {@link RPImporterPropertyHandler} instance. The default
@@ -87,6 +89,55 @@ public class RPImporterPropertyHandler {
 		initProperties(propsFile, extraProps);
 	}
 
+	private RPImporterPropertyHandler(Properties props, Properties overrides, boolean reportPortalRequired) {
+		this.props = mergeProperties(props, overrides);
+		this.reportPortalRequired = reportPortalRequired;
+	}
+
+	/**
+	 * Returns a copy of this {@link RPImporterPropertyHandler} with some
+	 * properties overridden
+	 * 
+	 * @param overrides A {@link Properties} object with the properties to override
+	 * @return A new {@link RPImporterPropertyHandler} instance
+	 */
+	public RPImporterPropertyHandler withProperties(Properties overrides) {
+		return new RPImporterPropertyHandler(props, overrides, reportPortalRequired);
+	}
+
+	/**
+	 * Returns a copy of this {@link RPImporterPropertyHandler} with the properties
+	 * of a properties file overriding its properties
+	 * 
+	 * @param propsFile A {@link String} with the properties file that overrides
+	 *                  the properties
+	 * @return A new {@link RPImporterPropertyHandler} instance
+	 */
+	public RPImporterPropertyHandler withPropertiesFile(String propsFile) {
+		return new RPImporterPropertyHandler(props, initPropsFromFile(propsFile), reportPortalRequired);
+	}
+
+	/**
+	 * Returns a copy of this {@link RPImporterPropertyHandler} for an import that
+	 * does not call ReportPortal, like a dry run. Its configuration accepts a
+	 * blank {@link RPImporterProperties#RP_IMPORTER_REPORTPORTAL_ENDPOINT}
+	 * 
+	 * @return A new {@link RPImporterPropertyHandler} instance
+	 */
+	public RPImporterPropertyHandler withoutReportPortal() {
+		return new RPImporterPropertyHandler(props, new Properties(), false);
+	}
+
+	/**
+	 * Returns if the import calls ReportPortal, so that its endpoint is required
+	 * 
+	 * @return <code>false</code> if the handler was created by
+	 *         {@link #withoutReportPortal()}
+	 */
+	public boolean isReportPortalRequired() {
+		return reportPortalRequired;
+	}
+
 	private void initProperties(String propsFile, Properties extraProps) {
 		Properties propsFromFile = initPropsFromFile(propsFile);
 		Properties propsFromSystemProperties = initPropsFromSystem();
@@ -130,6 +181,27 @@ public class RPImporterPropertyHandler {
 		return propsFromFile;
 	}
 
+	/**
+	 * Returns the typed snapshot of the properties. The snapshot is built and
+	 * validated on the first call, and the same instance is returned afterwards
+	 * 
+	 * @return The {@link RPImporterConfig} of the properties
+	 * @throws RPImporterException if a property has an invalid value
+	 */
+	public RPImporterConfig getConfig() {
+		RPImporterConfig result = config;
+		if (result == null) {
+			synchronized (this) {
+				result = config;
+				if (result == null) {
+					result = RPImporterConfig.of(this);
+					config = result;
+				}
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_CUCUMBER_JSON_FILES}
 	 * property
@@ -204,7 +276,7 @@ public class RPImporterPropertyHandler {
 	 *         {@link RPImporterProperties#RP_IMPORTER_LAUNCH_MODE} property
 	 */
 	public Mode getLaunchMode() {
-		return Mode.valueOf(props.getProperty(RPImporterProperties.RP_IMPORTER_LAUNCH_MODE.getPropertyName()));
+		return Mode.valueOf(getPropertyAsString(RPImporterProperties.RP_IMPORTER_LAUNCH_MODE));
 	}
 
 	/**
@@ -264,6 +336,18 @@ public class RPImporterPropertyHandler {
 	public String getReportPortalEndpoint() {
 		return props.getProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_ENDPOINT.getPropertyName());
 	}
+
+	/**
+	 * Returns the endpoints of the
+	 * {@link RPImporterProperties#RP_IMPORTER_REPORTPORTAL_ENDPOINT} property,
+	 * which can list several ReportPortal api replicas separated with semi-colon
+	 * 
+	 * @return a <code>List</code> of {@link String} with the trimmed endpoints
+	 */
+	public List<String> getReportPortalEndpoints() {
+		return getPropertyAsList(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_ENDPOINT).stream()
+				.map(String::trim).filter(e -> !e.isEmpty()).toList();
+	}
 	
 	/**
 	 * Returns value of
@@ -289,6 +373,506 @@ public class RPImporterPropertyHandler {
 		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_ATTRIBUTES_RERUN_NAME);
 	}
 
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_ATTEMPTS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_ATTEMPTS} property
+	 */
+	public int getRetryMaxAttempts() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_RETRY_MAX_ATTEMPTS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS}
+	 *         property
+	 */
+	public int getRetryInitialBackoffMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_RETRY_INITIAL_BACKOFF_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_BACKOFF_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RETRY_MAX_BACKOFF_MS}
+	 *         property
+	 */
+	public int getRetryMaxBackoffMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_RETRY_MAX_BACKOFF_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD}
+	 *         property
+	 */
+	public int getCircuitBreakerFailureThreshold() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS}
+	 *         property
+	 */
+	public int getCircuitBreakerOpenDurationMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_CIRCUIT_BREAKER_OPEN_DURATION_MS);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_EXPORT_ARCHIVE}
+	 * property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_EXPORT_ARCHIVE} property
+	 */
+	public String getExportArchive() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_EXPORT_ARCHIVE);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD}
+	 * property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD} property
+	 */
+	public boolean isExportUploadEnabled() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_EXPORT_UPLOAD);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_SPOOL_FILE}
+	 * property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_SPOOL_FILE} property
+	 */
+	public String getSpoolFile() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_SPOOL_FILE);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_SPOOL_REPLAY_THREADS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_SPOOL_REPLAY_THREADS}
+	 *         property
+	 */
+	public int getSpoolReplayThreads() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_SPOOL_REPLAY_THREADS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS}
+	 *         property
+	 */
+	public int getFormattedMessagesCacheMaxChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEDUPLICATION_ENABLED} property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DEDUPLICATION_ENABLED}
+	 *         property
+	 */
+	public boolean isDeduplicationEnabled() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_DEDUPLICATION_ENABLED);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RERUN_DELTA_ENABLED} property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RERUN_DELTA_ENABLED}
+	 *         property
+	 */
+	public boolean isRerunDeltaEnabled() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_RERUN_DELTA_ENABLED);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_SNAPSHOT_FILE}
+	 * property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_SNAPSHOT_FILE} property
+	 */
+	public String getSnapshotFile() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_SNAPSHOT_FILE);
+	}
+
+	String getRawProperty(RPImporterProperties prop) {
+		return props.getProperty(prop.getPropertyName());
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_IMAGES_MAX_DIMENSION} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_IMAGES_MAX_DIMENSION}
+	 *         property
+	 */
+	public int getImagesMaxDimension() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_IMAGES_MAX_DIMENSION);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_IMAGES_FORMAT}
+	 * property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_IMAGES_FORMAT} property
+	 */
+	public String getImagesFormat() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_IMAGES_FORMAT);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_IMAGES_JPEG_QUALITY} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_IMAGES_JPEG_QUALITY}
+	 *         property
+	 */
+	public int getImagesJpegQuality() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_IMAGES_JPEG_QUALITY);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_IMAGES_THREADS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_IMAGES_THREADS} property
+	 */
+	public int getImagesThreads() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_IMAGES_THREADS);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_FANOUT_TARGETS} property
+	 * 
+	 * @return a <code>List</code> of {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_FANOUT_TARGETS} property
+	 */
+	public List<String> getFanOutTargets() {
+		return getPropertyAsList(RPImporterProperties.RP_IMPORTER_FANOUT_TARGETS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD}
+	 *         property
+	 */
+	public int getLoadBalancerEjectionThreshold() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOADBALANCER_EJECTION_THRESHOLD);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS}
+	 *         property
+	 */
+	public int getLoadBalancerEjectionDurationMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOADBALANCER_EJECTION_DURATION_MS);
+	}
+
+	/**
+	 * Returns value of {@link RPImporterProperties#RP_IMPORTER_HEDGING_ENABLED}
+	 * property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_HEDGING_ENABLED} property
+	 */
+	public boolean isHedgingEnabled() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_HEDGING_ENABLED);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_HEDGING_PERCENTILE} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_HEDGING_PERCENTILE}
+	 *         property
+	 */
+	public int getHedgingPercentile() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_HEDGING_PERCENTILE);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_HEDGING_BUDGET_PERCENT} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_HEDGING_BUDGET_PERCENT}
+	 *         property
+	 */
+	public int getHedgingBudgetPercent() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_HEDGING_BUDGET_PERCENT);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND}
+	 *         property
+	 */
+	public int getRateLimitRequestsPerSecond() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_RATE_LIMIT_REQUESTS_PER_SECOND);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND}
+	 *         property
+	 */
+	public int getRateLimitBytesPerSecond() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_RATE_LIMIT_BYTES_PER_SECOND);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_SHARED_FILE} property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_RATE_LIMIT_SHARED_FILE}
+	 *         property
+	 */
+	public String getRateLimitSharedFile() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_RATE_LIMIT_SHARED_FILE);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_DIRECTORY} property
+	 * 
+	 * @return a {@link String} with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_DIRECTORY}
+	 *         property
+	 */
+	public String getDistributedDirectory() {
+		return getPropertyAsString(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_DIRECTORY);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT}
+	 *         property
+	 */
+	public int getDistributedScenariosPerUnit() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_SCENARIOS_PER_UNIT);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_LEASE_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_LEASE_MS}
+	 *         property
+	 */
+	public int getDistributedLeaseMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_LEASE_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_POLL_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_POLL_MS}
+	 *         property
+	 */
+	public int getDistributedPollMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_POLL_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS}
+	 *         property
+	 */
+	public int getDistributedPlanWaitMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_PLAN_WAIT_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS}
+	 * property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS}
+	 *         property
+	 */
+	public boolean isDistributedCoordinatorImports() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_DISTRIBUTED_COORDINATOR_IMPORTS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEADLINE_IMPORT_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DEADLINE_IMPORT_MS}
+	 *         property
+	 */
+	public int getDeadlineImportMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DEADLINE_IMPORT_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_DEADLINE_GRACE_MS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_DEADLINE_GRACE_MS}
+	 *         property
+	 */
+	public int getDeadlineGraceMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_DEADLINE_GRACE_MS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_SHUTDOWN_HOOK_ENABLED} property
+	 * 
+	 * @return a <code>boolean</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_SHUTDOWN_HOOK_ENABLED}
+	 *         property
+	 */
+	public boolean isShutdownHookEnabled() {
+		return getPropertyAsBoolean(RPImporterProperties.RP_IMPORTER_SHUTDOWN_HOOK_ENABLED);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_ERROR_CHARS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_ERROR_CHARS}
+	 *         property
+	 */
+	public int getLogSpillErrorChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOG_SPILL_ERROR_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS}
+	 *         property
+	 */
+	public int getLogSpillDocStringChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS}
+	 *         property
+	 */
+	public int getLogSpillDataTableChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS}
+	 *         property
+	 */
+	public int getLogSpillTextEmbeddingChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_HEAD_CHARS} property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_LOG_SPILL_HEAD_CHARS}
+	 *         property
+	 */
+	public int getLogSpillHeadChars() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_LOG_SPILL_HEAD_CHARS);
+	}
+
+	/**
+	 * Returns value of
+	 * {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS}
+	 * property
+	 * 
+	 * @return an <code>int</code> with the value of
+	 *         {@link RPImporterProperties#RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS}
+	 *         property
+	 */
+	public int getExportUploadTimeoutMs() {
+		return getPropertyAsInteger(RPImporterProperties.RP_IMPORTER_EXPORT_UPLOAD_TIMEOUT_MS);
+	}
+
 	private String getPropertyAsString(RPImporterProperties prop) {
 		String value = props.getProperty(prop.getPropertyName());
 		return Optional.ofNullable(value).orElse(prop.getDefaultValue());
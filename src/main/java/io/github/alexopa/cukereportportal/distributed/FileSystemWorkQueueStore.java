@@ -0,0 +1,310 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link WorkQueueStore} in a directory, that is shared by all the processes
+ * of the import, either on the same host or on a network file system. The
+ * directory holds:
+ * <ul>
+ * <li><code>plan.properties</code>: the {@link ImportPlan}, that is written to
+ * a temporary file and moved in place</li>
+ * <li><code>units/&lt;id&gt;.lease.&lt;generation&gt;</code>: a lease of a
+ * unit, with the id of the worker and the time the lease expires. A unit is
+ * claimed by creating the file of the next generation, which only one worker
+ * can create, so an expired lease is taken over by a single worker. A lease is
+ * written to a temporary file and linked or moved in place, so it is never
+ * read partially written</li>
+ * <li><code>units/&lt;id&gt;.done</code>: a completed unit</li>
+ * </ul>
+ * The expiry times are written with the clock of the worker, so the clocks of
+ * the hosts must be synchronized to well below the lease duration. A directory
+ * is used by a single import, so a new launch needs a new or empty directory.
+ */
+@Slf4j
+public class FileSystemWorkQueueStore implements WorkQueueStore {
+
+	private static final String PLAN_FILE = "plan.properties";
+	private static final String UNITS_DIRECTORY = "units";
+	private static final String LEASE_INFIX = ".lease.";
+	private static final String TEMPORARY_LEASE_SUFFIX = ".tmp";
+	private static final String DONE_SUFFIX = ".done";
+	private static final String LAUNCH_UUID = "launch.uuid";
+	private static final String FEATURE_PREFIX = "feature.";
+	private static final String UNIT_PREFIX = "unit.";
+
+	private final Path directory;
+	private final Path units;
+	private final Set<Integer> completed = Collections.synchronizedSet(new HashSet<>());
+	private volatile ImportPlan plan;
+
+	/**
+	 * Creates a new {@link FileSystemWorkQueueStore}. The directory is created if
+	 * it does not exist
+	 * 
+	 * @param directory A {@link Path} with the shared directory
+	 */
+	public FileSystemWorkQueueStore(Path directory) {
+		this.directory = directory;
+		this.units = directory.resolve(UNITS_DIRECTORY);
+		try {
+			Files.createDirectories(units);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to create work queue directory %s", directory), e);
+		}
+	}
+
+	@Override
+	public void publish(ImportPlan plan) {
+		Path planFile = directory.resolve(PLAN_FILE);
+		if (Files.exists(planFile)) {
+			throw new RPImporterException(String.format("Work queue directory %s already holds the plan of launch %s",
+					directory, readPlan().map(ImportPlan::launchUuid).orElse(null)));
+		}
+
+		Properties props = new Properties();
+		props.setProperty(LAUNCH_UUID, plan.launchUuid());
+		plan.featureItemUuids().forEach((key, uuid) -> props.setProperty(FEATURE_PREFIX + key, uuid));
+		for (WorkUnit unit : plan.units()) {
+			props.setProperty(UNIT_PREFIX + unit.id(),
+					String.format("%s;%d;%d", unit.featureKey(), unit.fromScenario(), unit.toScenario()));
+		}
+		try {
+			Path temporary = Files.createTempFile(directory, PLAN_FILE, ".tmp");
+			try (OutputStream out = Files.newOutputStream(temporary)) {
+				props.store(out, null);
+			}
+			// workers never read a partially written plan
+			Files.move(temporary, planFile, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to write plan %s", planFile), e);
+		}
+		this.plan = plan;
+		log.info("Published {} work units of launch {} in {}", plan.units().size(), plan.launchUuid(), directory);
+	}
+
+	@Override
+	public Optional<ImportPlan> readPlan() {
+		ImportPlan result = plan;
+		if (result != null) {
+			return Optional.of(result);
+		}
+		Properties props = new Properties();
+		try (InputStream in = Files.newInputStream(directory.resolve(PLAN_FILE))) {
+			props.load(in);
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to read plan in %s", directory), e);
+		}
+
+		Map<String, String> featureItemUuids = new LinkedHashMap<>();
+		List<WorkUnit> workUnits = new ArrayList<>();
+		for (String name : props.stringPropertyNames()) {
+			if (name.startsWith(FEATURE_PREFIX)) {
+				featureItemUuids.put(name.substring(FEATURE_PREFIX.length()), props.getProperty(name));
+			} else if (name.startsWith(UNIT_PREFIX)) {
+				String[] unit = props.getProperty(name).split(";");
+				workUnits.add(new WorkUnit(Integer.parseInt(name.substring(UNIT_PREFIX.length())), unit[0],
+						Integer.parseInt(unit[1]), Integer.parseInt(unit[2])));
+			}
+		}
+		workUnits.sort(Comparator.comparingInt(WorkUnit::id));
+		result = new ImportPlan(props.getProperty(LAUNCH_UUID), featureItemUuids, workUnits);
+		plan = result;
+		return Optional.of(result);
+	}
+
+	@Override
+	public Optional<WorkLease> claim(String workerId, long leaseMs) {
+		Optional<ImportPlan> published = readPlan();
+		if (published.isEmpty()) {
+			return Optional.empty();
+		}
+		Map<Integer, Long> generations = scan();
+		List<WorkUnit> candidates = published.get().units().stream().filter(u -> !completed.contains(u.id()))
+				.toList();
+		// every worker starts from another unit, so that they rarely race for the
+		// same lease
+		int offset = candidates.isEmpty() ? 0 : ThreadLocalRandom.current().nextInt(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) {
+			WorkUnit unit = candidates.get((offset + i) % candidates.size());
+			long generation = generations.getOrDefault(unit.id(), 0L);
+			if (generation > 0 && !isExpired(leaseFile(unit.id(), generation), leaseMs)) {
+				continue;
+			}
+			WorkLease lease = new WorkLease(unit, workerId, generation + 1);
+			try {
+				Path temporary = writeTemporaryLease(unit.id(), workerId, leaseMs);
+				try {
+					// unlike a move, a link fails when the lease already exists
+					Files.createLink(leaseFile(unit.id(), lease.generation()), temporary);
+				} finally {
+					Files.deleteIfExists(temporary);
+				}
+			} catch (FileAlreadyExistsException e) {
+				// claimed by another worker since the scan
+				continue;
+			} catch (IOException e) {
+				throw new RPImporterException(String.format("Failed to claim work unit %d", unit.id()), e);
+			}
+			if (Files.exists(doneFile(unit.id()))) {
+				// completed since the scan
+				completed.add(unit.id());
+				continue;
+			}
+			if (generation > 0) {
+				log.warn("Work unit {} is claimed by {} after its lease expired", unit.id(), workerId);
+			}
+			return Optional.of(lease);
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public boolean renew(WorkLease lease, long leaseMs) {
+		Path current = leaseFile(lease.unit().id(), lease.generation());
+		Path next = leaseFile(lease.unit().id(), lease.generation() + 1);
+		if (Files.exists(next) || !Files.exists(current)) {
+			return false;
+		}
+		try {
+			Files.move(writeTemporaryLease(lease.unit().id(), lease.workerId(), leaseMs), current,
+					StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to renew lease of work unit %d", lease.unit().id()),
+					e);
+		}
+		// the lease may have expired while it was renewed
+		return !Files.exists(next);
+	}
+
+	@Override
+	public void complete(WorkLease lease) {
+		try {
+			Files.createFile(doneFile(lease.unit().id()));
+		} catch (FileAlreadyExistsException e) {
+			// completed twice, after its lease expired
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to complete work unit %d", lease.unit().id()), e);
+		}
+		completed.add(lease.unit().id());
+	}
+
+	@Override
+	public int remaining() {
+		return readPlan().map(p -> {
+			scan();
+			return (int) p.units().stream().filter(u -> !completed.contains(u.id())).count();
+		}).orElse(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Lists the units directory once, records the completed units and returns the
+	 * latest lease generation of every unit
+	 */
+	private Map<Integer, Long> scan() {
+		Map<Integer, Long> generations = new HashMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(units)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(DONE_SUFFIX)) {
+					completed.add(Integer.parseInt(StringUtils.removeEnd(name, DONE_SUFFIX)));
+				} else if (name.contains(LEASE_INFIX)) {
+					generations.merge(Integer.parseInt(StringUtils.substringBefore(name, LEASE_INFIX)),
+							Long.parseLong(StringUtils.substringAfter(name, LEASE_INFIX)), Math::max);
+				}
+			}
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to read work queue directory %s", units), e);
+		}
+		return generations;
+	}
+
+	/**
+	 * Returns whether a lease has expired. A lease without its last line break
+	 * was left incomplete, e.g. by an earlier version that wrote the lease in
+	 * place, and expires once it is older than the lease duration
+	 */
+	private boolean isExpired(Path leaseFile, long leaseMs) {
+		try {
+			String content = Files.readString(leaseFile, StandardCharsets.UTF_8);
+			String[] lines = content.split("\\R");
+			if (!content.endsWith("\n") || lines.length < 2) {
+				return System.currentTimeMillis() > Files.getLastModifiedTime(leaseFile).toMillis() + leaseMs;
+			}
+			return System.currentTimeMillis() > Long.parseLong(lines[1]);
+		} catch (NoSuchFileException e) {
+			return true;
+		} catch (IOException | NumberFormatException e) {
+			log.warn("Failed to read lease {}", leaseFile, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes a lease to a temporary file of the units directory, that the scan
+	 * ignores
+	 */
+	private Path writeTemporaryLease(int unit, String workerId, long leaseMs) throws IOException {
+		Path temporary = Files.createTempFile(units, unit + ".", TEMPORARY_LEASE_SUFFIX);
+		try {
+			Files.write(temporary, String.format("%s\n%d\n", workerId, System.currentTimeMillis() + leaseMs)
+					.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		return temporary;
+	}
+
+	private Path leaseFile(int unit, long generation) {
+		return units.resolve(unit + LEASE_INFIX + generation);
+	}
+
+	private Path doneFile(int unit) {
+		return units.resolve(unit + DONE_SUFFIX);
+	}
+}
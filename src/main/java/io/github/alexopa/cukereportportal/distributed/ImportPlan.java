@@ -0,0 +1,47 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The work of a distributed import, that the coordinator publishes once the
+ * launch and the feature items are started
+ * 
+ * @param launchUuid       A {@link String} with the uuid of the launch
+ * @param featureItemUuids A <code>Map</code> with the uuid of the item of every
+ *                         feature, by the key of the feature
+ * @param units            A <code>List</code> of the {@link WorkUnit} to
+ *                         import
+ */
+public record ImportPlan(String launchUuid, Map<String, String> featureItemUuids, List<WorkUnit> units) {
+
+	/**
+	 * Creates a new {@link ImportPlan}
+	 * 
+	 * @param launchUuid       A {@link String} with the uuid of the launch
+	 * @param featureItemUuids A <code>Map</code> with the uuid of the item of
+	 *                         every feature, by the key of the feature
+	 * @param units            A <code>List</code> of the {@link WorkUnit} to
+	 *                         import
+	 */
+	public ImportPlan {
+		featureItemUuids = Map.copyOf(featureItemUuids);
+		units = List.copyOf(units);
+	}
+}
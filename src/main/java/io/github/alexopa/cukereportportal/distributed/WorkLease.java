@@ -0,0 +1,32 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+/**
+ * A claim of a {@link WorkUnit} by a worker. The lease expires unless it is
+ * renewed with {@link WorkQueueStore#renew(WorkLease, long)}, and another worker
+ * can then claim the unit
+ * 
+ * @param unit       The leased {@link WorkUnit}
+ * @param workerId   A {@link String} with the id of the worker that holds the
+ *                   lease
+ * @param generation The number of times the unit has been claimed, including
+ *                   this claim. A store uses it to tell a lease from an older,
+ *                   expired lease of the same unit
+ */
+public record WorkLease(WorkUnit unit, String workerId, long generation) {
+}
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+import java.util.Optional;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * The store of the work queue of a distributed import, that is shared by the
+ * coordinator and the workers of a launch. The coordinator publishes an
+ * {@link ImportPlan}, and the workers claim its {@link WorkUnit}s with leases
+ * until all of them are completed. A unit whose lease expires, because its
+ * worker died or stalled, can be claimed again by another worker.
+ * <p>
+ * Implementations must be safe to use from several threads and processes:
+ * {@link #claim(String, long)} never returns a unit that is completed or leased
+ * by an unexpired lease. See {@link FileSystemWorkQueueStore} for a store in a
+ * shared directory.
+ */
+public interface WorkQueueStore {
+
+	/**
+	 * Publishes the plan of the import. A store holds a single plan
+	 * 
+	 * @param plan The {@link ImportPlan} to publish
+	 * @throws RPImporterException if a plan is already published
+	 */
+	void publish(ImportPlan plan);
+
+	/**
+	 * Returns the published plan
+	 * 
+	 * @return An <code>Optional</code> with the {@link ImportPlan}, or empty if
+	 *         it is not published yet
+	 */
+	Optional<ImportPlan> readPlan();
+
+	/**
+	 * Claims a unit that is neither completed nor leased
+	 * 
+	 * @param workerId A {@link String} with the id of the claiming worker
+	 * @param leaseMs  The time in milliseconds until the lease expires
+	 * @return An <code>Optional</code> with the {@link WorkLease}, or empty if no
+	 *         unit can be claimed at the moment
+	 */
+	Optional<WorkLease> claim(String workerId, long leaseMs);
+
+	/**
+	 * Extends a lease
+	 * 
+	 * @param lease   The {@link WorkLease} to renew
+	 * @param leaseMs The time in milliseconds from now until the lease expires
+	 * @return <code>true</code> if the lease is renewed, <code>false</code> if it
+	 *         expired and the unit was claimed by another worker
+	 */
+	boolean renew(WorkLease lease, long leaseMs);
+
+	/**
+	 * Marks the unit of a lease as completed. Completing a unit more than once
+	 * has no effect
+	 * 
+	 * @param lease The {@link WorkLease} of the completed unit
+	 */
+	void complete(WorkLease lease);
+
+	/**
+	 * Returns the number of units that are not completed
+	 * 
+	 * @return an <code>int</code> with the number of units that are not
+	 *         completed
+	 */
+	int remaining();
+}
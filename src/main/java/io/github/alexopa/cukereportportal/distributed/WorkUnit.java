@@ -0,0 +1,31 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+/**
+ * A unit of work of a distributed import: a range of the scenarios of a
+ * feature, that is claimed and imported by a single worker
+ * 
+ * @param id           The id of the unit, unique in its {@link ImportPlan}
+ * @param featureKey   A {@link String} with the key of the feature, that every
+ *                     worker computes from its own copy of the reports
+ * @param fromScenario The index of the first scenario of the unit in the
+ *                     feature
+ * @param toScenario   The index after the last scenario of the unit
+ */
+public record WorkUnit(int id, String featureKey, int fromScenario, int toScenario) {
+}
@@ -0,0 +1,46 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Event that is emitted when a feature is imported. The queue wait is the time
+ * that the feature waited for a feature thread
+ */
+@Name(ImportEvent.PREFIX + "FeatureImport")
+@Label("Feature Import")
+public class FeatureImportEvent extends ImportEvent {
+
+	@Label("Launch Uuid")
+	public String launchUuid;
+
+	@Label("Item Uuid")
+	public String itemUuid;
+
+	@Label("Feature")
+	public String feature;
+
+	@Label("Scenarios")
+	public int scenarios;
+
+	@Label("Queue Wait")
+	@Timespan(Timespan.NANOSECONDS)
+	public long queueWait;
+}
@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the Java Flight Recorder events of an import. The events are
+ * disabled by default, so a recording only contains them when they are enabled
+ * in its settings. While disabled, <code>shouldCommit()</code> returns
+ * <code>false</code> and the fields of the events are never populated.
+ */
+@Category({ "Cuke-To-ReportPortal", "Import" })
+@Enabled(false)
+@StackTrace(false)
+abstract class ImportEvent extends Event {
+
+	/**
+	 * The prefix of the names of all the import events
+	 */
+	static final String PREFIX = "io.github.alexopa.cukereportportal.";
+}
@@ -0,0 +1,35 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Event that is emitted when a data table or a doc string is formatted to a log
+ * message. Messages that are found in the formatted message cache emit no event
+ */
+@Name(ImportEvent.PREFIX + "MessageFormat")
+@Label("Message Format")
+public class MessageFormatEvent extends ImportEvent {
+
+	@Label("Kind")
+	public String kind;
+
+	@Label("Message Length")
+	public int messageLength;
+}
@@ -0,0 +1,43 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Event that is emitted when a scenario is imported. The queue wait is the time
+ * that the scenario waited for a scenario thread of its feature
+ */
+@Name(ImportEvent.PREFIX + "ScenarioImport")
+@Label("Scenario Import")
+public class ScenarioImportEvent extends ImportEvent {
+
+	@Label("Feature Item Uuid")
+	public String featureItemUuid;
+
+	@Label("Item Uuid")
+	public String itemUuid;
+
+	@Label("Scenario")
+	public String scenario;
+
+	@Label("Queue Wait")
+	@Timespan(Timespan.NANOSECONDS)
+	public long queueWait;
+}
@@ -26,16 +26,15 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.MDC;
 
 import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
-import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
-import io.github.alexopa.cukereportportal.util.Utils;
-import io.github.alexopa.reportportalclient.RPClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.jfr.FeatureImportEvent;
 import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
 import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
 import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
@@ -50,64 +49,133 @@ import lombok.extern.slf4j.Slf4j;
 class CukeFeatureImporter implements Callable<Boolean> {
 
 	private final Optional<String> name;
-	private final RPImporterPropertyHandler propertyHandler;
 	private final String launchUuid;
 	private final CukeFeature cukeFeature;
-	private final RPClient rpClient;
+	private final ReportPortalClient rpClient;
+	private final ImportContext context;
+	private final long submittedNanos = System.nanoTime();
 
 	@Override
 	public Boolean call() throws Exception {
 		name.ifPresent(n -> MDC.put("ctx.ctr.name", n));
+		ImportDeadline deadline = context.getDeadline();
+		if (deadline.isExpired()) {
+			log.warn("Import deadline reached, skipping feature: {}", cukeFeature.getName());
+			deadline.skip(cukeFeature);
+			return false;
+		}
 		log.info("Importing feature: {}", cukeFeature.getName());
+		FeatureImportEvent event = new FeatureImportEvent();
+		event.begin();
+		long queueWait = System.nanoTime() - submittedNanos;
 
-		EntryCreatedResponse featureItemId = rpClient.startItem(startFeatureProperties(launchUuid, cukeFeature));
+		FeatureTemplate template = new FeatureTemplate(cukeFeature, context.getConfig());
+		EntryCreatedResponse featureItemId = rpClient
+				.startItem(startFeatureProperties(launchUuid, cukeFeature, template));
+		context.getSnapshot().ifPresent(s -> s.recordFeature(cukeFeature, featureItemId.getId()));
 
-		ExecutorService executorService = Executors.newFixedThreadPool(propertyHandler.getThreadsScenarios());
+		ExecutorService executorService = Executors.newFixedThreadPool(context.getConfig().getThreadsScenarios(),
+				deadline.threadFactory());
 		List<Future<Boolean>> listOfScenarios = new ArrayList<>();
 
 		for (CukeScenario scenario : cukeFeature.getScenarios()) {
-			CukeScenarioImporter cukeScenarioImporter = new CukeScenarioImporter(name, scenario, propertyHandler,
-					rpClient, launchUuid, featureItemId.getId());
+			CukeScenarioImporter cukeScenarioImporter = new CukeScenarioImporter(name, scenario, rpClient, launchUuid,
+					featureItemId.getId(), context, template);
 			listOfScenarios.add(executorService.submit(cukeScenarioImporter));
 		}
 
-		for (Future<Boolean> sc : listOfScenarios) {
+		boolean interrupted = false;
+		boolean abandoned = false;
+		boolean complete = true;
+		for (int i = 0; i < listOfScenarios.size() && !interrupted && !abandoned; i++) {
 
 			try {
-				sc.get();
-			} catch (InterruptedException | ExecutionException e) {
-				log.error("Failed to get result from CukeScenarioImporter", e);
+				complete &= deadline.await(listOfScenarios.get(i));
+			} catch (ExecutionException e) {
+				log.error("Failed to import scenario: {}", cukeFeature.getScenarios().get(i).getName(), e.getCause());
+			} catch (InterruptedException e) {
+				log.warn("Interrupted while importing feature: {}", cukeFeature.getName());
+				interrupted = true;
+			} catch (TimeoutException e) {
+				log.warn("Grace period of the import deadline is over, abandoning feature: {}", cukeFeature.getName());
+				abandoned = true;
+			}
+		}
+
+		if (interrupted || abandoned) {
+			// stop the scenarios that are still queued or running, and close the feature
+			// item without waiting for them
+			executorService.shutdownNow();
+			finishFeature(deadline, featureItemId.getId(), "INTERRUPTED");
+			if (interrupted) {
 				Thread.currentThread().interrupt();
 			}
+			commit(event, featureItemId.getId(), queueWait);
+			return false;
 		}
 		executorService.shutdown();
 
-		rpClient.finishItem(finishFeatureProperties(launchUuid, featureItemId.getId(), cukeFeature));
+		// scenarios that were skipped because of the deadline leave the feature
+		// incomplete
+		finishFeature(deadline, featureItemId.getId(), complete ? status(cukeFeature) : "INTERRUPTED");
 
+		commit(event, featureItemId.getId(), queueWait);
 		return true;
 	}
 
-	private StartTestItemProperties startFeatureProperties(String launchUuid, CukeFeature feature) {
+	private void finishFeature(ImportDeadline deadline, String featureItemUuid, String status)
+			throws InterruptedException {
+		try {
+			deadline.finish(() -> rpClient
+					.finishItem(finishFeatureProperties(launchUuid, featureItemUuid, cukeFeature, status)));
+		} catch (TimeoutException e) {
+			log.error("Abandoned the finish of feature: {}", cukeFeature.getName());
+		}
+	}
+
+	private void commit(FeatureImportEvent event, String featureItemUuid, long queueWait) {
+		if (event.shouldCommit()) {
+			event.launchUuid = launchUuid;
+			event.itemUuid = featureItemUuid;
+			event.feature = cukeFeature.getName();
+			event.scenarios = cukeFeature.getScenarios().size();
+			event.queueWait = queueWait;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Returns the status of a finished feature item
+	 * 
+	 * @param feature The {@link CukeFeature} of the item
+	 * @return <code>passed</code> if all the scenarios passed, otherwise
+	 *         <code>failed</code>
+	 */
+	static String status(CukeFeature feature) {
+		return feature.getScenarios().stream().allMatch(s -> s.getResult() == CukeScenarioResult.PASSED) ? "passed"
+				: "failed";
+	}
+
+	static StartTestItemProperties startFeatureProperties(String launchUuid, CukeFeature feature,
+			FeatureTemplate template) {
 		return StartTestItemProperties.builder()
 				.launchUuid(launchUuid)
 				.name(String.format("Feature: %s", feature.getName()))
 				.startTime(Date.from(feature.getMinScenarioStartTime().toInstant(ZoneOffset.UTC)))
-				.attributes(Utils.enhanceAttributesWithRerun(
-						feature.getTags().stream().collect(Collectors.joining(";")), propertyHandler))
+				.attributes(template.featureAttributes())
 				.type("STORY")
 				.description(feature.getDescription())
 				.codeRef(feature.getCodeRef())
 				.build();
 	}
 
-	private FinishTestItemProperties finishFeatureProperties(String launchUuid, String featureUuid, CukeFeature feature) {
+	static FinishTestItemProperties finishFeatureProperties(String launchUuid, String featureUuid, CukeFeature feature,
+			String status) {
 		return FinishTestItemProperties.builder()
 				.launchUuid(launchUuid)
 				.itemUuid(featureUuid)
 				.endTime(Date.from(feature.getMaxScenarioEndTime().toInstant(ZoneOffset.UTC)))
-				.status(feature.getScenarios().stream().allMatch(s -> s.getResult() == CukeScenarioResult.PASSED)
-						? "passed"
-						: "failed")
+				.status(status)
 				.build();
 	}
 
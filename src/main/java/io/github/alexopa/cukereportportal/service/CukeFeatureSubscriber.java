@@ -0,0 +1,204 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link Flow.Subscriber} that imports every received {@link CukeFeature}
+ * with a {@link CukeFeatureImporter}. At most <code>maxInFlight</code> features
+ * are requested from the publisher at once, and a new one is requested only
+ * when a feature has been imported, so the publisher is slowed down to the pace
+ * of ReportPortal.
+ * <p>
+ * Imported features are not retained. The {@link #completion()} future is
+ * completed when the publisher has completed and all the received features have
+ * been imported.
+ */
+@Slf4j
+class CukeFeatureSubscriber implements Flow.Subscriber<CukeFeature> {
+
+	private final int maxInFlight;
+	private final Function<CukeFeature, CukeFeatureImporter> importerFactory;
+	private final ExecutorService featurePool;
+	private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	private Flow.Subscription subscription;
+	private int inFlight;
+	private boolean upstreamDone;
+	private boolean cancelled;
+	private Throwable error;
+	private LocalDateTime maxEndTime;
+
+	/**
+	 * Creates a new {@link CukeFeatureSubscriber}
+	 * 
+	 * @param maxInFlight     The maximum number of features that are imported
+	 *                        concurrently
+	 * @param threadFactory   The {@link ThreadFactory} of the threads that import
+	 *                        the features
+	 * @param importerFactory A <code>Function</code> that creates the
+	 *                        {@link CukeFeatureImporter} of a feature
+	 */
+	CukeFeatureSubscriber(int maxInFlight, ThreadFactory threadFactory,
+			Function<CukeFeature, CukeFeatureImporter> importerFactory) {
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.importerFactory = importerFactory;
+		this.featurePool = Executors.newFixedThreadPool(this.maxInFlight, threadFactory);
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		boolean cancel;
+		synchronized (this) {
+			cancel = this.subscription != null || cancelled;
+			if (!cancel) {
+				this.subscription = subscription;
+			}
+		}
+		if (cancel) {
+			subscription.cancel();
+		} else {
+			subscription.request(maxInFlight);
+		}
+	}
+
+	@Override
+	public void onNext(CukeFeature feature) {
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			inFlight++;
+			if (feature.getMaxScenarioEndTime() != null
+					&& (maxEndTime == null || feature.getMaxScenarioEndTime().isAfter(maxEndTime))) {
+				maxEndTime = feature.getMaxScenarioEndTime();
+			}
+		}
+		try {
+			featurePool.execute(() -> {
+				// the importer is also created here, so that a feature that fails before
+				// its import starts is still counted as done
+				try {
+					importerFactory.apply(feature).call();
+				} catch (Exception e) {
+					log.error("Failed to import feature: {}", feature.getName(), e);
+				} finally {
+					featureDone();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the pool was shut down by a cancel after the feature was counted
+			log.warn("Dropping feature of a cancelled import: {}", feature.getName());
+			featureDone();
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		log.error("Feature publisher failed", throwable);
+		synchronized (this) {
+			error = throwable;
+			upstreamDone = true;
+		}
+		completeIfDone();
+	}
+
+	@Override
+	public void onComplete() {
+		synchronized (this) {
+			upstreamDone = true;
+		}
+		completeIfDone();
+	}
+
+	/**
+	 * Cancels the subscription, drops the features that have not started and
+	 * interrupts the ones in progress
+	 */
+	void cancel() {
+		Flow.Subscription s;
+		synchronized (this) {
+			cancelled = true;
+			upstreamDone = true;
+			s = subscription;
+		}
+		if (s != null) {
+			s.cancel();
+		}
+		featurePool.shutdownNow().forEach(task -> featureDone());
+		completeIfDone();
+	}
+
+	/**
+	 * Returns a future that is completed when all the received features are
+	 * imported, or exceptionally if the publisher failed
+	 * 
+	 * @return A <code>CompletableFuture</code> of the import
+	 */
+	CompletableFuture<Void> completion() {
+		return completion;
+	}
+
+	/**
+	 * Returns the latest end time of the received features
+	 * 
+	 * @return A <code>LocalDateTime</code> with the end time, or <code>null</code>
+	 *         if no feature was received
+	 */
+	synchronized LocalDateTime getMaxEndTime() {
+		return maxEndTime;
+	}
+
+	private void featureDone() {
+		Flow.Subscription s;
+		synchronized (this) {
+			inFlight--;
+			s = upstreamDone ? null : subscription;
+		}
+		if (s != null) {
+			s.request(1);
+		}
+		completeIfDone();
+	}
+
+	private void completeIfDone() {
+		Throwable failure;
+		synchronized (this) {
+			if (!upstreamDone || inFlight > 0 || completion.isDone()) {
+				return;
+			}
+			failure = error;
+		}
+		featurePool.shutdown();
+		if (failure != null) {
+			completion.completeExceptionally(failure);
+		} else {
+			completion.complete(null);
+		}
+	}
+}
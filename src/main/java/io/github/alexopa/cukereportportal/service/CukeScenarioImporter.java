@@ -16,21 +16,18 @@
  */
 package io.github.alexopa.cukereportportal.service;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.MDC;
 import org.springframework.util.MimeTypeUtils;
@@ -39,11 +36,9 @@ import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeStepResult;
-import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
-import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
-import io.github.alexopa.cukereportportal.util.MarkdownUtils;
-import io.github.alexopa.cukereportportal.util.Utils;
-import io.github.alexopa.reportportalclient.RPClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.jfr.ScenarioImportEvent;
+import io.github.alexopa.cukereportportal.jfr.StepSectionEvent;
 import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
 import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
 import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
@@ -59,45 +54,88 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 class CukeScenarioImporter implements Callable<Boolean> {
 
-	private static final String TMP_FOLDER = "/tmp";
-	private static final String DOCSTRING_DECORATOR = "\n\"\"\"\n";
-
 	private final Optional<String> name;
 	private final CukeScenario scenario;
-	private final RPImporterPropertyHandler propertyHandler;
-	private final RPClient rpClient;
+	private final ReportPortalClient rpClient;
 	private final String launchUuid;
 	private final String featureItemUuid;
+	private final ImportContext context;
+	private final FeatureTemplate template;
+	private final List<PendingAttachment> pendingAttachments = new ArrayList<>();
+	private final long submittedNanos = System.nanoTime();
+
+	/**
+	 * An attachment that is still prepared on the image pool, and is uploaded once
+	 * the steps of the scenario are imported
+	 */
+	private record PendingAttachment(CompletableFuture<Path> file, String itemUuid, LocalDateTime time) {
+	}
 	
 	@Override
 	public Boolean call() throws Exception {
 		name.ifPresent(n -> MDC.put("ctx.ctr.name", n));
+		if (context.getDeadline().isExpired()) {
+			log.warn("Import deadline reached, skipping scenario: {}", scenario.getName());
+			context.getDeadline().skip(scenario);
+			return false;
+		}
 		
 		log.info("Importing scenario: {}", scenario.getName());
+		ScenarioImportEvent event = new ScenarioImportEvent();
+		event.begin();
+		long queueWait = System.nanoTime() - submittedNanos;
 		
 		EntryCreatedResponse scenarioItemId = rpClient.startItem(startScenarioProperties(launchUuid, featureItemUuid, scenario));
+		context.getSnapshot().ifPresent(s -> s.recordScenario(scenario, scenarioItemId.getId()));
 		
-		writeSteps(scenario.getStartTimestamp(), scenario.getBeforeSteps(), rpClient, launchUuid,
-				scenarioItemId.getId());
-		writeSteps(scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration()),
-				scenario.getBackgroundSteps(), rpClient, launchUuid, scenarioItemId.getId());
-		writeSteps(
-				scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration())
-						.plusNanos(scenario.getBackgroundStepsDuration()),
-				scenario.getScenarioSteps(), rpClient, launchUuid, scenarioItemId.getId());
-		writeSteps(scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration())
-				.plusNanos(scenario.getBackgroundStepsDuration()).plusNanos(scenario.getScenarioStepsDuration()),
-				scenario.getAfterSteps(), rpClient, launchUuid, scenarioItemId.getId());
+		try {
+			writeSteps(scenario.getStartTimestamp(), scenario.getBeforeSteps(), rpClient, launchUuid,
+					scenarioItemId.getId());
+			writeSteps(scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration()),
+					scenario.getBackgroundSteps(), rpClient, launchUuid, scenarioItemId.getId());
+			writeSteps(
+					scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration())
+							.plusNanos(scenario.getBackgroundStepsDuration()),
+					scenario.getScenarioSteps(), rpClient, launchUuid, scenarioItemId.getId());
+			writeSteps(scenario.getStartTimestamp().plusNanos(scenario.getBeforeStepsDuration())
+					.plusNanos(scenario.getBackgroundStepsDuration()).plusNanos(scenario.getScenarioStepsDuration()),
+					scenario.getAfterSteps(), rpClient, launchUuid, scenarioItemId.getId());
+			uploadPendingAttachments();
+		} catch (RuntimeException e) {
+			releasePendingAttachments();
+			// do not leave the scenario item in progress, the failure is reported by the feature importer
+			try {
+				rpClient.finishItem(finishStepProperties(launchUuid, scenarioItemId.getId(),
+						scenario.getStartTimestamp().plusNanos(scenario.getTotalDuration()), "INTERRUPTED"));
+			} catch (RuntimeException finishException) {
+				e.addSuppressed(finishException);
+			}
+			commit(event, scenarioItemId.getId(), queueWait);
+			throw e;
+		}
 						
-		rpClient.finishItem(finishScenarioProperties(propertyHandler.getLaunchName(), scenarioItemId.getId(), scenario));
+		rpClient.finishItem(finishScenarioProperties(launchUuid, scenarioItemId.getId(), scenario));
 		
+		commit(event, scenarioItemId.getId(), queueWait);
 		return true;
 	}
 
-	private void writeSteps(LocalDateTime sectionStartTime, List<CukeStep> steps, RPClient rpClient, String launchUuid, String scenarioUuid) {
+	private void commit(ScenarioImportEvent event, String scenarioItemUuid, long queueWait) {
+		if (event.shouldCommit()) {
+			event.featureItemUuid = featureItemUuid;
+			event.itemUuid = scenarioItemUuid;
+			event.scenario = scenario.getName();
+			event.queueWait = queueWait;
+			event.commit();
+		}
+	}
+
+	private void writeSteps(LocalDateTime sectionStartTime, List<CukeStep> steps, ReportPortalClient rpClient, String launchUuid, String scenarioUuid) {
 		if (steps == null || steps.isEmpty()) {
 			return;
 		}
+		StepSectionEvent event = new StepSectionEvent();
+		event.begin();
 		
 		EntryCreatedResponse stepsContainerItemId = rpClient.startItem(startStepsContainerProperties(launchUuid, scenarioUuid, steps.get(0), sectionStartTime));
 		
@@ -116,22 +154,18 @@ class CukeScenarioImporter implements Callable<Boolean> {
 					.startItem(startStepProperties(launchUuid, stepsContainerItemId.getId(), step, sectionStartTime));
 			
 			if (step.getTableData() != null) {
-				String stepLog = MarkdownUtils.formatDataTable(step.getTableData());
+				String stepLog = context.getPayloads().getMessageCache().dataTable(step.getTableData());
 				if (StringUtils.isNotBlank(stepLog)) {
-					rpClient.addLog(AddLogProperties.builder().launchId(launchUuid).itemId(stepItemId.getId())
-							.level("INFO").time(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC))).message(stepLog)
-							.build());
+					addLog(LogSpillPolicy.Kind.DATA_TABLE, stepItemId.getId(), "INFO", sectionStartTime, stepLog);
 				}
 			}
 			if (StringUtils.isNotBlank(step.getDocString())) {
-				rpClient.addLog(AddLogProperties.builder().launchId(launchUuid).itemId(stepItemId.getId()).level("INFO")
-						.time(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-						.message(DOCSTRING_DECORATOR + step.getDocString() + DOCSTRING_DECORATOR).build());
+				addLog(LogSpillPolicy.Kind.DOC_STRING, stepItemId.getId(), "INFO", sectionStartTime,
+						context.getPayloads().getMessageCache().docString(step.getDocString()));
 			}	
 			if (StringUtils.isNotBlank(step.getErrorMessage())) {
-				rpClient.addLog(AddLogProperties.builder().launchId(launchUuid).itemId(stepItemId.getId())
-						.level("ERROR").time(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-						.message(step.getErrorMessage()).build());
+				addLog(LogSpillPolicy.Kind.ERROR, stepItemId.getId(), "ERROR", sectionStartTime,
+						step.getErrorMessage());
 			}
 			
 			if (step.getEmbeddings() != null) {
@@ -139,37 +173,21 @@ class CukeScenarioImporter implements Callable<Boolean> {
 					if (MimeTypeUtils.IMAGE_PNG_VALUE.equals(embedding.getMimeType())
 							|| MimeTypeUtils.APPLICATION_JSON_VALUE.equals(embedding.getMimeType())) {
 						
-						byte[] decodedData = Base64.getDecoder()
-			                    .decode(embedding.getData().getBytes(StandardCharsets.UTF_8));
-						File tmpFile = null;
-						try {
-							tmpFile = File.createTempFile("rp_" + embedding.getName().replace(" ", "_") + "_",
-									"_-attach." + embedding.getMimeType().split("/")[1], new File(TMP_FOLDER));
-							tmpFile.deleteOnExit();
-						} catch (IOException e) {
-							log.error("Could not create tmp file for attachment under {} folder:", e, TMP_FOLDER);
-							continue;
+						CompletableFuture<Path> attachment = context.getPayloads().attachment(embedding,
+								stepItemId.getId());
+						if (attachment.isDone()) {
+							uploadAttachment(attachment, stepItemId.getId(), sectionStartTime);
+						} else {
+							// processed on the image pool while the remaining steps are imported
+							pendingAttachments.add(new PendingAttachment(attachment, stepItemId.getId(), sectionStartTime));
 						}
-						try {
-							Files.write(Paths.get(tmpFile.getAbsolutePath()), decodedData);
-						} catch (IOException e) {
-							log.error("Could not write tmp file for attachment under {} folder:", e, TMP_FOLDER);
-							continue;
-						}
-						
-						rpClient.addFileAttachment(AddFileAttachmentProperties.builder().launchUuid(launchUuid)
-								.itemUuid(stepItemId.getId()).level("INFO")
-								.time(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-								.message(tmpFile.getName()).fullPath(tmpFile.getAbsolutePath()).build());
 					} else if (MimeTypeUtils.TEXT_PLAIN_VALUE.equals(embedding.getMimeType())
 							) {
-						byte[] decodedData = Base64.getDecoder()
-			                    .decode(embedding.getData().getBytes(StandardCharsets.UTF_8));
+						byte[] decodedData = ImportPayloads.decode(embedding, stepItemId.getId());
 						String text = new String(decodedData);
 						
-						rpClient.addLog(AddLogProperties.builder().launchId(launchUuid).itemId(stepItemId.getId())
-								.level("INFO").time(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-								.message(String.format("%s: %s", embedding.getName(), text)).build());
+						addLog(LogSpillPolicy.Kind.TEXT_EMBEDDING, stepItemId.getId(), "INFO", sectionStartTime,
+								context.getPayloads().getNameCache().embeddingLabel(embedding.getName()) + text);
 					}
 				}
 			}
@@ -191,20 +209,96 @@ class CukeScenarioImporter implements Callable<Boolean> {
 
 		rpClient.finishItem(finishStepProperties(launchUuid, stepsContainerItemId.getId(), sectionStartTime,
 				steps.stream().allMatch(s -> s.getResult() == CukeStepResult.PASSED) ? "passed" : "failed"));
+		if (event.shouldCommit()) {
+			event.scenarioItemUuid = scenarioUuid;
+			event.itemUuid = stepsContainerItemId.getId();
+			event.section = FeatureTemplate.section(steps.get(0).getStepSection()).containerName();
+			event.steps = steps.size();
+			event.commit();
+		}
 		
 	}
 	
+	/**
+	 * Adds a log message to a step item. A message that is longer than the
+	 * threshold of its kind is sent as a truncated head, with the full text as a
+	 * gzip attachment of the same log entry
+	 */
+	private void addLog(LogSpillPolicy.Kind kind, String itemUuid, String level, LocalDateTime time,
+			String message) {
+		Optional<LogSpillPolicy.Spill> spill;
+		try {
+			spill = context.getPayloads().getLogSpillPolicy().spill(kind, message);
+		} catch (UncheckedIOException e) {
+			log.error("Could not spill log message, sending it inline:", e);
+			spill = Optional.empty();
+		}
+		if (spill.isPresent()) {
+			try {
+				rpClient.addFileAttachment(AddFileAttachmentProperties.builder().launchUuid(launchUuid)
+						.itemUuid(itemUuid).level(level).time(Date.from(time.toInstant(ZoneOffset.UTC)))
+						.message(spill.get().head()).fullPath(spill.get().file().toAbsolutePath().toString()).build());
+			} finally {
+				context.getPayloads().getLogSpillPolicy().release(spill.get());
+			}
+		} else {
+			rpClient.addLog(AddLogProperties.builder().launchId(launchUuid).itemId(itemUuid).level(level)
+					.time(Date.from(time.toInstant(ZoneOffset.UTC))).message(message).build());
+		}
+	}
+
+	private void uploadPendingAttachments() {
+		int next = 0;
+		try {
+			while (next < pendingAttachments.size()) {
+				PendingAttachment attachment = pendingAttachments.get(next++);
+				uploadAttachment(attachment.file(), attachment.itemUuid(), attachment.time());
+			}
+		} finally {
+			// when an upload fails, the attachments after it are released as well
+			pendingAttachments.subList(0, next).clear();
+			releasePendingAttachments();
+		}
+	}
+
+	/**
+	 * Releases the files of the pending attachments that will not be uploaded.
+	 * Attachments that are still processed on the image pool are released once
+	 * they are ready
+	 */
+	private void releasePendingAttachments() {
+		pendingAttachments.forEach(attachment -> attachment.file().thenAccept(context.getPayloads()::release));
+		pendingAttachments.clear();
+	}
+
+	private void uploadAttachment(CompletableFuture<Path> attachment, String itemUuid, LocalDateTime time) {
+		Path file;
+		try {
+			file = attachment.join();
+		} catch (CompletionException e) {
+			log.error("Could not prepare attachment:", e.getCause());
+			return;
+		}
+
+		try {
+			rpClient.addFileAttachment(AddFileAttachmentProperties.builder().launchUuid(launchUuid).itemUuid(itemUuid)
+					.level("INFO").time(Date.from(time.toInstant(ZoneOffset.UTC)))
+					.message(file.getFileName().toString()).fullPath(file.toAbsolutePath().toString()).build());
+		} finally {
+			context.getPayloads().release(file);
+		}
+	}
+
 	private StartTestItemProperties startScenarioProperties(String launchUuid, String featureUuid, CukeScenario scenario) {
 		return StartTestItemProperties.builder()
 				.launchUuid(launchUuid)
 				.parentUuid(featureUuid)
 				.name(String.format("%s: %s", scenario.getType().getText(), scenario.getName()))
 				.startTime(Date.from(scenario.getStartTimestamp().toInstant(ZoneOffset.UTC)))
-				.attributes(Utils.enhanceAttributesWithRerun(
-						scenario.getTags().stream().collect(Collectors.joining(";")), propertyHandler))
+				.attributes(template.scenarioAttributes(scenario.getTags()))
 				.type("STEP")
 				.description(scenario.getDescription())
-				.codeRef(String.format("%s:%s", scenario.getParent().getCodeRef(), scenario.getLine()))
+				.codeRef(template.codeRef(scenario.getLine()))
 				.build();
 	}
 	
@@ -218,25 +312,27 @@ class CukeScenarioImporter implements Callable<Boolean> {
 	}
 	
 	private StartTestItemProperties startStepsContainerProperties(String launchUuid, String scenarioUuid, CukeStep step, LocalDateTime sectionStartTime) {
+		FeatureTemplate.Section section = FeatureTemplate.section(step.getStepSection());
 		return StartTestItemProperties.builder()
 				.launchUuid(launchUuid)
 				.parentUuid(scenarioUuid)
-				.name(generateStepContainerName(step))
+				.name(section.containerName())
 				.startTime(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-				.type(getStepType(step))
+				.type(section.type())
 				.hasStats(false)
 				.build();
 	}
 	
 	private StartTestItemProperties startStepProperties(String launchUuid, String scenarioUuid, CukeStep step, LocalDateTime sectionStartTime) {
+		FeatureTemplate.Section section = FeatureTemplate.section(step.getStepSection());
 		return StartTestItemProperties.builder()
 				.launchUuid(launchUuid)
 				.parentUuid(scenarioUuid)
-				.name(generateStepName(step))
+				.name(generateStepName(section, step))
 				.startTime(Date.from(sectionStartTime.toInstant(ZoneOffset.UTC)))
-				.type(getStepType(step))
+				.type(section.type())
 				.hasStats(false)
-				.codeRef(String.format("%s:%s", step.getParent().getParent().getCodeRef(), step.getLine()))
+				.codeRef(template.codeRef(step.getLine()))
 				.build();
 	}
 	
@@ -249,50 +345,11 @@ class CukeScenarioImporter implements Callable<Boolean> {
 				.build();
 	}
 	
-	private String generateStepContainerName(CukeStep step) {
-		if (step.getStepSection() == CukeStepSection.BEFORE_SCENARIO) {
-			return "Before Hooks";
-		} else if (step.getStepSection() == CukeStepSection.BACKGROUND) {
-			return "Background";
-		} else if (step.getStepSection() == CukeStepSection.SCENARIO) {
-			return "Scenario";
-		} else if (step.getStepSection() == CukeStepSection.AFTER_SCENARIO) {
-			return "After Hooks";
-		}
-		return "";
-	}
-	
-	private String generateStepName(CukeStep step) {
-		if (step.getStepSection() == CukeStepSection.BEFORE_SCENARIO) {
-			return String.format("%s: %s", "Before Hook", step.getMatch().getLocation());
-		} else if (step.getStepSection() == CukeStepSection.BACKGROUND) {
-			return String.format("%s %s", step.getKeyword().trim(), step.getName());
-		} else if (step.getStepSection() == CukeStepSection.BEFORE_STEP) {
-			return String.format("%s: %s", "Before Step", step.getMatch().getLocation());
-		} else if (step.getStepSection() == CukeStepSection.AFTER_STEP) {
-			return String.format("%s: %s", "After Step", step.getMatch().getLocation());
-		} else if (step.getStepSection() == CukeStepSection.SCENARIO) {
-			return String.format("%s %s", step.getKeyword().trim(), step.getName());
-		} else if (step.getStepSection() == CukeStepSection.AFTER_SCENARIO) {
-			return String.format("%s: %s", "After Hook", step.getMatch().getLocation());
-		}
-		return "";
-	}
-	
-	private String getStepType(CukeStep step) {
-		if (step.getStepSection() == CukeStepSection.BEFORE_SCENARIO) {
-			return "before_test";
-		} else if (step.getStepSection() == CukeStepSection.BACKGROUND) {
-			return "test";
-		} else if (step.getStepSection() == CukeStepSection.SCENARIO) {
-			return "test";
-		} else if (step.getStepSection() == CukeStepSection.AFTER_SCENARIO) {
-			return "after_test";
-		} else if (step.getStepSection() == CukeStepSection.BEFORE_STEP) {
-			return "before_method";
-		} else if (step.getStepSection() == CukeStepSection.AFTER_STEP) {
-			return "after_method";
+	private String generateStepName(FeatureTemplate.Section section, CukeStep step) {
+		ItemNameCache nameCache = context.getPayloads().getNameCache();
+		if (section.hookName() != null) {
+			return nameCache.hookName(section.hookName(), step.getMatch().getLocation());
 		}
-		throw new NotImplementedException("Missing return value for step type: " + step.getStepSection());
+		return nameCache.stepName(step.getKeyword(), step.getName());
 	}
 }
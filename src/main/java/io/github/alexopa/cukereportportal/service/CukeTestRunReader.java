@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportconverter.service.CukeConverter;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.jfr.ReportParseEvent;
+import io.github.alexopa.cukereportportal.source.ReportSource;
+import io.github.alexopa.cukereportportal.source.ReportSources;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class that reads cucumber json reports into a {@link CukeTestRun}
+ */
+@Slf4j
+@UtilityClass
+class CukeTestRunReader {
+
+	/**
+	 * Reads the cucumber json reports of
+	 * {@link RPImporterPropertyHandler#getCucumberJsonFiles()}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @return A {@link CukeTestRun} with the converted reports
+	 */
+	static CukeTestRun read(RPImporterPropertyHandler propertyHandler) {
+		return read(ReportSources.discover(propertyHandler.getCucumberJsonFiles()));
+	}
+
+	/**
+	 * Reads cucumber json reports. Reports that are plain local files are read in
+	 * place. The converter only reads files, so compressed reports, streams and
+	 * resources inside jars are first written, uncompressed, to a temporary file
+	 * that is deleted once the reports are converted. These copies run in
+	 * parallel and start from the largest report, so that a big report does not
+	 * end up copied last, while the reports keep their order in the test run
+	 * 
+	 * @param sources A <code>List</code> of {@link ReportSource} with the reports
+	 * @return A {@link CukeTestRun} with the converted reports
+	 */
+	static CukeTestRun read(List<ReportSource> sources) {
+		ReportParseEvent event = new ReportParseEvent();
+		event.begin();
+		List<Path> temporaryFiles = Collections.synchronizedList(new ArrayList<>());
+		try {
+			Map<ReportSource, CompletableFuture<Path>> copies = copy(sources, temporaryFiles);
+			List<File> files = sources.stream()
+					.map(s -> s.getPath().orElseGet(() -> copies.get(s).join())).map(Path::toFile).toList();
+			CukeTestRun testRun = new CukeConverter().convertToTestRun(files);
+			if (event.shouldCommit()) {
+				event.sources = sources.size();
+				event.features = testRun.getFeatures().size();
+				event.commit();
+			}
+			return testRun;
+		} finally {
+			temporaryFiles.forEach(CukeTestRunReader::deleteQuietly);
+		}
+	}
+
+	private static Map<ReportSource, CompletableFuture<Path>> copy(List<ReportSource> sources,
+			List<Path> temporaryFiles) {
+		Map<ReportSource, CompletableFuture<Path>> copies = new IdentityHashMap<>();
+		sources.stream().filter(s -> s.getPath().isEmpty())
+				.sorted(Comparator.comparingLong(ReportSource::getSize).reversed())
+				.forEach(s -> copies.put(s, CompletableFuture.supplyAsync(() -> materialize(s, temporaryFiles))));
+		try {
+			// wait for every copy, so that none is still writing once the temporary
+			// files are deleted
+			CompletableFuture.allOf(copies.values().toArray(CompletableFuture[]::new)).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+		return copies;
+	}
+
+	private static Path materialize(ReportSource source, List<Path> temporaryFiles) {
+		try {
+			Path file = Files.createTempFile("cuke-report", ".json");
+			temporaryFiles.add(file);
+			try (InputStream in = source.open()) {
+				Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return file;
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to read report %s", source.getName()), e);
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete temporary report {}", file, e);
+		}
+	}
+}
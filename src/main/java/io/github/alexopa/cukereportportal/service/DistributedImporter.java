@@ -0,0 +1,517 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.MDC;
+import org.springframework.util.CollectionUtils;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.distributed.FileSystemWorkQueueStore;
+import io.github.alexopa.cukereportportal.distributed.ImportPlan;
+import io.github.alexopa.cukereportportal.distributed.WorkLease;
+import io.github.alexopa.cukereportportal.distributed.WorkQueueStore;
+import io.github.alexopa.cukereportportal.distributed.WorkUnit;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.service.ReportPortalImporter.LaunchImport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports a single launch with several processes, on the same or on other
+ * hosts, that share a {@link WorkQueueStore}.
+ * <p>
+ * The coordinator ({@link #coordinate()}) starts the launch and the feature
+ * items, and publishes an {@link ImportPlan} that splits the scenarios of every
+ * feature in work units of at most
+ * {@link RPImporterConfig#getDistributedScenariosPerUnit()} scenarios. The
+ * workers ({@link #work()}) claim the units with leases and import their
+ * scenarios under the feature items of the coordinator. Once every unit is
+ * completed, the coordinator finishes the features and the launch. A unit
+ * whose worker dies or stalls is claimed again once its lease expires, so the
+ * scenarios of a unit may be imported twice when a worker stalls for longer
+ * than its lease.
+ * <p>
+ * The processes do not exchange the reports: every worker reads the same
+ * reports as the coordinator (<code>rp.importer.cucumberJsonFiles</code>), and
+ * the features are matched by a key that is computed from their code
+ * references and scenarios, so the order in which the reports are read does
+ * not matter. The snapshot file (<code>rp.importer.snapshot.file</code>) of the
+ * coordinator only holds the scenarios that it imported itself.
+ */
+@Slf4j
+public class DistributedImporter {
+
+	private final RPImporterPropertyHandler propertyHandler;
+	private final RPImporterConfig config;
+	private final ReportPortalImporter importer;
+	private final WorkQueueStore store;
+	private final String workerId = workerId();
+
+	/**
+	 * Creates a new {@link DistributedImporter} that calls the ReportPortal
+	 * instance of the properties, and shares the directory of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_DIRECTORY}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @throws RPImporterException if a property has an invalid value, or the
+	 *                             directory is not defined
+	 */
+	public DistributedImporter(final RPImporterPropertyHandler propertyHandler) {
+		this(propertyHandler, null);
+	}
+
+	/**
+	 * Creates a new {@link DistributedImporter} that shares the directory of
+	 * {@link RPImporterProperties#RP_IMPORTER_DISTRIBUTED_DIRECTORY}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @param rpClient        The {@link ReportPortalClient} to import with, or
+	 *                        <code>null</code> for the one defined by the
+	 *                        properties
+	 * @throws RPImporterException if a property has an invalid value, or the
+	 *                             directory is not defined
+	 */
+	public DistributedImporter(final RPImporterPropertyHandler propertyHandler, final ReportPortalClient rpClient) {
+		this(propertyHandler, rpClient, new FileSystemWorkQueueStore(Paths.get(Optional
+				.ofNullable(propertyHandler.getConfig().getDistributedDirectory())
+				.orElseThrow(() -> new RPImporterException(String.format("%s must be defined for a distributed import",
+						RPImporterProperties.RP_IMPORTER_DISTRIBUTED_DIRECTORY.getPropertyName()))))));
+	}
+
+	/**
+	 * Creates a new {@link DistributedImporter}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @param rpClient        The {@link ReportPortalClient} to import with, or
+	 *                        <code>null</code> for the one defined by the
+	 *                        properties
+	 * @param store           The {@link WorkQueueStore} that is shared by the
+	 *                        coordinator and the workers
+	 * @throws RPImporterException if a property has an invalid value
+	 */
+	public DistributedImporter(final RPImporterPropertyHandler propertyHandler, final ReportPortalClient rpClient,
+			final WorkQueueStore store) {
+		this.propertyHandler = propertyHandler;
+		this.importer = new ReportPortalImporter(propertyHandler, rpClient);
+		this.config = propertyHandler.getConfig();
+		this.store = store;
+	}
+
+	/**
+	 * Coordinates the import of the cucumber json files of the properties. See
+	 * {@link #coordinate(CukeMetadata)}
+	 * 
+	 * @return A {@link CukeTestRun} with the testrun that was imported
+	 */
+	public CukeTestRun coordinate() {
+		return coordinate(new CukeMetadata());
+	}
+
+	/**
+	 * Coordinates the import of the cucumber json files of the properties: starts
+	 * the launch and the feature items, publishes the work units, and finishes the
+	 * features and the launch once all the units are completed. Unless
+	 * {@link RPImporterConfig#isDistributedCoordinatorImports()} is disabled, the
+	 * coordinator also imports units while it waits for the workers
+	 * 
+	 * @param metadata A {@link CukeMetadata} with the metadata of the testrun
+	 * @return A {@link CukeTestRun} with the testrun that was imported
+	 */
+	public CukeTestRun coordinate(CukeMetadata metadata) {
+		CukeTestRun testRun = CukeTestRunReader.read(propertyHandler);
+		testRun.setMetadata(metadata);
+		return coordinate(testRun);
+	}
+
+	/**
+	 * Coordinates the import of a {@link CukeTestRun} instance. See
+	 * {@link #coordinate(CukeMetadata)}. The workers must import the same testrun
+	 * with {@link #work(CukeTestRun)}
+	 * 
+	 * @param testRun The {@link CukeTestRun} instance to import
+	 * @return A {@link CukeTestRun} with the testrun that was imported
+	 */
+	public CukeTestRun coordinate(CukeTestRun testRun) {
+		if (CollectionUtils.isEmpty(testRun.getFeatures())) {
+			log.warn("No feature exists for the test-run. Cannot import...");
+			return null;
+		}
+
+		store.readPlan().ifPresent(p -> {
+			throw new RPImporterException(
+					String.format("The work queue already holds the plan of launch %s", p.launchUuid()));
+		});
+
+		LaunchImport launchImport = importer.startImport(testRun, new ImportContext(config));
+		Map<String, CukeFeature> features = featuresByKey(testRun);
+		ImportDeadline deadline = launchImport.context().getDeadline();
+		ExecutorService featurePool = Executors.newFixedThreadPool(config.getThreadsFeatures(),
+				deadline.threadFactory());
+		try {
+			// the launch attachments are uploaded while the units are imported
+			importer.launchAttachmentUploads(launchImport).forEach(featurePool::submit);
+
+			Map<String, Future<String>> startedFeatures = new LinkedHashMap<>();
+			features.forEach((key, feature) -> startedFeatures.put(key,
+					featurePool.submit(() -> startFeature(launchImport, feature))));
+			Map<String, String> featureItemUuids = new LinkedHashMap<>();
+			for (Map.Entry<String, Future<String>> started : startedFeatures.entrySet()) {
+				featureItemUuids.put(started.getKey(), await(started.getValue()));
+			}
+
+			ImportPlan plan = new ImportPlan(launchImport.launchUuid(), featureItemUuids, units(features));
+			store.publish(plan);
+			if (config.isDistributedCoordinatorImports()) {
+				int imported = importUnits(plan, features, launchImport.context(), launchImport.rpClient(),
+						Optional.ofNullable(testRun.getMetadata()).map(CukeMetadata::getName));
+				log.info("Coordinator {} imported {} of {} work units", workerId, imported, plan.units().size());
+			}
+			// the features of units that were not completed before the deadline are
+			// finished as interrupted
+			boolean completed = awaitCompletion(deadline);
+
+			List<Future<?>> finishedFeatures = new ArrayList<>();
+			features.forEach((key, feature) -> finishedFeatures.add(featurePool.submit(() -> {
+				try {
+					deadline.finish(() -> launchImport.rpClient()
+							.finishItem(CukeFeatureImporter.finishFeatureProperties(launchImport.launchUuid(),
+									featureItemUuids.get(key), feature,
+									completed ? CukeFeatureImporter.status(feature) : "INTERRUPTED")));
+				} catch (TimeoutException e) {
+					log.error("Abandoned the finish of feature: {}", feature.getName());
+				}
+				return null;
+			})));
+			for (Future<?> finished : finishedFeatures) {
+				await(finished);
+			}
+			featurePool.shutdown();
+			// wait for the launch attachments that are still uploading
+			if (!deadline.awaitTermination(featurePool)) {
+				featurePool.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			log.error("Interrupted while coordinating launch {}", launchImport.launchUuid());
+			featurePool.shutdownNow();
+			Thread.currentThread().interrupt();
+			return importer.finishImport(launchImport, true);
+		} catch (RuntimeException e) {
+			featurePool.shutdownNow();
+			importer.finishImport(launchImport, true);
+			throw e;
+		}
+		return importer.finishImport(launchImport, false);
+	}
+
+	/**
+	 * Imports work units of the launch that is coordinated by another process,
+	 * until all the units are completed. The worker waits up to
+	 * {@link RPImporterConfig#getDistributedPlanWaitMs()} for the coordinator to
+	 * publish the units, and imports up to
+	 * {@link RPImporterConfig#getThreadsFeatures()} units at once
+	 * 
+	 * @return an <code>int</code> with the number of units that this worker
+	 *         imported
+	 * @throws RPImporterException if no plan is published in time, or the reports
+	 *                             of the worker do not match the ones of the
+	 *                             coordinator
+	 */
+	public int work() {
+		return work(CukeTestRunReader.read(propertyHandler));
+	}
+
+	/**
+	 * Imports work units of a {@link CukeTestRun} instance, that is coordinated by
+	 * another process with {@link #coordinate(CukeTestRun)}. See {@link #work()}
+	 * 
+	 * @param testRun The {@link CukeTestRun} instance of the coordinator
+	 * @return an <code>int</code> with the number of units that this worker
+	 *         imported
+	 * @throws RPImporterException if no plan is published in time, or the testrun
+	 *                             does not match the one of the coordinator
+	 */
+	public int work(CukeTestRun testRun) {
+		if (CollectionUtils.isEmpty(testRun.getFeatures())) {
+			log.warn("No feature exists for the test-run. Cannot import...");
+			return 0;
+		}
+		Map<String, CukeFeature> features = featuresByKey(testRun);
+
+		ImportContext context = new ImportContext(config);
+		ReportPortalClient rpClient = importer.client();
+		try {
+			ImportPlan plan = awaitPlan();
+			long missing = plan.featureItemUuids().keySet().stream().filter(k -> !features.containsKey(k)).count();
+			if (missing > 0) {
+				throw new RPImporterException(String.format(
+						"The reports of worker %s do not match the reports of launch %s: %d of %d features are missing",
+						workerId, plan.launchUuid(), missing, plan.featureItemUuids().size()));
+			}
+			context.getPayloads().prepare(testRun);
+			int imported = importUnits(plan, features, context, rpClient, Optional.empty());
+			log.info("Worker {} imported {} of {} work units of launch {}", workerId, imported, plan.units().size(),
+					plan.launchUuid());
+			if (context.getDeadline().isIncomplete()) {
+				log.warn("Worker {} left work units of launch {} incomplete. {}", workerId, plan.launchUuid(),
+						context.getDeadline().summary());
+			}
+			return imported;
+		} catch (InterruptedException e) {
+			log.warn("Worker {} was interrupted", workerId);
+			Thread.currentThread().interrupt();
+			return 0;
+		} finally {
+			context.close();
+			importer.release(rpClient);
+		}
+	}
+
+	/**
+	 * Returns the features of a testrun by their keys. The key of a feature is a
+	 * fingerprint of its code reference and of the identity and outcome of all its
+	 * scenarios, with a counter for identical features
+	 */
+	static Map<String, CukeFeature> featuresByKey(CukeTestRun testRun) {
+		Map<String, CukeFeature> features = new LinkedHashMap<>();
+		Map<Long, Integer> occurrences = new HashMap<>();
+		for (CukeFeature feature : testRun.getFeatures()) {
+			Hasher hasher = Hashing.farmHashFingerprint64().newHasher()
+					.putLong(ScenarioFingerprintIndex.identity(feature));
+			for (CukeScenario scenario : feature.getScenarios()) {
+				hasher.putLong(ScenarioFingerprintIndex.identity(scenario))
+						.putLong(ScenarioFingerprintIndex.outcome(scenario));
+			}
+			long fingerprint = hasher.hash().asLong();
+			features.put(String.format("%016x-%d", fingerprint, occurrences.merge(fingerprint, 1, Integer::sum)),
+					feature);
+		}
+		return features;
+	}
+
+	private List<WorkUnit> units(Map<String, CukeFeature> features) {
+		List<WorkUnit> units = new ArrayList<>();
+		features.forEach((key, feature) -> {
+			int scenarios = feature.getScenarios().size();
+			int size = config.getDistributedScenariosPerUnit() > 0 ? config.getDistributedScenariosPerUnit()
+					: scenarios;
+			for (int from = 0; from < scenarios; from += size) {
+				units.add(new WorkUnit(units.size(), key, from, Math.min(scenarios, from + size)));
+			}
+		});
+		return units;
+	}
+
+	private String startFeature(LaunchImport launchImport, CukeFeature feature) {
+		log.info("Starting feature: {}", feature.getName());
+		String itemUuid = launchImport.rpClient()
+				.startItem(CukeFeatureImporter.startFeatureProperties(launchImport.launchUuid(), feature,
+						new FeatureTemplate(feature, config)))
+				.getId();
+		launchImport.context().getSnapshot().ifPresent(s -> s.recordFeature(feature, itemUuid));
+		return itemUuid;
+	}
+
+	/**
+	 * Claims and imports units on {@link RPImporterConfig#getThreadsFeatures()}
+	 * threads until all the units of the plan are completed, or the deadline is
+	 * reached. The leases of the units in progress are renewed three times per
+	 * lease duration
+	 */
+	private int importUnits(ImportPlan plan, Map<String, CukeFeature> features, ImportContext context,
+			ReportPortalClient rpClient, Optional<String> name) throws InterruptedException {
+		long leaseMs = config.getDistributedLeaseMs();
+		Set<WorkLease> leases = ConcurrentHashMap.newKeySet();
+		ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "rp-importer-lease-renewer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		renewer.scheduleWithFixedDelay(() -> leases.forEach(lease -> {
+			try {
+				if (!store.renew(lease, leaseMs)) {
+					log.warn("Lease of work unit {} expired, it may be imported twice", lease.unit().id());
+				}
+			} catch (RuntimeException e) {
+				log.error("Failed to renew lease of work unit {}", lease.unit().id(), e);
+			}
+		}), leaseMs / 3, leaseMs / 3, TimeUnit.MILLISECONDS);
+
+		Map<String, FeatureTemplate> templates = new ConcurrentHashMap<>();
+		AtomicInteger imported = new AtomicInteger();
+		ExecutorService unitPool = Executors.newFixedThreadPool(config.getThreadsFeatures(),
+				context.getDeadline().threadFactory());
+		try {
+			List<Future<?>> claimers = new ArrayList<>();
+			for (int i = 0; i < config.getThreadsFeatures(); i++) {
+				claimers.add(unitPool.submit(() -> {
+					name.ifPresent(n -> MDC.put("ctx.ctr.name", n));
+					while (true) {
+						if (context.getDeadline().isExpired()) {
+							// the units left are claimed by other workers, once their leases expire
+							log.warn("Import deadline reached, worker {} claims no more work units", workerId);
+							return null;
+						}
+						Optional<WorkLease> lease = store.claim(workerId, leaseMs);
+						if (lease.isEmpty()) {
+							if (store.remaining() == 0) {
+								return null;
+							}
+							// the units left are leased by other workers, and are claimed here if
+							// their leases expire
+							Thread.sleep(config.getDistributedPollMs());
+							continue;
+						}
+						leases.add(lease.get());
+						try {
+							// a unit with scenarios that were skipped because of the deadline is not
+							// completed, so that another worker imports it
+							if (importUnit(lease.get().unit(), plan, features.get(lease.get().unit().featureKey()),
+									templates, context, rpClient, name)) {
+								store.complete(lease.get());
+								imported.incrementAndGet();
+							}
+						} finally {
+							leases.remove(lease.get());
+						}
+					}
+				}));
+			}
+			for (Future<?> claimer : claimers) {
+				try {
+					claimer.get();
+				} catch (ExecutionException e) {
+					log.error("Failed to import work units", e.getCause());
+				}
+			}
+		} finally {
+			unitPool.shutdownNow();
+			renewer.shutdownNow();
+		}
+		return imported.get();
+	}
+
+	private boolean importUnit(WorkUnit unit, ImportPlan plan, CukeFeature feature,
+			Map<String, FeatureTemplate> templates, ImportContext context, ReportPortalClient rpClient,
+			Optional<String> name) throws InterruptedException {
+		log.info("Importing scenarios {} to {} of feature: {}", unit.fromScenario() + 1, unit.toScenario(),
+				feature.getName());
+		FeatureTemplate template = templates.computeIfAbsent(unit.featureKey(),
+				k -> new FeatureTemplate(feature, config));
+		List<CukeScenario> scenarios = feature.getScenarios().subList(unit.fromScenario(), unit.toScenario());
+		ExecutorService scenarioPool = Executors.newFixedThreadPool(config.getThreadsScenarios(),
+				context.getDeadline().threadFactory());
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (CukeScenario scenario : scenarios) {
+				results.add(scenarioPool.submit(new CukeScenarioImporter(name, scenario, rpClient,
+						plan.launchUuid(), plan.featureItemUuids().get(unit.featureKey()), context, template)));
+			}
+			boolean complete = true;
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					complete &= context.getDeadline().await(results.get(i));
+				} catch (ExecutionException e) {
+					log.error("Failed to import scenario: {}", scenarios.get(i).getName(), e.getCause());
+				} catch (TimeoutException e) {
+					log.warn("Grace period of the import deadline is over, abandoning work unit {}", unit.id());
+					return false;
+				}
+			}
+			return complete;
+		} finally {
+			scenarioPool.shutdownNow();
+		}
+	}
+
+	private ImportPlan awaitPlan() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + config.getDistributedPlanWaitMs();
+		Optional<ImportPlan> plan;
+		while ((plan = store.readPlan()).isEmpty()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new RPImporterException(String.format("Worker %s found no published work within %d ms",
+						workerId, config.getDistributedPlanWaitMs()));
+			}
+			Thread.sleep(config.getDistributedPollMs());
+		}
+		return plan.get();
+	}
+
+	private boolean awaitCompletion(ImportDeadline deadline) throws InterruptedException {
+		int reported = -1;
+		int remaining;
+		while ((remaining = store.remaining()) > 0) {
+			if (deadline.isOver()) {
+				log.warn("Grace period of the import deadline is over, {} work units were not completed", remaining);
+				deadline.abandon();
+				return false;
+			}
+			if (remaining != reported) {
+				log.info("Waiting for {} work units", remaining);
+				reported = remaining;
+			}
+			Thread.sleep(config.getDistributedPollMs());
+		}
+		return true;
+	}
+
+	private static <T> T await(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			throw new RPImporterException("Failed to start or finish a feature", e.getCause());
+		}
+	}
+
+	private static String workerId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			host = "unknown";
+		}
+		return String.format("%s-%d-%x", host, ProcessHandle.current().pid(), System.identityHashCode(new Object()));
+	}
+}
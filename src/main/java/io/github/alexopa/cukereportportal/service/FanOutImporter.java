@@ -0,0 +1,291 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.CollectionUtils;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.source.ReportSource;
+import io.github.alexopa.cukereportportal.util.Utils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class that imports the same cucumber reports to several ReportPortal projects
+ * or instances. The reports are parsed once, and the deduplication, the log
+ * message formatting and the decoding and processing of the embeddings are
+ * shared by all the targets.
+ * <p>
+ * Every target is a {@link ReportPortalImporter} with its own properties, so it
+ * has its own endpoint, project, launch and thread counts. The targets import
+ * concurrently, each on its own pools, so a slow target does not stall the
+ * others.
+ * <p>
+ * The payload properties (deduplication, message cache, images and log spill)
+ * are taken from the base properties, since the payloads are shared, so a
+ * target must not override them. Every target needs its own snapshot and spool
+ * file: targets that are read from <code>rp.importer.fanout.targets</code> and
+ * inherit these files from the base properties get the name of the target
+ * appended to them.
+ */
+@Slf4j
+public class FanOutImporter {
+
+	/**
+	 * The properties of the shared {@link ImportPayloads}, which are taken from
+	 * the base properties
+	 */
+	private static final Map<RPImporterProperties, Function<RPImporterConfig, Object>> PAYLOAD_PROPERTIES = Map.ofEntries(
+			Map.entry(RPImporterProperties.RP_IMPORTER_DEDUPLICATION_ENABLED, RPImporterConfig::isDeduplicationEnabled),
+			Map.entry(RPImporterProperties.RP_IMPORTER_CACHE_FORMATTED_MESSAGES_MAX_CHARS, RPImporterConfig::getFormattedMessagesCacheMaxChars),
+			Map.entry(RPImporterProperties.RP_IMPORTER_IMAGES_MAX_DIMENSION, RPImporterConfig::getImagesMaxDimension),
+			Map.entry(RPImporterProperties.RP_IMPORTER_IMAGES_FORMAT, RPImporterConfig::getImagesFormat),
+			Map.entry(RPImporterProperties.RP_IMPORTER_IMAGES_JPEG_QUALITY, RPImporterConfig::getImagesJpegQuality),
+			Map.entry(RPImporterProperties.RP_IMPORTER_IMAGES_THREADS, RPImporterConfig::getImagesThreads),
+			Map.entry(RPImporterProperties.RP_IMPORTER_LOG_SPILL_ERROR_CHARS, RPImporterConfig::getLogSpillErrorChars),
+			Map.entry(RPImporterProperties.RP_IMPORTER_LOG_SPILL_DOC_STRING_CHARS, RPImporterConfig::getLogSpillDocStringChars),
+			Map.entry(RPImporterProperties.RP_IMPORTER_LOG_SPILL_DATA_TABLE_CHARS, RPImporterConfig::getLogSpillDataTableChars),
+			Map.entry(RPImporterProperties.RP_IMPORTER_LOG_SPILL_TEXT_EMBEDDING_CHARS, RPImporterConfig::getLogSpillTextEmbeddingChars),
+			Map.entry(RPImporterProperties.RP_IMPORTER_LOG_SPILL_HEAD_CHARS, RPImporterConfig::getLogSpillHeadChars));
+
+	private final RPImporterPropertyHandler propertyHandler;
+	private final RPImporterConfig config;
+	private final Map<String, ReportPortalImporter> targets;
+
+	/**
+	 * Creates a new {@link FanOutImporter} for the targets that are defined in
+	 * <code>rp.importer.fanout.targets</code>. Every target is a properties file
+	 * whose properties override the properties of the given
+	 * {@link RPImporterPropertyHandler}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @throws RPImporterException if no target is defined, a target file does not
+	 *                             exist or a property has an invalid value
+	 */
+	public FanOutImporter(RPImporterPropertyHandler propertyHandler) {
+		this(propertyHandler, targetsOf(propertyHandler));
+	}
+
+	/**
+	 * Creates a new {@link FanOutImporter} for the given targets
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} with the
+	 *                        properties of the reports and of the payload
+	 *                        preparation
+	 * @param targets         A <code>Map</code> with the
+	 *                        {@link ReportPortalImporter} of every target, by the
+	 *                        name of the target
+	 * @throws RPImporterException if no target is defined, a property has an
+	 *                             invalid value, a target overrides a payload
+	 *                             property or two targets write the same snapshot
+	 *                             or spool file
+	 */
+	public FanOutImporter(RPImporterPropertyHandler propertyHandler, Map<String, ReportPortalImporter> targets) {
+		if (targets.isEmpty()) {
+			throw new RPImporterException("No fan-out target is defined");
+		}
+		this.propertyHandler = propertyHandler;
+		this.config = propertyHandler.getConfig();
+		this.targets = new LinkedHashMap<>(targets);
+		validateTargets();
+	}
+
+	private void validateTargets() {
+		Map<String, String> outputFiles = new HashMap<>();
+		targets.forEach((name, importer) -> {
+			RPImporterConfig targetConfig = importer.config();
+			List<String> overridden = PAYLOAD_PROPERTIES.entrySet().stream()
+					.filter(e -> !Objects.equals(e.getValue().apply(config), e.getValue().apply(targetConfig)))
+					.map(e -> e.getKey().getPropertyName()).sorted().toList();
+			if (!overridden.isEmpty()) {
+				throw new RPImporterException(String.format(
+						"Fan-out target %s overrides %s, which are taken from the base properties for all the targets",
+						name, String.join(", ", overridden)));
+			}
+			for (String file : List.of(targetConfig.getSnapshotFile(), targetConfig.getSpoolFile())) {
+				String other = StringUtils.isBlank(file) ? null : outputFiles.putIfAbsent(file, name);
+				if (other != null) {
+					throw new RPImporterException(
+							String.format("Fan-out targets %s and %s both write to %s", other, name, file));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Method that imports cucumber json files to every target. The report files
+	 * to be imported will be retrieved from the properties
+	 * 
+	 * @return A <code>Map</code> with the {@link CukeTestRun} that was imported to
+	 *         every target, by the name of the target
+	 */
+	public Map<String, CukeTestRun> importCucumberReports() {
+		return importCucumberReports(new CukeMetadata());
+	}
+
+	/**
+	 * Method that imports cucumber json files to every target. The report files
+	 * to be imported will be retrieved from the properties
+	 * 
+	 * @param metadata A {@link CukeMetadata} with the metadata of the testrun
+	 * @return A <code>Map</code> with the {@link CukeTestRun} that was imported to
+	 *         every target, by the name of the target
+	 */
+	public Map<String, CukeTestRun> importCucumberReports(CukeMetadata metadata) {
+		CukeTestRun testRun = CukeTestRunReader.read(propertyHandler);
+		testRun.setMetadata(metadata);
+		return importReport(testRun);
+	}
+
+	/**
+	 * Method that imports cucumber json reports from the given sources to every
+	 * target
+	 * 
+	 * @param metadata A {@link CukeMetadata} with the metadata of the testrun
+	 * @param sources  A <code>List</code> of {@link ReportSource} with the reports
+	 * @return A <code>Map</code> with the {@link CukeTestRun} that was imported to
+	 *         every target, by the name of the target
+	 */
+	public Map<String, CukeTestRun> importCucumberReports(CukeMetadata metadata, List<ReportSource> sources) {
+		CukeTestRun testRun = CukeTestRunReader.read(sources);
+		testRun.setMetadata(metadata);
+		return importReport(testRun);
+	}
+
+	/**
+	 * Method that imports a {@link CukeTestRun} instance to every target. Every
+	 * target gets its own copy of the testrun and of its metadata, with the id of
+	 * its own launch, while the features are shared.
+	 * <p>
+	 * The method returns once every target is imported. If a target fails, the
+	 * other targets are still imported, and an {@link RPImporterException} is
+	 * thrown at the end
+	 * 
+	 * @param testRun The {@link CukeTestRun} instance to import
+	 * @return A <code>Map</code> with the {@link CukeTestRun} that was imported to
+	 *         every target, by the name of the target
+	 * @throws RPImporterException if the import to a target failed
+	 */
+	public Map<String, CukeTestRun> importReport(CukeTestRun testRun) {
+		if (CollectionUtils.isEmpty(testRun.getFeatures())) {
+			log.warn("No feature exists for the test-run. Cannot import...");
+			return Map.of();
+		}
+
+		ImportPayloads payloads = new ImportPayloads(config, true);
+		// prepared once here, so that the targets do not modify the shared features
+		payloads.prepare(testRun);
+		ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+		Map<String, CompletableFuture<CukeTestRun>> imports = new LinkedHashMap<>();
+		try {
+			targets.forEach((name, importer) -> {
+				log.info("Importing testrun to target {}", name);
+				imports.put(name, importer.importReportAsync(copyOf(testRun), payloads, executor));
+			});
+
+			Map<String, CukeTestRun> imported = new LinkedHashMap<>();
+			Map<String, Throwable> failures = new LinkedHashMap<>();
+			imports.forEach((name, result) -> {
+				try {
+					imported.put(name, result.join());
+				} catch (CompletionException e) {
+					log.error("Failed to import testrun to target {}", name, e.getCause());
+					failures.put(name, e.getCause());
+				}
+			});
+			if (!failures.isEmpty()) {
+				RPImporterException e = new RPImporterException(String.format(
+						"Failed to import testrun to targets: %s", String.join(", ", failures.keySet())));
+				failures.values().forEach(e::addSuppressed);
+				throw e;
+			}
+			return imported;
+		} finally {
+			executor.shutdown();
+			payloads.close();
+		}
+	}
+
+	private static CukeTestRun copyOf(CukeTestRun testRun) {
+		CukeMetadata metadata = new CukeMetadata();
+		if (testRun.getMetadata() != null) {
+			metadata.setName(testRun.getMetadata().getName());
+			metadata.setStatus(testRun.getMetadata().getStatus());
+		}
+		CukeTestRun copy = new CukeTestRun();
+		copy.setMetadata(metadata);
+		copy.setStartTime(testRun.getStartTime());
+		copy.setEndTime(testRun.getEndTime());
+		copy.setFeatures(testRun.getFeatures());
+		return copy;
+	}
+
+	private static Map<String, ReportPortalImporter> targetsOf(RPImporterPropertyHandler propertyHandler) {
+		Map<String, ReportPortalImporter> targets = new LinkedHashMap<>();
+		RPImporterConfig config = propertyHandler.getConfig();
+		for (String target : config.getFanOutTargets()) {
+			if (Utils.getFile(target) == null) {
+				throw new RPImporterException(String.format("Fan-out target %s does not exist", target));
+			}
+			RPImporterPropertyHandler targetHandler = propertyHandler.withPropertiesFile(target);
+			RPImporterConfig targetConfig = targetHandler.getConfig();
+			String suffix = StringUtils.removeEnd(Paths.get(target).getFileName().toString(), ".properties");
+			Properties outputFiles = new Properties();
+			if (StringUtils.isNotBlank(config.getSnapshotFile())
+					&& config.getSnapshotFile().equals(targetConfig.getSnapshotFile())) {
+				outputFiles.setProperty(RPImporterProperties.RP_IMPORTER_SNAPSHOT_FILE.getPropertyName(),
+						withSuffix(config.getSnapshotFile(), suffix));
+			}
+			if (StringUtils.isNotBlank(config.getSpoolFile()) && config.getSpoolFile().equals(targetConfig.getSpoolFile())) {
+				outputFiles.setProperty(RPImporterProperties.RP_IMPORTER_SPOOL_FILE.getPropertyName(),
+						withSuffix(config.getSpoolFile(), suffix));
+			}
+			targets.put(target, new ReportPortalImporter(
+					outputFiles.isEmpty() ? targetHandler : targetHandler.withProperties(outputFiles)));
+		}
+		return targets;
+	}
+
+	/**
+	 * Appends a suffix to the name of a file, before its extension, ie.
+	 * <code>run.snapshot</code> to <code>run-target.snapshot</code>
+	 */
+	static String withSuffix(String file, String suffix) {
+		int name = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1;
+		int extension = file.lastIndexOf('.');
+		return extension > name ? String.format("%s-%s%s", file.substring(0, extension), suffix, file.substring(extension))
+				: String.format("%s-%s", file, suffix);
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.NotImplementedException;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.util.Utils;
+
+/**
+ * The item metadata of a feature that is shared by all its scenarios and
+ * steps. It is built once per feature, before the scenarios are imported: the
+ * code references of every used line and the encoded attributes of every
+ * distinct list of tags are computed up front, so building the properties of an
+ * item only reads them. The template is not modified after it is built, so it
+ * is shared by the scenario importer threads without synchronization.
+ */
+class FeatureTemplate {
+
+	/**
+	 * The fixed metadata of the items of a {@link CukeStepSection}
+	 * 
+	 * @param containerName The name of the container item of the section
+	 * @param type          The ReportPortal type of the items of the section
+	 * @param hookName      The name prefix of hook items, or <code>null</code> if
+	 *                      the section has steps
+	 */
+	record Section(String containerName, String type, String hookName) {
+	}
+
+	private static final Map<CukeStepSection, Section> SECTIONS = new EnumMap<>(CukeStepSection.class);
+
+	static {
+		SECTIONS.put(CukeStepSection.BEFORE_SCENARIO, new Section("Before Hooks", "before_test", "Before Hook"));
+		SECTIONS.put(CukeStepSection.BACKGROUND, new Section("Background", "test", null));
+		SECTIONS.put(CukeStepSection.SCENARIO, new Section("Scenario", "test", null));
+		SECTIONS.put(CukeStepSection.AFTER_SCENARIO, new Section("After Hooks", "after_test", "After Hook"));
+		SECTIONS.put(CukeStepSection.BEFORE_STEP, new Section("", "before_method", "Before Step"));
+		SECTIONS.put(CukeStepSection.AFTER_STEP, new Section("", "after_method", "After Step"));
+	}
+
+	private final String codeRefPrefix;
+	private final String[] codeRefs;
+	private final String featureAttributes;
+	private final Map<List<String>, String> scenarioAttributes = new HashMap<>();
+	private final RPImporterConfig config;
+
+	/**
+	 * Creates the template of a feature
+	 * 
+	 * @param feature The {@link CukeFeature}
+	 * @param config  The {@link RPImporterConfig} of the import
+	 */
+	FeatureTemplate(CukeFeature feature, RPImporterConfig config) {
+		this.config = config;
+		this.codeRefPrefix = feature.getCodeRef() + ":";
+		this.featureAttributes = attributes(feature.getTags());
+
+		int maxLine = 0;
+		for (CukeScenario scenario : feature.getScenarios()) {
+			maxLine = Math.max(maxLine, Math.max(scenario.getLine(), maxLine(scenario.getBackgroundSteps())));
+			maxLine = Math.max(maxLine, maxLine(scenario.getScenarioSteps()));
+			scenarioAttributes.computeIfAbsent(scenario.getTags(), this::attributes);
+		}
+		this.codeRefs = new String[maxLine + 1];
+		for (CukeScenario scenario : feature.getScenarios()) {
+			codeRefs[scenario.getLine()] = codeRefPrefix + scenario.getLine();
+			fillCodeRefs(scenario.getBeforeSteps());
+			fillCodeRefs(scenario.getBackgroundSteps());
+			fillCodeRefs(scenario.getScenarioSteps());
+			fillCodeRefs(scenario.getAfterSteps());
+		}
+	}
+
+	/**
+	 * Returns the fixed metadata of the items of a section
+	 * 
+	 * @param section The {@link CukeStepSection}
+	 * @return The {@link Section} metadata
+	 */
+	static Section section(CukeStepSection section) {
+		Section result = SECTIONS.get(section);
+		if (result == null) {
+			throw new NotImplementedException("Missing return value for step type: " + section);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the code reference of an item of the feature, ie.
+	 * <code>codeRef:line</code>
+	 * 
+	 * @param line The line of the item
+	 * @return A {@link String} with the code reference of the item
+	 */
+	String codeRef(int line) {
+		if (line >= 0 && line < codeRefs.length && codeRefs[line] != null) {
+			return codeRefs[line];
+		}
+		return codeRefPrefix + line;
+	}
+
+	/**
+	 * Returns the attributes of the feature item, including the rerun attribute
+	 * 
+	 * @return A {@link String} with the encoded attributes
+	 */
+	String featureAttributes() {
+		return featureAttributes;
+	}
+
+	/**
+	 * Returns the attributes of a scenario item, including the rerun attribute
+	 * 
+	 * @param tags A <code>List</code> with the tags of the scenario
+	 * @return A {@link String} with the encoded attributes
+	 */
+	String scenarioAttributes(List<String> tags) {
+		String attributes = scenarioAttributes.get(tags);
+		return attributes != null ? attributes : attributes(tags);
+	}
+
+	private String attributes(List<String> tags) {
+		return Utils.enhanceAttributesWithRerun(tags == null ? "" : String.join(";", tags), config);
+	}
+
+	private static int maxLine(List<CukeStep> steps) {
+		int max = 0;
+		if (steps != null) {
+			for (CukeStep step : steps) {
+				max = Math.max(max, step.getLine());
+			}
+		}
+		return max;
+	}
+
+	private void fillCodeRefs(List<CukeStep> steps) {
+		if (steps == null) {
+			return;
+		}
+		for (CukeStep step : steps) {
+			fillCodeRef(step);
+			if (step.getBeforeSteps() != null) {
+				step.getBeforeSteps().forEach(this::fillCodeRef);
+			}
+			if (step.getAfterSteps() != null) {
+				step.getAfterSteps().forEach(this::fillCodeRef);
+			}
+		}
+	}
+
+	private void fillCodeRef(CukeStep step) {
+		int line = step.getLine();
+		if (line >= 0 && line < codeRefs.length && codeRefs[line] == null) {
+			codeRefs[line] = codeRefPrefix + line;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.jfr.MessageFormatEvent;
+import io.github.alexopa.cukereportportal.util.MarkdownUtils;
+
+/**
+ * A bounded LRU cache of the formatted log messages of data tables and doc
+ * strings. Scenario outlines and backgrounds repeat the same tables and doc
+ * strings across many scenarios, so the cache is shared by all the importer
+ * threads of a launch.
+ * <p>
+ * When the test run is deduplicated (see {@link TestRunDeduplicator}), repeated
+ * values share a single instance, and the messages are cached by the identity
+ * of their table or doc string, so a lookup costs the same for a large table as
+ * for a small one. The keys are then held weakly, so the messages of a test run
+ * that is no longer referenced are dropped. Without deduplication the messages
+ * are cached by the content of their table or doc string instead. The cache is
+ * bounded by the total length of the messages, so a few very large doc strings
+ * cannot fill the heap.
+ */
+class FormattedMessageCache {
+
+	private static final String DOCSTRING_DECORATOR = "\n\"\"\"\n";
+
+	private final Cache<Object, String> cache;
+
+	/**
+	 * Creates a new {@link FormattedMessageCache}
+	 * 
+	 * @param maxChars     The maximum total length, in characters, of the cached
+	 *                     messages. A value of 0 disables the cache
+	 * @param deduplicated Whether the test run is deduplicated, in which case the
+	 *                     messages are cached by the identity of their table or
+	 *                     doc string, otherwise by their content
+	 */
+	FormattedMessageCache(int maxChars, boolean deduplicated) {
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+		if (deduplicated) {
+			builder.weakKeys();
+		}
+		this.cache = builder.maximumWeight(Math.max(0, maxChars))
+				.weigher((Object key, String message) -> message.length()).recordStats().build();
+	}
+
+	/**
+	 * Returns the formatted log message of a data table
+	 * 
+	 * @param table A <code>List</code> with the rows of the data table
+	 * @return A {@link String} with the formatted data table
+	 */
+	String dataTable(List<List<String>> table) {
+		return get(table, "dataTable", () -> MarkdownUtils.formatDataTable(table));
+	}
+
+	/**
+	 * Returns the log message of a doc string
+	 * 
+	 * @param docString A {@link String} with the doc string
+	 * @return A {@link String} with the decorated doc string
+	 */
+	String docString(String docString) {
+		return get(docString, "docString", () -> DOCSTRING_DECORATOR + docString + DOCSTRING_DECORATOR);
+	}
+
+	/**
+	 * Returns the hit and miss statistics of the cache
+	 * 
+	 * @return A {@link CacheStats} with the statistics of the cache
+	 */
+	CacheStats stats() {
+		return cache.stats();
+	}
+
+	private String get(Object key, String kind, Callable<String> formatter) {
+		try {
+			return cache.get(key, () -> {
+				MessageFormatEvent event = new MessageFormatEvent();
+				event.begin();
+				String message = formatter.call();
+				if (event.shouldCommit()) {
+					event.kind = kind;
+					event.messageLength = message.length();
+					event.commit();
+				}
+				return message;
+			});
+		} catch (ExecutionException e) {
+			throw new RPImporterException("Failed to format log message", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The state that is shared by all the feature and scenario importers of a
+ * launch
+ */
+@Getter
+class ImportContext {
+
+	private final RPImporterConfig config;
+	private final ImportPayloads payloads;
+	@Getter(AccessLevel.NONE)
+	private final boolean ownsPayloads;
+	private final Optional<TestRunSnapshot> snapshot;
+	private final ImportDeadline deadline;
+
+	/**
+	 * Creates a new {@link ImportContext}
+	 * 
+	 * @param config The {@link RPImporterConfig} of the import
+	 */
+	ImportContext(RPImporterConfig config) {
+		this(config, new ImportPayloads(config, false), true);
+	}
+
+	/**
+	 * Creates a new {@link ImportContext} with payloads that are shared with other
+	 * imports of the same testrun
+	 * 
+	 * @param config   The {@link RPImporterConfig} of the import
+	 * @param payloads The shared {@link ImportPayloads}
+	 */
+	ImportContext(RPImporterConfig config, ImportPayloads payloads) {
+		this(config, payloads, false);
+	}
+
+	private ImportContext(RPImporterConfig config, ImportPayloads payloads, boolean ownsPayloads) {
+		this.config = config;
+		this.payloads = payloads;
+		this.ownsPayloads = ownsPayloads;
+		this.snapshot = StringUtils.isNotBlank(config.getSnapshotFile())
+				? Optional.of(new TestRunSnapshot())
+				: Optional.empty();
+		this.deadline = new ImportDeadline(config);
+	}
+
+	/**
+	 * Releases the resources of the context, once the launch is imported. Shared
+	 * payloads are released by their owner
+	 */
+	void close() {
+		if (ownsPayloads) {
+			payloads.close();
+		}
+	}
+}
@@ -0,0 +1,339 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+
+/**
+ * The deadline of a launch import. Once the deadline is reached, no more
+ * features and scenarios are started, and the ones in progress are given a
+ * grace period to finish. All the waits of the import end at the deadline plus
+ * the grace period, so that the launch is always finished within a known time.
+ * The deadline is brought forward when the JVM shuts down, so the waits check
+ * it again in short slices instead of sleeping until it is reached. The finish
+ * calls of the features and the launch are given {@link #FINISH_MS} more, and
+ * the threads of the import are daemons, so that calls that are stuck after
+ * that do not keep the JVM alive. The finish calls run on a pool of the
+ * deadline, with a thread per feature thread and one for the launch, whose
+ * idle threads end on their own, so the pool needs no shutdown
+ */
+class ImportDeadline {
+
+	/**
+	 * The time in milliseconds that the finish calls of the features and the
+	 * launch are given after the grace period
+	 */
+	static final int FINISH_MS = 10000;
+
+	private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long FINISH_NANOS = TimeUnit.MILLISECONDS.toNanos(FINISH_MS);
+	private static final ThreadFactory DAEMON_THREADS = r -> {
+		Thread thread = Executors.defaultThreadFactory().newThread(r);
+		thread.setDaemon(true);
+		return thread;
+	};
+	private static final long FINISH_IDLE_SECONDS = 5;
+	private static final int MAX_SKIPPED_NAMES = 20;
+	private static final long NONE = Long.MAX_VALUE;
+
+	private final AtomicLong deadlineNanos;
+	private final long graceNanos;
+	private final AtomicInteger skippedScenarios = new AtomicInteger();
+	private final Queue<String> skippedNames = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean abandoned = new AtomicBoolean();
+	private final ThreadPoolExecutor finishPool;
+
+	/**
+	 * Creates a new {@link ImportDeadline} that starts counting now
+	 * 
+	 * @param config The {@link RPImporterConfig} with the deadline and the grace
+	 *               period of the import
+	 */
+	ImportDeadline(RPImporterConfig config) {
+		this.deadlineNanos = new AtomicLong(config.getDeadlineImportMs() > 0
+				? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getDeadlineImportMs())
+				: NONE);
+		this.graceNanos = TimeUnit.MILLISECONDS.toNanos(config.getDeadlineGraceMs());
+		int finishThreads = config.getThreadsFeatures() + 1;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.finishPool = new ThreadPoolExecutor(finishThreads, finishThreads, FINISH_IDLE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "rp-importer-finish-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.finishPool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Brings the deadline forward to now, ie. when the JVM shuts down
+	 */
+	void expire() {
+		long now = System.nanoTime();
+		deadlineNanos.getAndUpdate(d -> d == NONE || d - now > 0 ? now : d);
+	}
+
+	/**
+	 * Returns if the deadline is reached, so no more features and scenarios
+	 * should be started
+	 * 
+	 * @return <code>true</code> if the deadline is reached
+	 */
+	boolean isExpired() {
+		long deadline = deadlineNanos.get();
+		return deadline != NONE && System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * Returns if the grace period after the deadline is over as well, so the work
+	 * in progress should be abandoned
+	 * 
+	 * @return <code>true</code> if the grace period is over
+	 */
+	boolean isOver() {
+		return remainingNanos() <= 0;
+	}
+
+	/**
+	 * Records that work in progress was abandoned at the end of the grace period
+	 */
+	void abandon() {
+		abandoned.set(true);
+	}
+
+	/**
+	 * Waits for a task of the import, until the grace period after the deadline
+	 * is over
+	 * 
+	 * @param <T>    The type of the result
+	 * @param future The {@link Future} of the task
+	 * @return The result of the task
+	 * @throws InterruptedException If the current thread is interrupted
+	 * @throws ExecutionException   If the task failed
+	 * @throws TimeoutException     If the task is still running when the grace
+	 *                              period is over
+	 */
+	<T> T await(Future<T> future) throws InterruptedException, ExecutionException, TimeoutException {
+		while (true) {
+			try {
+				return future.get(waitSlice(), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				// check the deadline again, it may have been brought forward
+				if (isOver()) {
+					abandon();
+					throw new TimeoutException("The grace period of the import deadline is over");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for a shut down pool to terminate, until the grace period after the
+	 * deadline is over
+	 * 
+	 * @param pool The {@link ExecutorService} to wait for
+	 * @return <code>true</code> if the pool terminated
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	boolean awaitTermination(ExecutorService pool) throws InterruptedException {
+		while (!pool.awaitTermination(waitSlice(), TimeUnit.NANOSECONDS)) {
+			if (isOver()) {
+				abandon();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a {@link CompletableFuture} that completes when the grace period
+	 * after the deadline is over. Callers cancel it once the import is done, which
+	 * stops its checks, and call {@link #abandon()} if it completes first
+	 * 
+	 * @return The {@link CompletableFuture} of the end of the grace period
+	 */
+	CompletableFuture<Void> expiry() {
+		CompletableFuture<Void> expiry = new CompletableFuture<>();
+		checkExpiry(expiry);
+		return expiry;
+	}
+
+	/**
+	 * Runs a finish call of the import, ie. of a feature or of the launch. With a
+	 * deadline, the call runs on the daemon pool of the deadline and is abandoned
+	 * if it is not done {@link #FINISH_MS} after the grace period
+	 * 
+	 * @param <T>  The type of the result
+	 * @param call The {@link Supplier} of the call
+	 * @return The result of the call
+	 * @throws TimeoutException     If the call is abandoned
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	<T> T finish(Supplier<T> call) throws TimeoutException, InterruptedException {
+		if (deadlineNanos.get() == NONE) {
+			return call.get();
+		}
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(call, finishPool);
+		while (true) {
+			try {
+				return future.get(Math.max(0, Math.min(finishRemainingNanos(), WAIT_SLICE_NANOS)), TimeUnit.NANOSECONDS);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtime) {
+					throw runtime;
+				}
+				throw new CompletionException(e.getCause());
+			} catch (TimeoutException e) {
+				if (finishRemainingNanos() <= 0) {
+					abandon();
+					// a call that is still queued behind stuck calls is not sent anymore
+					future.cancel(false);
+					throw new TimeoutException("The finish call was not done after the grace period");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a finish call of the import without a result. See
+	 * {@link #finish(Supplier)}
+	 * 
+	 * @param call The {@link Runnable} of the call
+	 * @throws TimeoutException     If the call is abandoned
+	 * @throws InterruptedException If the current thread is interrupted
+	 */
+	void finish(Runnable call) throws TimeoutException, InterruptedException {
+		finish(() -> {
+			call.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the {@link ThreadFactory} of the pools of the import. With a
+	 * deadline the threads are daemons, so that threads that are abandoned after
+	 * the grace period do not keep the JVM alive
+	 * 
+	 * @return The {@link ThreadFactory} of the pools
+	 */
+	ThreadFactory threadFactory() {
+		return deadlineNanos.get() == NONE ? Executors.defaultThreadFactory() : DAEMON_THREADS;
+	}
+
+	private void checkExpiry(CompletableFuture<Void> expiry) {
+		if (expiry.isDone()) {
+			return;
+		}
+		if (isOver()) {
+			expiry.complete(null);
+			return;
+		}
+		CompletableFuture.delayedExecutor(waitSlice(), TimeUnit.NANOSECONDS).execute(() -> checkExpiry(expiry));
+	}
+
+	private long finishRemainingNanos() {
+		long remaining = remainingNanos();
+		return remaining > Long.MAX_VALUE - FINISH_NANOS ? Long.MAX_VALUE : remaining + FINISH_NANOS;
+	}
+
+	private long waitSlice() {
+		return Math.max(0, Math.min(remainingNanos(), WAIT_SLICE_NANOS));
+	}
+
+	private long remainingNanos() {
+		long deadline = deadlineNanos.get();
+		if (deadline == NONE) {
+			return Long.MAX_VALUE;
+		}
+		long remaining = deadline - System.nanoTime();
+		return remaining > Long.MAX_VALUE - graceNanos ? Long.MAX_VALUE : remaining + graceNanos;
+	}
+
+	/**
+	 * Records a scenario that is not imported because the deadline was reached
+	 * 
+	 * @param scenario The skipped {@link CukeScenario}
+	 */
+	void skip(CukeScenario scenario) {
+		if (skippedScenarios.incrementAndGet() <= MAX_SKIPPED_NAMES) {
+			skippedNames.add(String.format("%s: %s", scenario.getParent().getName(), scenario.getName()));
+		}
+	}
+
+	/**
+	 * Records all the scenarios of a feature that is not imported because the
+	 * deadline was reached
+	 * 
+	 * @param feature The skipped {@link CukeFeature}
+	 */
+	void skip(CukeFeature feature) {
+		feature.getScenarios().forEach(this::skip);
+	}
+
+	/**
+	 * Returns if the launch is incomplete, ie. scenarios were skipped or
+	 * abandoned because of the deadline
+	 * 
+	 * @return <code>true</code> if the launch is incomplete
+	 */
+	boolean isIncomplete() {
+		return skippedScenarios.get() > 0 || abandoned.get();
+	}
+
+	/**
+	 * Returns a summary of the scenarios that were not imported, which is logged
+	 * to the launch when it is incomplete
+	 * 
+	 * @return A {@link String} with the summary
+	 */
+	String summary() {
+		StringBuilder summary = new StringBuilder("The import deadline was reached.");
+		int skipped = skippedScenarios.get();
+		if (skipped > 0) {
+			List<String> names = List.copyOf(skippedNames);
+			summary.append(String.format(" %d scenarios were not imported:", skipped));
+			names.forEach(n -> summary.append("\n- ").append(n));
+			if (skipped > names.size()) {
+				summary.append(String.format("\n- and %d more", skipped - names.size()));
+			}
+		}
+		if (abandoned.get()) {
+			summary.append("\nScenarios that were still importing after the grace period were abandoned.");
+		}
+		return summary.toString();
+	}
+}
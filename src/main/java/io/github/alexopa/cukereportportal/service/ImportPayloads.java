@@ -0,0 +1,205 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.MimeTypeUtils;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.jfr.EmbeddingDecodeEvent;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The part of an import that does not depend on the ReportPortal target: the
+ * deduplication of the testrun, the formatted log messages, the item names and
+ * the attachment and spilled log files. A single instance is shared by all the targets of a
+ * {@link FanOutImporter}, so that every embedding is decoded and every
+ * screenshot is processed once, whatever the number of targets.
+ */
+@Slf4j
+class ImportPayloads {
+
+	private final RPImporterConfig config;
+	@Getter
+	private final FormattedMessageCache messageCache;
+	@Getter
+	private final ItemNameCache nameCache = new ItemNameCache();
+	@Getter
+	private final Optional<ScreenshotProcessor> screenshots;
+	@Getter
+	private final LogSpillPolicy logSpillPolicy;
+	private final Map<CukeEmbedding, CompletableFuture<Path>> attachments;
+	private List<CukeFeature> preparedFeatures;
+
+	/**
+	 * Creates new {@link ImportPayloads}
+	 * 
+	 * @param config The {@link RPImporterConfig} with the deduplication, cache and
+	 *               image properties
+	 * @param shared Whether the payloads are shared by several imports of the same
+	 *               testrun, in which case the attachment files are kept for
+	 *               reuse until the payloads are closed
+	 */
+	ImportPayloads(RPImporterConfig config, boolean shared) {
+		this.config = config;
+		this.messageCache = new FormattedMessageCache(config.getFormattedMessagesCacheMaxChars(),
+				config.isDeduplicationEnabled());
+		this.screenshots = config.isImageProcessingEnabled()
+				? Optional.of(new ScreenshotProcessor(config))
+				: Optional.empty();
+		this.attachments = shared ? new ConcurrentHashMap<>() : null;
+		this.logSpillPolicy = new LogSpillPolicy(config, shared);
+	}
+
+	/**
+	 * Prepares a testrun for the import. The testrun is deduplicated once, even
+	 * when several imports of the same testrun share these payloads
+	 * 
+	 * @param testRun The {@link CukeTestRun} to prepare
+	 */
+	synchronized void prepare(CukeTestRun testRun) {
+		if (preparedFeatures == testRun.getFeatures()) {
+			return;
+		}
+		if (config.isDeduplicationEnabled()) {
+			TestRunDeduplicator.deduplicate(testRun);
+		}
+		preparedFeatures = testRun.getFeatures();
+	}
+
+	/**
+	 * Returns the file that is uploaded for a png or json embedding. Png
+	 * screenshots are processed on the image pool when image processing is
+	 * enabled, so the returned future may not be complete yet
+	 * 
+	 * @param embedding    The {@link CukeEmbedding} to upload
+	 * @param stepItemUuid A {@link String} with the uuid of the step item of the
+	 *                     embedding
+	 * @return A <code>CompletableFuture</code> with the file to upload
+	 */
+	CompletableFuture<Path> attachment(CukeEmbedding embedding, String stepItemUuid) {
+		if (attachments == null) {
+			return prepareAttachment(embedding, stepItemUuid);
+		}
+		return attachments.computeIfAbsent(embedding, e -> prepareAttachment(e, stepItemUuid));
+	}
+
+	/**
+	 * Releases the file of an attachment once it is uploaded. The file is
+	 * deleted, unless the payloads are shared and the file may be uploaded again
+	 * 
+	 * @param file The {@link Path} of the uploaded attachment
+	 */
+	void release(Path file) {
+		if (attachments == null) {
+			deleteQuietly(file);
+		}
+	}
+
+	/**
+	 * Decodes the base64 data of an embedding
+	 * 
+	 * @param embedding    The {@link CukeEmbedding} to decode
+	 * @param stepItemUuid A {@link String} with the uuid of the step item of the
+	 *                     embedding
+	 * @return A <code>byte[]</code> with the decoded data
+	 */
+	static byte[] decode(CukeEmbedding embedding, String stepItemUuid) {
+		EmbeddingDecodeEvent event = new EmbeddingDecodeEvent();
+		event.begin();
+		byte[] data = embedding.getData().getBytes(StandardCharsets.UTF_8);
+		byte[] decoded = Base64.getDecoder().decode(data);
+		if (event.shouldCommit()) {
+			event.itemUuid = stepItemUuid;
+			event.mimeType = embedding.getMimeType();
+			event.encodedSize = data.length;
+			event.decodedSize = decoded.length;
+			event.commit();
+		}
+		return decoded;
+	}
+
+	/**
+	 * Releases the image pool and deletes the files that are kept for reuse, once
+	 * all the imports that share the payloads are finished. The file of an
+	 * attachment that is still being processed, e.g. when an import was
+	 * abandoned, is deleted when it has been written
+	 */
+	void close() {
+		if (attachments != null) {
+			attachments.values().forEach(f -> f.thenAccept(ImportPayloads::deleteQuietly));
+			attachments.clear();
+		}
+		screenshots.ifPresent(ScreenshotProcessor::close);
+		logSpillPolicy.close();
+	}
+
+	/**
+	 * Deletes a temporary file, logging a failure instead of throwing it
+	 * 
+	 * @param file The {@link Path} of the file to delete
+	 */
+	static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete temporary file {}", file, e);
+		}
+	}
+
+	private CompletableFuture<Path> prepareAttachment(CukeEmbedding embedding, String stepItemUuid) {
+		if (screenshots.isPresent() && MimeTypeUtils.IMAGE_PNG_VALUE.equals(embedding.getMimeType())) {
+			return screenshots.get().process(() -> decode(embedding, stepItemUuid))
+					.thenApply(image -> write(embedding.getName(), image.extension(), image.data()));
+		}
+		try {
+			return CompletableFuture.completedFuture(write(embedding.getName(),
+					embedding.getMimeType().split("/")[1], decode(embedding, stepItemUuid)));
+		} catch (UncheckedIOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static Path write(String name, String extension, byte[] data) {
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile("rp_" + name.replace(" ", "_") + "_", "_-attach." + extension);
+			return Files.write(tmpFile, data);
+		} catch (IOException e) {
+			if (tmpFile != null) {
+				deleteQuietly(tmpFile);
+			}
+			throw new UncheckedIOException(String.format("Could not write tmp file for attachment under %s folder",
+					System.getProperty("java.io.tmpdir")), e);
+		}
+	}
+}
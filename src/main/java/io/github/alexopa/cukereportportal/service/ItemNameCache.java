@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A cache of the names that are generated for the step items of a launch, and
+ * of the labels of their text embeddings. Hooks, background steps, outline
+ * steps and embeddings produce the same names in every scenario, so they are
+ * formatted once and the same instance is reused by all the importer threads.
+ * Scenario names are unique, so they are not cached. Code references are kept
+ * per feature in the {@link FeatureTemplate}.
+ * <p>
+ * The cache holds at most {@link #MAX_NAMES} names. Once it is full, new names
+ * are formatted on every call, while the cached ones are still reused.
+ */
+class ItemNameCache {
+
+	/**
+	 * The maximum number of cached names
+	 */
+	static final int MAX_NAMES = 10000;
+
+	private final Map<String, Map<String, String>> hookNames = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> stepNames = new ConcurrentHashMap<>();
+	private final Map<String, String> embeddingLabels = new ConcurrentHashMap<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Returns the label that precedes the text of a text embedding in its log,
+	 * ie. <code>name: </code>. The text itself is not cached, as it differs for
+	 * every embedding
+	 * 
+	 * @param name A {@link String} with the name of the embedding
+	 * @return A {@link String} with the label of the embedding
+	 */
+	String embeddingLabel(String name) {
+		String label = cached(embeddingLabels, name);
+		return label != null ? label : cache(embeddingLabels, name, String.format("%s: ", name));
+	}
+
+	/**
+	 * Returns the name of a hook item, ie. <code>Before Hook: location</code>
+	 * 
+	 * @param prefix   A {@link String} with the type of the hook
+	 * @param location A {@link String} with the location of the hook
+	 * @return A {@link String} with the name of the hook item
+	 */
+	String hookName(String prefix, String location) {
+		Map<String, String> names = hookNames.computeIfAbsent(prefix, p -> new ConcurrentHashMap<>());
+		String hookName = cached(names, location);
+		return hookName != null ? hookName : cache(names, location, String.format("%s: %s", prefix, location));
+	}
+
+	/**
+	 * Returns the name of a step item, ie. <code>Given a step</code>
+	 * 
+	 * @param keyword A {@link String} with the keyword of the step
+	 * @param name    A {@link String} with the name of the step
+	 * @return A {@link String} with the name of the step item
+	 */
+	String stepName(String keyword, String name) {
+		Map<String, String> names = stepNames.computeIfAbsent(keyword, k -> new ConcurrentHashMap<>());
+		String stepName = cached(names, name);
+		return stepName != null ? stepName : cache(names, name, String.format("%s %s", keyword.trim(), name));
+	}
+
+	private static String cached(Map<String, String> names, String key) {
+		return key == null ? null : names.get(key);
+	}
+
+	private String cache(Map<String, String> names, String key, String name) {
+		if (key == null || size.get() >= MAX_NAMES) {
+			return name;
+		}
+		String previous = names.putIfAbsent(key, name);
+		if (previous != null) {
+			return previous;
+		}
+		size.incrementAndGet();
+		return name;
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClients;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.util.MarkdownUtils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class that exports a {@link CukeTestRun} to a zip archive of JUnit xml
+ * reports, that ReportPortal can import as a whole launch with a single
+ * request. Every feature is written as a <code>testsuite</code> and every
+ * scenario as a <code>testcase</code>, with its steps, data tables, doc strings
+ * and text embeddings in <code>system-out</code>. The JUnit import of
+ * ReportPortal does not read attachments, so binary embeddings are only listed
+ * by name in <code>system-out</code> and are not exported. Features without
+ * scenarios are left out, and characters that xml 1.0 does not allow, like
+ * the ANSI color codes of error messages, are removed from the text.
+ * <p>
+ * The archive is streamed feature by feature, so only the feature that is
+ * currently written is held in the output buffers. Compared to
+ * {@link ReportPortalImporter}, hooks are only reported as lines of the
+ * scenario output and not as separate items.
+ */
+@Slf4j
+public class JUnitArchiveExporter {
+
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+	private static final double NANOS_IN_SECOND = 1_000_000_000d;
+	private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[0-?]*[ -/]*[@-~]");
+	private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+	private final RPImporterPropertyHandler propertyHandler;
+	private final RPImporterConfig config;
+	private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+	/**
+	 * Creates a new {@link JUnitArchiveExporter}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 */
+	public JUnitArchiveExporter(final RPImporterPropertyHandler propertyHandler) {
+		this.propertyHandler = propertyHandler;
+		this.config = propertyHandler.getConfig();
+	}
+
+	/**
+	 * Method that exports the cucumber json files to a JUnit archive. The report
+	 * files to be exported will be retrieved from the properties. In case
+	 * {@link RPImporterPropertyHandler#isExportUploadEnabled()} is enabled, the
+	 * archive is also uploaded to ReportPortal
+	 * 
+	 * @return A {@link Path} with the written archive
+	 */
+	public Path exportCucumberReports() {
+		Path archive = exportReport(CukeTestRunReader.read(propertyHandler));
+		if (archive != null && config.isExportUploadEnabled()) {
+			uploadArchive(archive);
+		}
+		return archive;
+	}
+
+	/**
+	 * Method that exports a {@link CukeTestRun} instance to a JUnit archive. The
+	 * archive is written in
+	 * {@link RPImporterPropertyHandler#getExportArchive()}, or in a temporary file
+	 * if it is not defined
+	 * 
+	 * @param testRun The {@link CukeTestRun} instance to export
+	 * @return A {@link Path} with the written archive
+	 */
+	public Path exportReport(CukeTestRun testRun) {
+		if (CollectionUtils.isEmpty(testRun.getFeatures())) {
+			log.warn("No feature exists for the test-run. Cannot export...");
+			return null;
+		}
+
+		Path archive = archivePath();
+		log.info("Exporting {} features to {}", testRun.getFeatures().size(), archive);
+
+		try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+			int index = 0;
+			for (CukeFeature feature : testRun.getFeatures()) {
+				if (CollectionUtils.isEmpty(feature.getScenarios())) {
+					log.warn("Feature {} has no scenarios, it is not exported", feature.getName());
+					continue;
+				}
+				writeFeature(zip, String.format("feature-%05d", index++), feature);
+			}
+		} catch (IOException | XMLStreamException e) {
+			throw new RPImporterException(String.format("Failed to write archive %s", archive), e);
+		}
+		return archive;
+	}
+
+	/**
+	 * Uploads a JUnit archive to ReportPortal with a single launch import request.
+	 * The launch has the same name, description, attributes and mode as the
+	 * launch of a {@link ReportPortalImporter}. The request goes through the
+	 * {@link ReportPortalClient} of the properties, so it is balanced over the
+	 * endpoints, rate limited and retried like the calls of an import
+	 * 
+	 * @param archive A {@link Path} with the archive to upload
+	 */
+	public void uploadArchive(Path archive) {
+		try (ReportPortalClient client = ReportPortalClients.create(config)) {
+			String response = client.importLaunch(ReportPortalImporter.launchProperties(config, null), archive);
+			log.info("Uploaded archive {}: {}", archive, response);
+		} catch (RPImporterException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw new RPImporterException(String.format("Failed to upload archive %s", archive), e);
+		}
+	}
+
+	private Path archivePath() {
+		if (StringUtils.isNotBlank(config.getExportArchive())) {
+			return Paths.get(config.getExportArchive());
+		}
+		try {
+			String launchName = StringUtils.defaultIfBlank(config.getLaunchName(), "launch");
+			Path archive = Files.createTempFile(launchName.replaceAll("[^A-Za-z0-9_-]", "_") + "_", ".zip");
+			archive.toFile().deleteOnExit();
+			return archive;
+		} catch (IOException e) {
+			throw new RPImporterException("Failed to create archive file", e);
+		}
+	}
+
+	private void writeFeature(ZipOutputStream zip, String entryName, CukeFeature feature)
+			throws IOException, XMLStreamException {
+		List<CukeScenario> scenarios = feature.getScenarios();
+		zip.putNextEntry(new ZipEntry(entryName + ".xml"));
+		XMLStreamWriter xml = xmlOutputFactory.createXMLStreamWriter(new NonClosingOutputStream(zip),
+				StandardCharsets.UTF_8.name());
+		xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+		xml.writeStartElement("testsuite");
+		xml.writeAttribute("name", xmlText(String.format("Feature: %s", feature.getName())));
+		xml.writeAttribute("tests", String.valueOf(scenarios.size()));
+		xml.writeAttribute("failures", String.valueOf(
+				scenarios.stream().filter(s -> s.getResult() == CukeScenarioResult.FAILED).count()));
+		xml.writeAttribute("skipped", String.valueOf(
+				scenarios.stream().filter(s -> s.getResult() == CukeScenarioResult.SKIPPED).count()));
+		if (feature.getMinScenarioStartTime() != null) {
+			xml.writeAttribute("timestamp", feature.getMinScenarioStartTime().format(TIMESTAMP_FORMAT));
+			if (feature.getMaxScenarioEndTime() != null) {
+				xml.writeAttribute("time", seconds(Duration
+						.between(feature.getMinScenarioStartTime(), feature.getMaxScenarioEndTime()).toNanos()));
+			}
+		}
+
+		for (CukeScenario scenario : scenarios) {
+			writeScenario(xml, feature, scenario);
+		}
+
+		xml.writeEndElement();
+		xml.writeEndDocument();
+		xml.close();
+		zip.closeEntry();
+	}
+
+	private void writeScenario(XMLStreamWriter xml, CukeFeature feature, CukeScenario scenario)
+			throws XMLStreamException {
+		xml.writeStartElement("testcase");
+		xml.writeAttribute("name",
+				xmlText(String.format("%s: %s", scenario.getType().getText(), scenario.getName())));
+		xml.writeAttribute("classname", xmlText(String.format("%s:%s", feature.getCodeRef(), scenario.getLine())));
+		xml.writeAttribute("time", seconds(scenario.getTotalDuration()));
+
+		if (scenario.getResult() == CukeScenarioResult.FAILED) {
+			String errorMessage = allSteps(scenario).stream().map(CukeStep::getErrorMessage)
+					.filter(StringUtils::isNotBlank).findFirst().orElse("");
+			xml.writeStartElement("failure");
+			xml.writeAttribute("message", xmlText(StringUtils.substringBefore(errorMessage, "\n")));
+			xml.writeCharacters(xmlText(errorMessage));
+			xml.writeEndElement();
+		} else if (scenario.getResult() == CukeScenarioResult.SKIPPED) {
+			xml.writeEmptyElement("skipped");
+		}
+
+		xml.writeStartElement("system-out");
+		for (CukeStep step : allSteps(scenario)) {
+			xml.writeCharacters(xmlText(String.format("[%s] %s%n", step.getResult(), stepName(step))));
+			if (step.getTableData() != null) {
+				xml.writeCharacters(xmlText(MarkdownUtils.formatDataTable(step.getTableData()) + "\n"));
+			}
+			if (StringUtils.isNotBlank(step.getDocString())) {
+				xml.writeCharacters(xmlText("\"\"\"\n" + step.getDocString() + "\n\"\"\"\n"));
+			}
+			if (step.getEmbeddings() != null) {
+				for (CukeEmbedding embedding : step.getEmbeddings()) {
+					if (MimeTypeUtils.TEXT_PLAIN_VALUE.equals(embedding.getMimeType())) {
+						xml.writeCharacters(xmlText(String.format("%s: %s%n", embedding.getName(), new String(
+								Base64.getDecoder().decode(embedding.getData()), StandardCharsets.UTF_8))));
+					} else {
+						xml.writeCharacters(xmlText(String.format("Attachment: %s (%s, not exported)%n",
+								StringUtils.defaultIfBlank(embedding.getName(), "unnamed"), embedding.getMimeType())));
+					}
+				}
+			}
+		}
+		xml.writeEndElement();
+
+		xml.writeEndElement();
+	}
+
+	private static List<CukeStep> allSteps(CukeScenario scenario) {
+		return Stream
+				.of(scenario.getBeforeSteps(), scenario.getBackgroundSteps(), scenario.getScenarioSteps(),
+						scenario.getAfterSteps())
+				.filter(Objects::nonNull).flatMap(List::stream)
+				.flatMap(step -> Stream.of(step.getBeforeSteps(), List.of(step), step.getAfterSteps()))
+				.filter(Objects::nonNull).flatMap(List::stream).toList();
+	}
+
+	private static String stepName(CukeStep step) {
+		if (step.getStepSection() == CukeStepSection.BACKGROUND || step.getStepSection() == CukeStepSection.SCENARIO) {
+			return String.format("%s %s", step.getKeyword().trim(), step.getName());
+		}
+		return String.format("%s: %s", step.getStepSection(), step.getMatch().getLocation());
+	}
+
+	/**
+	 * Removes the ANSI escape sequences of a text, and replaces the characters
+	 * that are not allowed in xml 1.0, like other control characters and unpaired
+	 * surrogates, with the unicode replacement character. The xml writer escapes
+	 * markup, but writes these characters as they are, which makes the document
+	 * malformed
+	 */
+	static String xmlText(String text) {
+		if (text == null) {
+			return null;
+		}
+		String stripped = text.indexOf('\u001B') < 0 ? text : ANSI_ESCAPE.matcher(text).replaceAll("");
+		StringBuilder sanitized = null;
+		for (int i = 0; i < stripped.length();) {
+			int c = stripped.codePointAt(i);
+			int length = Character.charCount(c);
+			boolean allowed = c == 0x9 || c == 0xA || c == 0xD || (c >= 0x20 && c <= 0xD7FF)
+					|| (c >= 0xE000 && c <= 0xFFFD) || (c >= 0x10000 && c <= 0x10FFFF);
+			if (!allowed && sanitized == null) {
+				sanitized = new StringBuilder(stripped.length()).append(stripped, 0, i);
+			}
+			if (sanitized != null) {
+				if (allowed) {
+					sanitized.appendCodePoint(c);
+				} else {
+					sanitized.append(REPLACEMENT_CHARACTER);
+				}
+			}
+			i += length;
+		}
+		return sanitized == null ? stripped : sanitized.toString();
+	}
+
+	private static String seconds(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / NANOS_IN_SECOND);
+	}
+
+	/**
+	 * An {@link OutputStream} that does not close the zip stream when the xml
+	 * writer of an entry is closed
+	 */
+	private static final class NonClosingOutputStream extends FilterOutputStream {
+
+		NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The size policy of the log messages of the steps. A message that is longer
+ * than the threshold of its kind is sent as a truncated head, with the full
+ * text in a gzip compressed attachment, so that huge stack traces and doc
+ * strings are not sent inline and do not bloat the log index of ReportPortal.
+ * <p>
+ * The gzip files are written in <code>java.io.tmpdir</code>. A file is deleted
+ * once it is uploaded, or, when the policy is shared, once the policy is
+ * closed.
+ */
+class LogSpillPolicy {
+
+	/**
+	 * The kinds of the log messages of a step, which have separate thresholds
+	 */
+	@RequiredArgsConstructor
+	enum Kind {
+		ERROR("error"),
+		DOC_STRING("docstring"),
+		DATA_TABLE("datatable"),
+		TEXT_EMBEDDING("text");
+
+		private final String fileName;
+	}
+
+	/**
+	 * A spilled log message
+	 * 
+	 * @param head A {@link String} with the truncated head that is sent inline
+	 * @param file The {@link Path} of the gzip file with the full text
+	 */
+	record Spill(String head, Path file) {
+	}
+
+	private final Map<Kind, Integer> thresholds = new EnumMap<>(Kind.class);
+	private final int headChars;
+	private final Map<String, Path> files;
+
+	/**
+	 * Creates a new {@link LogSpillPolicy}
+	 * 
+	 * @param config The {@link RPImporterConfig} with the thresholds of the policy
+	 * @param shared Whether the policy is shared by several imports of the same
+	 *               testrun, in which case the gzip files are kept for reuse
+	 *               until the policy is closed. They are looked up by a hash of
+	 *               the message, so the messages are not kept in memory
+	 */
+	LogSpillPolicy(RPImporterConfig config, boolean shared) {
+		thresholds.put(Kind.ERROR, config.getLogSpillErrorChars());
+		thresholds.put(Kind.DOC_STRING, config.getLogSpillDocStringChars());
+		thresholds.put(Kind.DATA_TABLE, config.getLogSpillDataTableChars());
+		thresholds.put(Kind.TEXT_EMBEDDING, config.getLogSpillTextEmbeddingChars());
+		this.headChars = config.getLogSpillHeadChars();
+		this.files = shared ? new ConcurrentHashMap<>() : null;
+	}
+
+	/**
+	 * Returns the spill of a log message, if it is longer than the threshold of
+	 * its kind
+	 * 
+	 * @param kind    The {@link Kind} of the message
+	 * @param message A {@link String} with the message
+	 * @return An {@link Optional} with the {@link Spill} of the message, or empty
+	 *         if the message is sent inline
+	 * @throws UncheckedIOException If the gzip file cannot be written
+	 */
+	Optional<Spill> spill(Kind kind, String message) {
+		int threshold = thresholds.get(kind);
+		if (threshold == 0 || message.length() <= threshold) {
+			return Optional.empty();
+		}
+		Path file = files == null ? write(kind, message)
+				: files.computeIfAbsent(hash(message), h -> write(kind, message));
+		return Optional.of(new Spill(head(message, file), file));
+	}
+
+	/**
+	 * Releases the file of a spill once it is uploaded. The file is deleted,
+	 * unless the policy is shared and the file may be uploaded again
+	 * 
+	 * @param spill The uploaded {@link Spill}
+	 */
+	void release(Spill spill) {
+		if (files == null) {
+			ImportPayloads.deleteQuietly(spill.file());
+		}
+	}
+
+	/**
+	 * Deletes the files that are kept for reuse, once all the imports that share
+	 * the policy are finished
+	 */
+	void close() {
+		if (files != null) {
+			files.values().forEach(ImportPayloads::deleteQuietly);
+			files.clear();
+		}
+	}
+
+	private static String hash(String message) {
+		try {
+			return HexFormat.of().formatHex(
+					MessageDigest.getInstance("SHA-256").digest(message.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String head(String message, Path file) {
+		int end = Math.min(headChars, message.length());
+		if (end > 0 && Character.isHighSurrogate(message.charAt(end - 1))) {
+			// do not split a surrogate pair at the end of the head
+			end--;
+		}
+		return String.format("%s%n... truncated, %d characters in total, the full text is in %s",
+				message.substring(0, end), message.length(), file.getFileName());
+	}
+
+	private static Path write(Kind kind, String message) {
+		Path tmpFile = null;
+		try {
+			tmpFile = Files.createTempFile("rp_" + kind.fileName + "_", ".txt.gz");
+			try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpFile))) {
+				out.write(message.getBytes(StandardCharsets.UTF_8));
+			}
+			return tmpFile;
+		} catch (IOException e) {
+			if (tmpFile != null) {
+				ImportPayloads.deleteQuietly(tmpFile);
+			}
+			throw new UncheckedIOException(String.format("Could not write tmp file for log message under %s folder",
+					System.getProperty("java.io.tmpdir")), e);
+		}
+	}
+}
@@ -16,34 +16,61 @@
  */
 package io.github.alexopa.cukereportportal.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.util.CollectionUtils;
 
 import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
 import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
-import io.github.alexopa.cukereportconverter.service.CukeConverter;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClients;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
 import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
-import io.github.alexopa.cukereportportal.util.Utils;
-import io.github.alexopa.reportportalclient.RPClient;
-import io.github.alexopa.reportportalclient.config.RPClientConfig;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.cukereportportal.jfr.LaunchImportEvent;
+import io.github.alexopa.cukereportportal.source.ReportSource;
+import io.github.alexopa.cukereportportal.source.ReportSources;
+import io.github.alexopa.cukereportportal.spool.SpoolRecordingClient;
 import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
 import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties.FinishLaunchPropertiesBuilder;
 import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
 import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
 import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
 import io.github.alexopa.reportportalclient.rpmodel.LaunchStatus;
 import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -53,9 +80,26 @@ import lombok.extern.slf4j.Slf4j;
 public class ReportPortalImporter {
 
 	private final RPImporterPropertyHandler propertyHandler;
+	private final RPImporterConfig config;
+	private final ReportPortalClient rpClient;
 	
 	public ReportPortalImporter(final RPImporterPropertyHandler propertyHandler) {
+		this(propertyHandler, null);
+	}
+
+	/**
+	 * Creates a new {@link ReportPortalImporter} that imports through the given
+	 * {@link ReportPortalClient}, instead of the one defined by the properties
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @param rpClient        The {@link ReportPortalClient} to import with
+	 * @throws RPImporterException if a property has an invalid value
+	 */
+	public ReportPortalImporter(final RPImporterPropertyHandler propertyHandler, final ReportPortalClient rpClient) {
 		this.propertyHandler = propertyHandler;
+		// fail fast on a misconfiguration, before any launch is started
+		this.config = propertyHandler.getConfig();
+		this.rpClient = rpClient;
 	}
 
 	public CukeTestRun importCucumberReports(CukeMetadata metadata) {
@@ -64,6 +108,21 @@ public class ReportPortalImporter {
 		return importReport(testRun);
 	}
 	
+	/**
+	 * Method that imports cucumber json reports from the given sources to
+	 * ReportPortal, instead of the files defined in the properties. See
+	 * {@link ReportSources} for the supported sources
+	 * 
+	 * @param metadata A {@link CukeMetadata} with the metadata of the testrun
+	 * @param sources  A <code>List</code> of {@link ReportSource} with the reports
+	 * @return A {@link CukeTestRun} with the testrun that was imported
+	 */
+	public CukeTestRun importCucumberReports(CukeMetadata metadata, List<ReportSource> sources) {
+		CukeTestRun testRun = CukeTestRunReader.read(sources);
+		testRun.setMetadata(metadata);
+		return importReport(testRun);
+	}
+
 	/**
 	 * Method that imports cucumber json files to ReportPortal. The report files to
 	 * be imported will be retrieved from the properties
@@ -83,24 +142,100 @@ public class ReportPortalImporter {
 	 * @return A {@link CukeTestRun} with the testrun that was imported
 	 */
 	public CukeTestRun importCucumberReportsAsReRunOf(CukeTestRun rerunOfTestRun) {
+		return importPending(initReRunOf(rerunOfTestRun.getStartTime(), rerunOfTestRun.getEndTime(),
+				rerunOfTestRun.getMetadata(), () -> ScenarioFingerprintIndex.of(rerunOfTestRun)));
+	}
+
+	/**
+	 * Method that imports cucumber json files to ReportPortal as a rerun of a
+	 * testrun that was imported earlier, possibly by another process, and saved
+	 * as a {@link TestRunSnapshot}. The report files to be imported will be
+	 * retrieved from the properties. If
+	 * <code>rp.importer.launch.rerunOf</code> is not defined, the launch of the
+	 * snapshot is rerun.
+	 * 
+	 * @param snapshot a {@link TestRunSnapshot} of the initial testrun
+	 * @return A {@link CukeTestRun} with the testrun that was imported
+	 */
+	public CukeTestRun importCucumberReportsAsReRunOf(TestRunSnapshot snapshot) {
+		if (StringUtils.isBlank(config.getLaunchRerunOf()) && snapshot.getLaunchUuid() != null) {
+			return new ReportPortalImporter(withRerunOf(snapshot), rpClient).importCucumberReportsAsReRunOf(snapshot);
+		}
+		return importPending(initReRunOf(snapshot.getStartTime(), snapshot.getEndTime(), snapshot.toMetadata(),
+				snapshot::toFingerprintIndex));
+	}
+
+	private RPImporterPropertyHandler withRerunOf(TestRunSnapshot snapshot) {
+		Properties rerunOf = new Properties();
+		rerunOf.setProperty(RPImporterProperties.RP_IMPORTER_LAUNCH_RERUN_OF.getPropertyName(),
+				snapshot.getLaunchUuid());
+		return propertyHandler.withProperties(rerunOf);
+	}
+
+	private PendingRun initReRunOf(LocalDateTime startTime, LocalDateTime endTime, CukeMetadata metadata,
+			Supplier<ScenarioFingerprintIndex> index) {
 		CukeTestRun testRun = initCukeTestRun();
 		
 		// we need to set the startTime as the startTime of the initial run
-		testRun.setStartTime(rerunOfTestRun.getStartTime());
+		testRun.setStartTime(startTime);
 		// we need to set the endTime as the max of endTime of the initial and the rerun
-		testRun.setEndTime(
-				rerunOfTestRun.getEndTime().compareTo(testRun.getEndTime()) >= 0 ? rerunOfTestRun.getEndTime()
-						: testRun.getEndTime());
-		testRun.setMetadata(rerunOfTestRun.getMetadata());
+		testRun.setEndTime(endTime.compareTo(testRun.getEndTime()) >= 0 ? endTime : testRun.getEndTime());
+		testRun.setMetadata(metadata);
 		
-		return importReport(testRun);
+		if (config.isRerunDeltaEnabled()) {
+			return removeUnchangedScenarios(testRun, index.get());
+		}
+		return PendingRun.of(testRun);
+	}
+
+	/**
+	 * Removes the scenarios of a rerun that have the same outcome as in the
+	 * initial testrun, and the features that are left without scenarios. The
+	 * features that keep some of their scenarios are replaced by copies, so the
+	 * features that were read are not modified
+	 */
+	static PendingRun removeUnchangedScenarios(CukeTestRun testRun, ScenarioFingerprintIndex index) {
+		int total = 0;
+		int unchanged = 0;
+		List<CukeFeature> changedFeatures = new ArrayList<>();
+		for (CukeFeature feature : testRun.getFeatures()) {
+			List<CukeScenario> changedScenarios = new ArrayList<>();
+			for (CukeScenario scenario : feature.getScenarios()) {
+				total++;
+				if (index.isUnchanged(scenario)) {
+					unchanged++;
+				} else {
+					changedScenarios.add(scenario);
+				}
+			}
+			if (changedScenarios.size() == feature.getScenarios().size()) {
+				changedFeatures.add(feature);
+			} else if (!changedScenarios.isEmpty()) {
+				CukeFeature changedFeature = new CukeFeature();
+				BeanUtils.copyProperties(feature, changedFeature, "scenarios");
+				changedFeature.setScenarios(changedScenarios);
+				changedFeatures.add(changedFeature);
+			}
+		}
+		testRun.setFeatures(changedFeatures);
+		if (total > 0 && unchanged == total) {
+			log.info("Delta rerun: all {} scenarios are unchanged, no launch is imported", total);
+			return new PendingRun(testRun, true);
+		}
+		log.info("Delta rerun: {} of {} scenarios are unchanged and will not be imported", unchanged, total);
+		return PendingRun.of(testRun);
+	}
+
+	/**
+	 * Imports a {@link PendingRun}, or returns its empty testrun when it is a
+	 * delta rerun without changes
+	 */
+	CukeTestRun importPending(PendingRun pending) {
+		return pending.unchanged() ? pending.testRun() : importReport(pending.testRun());
 	}
 	
 	private CukeTestRun initCukeTestRun() {
-		List<String> jsonReports = propertyHandler.getCucumberJsonFiles();
-		CukeConverter cukeConverter = new CukeConverter();
-		return cukeConverter.convertToTestRun(
-				jsonReports.stream().map(Utils::getFile).filter(Objects::nonNull).toList());		
+		return CukeTestRunReader.read(propertyHandler);
 	}
 
 	/**
@@ -118,63 +253,635 @@ public class ReportPortalImporter {
 			return null;
 		}
 
-		RPClientConfig rpClientConfig = new RPClientConfig();
-		rpClientConfig.setEndpoint(propertyHandler.getReportPortalEndpoint());
-		rpClientConfig.setApiKey(propertyHandler.getReportPortalApiKey());
-		rpClientConfig.setProject(propertyHandler.getReportPortalProjectName());
-		RPClient rpClient = new RPClient(rpClientConfig);
-		
-		StartLaunchResponse launchRS = rpClient.startLaunch(launchProperties(testRun));
-		log.info("Importing reports in new launch with uuid {}", launchRS.getId());
-
-		propertyHandler.getLaunchAttachments().stream().filter(StringUtils::isNoneBlank).map(Utils::getFile)
-				.filter(Objects::nonNull)
-				.forEach(f -> rpClient
-						.addFileAttachment(AddFileAttachmentProperties.builder().launchUuid(launchRS.getId())
-								.level("INFO").time(Date.from(testRun.getStartTime().toInstant(ZoneOffset.UTC)))
-								.message(f.getName()).fullPath(f.getAbsolutePath()).build()));
-
-		ExecutorService executorService = Executors.newFixedThreadPool(propertyHandler.getThreadsFeatures());
+		LaunchImport launchImport = startImport(testRun, new ImportContext(config));
+		ExecutorService executorService = Executors.newFixedThreadPool(config.getThreadsFeatures(),
+				launchImport.context().getDeadline().threadFactory());
 		List<Future<Boolean>> listOfFuture = new ArrayList<>();
 
+		// the launch attachments are uploaded while the features are imported
+		launchAttachmentUploads(launchImport).forEach(executorService::execute);
 		for (CukeFeature f : testRun.getFeatures()) {
-			CukeFeatureImporter cukeFeatureImporter = new CukeFeatureImporter(
-					Optional.ofNullable(testRun.getMetadata().getName()), propertyHandler, launchRS.getId(), f,
-					rpClient);
-			listOfFuture.add(executorService.submit(cukeFeatureImporter));
+			listOfFuture.add(executorService.submit(featureImporter(launchImport, f)));
 		}
 
-		for (Future<Boolean> fut : listOfFuture) {
+		ImportDeadline deadline = launchImport.context().getDeadline();
+		for (int i = 0; i < listOfFuture.size(); i++) {
 			try {
-				fut.get();
-			} catch (InterruptedException | ExecutionException e) {
-				log.error("Failed to get result from CukeFeatureImporter", e);
+				deadline.await(listOfFuture.get(i));
+			} catch (ExecutionException e) {
+				log.error("Failed to import feature: {}", testRun.getFeatures().get(i).getName(), e.getCause());
+			} catch (InterruptedException e) {
+				log.error("Interrupted while waiting for CukeFeatureImporter", e);
 				Thread.currentThread().interrupt();
+			} catch (TimeoutException e) {
+				log.warn("Grace period of the import deadline is over, abandoning the features in progress");
+				break;
 			}
 
 		}
 		executorService.shutdown();
+		try {
+			// wait for the launch attachments that are still uploading
+			if (!deadline.awaitTermination(executorService)) {
+				executorService.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			log.error("Interrupted while waiting for launch attachments", e);
+			Thread.currentThread().interrupt();
+		}
+
+		return finishImport(launchImport, false);
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #importReport(CukeTestRun)}. The launch
+	 * is started and finished on the given executor, while the features are
+	 * imported on a pool of <code>rp.importer.threads.features</code> threads, so
+	 * no thread of the caller waits for the import.
+	 * <p>
+	 * Cancelling the returned future stops the features that are not yet imported,
+	 * interrupts the ones in progress and finishes the launch as
+	 * <code>INTERRUPTED</code>.
+	 * 
+	 * @param testRun  The {@link CukeTestRun} instance to import
+	 * @param executor The {@link Executor} that starts and finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importReportAsync(CukeTestRun testRun, Executor executor) {
+		return importAsync(() -> PendingRun.of(testRun), executor);
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #importCucumberReports(CukeMetadata)}.
+	 * See {@link #importReportAsync(CukeTestRun, Executor)} for the threading and
+	 * cancellation details
+	 * 
+	 * @param metadata A {@link CukeMetadata} with the metadata of the testrun
+	 * @param executor The {@link Executor} that reads the reports, and starts and
+	 *                 finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importCucumberReportsAsync(CukeMetadata metadata, Executor executor) {
+		return importAsync(() -> {
+			CukeTestRun testRun = initCukeTestRun();
+			testRun.setMetadata(metadata);
+			return PendingRun.of(testRun);
+		}, executor);
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #importCucumberReports()}. See
+	 * {@link #importReportAsync(CukeTestRun, Executor)} for the threading and
+	 * cancellation details
+	 * 
+	 * @param executor The {@link Executor} that reads the reports, and starts and
+	 *                 finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importCucumberReportsAsync(Executor executor) {
+		return importCucumberReportsAsync(new CukeMetadata(), executor);
+	}
+
+	/**
+	 * Non-blocking counterpart of
+	 * {@link #importCucumberReportsAsReRunOf(CukeTestRun)}. See
+	 * {@link #importReportAsync(CukeTestRun, Executor)} for the threading and
+	 * cancellation details
+	 * 
+	 * @param rerunOfTestRun a {@link CukeTestRun} of the initial testrun
+	 * @param executor       The {@link Executor} that reads the reports, and
+	 *                       starts and finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importCucumberReportsAsReRunOfAsync(CukeTestRun rerunOfTestRun,
+			Executor executor) {
+		return importAsync(() -> initReRunOf(rerunOfTestRun.getStartTime(), rerunOfTestRun.getEndTime(),
+				rerunOfTestRun.getMetadata(), () -> ScenarioFingerprintIndex.of(rerunOfTestRun)), executor);
+	}
+
+	/**
+	 * Non-blocking counterpart of
+	 * {@link #importCucumberReportsAsReRunOf(TestRunSnapshot)}. See
+	 * {@link #importReportAsync(CukeTestRun, Executor)} for the threading and
+	 * cancellation details
+	 * 
+	 * @param snapshot a {@link TestRunSnapshot} of the initial testrun
+	 * @param executor The {@link Executor} that reads the reports, and starts and
+	 *                 finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importCucumberReportsAsReRunOfAsync(TestRunSnapshot snapshot,
+			Executor executor) {
+		if (StringUtils.isBlank(config.getLaunchRerunOf()) && snapshot.getLaunchUuid() != null) {
+			return new ReportPortalImporter(withRerunOf(snapshot), rpClient)
+					.importCucumberReportsAsReRunOfAsync(snapshot, executor);
+		}
+		return importAsync(() -> initReRunOf(snapshot.getStartTime(), snapshot.getEndTime(), snapshot.toMetadata(),
+				snapshot::toFingerprintIndex), executor);
+	}
+
+	/**
+	 * Imports the features of a {@link Flow.Publisher} to a new launch, as they
+	 * are published. The launch is started immediately and finished when the
+	 * publisher completes. At most <code>rp.importer.threads.features</code>
+	 * features are requested at once, and a new one is requested whenever a
+	 * feature has been imported, so the publisher is slowed down to the pace of
+	 * ReportPortal.
+	 * <p>
+	 * Features are not retained once imported, so the returned testrun holds the
+	 * metadata, times and launch id, but no features. If the publisher fails, or
+	 * the returned future is cancelled, the launch is finished as
+	 * <code>INTERRUPTED</code>.
+	 * 
+	 * @param features  A {@link Flow.Publisher} of the features to import
+	 * @param metadata  A {@link CukeMetadata} with the metadata of the testrun
+	 * @param startTime A <code>LocalDateTime</code> with the start time of the
+	 *                  launch
+	 * @param executor  The {@link Executor} that starts and finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	public CompletableFuture<CukeTestRun> importFeatures(Flow.Publisher<CukeFeature> features, CukeMetadata metadata,
+			LocalDateTime startTime, Executor executor) {
+		CompletableFuture<CukeTestRun> result = new CompletableFuture<>();
+		CompletableFuture.runAsync(() -> {
+			if (result.isDone()) {
+				return;
+			}
+			CukeTestRun testRun = new CukeTestRun();
+			testRun.setMetadata(metadata);
+			testRun.setStartTime(startTime);
+			testRun.setEndTime(startTime);
+			testRun.setFeatures(new ArrayList<>());
+
+			LaunchImport launchImport = startImport(testRun, new ImportContext(config));
+			List<ImportTask> uploads = launchAttachmentUploads(launchImport);
+			uploads.forEach(executor::execute);
+			CompletableFuture<?>[] attachments = uploads.stream().map(upload -> upload.result)
+					.toArray(CompletableFuture[]::new);
+			CukeFeatureSubscriber subscriber = new CukeFeatureSubscriber(config.getThreadsFeatures(),
+					launchImport.context().getDeadline().threadFactory(), f -> featureImporter(launchImport, f));
+			result.whenComplete((r, t) -> {
+				if (result.isCancelled()) {
+					log.warn("Import of launch {} was cancelled", launchImport.launchUuid());
+					subscriber.cancel();
+				}
+			});
+
+			// the launch is finished when the publisher is done and all the tasks are
+			// done, or when the grace period of the deadline is over
+			CompletableFuture<Throwable> all = subscriber.completion().handle((v, error) -> error)
+					.thenCombine(CompletableFuture.allOf(attachments).exceptionally(e -> null), (error, v) -> error);
+			CompletableFuture<Void> expiry = launchImport.context().getDeadline().expiry();
+			CompletableFuture.anyOf(all, expiry).handle((v, t) -> v)
+					.thenRunAsync(() -> {
+						expiry.cancel(false);
+						if (!all.isDone()) {
+							log.warn("Grace period of the import deadline is over, abandoning the features in progress");
+							launchImport.context().getDeadline().abandon();
+							subscriber.cancel();
+						}
+						Throwable error = all.getNow(null);
+						Optional.ofNullable(subscriber.getMaxEndTime()).filter(t -> t.isAfter(testRun.getEndTime()))
+								.ifPresent(testRun::setEndTime);
+						CukeTestRun imported = finishImport(launchImport, error != null || result.isCancelled());
+						if (error != null) {
+							result.completeExceptionally(error);
+						} else {
+							result.complete(imported);
+						}
+					}, executor).exceptionally(e -> {
+						result.completeExceptionally(e);
+						return null;
+					});
+			features.subscribe(subscriber);
+		}, executor).exceptionally(e -> {
+			result.completeExceptionally(e);
+			return null;
+		});
+		return result;
+	}
+
+	/**
+	 * Imports a testrun asynchronously, sharing the payloads with the imports of
+	 * the same testrun to other targets
+	 * 
+	 * @param testRun  The {@link CukeTestRun} to import
+	 * @param payloads The {@link ImportPayloads} shared by the targets
+	 * @param executor The {@link Executor} that starts and finishes the launch
+	 * @return A <code>CompletableFuture</code> with the testrun that was imported
+	 */
+	CompletableFuture<CukeTestRun> importReportAsync(CukeTestRun testRun, ImportPayloads payloads,
+			Executor executor) {
+		return importAsync(() -> PendingRun.of(testRun), executor, () -> new ImportContext(config, payloads));
+	}
+
+	private CompletableFuture<CukeTestRun> importAsync(Supplier<PendingRun> testRunSupplier, Executor executor) {
+		return importAsync(testRunSupplier, executor, () -> new ImportContext(config));
+	}
+
+	private CompletableFuture<CukeTestRun> importAsync(Supplier<PendingRun> testRunSupplier, Executor executor,
+			Supplier<ImportContext> contextSupplier) {
+		CompletableFuture<CukeTestRun> result = new CompletableFuture<>();
+		CompletableFuture.runAsync(() -> {
+			if (result.isDone()) {
+				return;
+			}
+			PendingRun pending = testRunSupplier.get();
+			CukeTestRun testRun = pending.testRun();
+			if (pending.unchanged()) {
+				result.complete(testRun);
+				return;
+			}
+			if (CollectionUtils.isEmpty(testRun.getFeatures())) {
+				log.warn("No feature exists for the test-run. Cannot import...");
+				result.complete(null);
+				return;
+			}
+
+			LaunchImport launchImport = startImport(testRun, contextSupplier.get());
+			ThreadPoolExecutor featurePool = (ThreadPoolExecutor) Executors
+					.newFixedThreadPool(config.getThreadsFeatures(), launchImport.context().getDeadline().threadFactory());
+			List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+			List<ImportTask> importTasks = new ArrayList<>(launchAttachmentUploads(launchImport));
+			testRun.getFeatures().forEach(f -> importTasks
+					.add(new ImportTask("feature " + f.getName(), featureImporter(launchImport, f))));
+			for (ImportTask task : importTasks) {
+				tasks.add(task.result);
+				featurePool.execute(task);
+			}
+
+			result.whenComplete((r, t) -> {
+				if (result.isCancelled()) {
+					log.warn("Import of launch {} was cancelled", launchImport.launchUuid());
+					featurePool.shutdownNow().forEach(task -> ((ImportTask) task).result.cancel(false));
+				}
+			});
+
+			// the launch is finished when all the tasks are done, or when the grace
+			// period of the deadline is over
+			CompletableFuture<Void> all = CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new));
+			CompletableFuture<Void> expiry = launchImport.context().getDeadline().expiry();
+			CompletableFuture.anyOf(all, expiry).handle((v, t) -> v)
+					.thenRunAsync(() -> {
+						expiry.cancel(false);
+						if (all.isDone()) {
+							featurePool.shutdown();
+						} else {
+							log.warn("Grace period of the import deadline is over, abandoning the features in progress");
+							launchImport.context().getDeadline().abandon();
+							featurePool.shutdownNow().forEach(task -> ((ImportTask) task).result.cancel(false));
+						}
+						CukeTestRun imported = finishImport(launchImport, result.isCancelled());
+						result.complete(imported);
+					}, executor).exceptionally(e -> {
+						result.completeExceptionally(e);
+						return null;
+					});
+		}, executor).exceptionally(e -> {
+			result.completeExceptionally(e);
+			return null;
+		});
+		return result;
+	}
+
+	/**
+	 * Starts the launch of a testrun and prepares its payloads
+	 * 
+	 * @param testRun The {@link CukeTestRun} to import
+	 * @param context The {@link ImportContext} of the import
+	 * @return The started {@link LaunchImport}
+	 */
+	LaunchImport startImport(CukeTestRun testRun, ImportContext context) {
+		ReportPortalClient rpClient = client();
+		LaunchImportEvent event = new LaunchImportEvent();
+		event.begin();
+		
+		StartLaunchResponse launchRS;
+		try {
+			launchRS = rpClient.startLaunch(launchProperties(config, testRun.getStartTime()));
+		} catch (RuntimeException e) {
+			release(rpClient);
+			throw e;
+		}
+		log.info("Importing reports in new launch with uuid {}", launchRS.getId());
+
+		context.getPayloads().prepare(testRun);
+		return new LaunchImport(testRun, rpClient, launchRS.getId(), context, event,
+				registerShutdownHook(launchRS.getId(), context.getDeadline()));
+	}
+
+	private Optional<ShutdownHook> registerShutdownHook(String launchUuid, ImportDeadline deadline) {
+		if (!config.isShutdownHookEnabled()) {
+			return Optional.empty();
+		}
+		ShutdownHook hook = new ShutdownHook(launchUuid, deadline,
+				config.getDeadlineGraceMs() + ImportDeadline.FINISH_MS);
+		try {
+			Runtime.getRuntime().addShutdownHook(hook);
+			return Optional.of(hook);
+		} catch (IllegalStateException e) {
+			// the JVM is already shutting down
+			deadline.expire();
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Returns a task for the upload of every launch attachment. The tasks run on
+	 * the feature pool, so they share its threads with the feature importers, and
+	 * a failed upload is logged without failing the import
+	 */
+	List<ImportTask> launchAttachmentUploads(LaunchImport launchImport) {
+		Date time = Date.from(launchImport.testRun().getStartTime().toInstant(ZoneOffset.UTC));
+		return config.getLaunchAttachments().stream().filter(StringUtils::isNoneBlank).map(String::trim)
+				.map(a -> new ImportTask("launch attachment " + a, () -> uploadLaunchAttachment(launchImport, a, time)))
+				.toList();
+	}
+
+	/**
+	 * Uploads a launch attachment. A file on the filesystem is uploaded from its
+	 * path, and only a classpath resource inside a jar is copied to a temporary
+	 * file, that is deleted once it is uploaded
+	 */
+	private boolean uploadLaunchAttachment(LaunchImport launchImport, String attachment, Date time) {
+		Path file = null;
+		boolean temporary = false;
+		try {
+			Path path = Paths.get(attachment);
+			if (path.isAbsolute()) {
+				file = path;
+			} else {
+				ClassPathResource resource = new ClassPathResource(attachment);
+				if (!resource.exists()) {
+					log.error("File {} does not exist. Ignoring", attachment);
+					return false;
+				}
+				if (resource.isFile()) {
+					file = resource.getFile().toPath();
+				} else {
+					file = Files.createTempFile("rp_attachment_", "_" + resource.getFilename());
+					temporary = true;
+					try (InputStream in = resource.getInputStream()) {
+						Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+					}
+				}
+			}
+			if (!Files.isRegularFile(file)) {
+				log.error("File {} does not exist. Ignoring.", attachment);
+				return false;
+			}
+			launchImport.rpClient().addFileAttachment(AddFileAttachmentProperties.builder()
+					.launchUuid(launchImport.launchUuid()).level("INFO").time(time)
+					.message(path.getFileName().toString()).fullPath(file.toAbsolutePath().toString()).build());
+			return true;
+		} catch (IOException | RuntimeException e) {
+			log.error("Failed to upload launch attachment {}", attachment, e);
+			return false;
+		} finally {
+			if (temporary) {
+				deleteQuietly(file);
+			}
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Failed to delete temporary attachment {}", file, e);
+		}
+	}
+
+	private CukeFeatureImporter featureImporter(LaunchImport launchImport, CukeFeature feature) {
+		return new CukeFeatureImporter(Optional.ofNullable(launchImport.testRun().getMetadata().getName()),
+				launchImport.launchUuid(), feature, launchImport.rpClient(), launchImport.context());
+	}
+
+	/**
+	 * Releases the context of a launch import and finishes the launch. A launch
+	 * that is incomplete because of the import deadline is finished as
+	 * <code>INTERRUPTED</code>, with a summary of the scenarios that were not
+	 * imported
+	 * 
+	 * @param launchImport The {@link LaunchImport} to finish
+	 * @param interrupted  <code>true</code> to finish the launch as
+	 *                     <code>INTERRUPTED</code>
+	 * @return The imported {@link CukeTestRun}
+	 */
+	CukeTestRun finishImport(LaunchImport launchImport, boolean interrupted) {
+		try {
+			return finishLaunch(launchImport, interrupted || launchImport.context().getDeadline().isIncomplete());
+		} finally {
+			launchImport.shutdownHook().ifPresent(ShutdownHook::release);
+			release(launchImport.rpClient());
+		}
+	}
+
+	private CukeTestRun finishLaunch(LaunchImport launchImport, boolean interrupted) {
+		CukeTestRun testRun = launchImport.testRun();
+		ImportContext context = launchImport.context();
+		log.info("Formatted message cache: {} hits, {} misses", context.getPayloads().getMessageCache().stats().hitCount(),
+				context.getPayloads().getMessageCache().stats().missCount());
+		context.close();
+		if (context.getDeadline().isIncomplete()) {
+			logDeadlineSummary(launchImport);
+		}
 
 		FinishLaunchPropertiesBuilder finishPropsBuiler = FinishLaunchProperties.builder()
-				.launchUuid(launchRS.getId())
+				.launchUuid(launchImport.launchUuid())
 				.endTime(Date.from(testRun.getEndTime().toInstant(ZoneOffset.UTC)));
-		Optional.ofNullable(testRun.getMetadata().getStatus())
-				.ifPresent(s -> finishPropsBuiler.status(LaunchStatus.valueOf(s)));
+		if (interrupted) {
+			finishPropsBuiler.status(LaunchStatus.INTERRUPTED);
+		} else {
+			Optional.ofNullable(testRun.getMetadata().getStatus())
+					.ifPresent(s -> finishPropsBuiler.status(LaunchStatus.valueOf(s)));
+		}
 		
-		FinishLaunchResponse finishRs = rpClient.finishLaunch(finishPropsBuiler.build());
-		log.info("Finishing import of launch {}. Link: {}", launchRS.getId(), finishRs.getLink());
+		FinishLaunchResponse finishRs;
+		try {
+			finishRs = context.getDeadline().finish(() -> launchImport.rpClient().finishLaunch(finishPropsBuiler.build()));
+		} catch (TimeoutException e) {
+			throw new RPImporterException(String.format(
+					"Launch %s was not finished after the grace period of the import deadline", launchImport.launchUuid()),
+					e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RPImporterException(String.format("Interrupted while finishing launch %s", launchImport.launchUuid()),
+					e);
+		}
+		log.info("Finishing import of launch {}. Link: {}", launchImport.launchUuid(), finishRs.getLink());
+		if (launchImport.event().shouldCommit()) {
+			launchImport.event().launchUuid = launchImport.launchUuid();
+			launchImport.event().launchName = config.getLaunchName();
+			launchImport.event().features = testRun.getFeatures().size();
+			launchImport.event().interrupted = interrupted;
+			launchImport.event().commit();
+		}
 
-		testRun.getMetadata().setId(launchRS.getId());
+		testRun.getMetadata().setId(launchImport.launchUuid());
+		context.getSnapshot().ifPresent(s -> {
+			s.recordRun(testRun, launchImport.launchUuid());
+			s.write(Paths.get(config.getSnapshotFile()));
+			log.info("Saved snapshot of {} scenarios to {}", s.getScenarioCount(), config.getSnapshotFile());
+		});
 		return testRun;
 	}
 
-	private StartLaunchProperties launchProperties(CukeTestRun testRun) {
-		return StartLaunchProperties.builder().name(propertyHandler.getLaunchName())
-				.description(propertyHandler.getLaunchDescription())
-				.startTime(Date.from(testRun.getStartTime().toInstant(ZoneOffset.UTC)))
-				.attributes(propertyHandler.getLaunchAttributes())
-				.rerunOf(propertyHandler.getLaunchRerunOf())
-				.mode(propertyHandler.getLaunchMode())
+	private void logDeadlineSummary(LaunchImport launchImport) {
+		String summary = launchImport.context().getDeadline().summary();
+		log.warn("Launch {} is incomplete. {}", launchImport.launchUuid(), summary);
+		try {
+			launchImport.context().getDeadline().finish(() -> launchImport.rpClient()
+					.addLog(AddLogProperties.builder().launchId(launchImport.launchUuid()).level("WARN")
+							.time(Date.from(launchImport.testRun().getEndTime().toInstant(ZoneOffset.UTC)))
+							.message(summary).build()));
+		} catch (RuntimeException | TimeoutException e) {
+			log.error("Failed to log the deadline summary to launch {}", launchImport.launchUuid(), e);
+		} catch (InterruptedException e) {
+			log.error("Interrupted while logging the deadline summary to launch {}", launchImport.launchUuid());
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A testrun to import, that is <code>unchanged</code> when it is a delta rerun
+	 * whose scenarios all have the same outcome as in the initial testrun, so that
+	 * no launch is imported
+	 */
+	record PendingRun(CukeTestRun testRun, boolean unchanged) {
+
+		static PendingRun of(CukeTestRun testRun) {
+			return new PendingRun(testRun, false);
+		}
+	}
+
+	/**
+	 * A launch that is being imported
+	 */
+	record LaunchImport(CukeTestRun testRun, ReportPortalClient rpClient, String launchUuid,
+			ImportContext context, LaunchImportEvent event, Optional<ShutdownHook> shutdownHook) {
+	}
+
+	/**
+	 * Finishes a launch in progress when the JVM shuts down. The hook brings the
+	 * deadline of the import forward, and keeps the JVM alive until the launch is
+	 * finished, or the grace period and the time of the finish calls are over
+	 */
+	static final class ShutdownHook extends Thread {
+
+		private final String launchUuid;
+		private final ImportDeadline deadline;
+		private final long waitMs;
+		private final CountDownLatch finished = new CountDownLatch(1);
+
+		private ShutdownHook(String launchUuid, ImportDeadline deadline, long waitMs) {
+			super("rp-importer-shutdown-" + launchUuid);
+			this.launchUuid = launchUuid;
+			this.deadline = deadline;
+			this.waitMs = waitMs;
+		}
+
+		@Override
+		public void run() {
+			log.warn("JVM is shutting down, finishing launch {} within {} ms", launchUuid, waitMs);
+			deadline.expire();
+			try {
+				if (!finished.await(waitMs, TimeUnit.MILLISECONDS)) {
+					log.error("Launch {} was not finished before the JVM shut down", launchUuid);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Releases the hook once the launch is finished
+		 */
+		private void release() {
+			finished.countDown();
+			try {
+				Runtime.getRuntime().removeShutdownHook(this);
+			} catch (IllegalStateException e) {
+				// the JVM is shutting down, and the hook is running
+			}
+		}
+	}
+
+	/**
+	 * Runs a feature import or a launch attachment upload on the feature pool of
+	 * an import. The task is returned by <code>shutdownNow</code> if it never
+	 * started, so that its result can be cancelled, and a failure is logged with
+	 * the description of the task
+	 */
+	@RequiredArgsConstructor
+	static final class ImportTask implements Runnable {
+
+		private final String description;
+		private final Callable<Boolean> importer;
+		private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+		@Override
+		public void run() {
+			try {
+				result.complete(importer.call());
+			} catch (Exception e) {
+				log.error("Failed to import {}", description, e);
+				result.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the validated {@link RPImporterConfig} of the importer
+	 */
+	RPImporterConfig config() {
+		return config;
+	}
+
+	/**
+	 * Returns the {@link ReportPortalClient} of the importer, or a new one from the
+	 * properties if none was given
+	 */
+	ReportPortalClient client() {
+		return Optional.ofNullable(rpClient).orElseGet(this::createClient);
+	}
+
+	/**
+	 * Closes a {@link ReportPortalClient} that was returned by {@link #client()},
+	 * if the importer created it
+	 * 
+	 * @param client The {@link ReportPortalClient} to release
+	 */
+	void release(ReportPortalClient client) {
+		if (rpClient == null) {
+			client.close();
+		}
+	}
+
+	private ReportPortalClient createClient() {
+		if (StringUtils.isNotBlank(config.getSpoolFile())) {
+			log.info("Recording import to spool {}", config.getSpoolFile());
+			return new SpoolRecordingClient(Paths.get(config.getSpoolFile()));
+		}
+		return ReportPortalClients.create(config);
+	}
+
+	/**
+	 * Returns the properties of the launch of an import. The same properties are
+	 * used when a JUnit archive is imported as a launch (see
+	 * {@link JUnitArchiveExporter#uploadArchive(java.nio.file.Path)})
+	 * 
+	 * @param config    The {@link RPImporterConfig} of the import
+	 * @param startTime The start time of the launch, or <code>null</code>
+	 * @return A {@link StartLaunchProperties} with the launch to start
+	 */
+	static StartLaunchProperties launchProperties(RPImporterConfig config, LocalDateTime startTime) {
+		return StartLaunchProperties.builder().name(config.getLaunchName())
+				.description(config.getLaunchDescription())
+				.startTime(startTime == null ? null : Date.from(startTime.toInstant(ZoneOffset.UTC)))
+				.attributes(config.getLaunchAttributes())
+				.rerunOf(config.getLaunchRerunOf())
+				.mode(config.getLaunchMode())
 				.build();
 	}
 
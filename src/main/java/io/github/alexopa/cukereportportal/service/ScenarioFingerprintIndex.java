@@ -0,0 +1,168 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+
+/**
+ * An index of the scenarios of a test run by their fingerprints. Every
+ * scenario has two 64-bit fingerprints:
+ * <ul>
+ * <li>the identity, from the code reference of its feature, its line (which
+ * differs for every example row of an outline) and its name</li>
+ * <li>the outcome, from the name, section and result of all its steps and
+ * hooks, and their error messages. Durations and timestamps are not part of
+ * the outcome, as they change on every run</li>
+ * </ul>
+ * A scenario of a rerun is unchanged when the index has its identity with the
+ * same outcome.
+ */
+class ScenarioFingerprintIndex {
+
+	private static final HashFunction HASH_FUNCTION = Hashing.farmHashFingerprint64();
+
+	private final Map<Long, Long> outcomes;
+
+	private ScenarioFingerprintIndex(Map<Long, Long> outcomes) {
+		this.outcomes = outcomes;
+	}
+
+	/**
+	 * Creates the index of a {@link CukeTestRun}
+	 * 
+	 * @param testRun The {@link CukeTestRun} to index
+	 * @return A {@link ScenarioFingerprintIndex} of the test run
+	 */
+	static ScenarioFingerprintIndex of(CukeTestRun testRun) {
+		Map<Long, Long> outcomes = new HashMap<>();
+		for (CukeFeature feature : testRun.getFeatures()) {
+			for (CukeScenario scenario : feature.getScenarios()) {
+				outcomes.put(identity(scenario), outcome(scenario));
+			}
+		}
+		return new ScenarioFingerprintIndex(outcomes);
+	}
+
+	/**
+	 * Creates an index from already computed fingerprints
+	 * 
+	 * @param outcomes A <code>Map</code> with the outcome fingerprint of every
+	 *                 identity fingerprint
+	 * @return A {@link ScenarioFingerprintIndex} with the fingerprints
+	 */
+	static ScenarioFingerprintIndex of(Map<Long, Long> outcomes) {
+		return new ScenarioFingerprintIndex(outcomes);
+	}
+
+	/**
+	 * Returns if a scenario has the same outcome as the indexed one with the same
+	 * identity
+	 * 
+	 * @param scenario The {@link CukeScenario} to check
+	 * @return <code>true</code> if the scenario is unchanged
+	 */
+	boolean isUnchanged(CukeScenario scenario) {
+		return Objects.equals(outcomes.get(identity(scenario)), outcome(scenario));
+	}
+
+	/**
+	 * Returns the number of indexed scenarios
+	 * 
+	 * @return an <code>int</code> with the number of indexed scenarios
+	 */
+	int size() {
+		return outcomes.size();
+	}
+
+	/**
+	 * Returns the identity fingerprint of a feature
+	 * 
+	 * @param feature The {@link CukeFeature}
+	 * @return a <code>long</code> with the identity fingerprint
+	 */
+	static long identity(CukeFeature feature) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		putString(hasher, feature.getCodeRef());
+		return hasher.hash().asLong();
+	}
+
+	/**
+	 * Returns the identity fingerprint of a scenario
+	 * 
+	 * @param scenario The {@link CukeScenario}
+	 * @return a <code>long</code> with the identity fingerprint
+	 */
+	static long identity(CukeScenario scenario) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		putString(hasher, scenario.getParent().getCodeRef());
+		putString(hasher, String.valueOf(scenario.getLine()));
+		putString(hasher, scenario.getName());
+		return hasher.hash().asLong();
+	}
+
+	/**
+	 * Returns the outcome fingerprint of a scenario
+	 * 
+	 * @param scenario The {@link CukeScenario}
+	 * @return a <code>long</code> with the outcome fingerprint
+	 */
+	static long outcome(CukeScenario scenario) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		putString(hasher, String.valueOf(scenario.getResult()));
+		Stream.of(scenario.getBeforeSteps(), scenario.getBackgroundSteps(), scenario.getScenarioSteps(),
+				scenario.getAfterSteps()).filter(Objects::nonNull).flatMap(List::stream)
+				.forEach(step -> putStep(hasher, step));
+		return hasher.hash().asLong();
+	}
+
+	private static void putStep(Hasher hasher, CukeStep step) {
+		if (step.getBeforeSteps() != null) {
+			step.getBeforeSteps().forEach(s -> putStep(hasher, s));
+		}
+		putString(hasher, String.valueOf(step.getStepSection()));
+		putString(hasher, step.getName());
+		putString(hasher, step.getMatch() == null ? null : step.getMatch().getLocation());
+		putString(hasher, String.valueOf(step.getResult()));
+		putString(hasher, step.getErrorMessage());
+		if (step.getAfterSteps() != null) {
+			step.getAfterSteps().forEach(s -> putStep(hasher, s));
+		}
+	}
+
+	private static void putString(Hasher hasher, String value) {
+		// the length prefix keeps adjacent values from running into each other
+		if (value == null) {
+			hasher.putInt(-1);
+		} else {
+			hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+		}
+	}
+}
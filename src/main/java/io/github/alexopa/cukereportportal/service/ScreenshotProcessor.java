@@ -0,0 +1,184 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Downscales and re-encodes the png screenshots of a launch before they are
+ * uploaded. Screenshots are processed on a dedicated pool of
+ * <code>rp.importer.images.threads</code> threads, so the scenario importers
+ * keep calling ReportPortal meanwhile. A screenshot is uploaded unchanged when
+ * it cannot be read, or when the processed image is not smaller.
+ */
+@Slf4j
+class ScreenshotProcessor {
+
+	/**
+	 * A processed screenshot
+	 * 
+	 * @param data      The bytes of the image
+	 * @param extension The file extension of the image format
+	 */
+	record Image(byte[] data, String extension) {
+	}
+
+	private static final String PNG = "png";
+	private static final String JPEG = "jpeg";
+
+	private final int maxDimension;
+	private final String format;
+	private final float jpegQuality;
+	private final ExecutorService pool;
+
+	private final AtomicInteger images = new AtomicInteger();
+	private final AtomicLong originalBytes = new AtomicLong();
+	private final AtomicLong uploadedBytes = new AtomicLong();
+
+	/**
+	 * Creates a new {@link ScreenshotProcessor}
+	 * 
+	 * @param config The {@link RPImporterConfig} with the image properties
+	 */
+	ScreenshotProcessor(RPImporterConfig config) {
+		this.maxDimension = config.getImagesMaxDimension();
+		this.format = config.getImagesFormat();
+		this.jpegQuality = config.getImagesJpegQuality() / 100f;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(config.getImagesThreads(), r -> {
+			Thread thread = new Thread(r, "rp-importer-images-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Decodes and processes a png screenshot on the image pool
+	 * 
+	 * @param png A <code>Supplier</code> that decodes the png
+	 * @return A <code>CompletableFuture</code> with the {@link Image} to upload
+	 */
+	CompletableFuture<Image> process(Supplier<byte[]> png) {
+		return CompletableFuture.supplyAsync(() -> process(png.get()), pool);
+	}
+
+	/**
+	 * Logs the bytes saved by the processing and stops the image pool
+	 */
+	void close() {
+		pool.shutdown();
+		if (images.get() > 0) {
+			log.info("Processed {} screenshots: {} bytes uploaded instead of {}, {} bytes saved", images.get(),
+					uploadedBytes.get(), originalBytes.get(), originalBytes.get() - uploadedBytes.get());
+		}
+	}
+
+	private Image process(byte[] png) {
+		Image result = new Image(png, PNG);
+		try {
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+			if (image != null) {
+				boolean downscale = maxDimension > 0
+						&& (image.getWidth() > maxDimension || image.getHeight() > maxDimension);
+				String target = format != null ? format : PNG;
+				if (downscale || !PNG.equals(target)) {
+					BufferedImage output = redraw(image, downscale, JPEG.equals(target));
+					byte[] encoded = JPEG.equals(target) ? encodeJpeg(output) : encodePng(output);
+					if (encoded.length < png.length) {
+						result = new Image(encoded, JPEG.equals(target) ? "jpg" : PNG);
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warn("Failed to process screenshot, uploading the original", e);
+		}
+		images.incrementAndGet();
+		originalBytes.addAndGet(png.length);
+		uploadedBytes.addAndGet(result.data().length);
+		return result;
+	}
+
+	/**
+	 * Draws the image in a new buffer, downscaled to {@link #maxDimension} if
+	 * needed. Jpeg has no alpha channel, so transparent pixels are drawn on white
+	 */
+	private BufferedImage redraw(BufferedImage image, boolean downscale, boolean opaque) {
+		double scale = downscale ? (double) maxDimension / Math.max(image.getWidth(), image.getHeight()) : 1;
+		int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		if (!downscale && !opaque) {
+			return image;
+		}
+		BufferedImage output = new BufferedImage(width, height,
+				opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = output.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			if (opaque) {
+				graphics.setColor(Color.WHITE);
+				graphics.fillRect(0, 0, width, height);
+			}
+			graphics.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return output;
+	}
+
+	private static byte[] encodePng(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, PNG, out);
+		return out.toByteArray();
+	}
+
+	private byte[] encodeJpeg(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName(JPEG).next();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(imageOut);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(jpegQuality);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+}
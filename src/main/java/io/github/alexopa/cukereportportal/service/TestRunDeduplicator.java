@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class that canonicalizes the repeated strings of a {@link CukeTestRun}. Step
+ * names, keywords, hook locations, tags, error messages and data tables repeat
+ * thousands of times in a large test run, each one as a separate instance.
+ * After the pass, equal values share a single instance, which shrinks the
+ * retained heap of the model while it is imported. The lists of the model stay
+ * mutable, but equal data tables share a single list after the pass.
+ * <p>
+ * The canonical instances are kept in a map that only lives during the pass,
+ * so nothing is retained across launches.
+ */
+@Slf4j
+class TestRunDeduplicator {
+
+	private final Map<String, String> strings = new HashMap<>();
+	private final Map<List<List<String>>, List<List<String>>> tables = new HashMap<>();
+	private long replaced;
+
+	/**
+	 * Canonicalizes the repeated strings of a {@link CukeTestRun}
+	 * 
+	 * @param testRun The {@link CukeTestRun} to canonicalize
+	 */
+	static void deduplicate(CukeTestRun testRun) {
+		TestRunDeduplicator deduplicator = new TestRunDeduplicator();
+		testRun.getFeatures().forEach(deduplicator::deduplicate);
+		log.info("Deduplicated {} strings into {} distinct values and {} distinct data tables",
+				deduplicator.replaced, deduplicator.strings.size(), deduplicator.tables.size());
+	}
+
+	private void deduplicate(CukeFeature feature) {
+		feature.setTags(canonical(feature.getTags()));
+		feature.setCodeRef(canonical(feature.getCodeRef()));
+		for (CukeScenario scenario : feature.getScenarios()) {
+			scenario.setName(canonical(scenario.getName()));
+			scenario.setDescription(canonical(scenario.getDescription()));
+			scenario.setTags(canonical(scenario.getTags()));
+			deduplicate(scenario.getBeforeSteps());
+			deduplicate(scenario.getBackgroundSteps());
+			deduplicate(scenario.getScenarioSteps());
+			deduplicate(scenario.getAfterSteps());
+		}
+	}
+
+	private void deduplicate(List<CukeStep> steps) {
+		if (steps == null) {
+			return;
+		}
+		for (CukeStep step : steps) {
+			step.setName(canonical(step.getName()));
+			step.setKeyword(canonical(step.getKeyword()));
+			step.setErrorMessage(canonical(step.getErrorMessage()));
+			step.setDocString(canonical(step.getDocString()));
+			if (step.getMatch() != null) {
+				step.getMatch().setLocation(canonical(step.getMatch().getLocation()));
+			}
+			if (step.getTableData() != null) {
+				step.setTableData(tables.computeIfAbsent(step.getTableData(),
+						t -> t.stream().map(this::canonical).collect(Collectors.toCollection(ArrayList::new))));
+			}
+			if (step.getEmbeddings() != null) {
+				for (CukeEmbedding embedding : step.getEmbeddings()) {
+					embedding.setName(canonical(embedding.getName()));
+					embedding.setMimeType(canonical(embedding.getMimeType()));
+				}
+			}
+			deduplicate(step.getBeforeSteps());
+			deduplicate(step.getAfterSteps());
+		}
+	}
+
+	private List<String> canonical(List<String> values) {
+		return values == null ? null
+				: values.stream().map(this::canonical).collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	private String canonical(String value) {
+		if (value == null) {
+			return null;
+		}
+		String canonical = strings.putIfAbsent(value, value);
+		if (canonical == null) {
+			return value;
+		}
+		if (canonical != value) {
+			replaced++;
+		}
+		return canonical;
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A compact snapshot of an imported test run, that can drive a rerun import in
+ * another process without the original {@link CukeTestRun}. It holds the
+ * metadata, the start and end time and the launch uuid of the run, together
+ * with the fingerprints of every feature and scenario (see
+ * {@link ScenarioFingerprintIndex}) and the uuid of their ReportPortal items.
+ * <p>
+ * The snapshot is written by {@link ReportPortalImporter} when
+ * <code>rp.importer.snapshot.file</code> is defined, and is read with
+ * {@link #read(Path)}. Uuids are stored in 16 bytes and fingerprints in 8
+ * bytes, so a run of 50k scenarios takes less than 2MB.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+public class TestRunSnapshot {
+
+	private static final int MAGIC = 0x43525453;
+	private static final int VERSION = 1;
+
+	private record ScenarioItem(long outcome, String itemUuid) {
+	}
+
+	private String launchUuid;
+	private String name;
+	private String status;
+	private LocalDateTime startTime;
+	private LocalDateTime endTime;
+
+	@Getter(AccessLevel.NONE)
+	private final Map<Long, String> featureItems = new ConcurrentHashMap<>();
+	@Getter(AccessLevel.NONE)
+	private final Map<Long, ScenarioItem> scenarioItems = new ConcurrentHashMap<>();
+
+	/**
+	 * Reads a snapshot file
+	 * 
+	 * @param file A {@link Path} with the snapshot file
+	 * @return The {@link TestRunSnapshot} of the file
+	 */
+	public static TestRunSnapshot read(Path file) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new RPImporterException(String.format("File %s is not a supported snapshot", file));
+			}
+			TestRunSnapshot snapshot = new TestRunSnapshot();
+			snapshot.launchUuid = readId(in);
+			snapshot.name = readString(in);
+			snapshot.status = readString(in);
+			snapshot.startTime = readTime(in);
+			snapshot.endTime = readTime(in);
+			for (int i = in.readInt(); i > 0; i--) {
+				snapshot.featureItems.put(in.readLong(), readId(in));
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				snapshot.scenarioItems.put(in.readLong(), new ScenarioItem(in.readLong(), readId(in)));
+			}
+			return snapshot;
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to read snapshot %s", file), e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a file
+	 * 
+	 * @param file A {@link Path} with the snapshot file
+	 */
+	public void write(Path file) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeId(out, launchUuid);
+			writeString(out, name);
+			writeString(out, status);
+			writeTime(out, startTime);
+			writeTime(out, endTime);
+			out.writeInt(featureItems.size());
+			for (Map.Entry<Long, String> feature : featureItems.entrySet()) {
+				out.writeLong(feature.getKey());
+				writeId(out, feature.getValue());
+			}
+			out.writeInt(scenarioItems.size());
+			for (Map.Entry<Long, ScenarioItem> scenario : scenarioItems.entrySet()) {
+				out.writeLong(scenario.getKey());
+				out.writeLong(scenario.getValue().outcome());
+				writeId(out, scenario.getValue().itemUuid());
+			}
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to write snapshot %s", file), e);
+		}
+	}
+
+	/**
+	 * Returns a {@link CukeMetadata} with the name, status and launch uuid of the
+	 * snapshot
+	 * 
+	 * @return A {@link CukeMetadata} of the snapshot
+	 */
+	public CukeMetadata toMetadata() {
+		CukeMetadata metadata = new CukeMetadata();
+		metadata.setId(launchUuid);
+		metadata.setName(name);
+		metadata.setStatus(status);
+		return metadata;
+	}
+
+	/**
+	 * Returns the uuid of the ReportPortal item of a feature
+	 * 
+	 * @param feature The {@link CukeFeature}
+	 * @return An <code>Optional</code> with the item uuid, if the feature is in the
+	 *         snapshot
+	 */
+	public Optional<String> getFeatureItemUuid(CukeFeature feature) {
+		return Optional.ofNullable(featureItems.get(ScenarioFingerprintIndex.identity(feature)));
+	}
+
+	/**
+	 * Returns the uuid of the ReportPortal item of a scenario
+	 * 
+	 * @param scenario The {@link CukeScenario}
+	 * @return An <code>Optional</code> with the item uuid, if the scenario is in
+	 *         the snapshot
+	 */
+	public Optional<String> getScenarioItemUuid(CukeScenario scenario) {
+		return Optional.ofNullable(scenarioItems.get(ScenarioFingerprintIndex.identity(scenario)))
+				.map(ScenarioItem::itemUuid);
+	}
+
+	/**
+	 * Returns the number of scenarios in the snapshot
+	 * 
+	 * @return an <code>int</code> with the number of scenarios
+	 */
+	public int getScenarioCount() {
+		return scenarioItems.size();
+	}
+
+	void recordRun(CukeTestRun testRun, String launchUuid) {
+		this.launchUuid = launchUuid;
+		this.name = testRun.getMetadata().getName();
+		this.status = testRun.getMetadata().getStatus();
+		this.startTime = testRun.getStartTime();
+		this.endTime = testRun.getEndTime();
+	}
+
+	void recordFeature(CukeFeature feature, String itemUuid) {
+		featureItems.put(ScenarioFingerprintIndex.identity(feature), itemUuid);
+	}
+
+	void recordScenario(CukeScenario scenario, String itemUuid) {
+		scenarioItems.put(ScenarioFingerprintIndex.identity(scenario),
+				new ScenarioItem(ScenarioFingerprintIndex.outcome(scenario), itemUuid));
+	}
+
+	ScenarioFingerprintIndex toFingerprintIndex() {
+		return ScenarioFingerprintIndex.of(scenarioItems.entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().outcome())));
+	}
+
+	private static void writeId(DataOutputStream out, String id) throws IOException {
+		UUID uuid = toUuid(id);
+		if (uuid != null) {
+			out.writeByte(1);
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		} else {
+			out.writeByte(0);
+			writeString(out, id);
+		}
+	}
+
+	private static String readId(DataInputStream in) throws IOException {
+		if (in.readByte() == 1) {
+			return new UUID(in.readLong(), in.readLong()).toString();
+		}
+		return readString(in);
+	}
+
+	private static UUID toUuid(String id) {
+		if (id == null || id.length() != 36) {
+			return null;
+		}
+		try {
+			UUID uuid = UUID.fromString(id);
+			// only the canonical form can be restored from the bits
+			return uuid.toString().equals(id) ? uuid : null;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+		out.writeBoolean(time != null);
+		if (time != null) {
+			out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+			out.writeInt(time.getNano());
+		}
+	}
+
+	private static LocalDateTime readTime(DataInputStream in) throws IOException {
+		return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A cucumber json report to import. Sources are created with
+ * {@link ReportSources}, either from the entries of
+ * <code>rp.importer.cucumber.json.files</code> or directly from files and
+ * streams.
+ * <p>
+ * The cucumber report converter only reads files, so a source without a
+ * {@link #getPath()}, ie. a compressed report, a stream or a classpath resource
+ * inside a jar, is copied, uncompressed, to a temporary file before it is
+ * converted. Only plain uncompressed files are read in place
+ */
+public interface ReportSource {
+
+	/**
+	 * Returns the name of the report, used in logs and for temporary files
+	 * 
+	 * @return A {@link String} with the name of the report
+	 */
+	String getName();
+
+	/**
+	 * Returns the size of the report in bytes, as it is stored. Compressed
+	 * reports return their compressed size
+	 * 
+	 * @return a <code>long</code> with the size, or <code>-1</code> if it is not
+	 *         known
+	 */
+	long getSize();
+
+	/**
+	 * Opens the uncompressed json content of the report
+	 * 
+	 * @return An {@link InputStream} of the report, that the caller closes
+	 * @throws IOException if the report cannot be opened
+	 */
+	InputStream open() throws IOException;
+
+	/**
+	 * Returns the local file with the uncompressed json content of the report,
+	 * if there is one, so that it can be read in place
+	 * 
+	 * @return An <code>Optional</code> with the file of the report
+	 */
+	default Optional<Path> getPath() {
+		return Optional.empty();
+	}
+}
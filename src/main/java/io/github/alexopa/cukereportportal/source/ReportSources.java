@@ -0,0 +1,315 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Factory of {@link ReportSource} instances. An entry of
+ * <code>rp.importer.cucumber.json.files</code> can be
+ * <ul>
+ * <li>an absolute path of a file</li>
+ * <li>an absolute path of a directory, for all the <code>.json</code> and
+ * <code>.json.gz</code> files in it</li>
+ * <li>an absolute glob pattern, like
+ * <code>/reports/**&#47;cucumber*.json.gz</code></li>
+ * <li>a relative path or glob pattern of classpath resources, optionally
+ * prefixed with <code>classpath:</code></li>
+ * </ul>
+ * Relative entries are always resolved on the classpath, with or without a
+ * pattern. Files whose name ends in <code>.gz</code> are decompressed while
+ * they are read.
+ * <p>
+ * Only the sources of plain uncompressed files are read in place. Gzip
+ * reports, streams and classpath resources inside jars are copied to a
+ * temporary file before they are converted, since the converter only reads
+ * files, so they need disk space for their uncompressed content.
+ */
+@Slf4j
+@UtilityClass
+public class ReportSources {
+
+	private static final String CLASSPATH_PREFIX = "classpath:";
+	private static final String GZIP_SUFFIX = ".gz";
+	private static final String DIRECTORY_GLOB = "*.{json,json.gz}";
+	private static final char[] GLOB_CHARS = { '*', '?', '[', '{' };
+
+	/**
+	 * Resolves the entries of <code>rp.importer.cucumber.json.files</code> into
+	 * report sources. The entries are resolved in parallel, and the sources are
+	 * returned in the order of the entries, with the files of a directory or a
+	 * pattern in the order of their paths, so that the features of the launch
+	 * keep the order of the reports. Entries that do not match any report are
+	 * logged and ignored
+	 * 
+	 * @param entries A <code>List</code> of {@link String} with the entries
+	 * @return A <code>List</code> of {@link ReportSource} with the reports
+	 */
+	public static List<ReportSource> discover(List<String> entries) {
+		return entries.parallelStream().filter(StringUtils::isNotBlank).map(String::trim)
+				.flatMap(ReportSources::resolve).distinct().toList();
+	}
+
+	/**
+	 * Returns a source for a local file. The file is decompressed while it is
+	 * read if its name ends in <code>.gz</code>
+	 * 
+	 * @param file A {@link Path} with the report file
+	 * @return A {@link ReportSource} of the file
+	 */
+	public static ReportSource of(Path file) {
+		ReportSource source = new FileSource(file);
+		return file.getFileName().toString().endsWith(GZIP_SUFFIX) ? new GzipSource(source) : source;
+	}
+
+	/**
+	 * Returns a source for an already open stream. The stream can only be read
+	 * once, and it is closed after it is read
+	 * 
+	 * @param name   A {@link String} with the name of the report. The stream is
+	 *               decompressed while it is read if the name ends in
+	 *               <code>.gz</code>
+	 * @param stream The {@link InputStream} with the report
+	 * @return A {@link ReportSource} of the stream
+	 */
+	public static ReportSource of(String name, InputStream stream) {
+		ReportSource source = new StreamSource(name, stream, new AtomicBoolean());
+		return name.endsWith(GZIP_SUFFIX) ? new GzipSource(source) : source;
+	}
+
+	private static Stream<ReportSource> resolve(String entry) {
+		if (entry.startsWith(CLASSPATH_PREFIX)) {
+			return classpath(entry.substring(CLASSPATH_PREFIX.length()));
+		}
+		if (!isAbsolute(entry)) {
+			return classpath(entry);
+		}
+		if (StringUtils.containsAny(entry, GLOB_CHARS)) {
+			return glob(entry);
+		}
+		Path path = Paths.get(entry);
+		if (Files.isDirectory(path)) {
+			return match(path, DIRECTORY_GLOB, entry);
+		}
+		if (Files.isRegularFile(path)) {
+			return Stream.of(of(path));
+		}
+		log.error("File {} does not exist. Ignoring.", entry);
+		return Stream.empty();
+	}
+
+	private static boolean isAbsolute(String entry) {
+		// the part before the pattern, since the glob characters are not valid in a
+		// windows path
+		int firstGlob = StringUtils.indexOfAny(entry, GLOB_CHARS);
+		return Paths.get(firstGlob < 0 ? entry : entry.substring(0, firstGlob)).isAbsolute();
+	}
+
+	private static Stream<ReportSource> classpath(String resourcePath) {
+		if (StringUtils.containsAny(resourcePath, GLOB_CHARS)) {
+			return classpathGlob(resourcePath);
+		}
+		ClassPathResource resource = new ClassPathResource(resourcePath);
+		if (!resource.exists()) {
+			log.error("File {} does not exist. Ignoring", resourcePath);
+			return Stream.empty();
+		}
+		if (resource.isFile()) {
+			try {
+				return Stream.of(of(resource.getFile().toPath()));
+			} catch (IOException e) {
+				// not a plain file, it is read from its jar
+			}
+		}
+		ReportSource source = new ClasspathSource(resource.getPath(), resource);
+		return Stream.of(resourcePath.endsWith(GZIP_SUFFIX) ? new GzipSource(source) : source);
+	}
+
+	private static Stream<ReportSource> classpathGlob(String pattern) {
+		Resource[] resources;
+		try {
+			resources = new PathMatchingResourcePatternResolver()
+					.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + pattern);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to search reports with pattern %s", pattern), e);
+		}
+		List<ReportSource> sources = Stream.of(resources).filter(Resource::isReadable).map(ReportSources::ofResource)
+				.toList();
+		if (sources.isEmpty()) {
+			log.warn("No report matches {}", pattern);
+		}
+		return sources.stream();
+	}
+
+	private static ReportSource ofResource(Resource resource) {
+		if (resource.isFile()) {
+			try {
+				return of(resource.getFile().toPath());
+			} catch (IOException e) {
+				// not a plain file, it is read from its jar
+			}
+		}
+		String name = Optional.ofNullable(resource.getFilename()).orElseGet(resource::getDescription);
+		ReportSource source = new ClasspathSource(resource.getDescription(), resource);
+		return name.endsWith(GZIP_SUFFIX) ? new GzipSource(source) : source;
+	}
+
+	private static Stream<ReportSource> glob(String pattern) {
+		// split the pattern in its leading directory and the glob that is matched
+		// against the paths relative to that directory
+		int firstGlob = StringUtils.indexOfAny(pattern, GLOB_CHARS);
+		int cut = Math.max(pattern.lastIndexOf('/', firstGlob), pattern.lastIndexOf('\\', firstGlob));
+		Path base = Paths.get(cut < 0 ? "." : pattern.substring(0, cut + 1)).toAbsolutePath().normalize();
+		return match(base, pattern.substring(cut + 1), pattern);
+	}
+
+	private static Stream<ReportSource> match(Path base, String glob, String pattern) {
+		if (!Files.isDirectory(base)) {
+			log.error("Directory {} of pattern {} does not exist. Ignoring.", base, pattern);
+			return Stream.empty();
+		}
+
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		int maxDepth = glob.contains("**") ? Integer.MAX_VALUE : StringUtils.countMatches(glob, '/') + 1;
+		try (Stream<Path> files = Files.walk(base, maxDepth)) {
+			List<ReportSource> sources = files.filter(Files::isRegularFile)
+					.filter(f -> matcher.matches(base.relativize(f))).sorted().map(ReportSources::of).toList();
+			if (sources.isEmpty()) {
+				log.warn("No report matches {}", pattern);
+			}
+			return sources.stream();
+		} catch (IOException | UncheckedIOException e) {
+			throw new RPImporterException(String.format("Failed to search reports with pattern %s", pattern), e);
+		}
+	}
+
+	private record FileSource(Path file) implements ReportSource {
+
+		@Override
+		public String getName() {
+			return file.toString();
+		}
+
+		@Override
+		public long getSize() {
+			try {
+				return Files.size(file);
+			} catch (IOException e) {
+				return -1;
+			}
+		}
+
+		@Override
+		public InputStream open() throws IOException {
+			return Files.newInputStream(file);
+		}
+
+		@Override
+		public Optional<Path> getPath() {
+			return Optional.of(file);
+		}
+	}
+
+	private record ClasspathSource(String name, Resource resource) implements ReportSource {
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public long getSize() {
+			try {
+				return resource.contentLength();
+			} catch (IOException e) {
+				return -1;
+			}
+		}
+
+		@Override
+		public InputStream open() throws IOException {
+			return resource.getInputStream();
+		}
+	}
+
+	private record StreamSource(String name, InputStream stream, AtomicBoolean opened) implements ReportSource {
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public long getSize() {
+			return -1;
+		}
+
+		@Override
+		public InputStream open() throws IOException {
+			if (opened.getAndSet(true)) {
+				throw new IOException(String.format("Stream of report %s has already been read", name));
+			}
+			return stream;
+		}
+	}
+
+	private record GzipSource(ReportSource compressed) implements ReportSource {
+
+		@Override
+		public String getName() {
+			return compressed.getName();
+		}
+
+		@Override
+		public long getSize() {
+			return compressed.getSize();
+		}
+
+		@Override
+		public InputStream open() throws IOException {
+			InputStream in = compressed.open();
+			try {
+				return new GZIPInputStream(in, 64 * 1024);
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.spool;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Class that defines the binary format of a spool file.
+ * <p>
+ * A spool starts with {@link #MAGIC} and {@link #VERSION}, followed by
+ * records. Every record starts with its type byte. Numbers are written as
+ * unsigned variable length integers, dates as epoch milliseconds and strings
+ * as a reference: <code>0</code> for <code>null</code>, <code>1</code> for an
+ * inline string (length and UTF-8 bytes follow), or <code>2 + id</code> for a
+ * string that was defined earlier by a {@link #STRING} record. Launches and
+ * items are identified by spool references, that are assigned in the order
+ * they are started.
+ */
+@UtilityClass
+class SpoolFormat {
+
+	static final int MAGIC = 0x43525053;
+	static final int VERSION = 1;
+
+	static final byte STRING = 1;
+	static final byte START_LAUNCH = 2;
+	static final byte FINISH_LAUNCH = 3;
+	static final byte START_ITEM = 4;
+	static final byte FINISH_ITEM = 5;
+	static final byte LOG = 6;
+	static final byte ATTACHMENT = 7;
+
+	/**
+	 * The maximum length of a string that is added in the string table. Longer
+	 * strings (stack traces, doc strings) are rarely repeated and are written
+	 * inline
+	 */
+	static final int MAX_TABLE_STRING_LENGTH = 4096;
+
+	/**
+	 * The maximum number of strings in the string table, that bounds the memory
+	 * of the recording and of the replay. Once the table is full, the strings
+	 * that are not in it are written inline
+	 */
+	static final int MAX_TABLE_STRINGS = 1 << 16;
+
+	static final int NULL_STRING = 0;
+	static final int INLINE_STRING = 1;
+	static final int TABLE_STRING_OFFSET = 2;
+
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length number in spool");
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		return Math.toIntExact(readVarLong(in));
+	}
+}
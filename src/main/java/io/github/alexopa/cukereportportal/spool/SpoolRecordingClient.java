@@ -0,0 +1,286 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.spool;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ReportPortalClient} that does not call ReportPortal, but appends
+ * every operation to a binary spool file (see {@link SpoolFormat}). The spool
+ * can be uploaded later with {@link SpoolReplayer}, from a machine that can
+ * reach ReportPortal.
+ * <p>
+ * The returned launch and item ids are spool references, that are resolved to
+ * the real ReportPortal ids during the replay. Attachment files are copied in
+ * the spool, so they do not need to exist at replay time.
+ */
+@Slf4j
+public class SpoolRecordingClient implements ReportPortalClient, Closeable {
+
+	private final Path spool;
+	private final DataOutputStream out;
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final int maxTableStrings;
+	private int lastRef;
+
+	/**
+	 * Creates a new {@link SpoolRecordingClient}. An existing spool file is
+	 * overwritten
+	 * 
+	 * @param spool A {@link Path} with the spool file to write
+	 */
+	public SpoolRecordingClient(Path spool) {
+		this(spool, SpoolFormat.MAX_TABLE_STRINGS);
+	}
+
+	/**
+	 * Creates a new {@link SpoolRecordingClient} with a string table of the given
+	 * size. An existing spool file is overwritten
+	 * 
+	 * @param spool           A {@link Path} with the spool file to write
+	 * @param maxTableStrings The maximum number of strings in the string table
+	 */
+	SpoolRecordingClient(Path spool, int maxTableStrings) {
+		this.spool = spool;
+		this.maxTableStrings = maxTableStrings;
+		try {
+			this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spool)));
+			out.writeInt(SpoolFormat.MAGIC);
+			out.writeInt(SpoolFormat.VERSION);
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to create spool file %s", spool), e);
+		}
+	}
+
+	@Override
+	public synchronized StartLaunchResponse startLaunch(StartLaunchProperties props) {
+		int ref = ++lastRef;
+		write(() -> {
+			String mode = Optional.ofNullable(props.getMode()).map(Enum::name).orElse(null);
+			prepareStrings(props.getName(), props.getDescription(), props.getAttributes(), props.getRerunOf(), mode);
+			out.writeByte(SpoolFormat.START_LAUNCH);
+			SpoolFormat.writeVarLong(out, ref);
+			writeString(props.getName());
+			writeString(props.getDescription());
+			writeDate(props.getStartTime());
+			writeString(props.getAttributes());
+			writeString(props.getRerunOf());
+			writeString(mode);
+		});
+		StartLaunchResponse response = new StartLaunchResponse();
+		response.setId(String.valueOf(ref));
+		return response;
+	}
+
+	@Override
+	public synchronized FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+		write(() -> {
+			String status = Optional.ofNullable(props.getStatus()).map(Enum::name).orElse(null);
+			prepareStrings(status);
+			out.writeByte(SpoolFormat.FINISH_LAUNCH);
+			SpoolFormat.writeVarLong(out, toRef(props.getLaunchUuid()));
+			writeDate(props.getEndTime());
+			writeString(status);
+		});
+		close();
+		log.info("Recorded {} launches and items in spool {}", lastRef, spool);
+
+		FinishLaunchResponse response = new FinishLaunchResponse();
+		response.setId(props.getLaunchUuid());
+		response.setLink(spool.toUri().toString());
+		return response;
+	}
+
+	@Override
+	public synchronized EntryCreatedResponse startItem(StartTestItemProperties props) {
+		int ref = ++lastRef;
+		write(() -> {
+			prepareStrings(props.getName(), props.getAttributes(), props.getType(), props.getDescription(),
+					props.getCodeRef());
+			out.writeByte(SpoolFormat.START_ITEM);
+			SpoolFormat.writeVarLong(out, ref);
+			SpoolFormat.writeVarLong(out, toRef(props.getLaunchUuid()));
+			SpoolFormat.writeVarLong(out, toRef(props.getParentUuid()));
+			writeString(props.getName());
+			writeDate(props.getStartTime());
+			writeString(props.getAttributes());
+			writeString(props.getType());
+			writeString(props.getDescription());
+			writeString(props.getCodeRef());
+			out.writeByte(props.getHasStats() == null ? 0 : props.getHasStats() ? 2 : 1);
+		});
+		EntryCreatedResponse response = new EntryCreatedResponse();
+		response.setId(String.valueOf(ref));
+		return response;
+	}
+
+	@Override
+	public synchronized void finishItem(FinishTestItemProperties props) {
+		write(() -> {
+			prepareStrings(props.getStatus());
+			out.writeByte(SpoolFormat.FINISH_ITEM);
+			SpoolFormat.writeVarLong(out, toRef(props.getItemUuid()));
+			SpoolFormat.writeVarLong(out, toRef(props.getLaunchUuid()));
+			writeDate(props.getEndTime());
+			writeString(props.getStatus());
+		});
+	}
+
+	@Override
+	public synchronized void addLog(AddLogProperties props) {
+		write(() -> {
+			prepareStrings(props.getLevel());
+			out.writeByte(SpoolFormat.LOG);
+			SpoolFormat.writeVarLong(out, toRef(props.getLaunchId()));
+			SpoolFormat.writeVarLong(out, toRef(props.getItemId()));
+			writeString(props.getLevel());
+			writeDate(props.getTime());
+			writeString(props.getMessage());
+		});
+	}
+
+	@Override
+	public synchronized void addFileAttachment(AddFileAttachmentProperties props) {
+		Path file = Paths.get(props.getFullPath());
+		write(() -> {
+			String fileName = file.getFileName().toString();
+			prepareStrings(props.getLevel());
+			out.writeByte(SpoolFormat.ATTACHMENT);
+			SpoolFormat.writeVarLong(out, toRef(props.getLaunchUuid()));
+			SpoolFormat.writeVarLong(out, toRef(props.getItemUuid()));
+			writeString(props.getLevel());
+			writeDate(props.getTime());
+			writeString(props.getMessage());
+			writeString(fileName);
+			SpoolFormat.writeVarLong(out, Files.size(file));
+			Files.copy(file, out);
+		});
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to close spool file %s", spool), e);
+		}
+	}
+
+	private void write(SpoolWrite write) {
+		try {
+			write.write();
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to write spool file %s", spool), e);
+		}
+	}
+
+	/**
+	 * Writes the {@link SpoolFormat#STRING} records of the strings that are not
+	 * yet in the string table, as long as the table is not full. This needs to
+	 * happen before the type byte of the record that references them. Log
+	 * messages and attachment file names are rarely repeated, so they are not
+	 * prepared and are written inline
+	 */
+	private void prepareStrings(String... values) throws IOException {
+		for (String value : values) {
+			if (value == null || value.length() > SpoolFormat.MAX_TABLE_STRING_LENGTH
+					|| strings.containsKey(value) || strings.size() >= maxTableStrings) {
+				continue;
+			}
+			int id = strings.size();
+			strings.put(value, id);
+			out.writeByte(SpoolFormat.STRING);
+			SpoolFormat.writeVarLong(out, id);
+			writeUtf8(value);
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			SpoolFormat.writeVarLong(out, SpoolFormat.NULL_STRING);
+			return;
+		}
+		Integer id = strings.get(value);
+		if (id != null) {
+			SpoolFormat.writeVarLong(out, SpoolFormat.TABLE_STRING_OFFSET + (long) id);
+		} else {
+			SpoolFormat.writeVarLong(out, SpoolFormat.INLINE_STRING);
+			writeUtf8(value);
+		}
+	}
+
+	private void writeUtf8(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		SpoolFormat.writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeDate(Date date) throws IOException {
+		SpoolFormat.writeVarLong(out, date == null ? 0 : date.getTime());
+	}
+
+	/**
+	 * Returns the spool reference of a launch or item id, that was returned by
+	 * this client
+	 * 
+	 * @throws RPImporterException If the id is not a reference of this spool
+	 */
+	private int toRef(String id) {
+		if (id == null) {
+			return 0;
+		}
+		int ref;
+		try {
+			ref = Integer.parseInt(id);
+		} catch (NumberFormatException e) {
+			throw new RPImporterException(String.format("Unknown id %s in spool %s", id, spool), e);
+		}
+		if (ref < 1 || ref > lastRef) {
+			throw new RPImporterException(String.format("Unknown id %s in spool %s", id, spool));
+		}
+		return ref;
+	}
+
+	@FunctionalInterface
+	private interface SpoolWrite {
+		void write() throws IOException;
+	}
+}
@@ -0,0 +1,591 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.spool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.io.CountingInputStream;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.client.ReportPortalClients;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.LaunchStatus;
+import io.github.alexopa.reportportalclient.rpmodel.Mode;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class that uploads a spool file, that was written by
+ * {@link SpoolRecordingClient}, to ReportPortal.
+ * <p>
+ * The spool is read sequentially and every operation is scheduled as soon as
+ * the operations it depends on are done: an item is started once its parent is
+ * started, and it is finished once all its logs, attachments and child items
+ * are done. Independent operations are executed in parallel by
+ * {@link RPImporterPropertyHandler#getSpoolReplayThreads()} threads.
+ * <p>
+ * Every completed operation is appended to a journal file next to the spool
+ * (<code>&lt;spool&gt;.journal</code>). In case a replay fails, replaying the
+ * same spool again skips the completed operations and reuses the ids of the
+ * items that were already created. A journal that could not be written
+ * completely is rejected on resume, since the operations it misses may already
+ * be in ReportPortal and would be sent twice.
+ * <p>
+ * The number of operations that are read but not yet done is capped, so a
+ * large spool is not held in memory as a whole.
+ */
+@Slf4j
+public class SpoolReplayer {
+
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final String FAILED_JOURNAL_SUFFIX = ".failed";
+	private static final int IN_FLIGHT_PER_THREAD = 64;
+	private static final long TERMINATION_MS = 60000;
+
+	private final RPImporterConfig config;
+	private final ReportPortalClient rpClient;
+
+	/**
+	 * Creates a new {@link SpoolReplayer}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} with the
+	 *                        ReportPortal instance to upload to
+	 */
+	public SpoolReplayer(final RPImporterPropertyHandler propertyHandler) {
+		this(propertyHandler, null);
+	}
+
+	/**
+	 * Creates a new {@link SpoolReplayer}
+	 * 
+	 * @param propertyHandler A {@link RPImporterPropertyHandler} instance
+	 * @param rpClient        The {@link ReportPortalClient} to upload the spool
+	 *                        with, or <code>null</code> to create one from the
+	 *                        properties for every replay
+	 */
+	public SpoolReplayer(final RPImporterPropertyHandler propertyHandler, final ReportPortalClient rpClient) {
+		this.config = propertyHandler.getConfig();
+		this.rpClient = rpClient;
+	}
+
+	/**
+	 * Uploads a spool file to ReportPortal. The properties are read from the
+	 * default properties file and the system properties
+	 * 
+	 * @param args The path of the spool file
+	 */
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			throw new RPImporterException("Usage: SpoolReplayer <spool file>");
+		}
+		new SpoolReplayer(new RPImporterPropertyHandler()).replay(Paths.get(args[0]));
+	}
+
+	/**
+	 * Uploads a spool file to ReportPortal
+	 * 
+	 * @param spool A {@link Path} with the spool file
+	 * @return A {@link String} with the uuid of the ReportPortal launch
+	 */
+	public String replay(Path spool) {
+		Path journalFile = Paths.get(spool + JOURNAL_SUFFIX);
+		Map<Integer, String> completed = readJournal(journalFile);
+		if (!completed.isEmpty()) {
+			log.info("Resuming replay of spool {}, {} operations are already done", spool, completed.size());
+		}
+
+		ReportPortalClient client = Optional.ofNullable(rpClient)
+				.orElseGet(() -> ReportPortalClients.create(config));
+		try (FileChannel attachments = FileChannel.open(spool, StandardOpenOption.READ);
+				Journal journal = new Journal(journalFile);
+				CountingInputStream counting = new CountingInputStream(
+						new BufferedInputStream(Files.newInputStream(spool)));
+				DataInputStream in = new DataInputStream(counting)) {
+
+			Path tmpDir = Files.createTempDirectory("rp_spool_");
+			ExecutorService executorService = Executors.newFixedThreadPool(config.getSpoolReplayThreads());
+			Replay replay = new Replay(client, executorService, completed, journal, attachments, tmpDir,
+					config.getSpoolReplayThreads() * IN_FLIGHT_PER_THREAD);
+			try {
+				if (in.readInt() != SpoolFormat.MAGIC || in.readInt() != SpoolFormat.VERSION) {
+					throw new RPImporterException(String.format("File %s is not a supported spool", spool));
+				}
+				readRecords(in, counting, replay);
+				return replay.awaitLaunch();
+			} finally {
+				// the operations must be over before the journal, the spool and the client
+				// are closed, or an operation that is done could miss its journal entry
+				terminate(executorService);
+				replay.close();
+				if (journal.isFailed()) {
+					markFailed(journalFile);
+				}
+			}
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to replay spool %s", spool), e);
+		} finally {
+			if (rpClient == null) {
+				client.close();
+			}
+		}
+	}
+
+	private static void terminate(ExecutorService executorService) {
+		executorService.shutdownNow();
+		try {
+			if (!executorService.awaitTermination(TERMINATION_MS, TimeUnit.MILLISECONDS)) {
+				log.warn("Replay operations are still running after {} ms", TERMINATION_MS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void markFailed(Path journalFile) {
+		Path marker = Paths.get(journalFile + FAILED_JOURNAL_SUFFIX);
+		try {
+			Files.createFile(marker);
+		} catch (FileAlreadyExistsException e) {
+			// already marked
+		} catch (IOException e) {
+			log.error("Failed to mark journal {} as failed", journalFile, e);
+		}
+		throw new RPImporterException(String.format(
+				"Journal %s could not be written, the replay cannot be resumed without sending operations twice",
+				journalFile));
+	}
+
+	private void readRecords(DataInputStream in, CountingInputStream counting, Replay replay) throws IOException {
+		List<String> strings = new ArrayList<>();
+		int index = 0;
+		while (true) {
+			int type;
+			try {
+				type = in.readByte();
+			} catch (EOFException e) {
+				return;
+			}
+			switch (type) {
+			case SpoolFormat.STRING -> {
+				SpoolFormat.readVarInt(in);
+				strings.add(readUtf8(in));
+			}
+			case SpoolFormat.START_LAUNCH -> replay.startLaunch(index++, SpoolFormat.readVarInt(in),
+					StartLaunchProperties.builder().name(readString(in, strings))
+							.description(readString(in, strings)).startTime(readDate(in))
+							.attributes(readString(in, strings)).rerunOf(readString(in, strings))
+							.mode(toMode(readString(in, strings))).build());
+			case SpoolFormat.FINISH_LAUNCH -> {
+				int launchRef = SpoolFormat.readVarInt(in);
+				Date endTime = readDate(in);
+				String status = readString(in, strings);
+				replay.finishLaunch(index++, launchRef, endTime, status == null ? null : LaunchStatus.valueOf(status));
+			}
+			case SpoolFormat.START_ITEM -> {
+				int ref = SpoolFormat.readVarInt(in);
+				int launchRef = SpoolFormat.readVarInt(in);
+				int parentRef = SpoolFormat.readVarInt(in);
+				StartTestItemProperties.StartTestItemPropertiesBuilder builder = StartTestItemProperties.builder()
+						.name(readString(in, strings)).startTime(readDate(in)).attributes(readString(in, strings))
+						.type(readString(in, strings)).description(readString(in, strings))
+						.codeRef(readString(in, strings));
+				byte hasStats = in.readByte();
+				if (hasStats != 0) {
+					builder.hasStats(hasStats == 2);
+				}
+				replay.startItem(index++, ref, launchRef, parentRef, builder);
+			}
+			case SpoolFormat.FINISH_ITEM -> {
+				int ref = SpoolFormat.readVarInt(in);
+				int launchRef = SpoolFormat.readVarInt(in);
+				replay.finishItem(index++, ref, launchRef,
+						FinishTestItemProperties.builder().endTime(readDate(in)).status(readString(in, strings)));
+			}
+			case SpoolFormat.LOG -> {
+				int launchRef = SpoolFormat.readVarInt(in);
+				int itemRef = SpoolFormat.readVarInt(in);
+				replay.addLog(index++, launchRef, itemRef, AddLogProperties.builder().level(readString(in, strings))
+						.time(readDate(in)).message(readString(in, strings)));
+			}
+			case SpoolFormat.ATTACHMENT -> {
+				int launchRef = SpoolFormat.readVarInt(in);
+				int itemRef = SpoolFormat.readVarInt(in);
+				AddFileAttachmentProperties.AddFileAttachmentPropertiesBuilder builder = AddFileAttachmentProperties
+						.builder().level(readString(in, strings)).time(readDate(in))
+						.message(readString(in, strings));
+				String fileName = readString(in, strings);
+				long length = SpoolFormat.readVarLong(in);
+				long offset = counting.getCount();
+				in.skipNBytes(length);
+				replay.addAttachment(index++, launchRef, itemRef, builder, fileName, offset, length);
+			}
+			default -> throw new IOException(String.format("Unknown spool record type %s", type));
+			}
+		}
+	}
+
+	private static String readString(DataInputStream in, List<String> strings) throws IOException {
+		int value = SpoolFormat.readVarInt(in);
+		if (value == SpoolFormat.NULL_STRING) {
+			return null;
+		}
+		if (value == SpoolFormat.INLINE_STRING) {
+			return readUtf8(in);
+		}
+		return strings.get(value - SpoolFormat.TABLE_STRING_OFFSET);
+	}
+
+	private static String readUtf8(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[SpoolFormat.readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Date readDate(DataInputStream in) throws IOException {
+		long millis = SpoolFormat.readVarLong(in);
+		return millis == 0 ? null : new Date(millis);
+	}
+
+	private static Mode toMode(String mode) {
+		return mode == null ? null : Mode.valueOf(mode);
+	}
+
+	private static Map<Integer, String> readJournal(Path journalFile) {
+		Map<Integer, String> completed = new HashMap<>();
+		if (Files.exists(Paths.get(journalFile + FAILED_JOURNAL_SUFFIX))) {
+			throw new RPImporterException(String.format(
+					"Journal %s could not be written by a previous replay and cannot be resumed", journalFile));
+		}
+		if (!Files.exists(journalFile)) {
+			return completed;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+			while (true) {
+				int index;
+				String id;
+				try {
+					index = in.readInt();
+				} catch (EOFException e) {
+					return completed;
+				}
+				try {
+					id = in.readUTF();
+				} catch (EOFException e) {
+					// the operation of a truncated entry is done, but its id is lost
+					throw new RPImporterException(String.format(
+							"Journal %s ends with a truncated entry and cannot be resumed", journalFile), e);
+				}
+				completed.put(index, id);
+			}
+		} catch (IOException e) {
+			throw new RPImporterException(String.format("Failed to read journal %s", journalFile), e);
+		}
+	}
+
+	/**
+	 * The replay state of a launch or an item that is not yet finished
+	 */
+	private static final class OpenItem {
+		private final CompletableFuture<String> id;
+		private final int parentRef;
+		private final List<CompletableFuture<?>> dependents = new ArrayList<>();
+
+		private OpenItem(CompletableFuture<String> id, int parentRef) {
+			this.id = id;
+			this.parentRef = parentRef;
+		}
+
+		/**
+		 * Adds an operation that must be done before the item is finished. The
+		 * operations that are already done successfully are dropped, so a long
+		 * running item does not keep them all
+		 */
+		private void addDependent(CompletableFuture<?> dependent) {
+			dependents.removeIf(d -> d.isDone() && !d.isCompletedExceptionally());
+			dependents.add(dependent);
+		}
+	}
+
+	/**
+	 * Schedules the operations of a spool. The methods are called by the reading
+	 * thread only, the scheduled operations are executed by the executor
+	 */
+	private static final class Replay {
+
+		private final ReportPortalClient rpClient;
+		private final ExecutorService executorService;
+		private final Map<Integer, String> completed;
+		private final Journal journal;
+		private final FileChannel attachments;
+		private final Map<Integer, OpenItem> openItems = new HashMap<>();
+		private final Semaphore inFlight;
+		private final Path tmpDir;
+		private CompletableFuture<String> launch;
+
+		private Replay(ReportPortalClient rpClient, ExecutorService executorService, Map<Integer, String> completed,
+				Journal journal, FileChannel attachments, Path tmpDir, int maxInFlight) {
+			this.rpClient = rpClient;
+			this.executorService = executorService;
+			this.completed = completed;
+			this.journal = journal;
+			this.attachments = attachments;
+			this.inFlight = new Semaphore(maxInFlight);
+			this.tmpDir = tmpDir;
+		}
+
+		private void startLaunch(int index, int ref, StartLaunchProperties props) {
+			acquire();
+			CompletableFuture<String> id = admit(run(index, () -> rpClient.startLaunch(props).getId()));
+			openItems.put(ref, new OpenItem(id, 0));
+		}
+
+		private void finishLaunch(int index, int ref, Date endTime, LaunchStatus status) {
+			acquire();
+			OpenItem item = openItems.remove(ref);
+			launch = admit(item.id.thenCombine(allOf(item.dependents), (id, v) -> id)
+					.thenCompose(id -> run(index, () -> {
+						rpClient.finishLaunch(
+								FinishLaunchProperties.builder().launchUuid(id).endTime(endTime).status(status).build());
+						return id;
+					})));
+		}
+
+		private void startItem(int index, int ref, int launchRef, int parentRef,
+				StartTestItemProperties.StartTestItemPropertiesBuilder builder) {
+			acquire();
+			CompletableFuture<String> launchId = openItems.get(launchRef).id;
+			CompletableFuture<String> parentId = parentRef == 0 ? CompletableFuture.completedFuture(null)
+					: openItems.get(parentRef).id;
+			CompletableFuture<String> id = admit(launchId.thenCombine(parentId,
+					(l, p) -> builder.launchUuid(l).parentUuid(p).build())
+					.thenCompose(props -> run(index, () -> rpClient.startItem(props).getId())));
+			openItems.put(ref, new OpenItem(id, parentRef == 0 ? launchRef : parentRef));
+		}
+
+		private void finishItem(int index, int ref, int launchRef,
+				FinishTestItemProperties.FinishTestItemPropertiesBuilder builder) {
+			acquire();
+			OpenItem item = openItems.remove(ref);
+			CompletableFuture<String> launchId = openItems.get(launchRef).id;
+			CompletableFuture<String> finished = admit(item.id.thenCombine(launchId, (id, l) -> builder.itemUuid(id)
+					.launchUuid(l).build()).thenCombine(allOf(item.dependents), (props, v) -> props)
+					.thenCompose(props -> run(index, () -> {
+						rpClient.finishItem(props);
+						return props.getItemUuid();
+					})));
+			openItems.get(item.parentRef).addDependent(finished);
+		}
+
+		private void addLog(int index, int launchRef, int itemRef, AddLogProperties.AddLogPropertiesBuilder builder) {
+			acquire();
+			OpenItem launchItem = openItems.get(launchRef);
+			OpenItem item = itemRef == 0 ? launchItem : openItems.get(itemRef);
+			CompletableFuture<String> itemId = itemRef == 0 ? CompletableFuture.completedFuture(null) : item.id;
+			CompletableFuture<String> logged = admit(itemId
+					.thenCombine(launchItem.id, (id, l) -> builder.itemId(id).launchId(l).build())
+					.thenCompose(props -> run(index, () -> {
+						rpClient.addLog(props);
+						return "";
+					})));
+			item.addDependent(logged);
+		}
+
+		private void addAttachment(int index, int launchRef, int itemRef,
+				AddFileAttachmentProperties.AddFileAttachmentPropertiesBuilder builder, String fileName, long offset,
+				long length) {
+			acquire();
+			OpenItem launchItem = openItems.get(launchRef);
+			OpenItem item = itemRef == 0 ? launchItem : openItems.get(itemRef);
+			CompletableFuture<String> itemId = itemRef == 0 ? CompletableFuture.completedFuture(null) : item.id;
+			CompletableFuture<String> attached = admit(itemId
+					.thenCombine(launchItem.id, (id, l) -> builder.itemUuid(id).launchUuid(l))
+					.thenCompose(b -> run(index, () -> {
+						// a folder per operation keeps the file name of the attachment
+						Path folder = tmpDir.resolve(String.valueOf(index));
+						Path tmpFile = folder.resolve(fileName);
+						try {
+							extractAttachment(folder, tmpFile, offset, length);
+							rpClient.addFileAttachment(b.fullPath(tmpFile.toString()).build());
+						} finally {
+							deleteQuietly(tmpFile);
+							deleteQuietly(folder);
+						}
+						return "";
+					})));
+			item.addDependent(attached);
+		}
+
+		private void extractAttachment(Path folder, Path tmpFile, long offset, long length) {
+			try {
+				Files.createDirectories(folder);
+				try (FileChannel target = FileChannel.open(tmpFile, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.WRITE)) {
+					long transferred = 0;
+					while (transferred < length) {
+						transferred += attachments.transferTo(offset + transferred, length - transferred, target);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Waits until an operation can be read without exceeding the operations in
+		 * flight. Every operation depends on earlier ones only, so the operations in
+		 * flight always complete
+		 */
+		private void acquire() {
+			try {
+				inFlight.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RPImporterException("Interrupted while reading the spool", e);
+			}
+		}
+
+		private <T> CompletableFuture<T> admit(CompletableFuture<T> operation) {
+			operation.whenComplete((v, e) -> inFlight.release());
+			return operation;
+		}
+
+		/**
+		 * Deletes the folder of the attachments, once the operations are over
+		 */
+		private void close() {
+			deleteQuietly(tmpDir);
+		}
+
+		private static void deleteQuietly(Path path) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				log.warn("Failed to delete temporary file {}", path, e);
+			}
+		}
+
+		/**
+		 * Runs an operation on the executor, unless the journal shows it is already
+		 * done. In that case the id of the journal is returned
+		 */
+		private CompletableFuture<String> run(int index, Supplier<String> operation) {
+			String done = completed.get(index);
+			if (done != null) {
+				return CompletableFuture.completedFuture(done);
+			}
+			return CompletableFuture.supplyAsync(() -> {
+				String id = operation.get();
+				journal.append(index, id);
+				return id;
+			}, executorService);
+		}
+
+		private String awaitLaunch() {
+			if (launch == null) {
+				log.warn("The spool does not finish its launch, waiting for the recorded operations only");
+				OpenItem launchItem = openItems.values().stream().filter(i -> i.parentRef == 0).findFirst()
+						.orElseThrow(() -> new RPImporterException("The spool does not start a launch"));
+				launch = launchItem.id.thenCombine(
+						allOf(openItems.values().stream().flatMap(i -> i.dependents.stream()).toList()),
+						(id, v) -> id);
+			}
+			try {
+				String launchId = launch.join();
+				log.info("Replayed spool to launch {}", launchId);
+				return launchId;
+			} catch (CompletionException e) {
+				throw new RPImporterException("Failed to replay spool, run the replay again to resume", e.getCause());
+			}
+		}
+
+		private static CompletableFuture<Void> allOf(List<CompletableFuture<?>> futures) {
+			return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+		}
+	}
+
+	/**
+	 * An append-only file with the index of every completed operation and the id
+	 * it returned
+	 */
+	private static final class Journal implements AutoCloseable {
+
+		private final DataOutputStream out;
+		private boolean failed;
+
+		private Journal(Path journalFile) throws IOException {
+			this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(journalFile,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+		}
+
+		private synchronized void append(int index, String id) {
+			try {
+				out.writeInt(index);
+				out.writeUTF(id == null ? "" : id);
+				out.flush();
+			} catch (IOException e) {
+				failed = true;
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Checks whether an operation was done but could not be written to the
+		 * journal
+		 */
+		private synchronized boolean isFailed() {
+			return failed;
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			out.close();
+		}
+	}
+}
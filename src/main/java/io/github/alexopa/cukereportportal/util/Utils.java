@@ -18,17 +18,18 @@ package io.github.alexopa.cukereportportal.util;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.ResourceUtils;
 
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
 import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
@@ -81,8 +82,9 @@ public class Utils {
 	        // For JAR execution, copy the resource to a temporary file
 	        File tempFile = Files.createTempFile("temp", resource.getFilename()).toFile();
 	        tempFile.deleteOnExit();
-	        try (FileOutputStream out = new FileOutputStream(tempFile)) {
-				IOUtils.copy(resource.getInputStream(), out);
+	        // stream the resource in chunks, it can be a large build artifact
+	        try (InputStream in = resource.getInputStream()) {
+				Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 			}
 	        // Return the temporary file
 	        return tempFile;
@@ -103,14 +105,23 @@ public class Utils {
 	 * @return A {@link String} with the updated attributes
 	 */
 	public static String enhanceAttributesWithRerun(String attributes, RPImporterPropertyHandler propertyHandler) {
-		if (StringUtils.isNotBlank(propertyHandler.getLaunchRerunOf()) && propertyHandler.isRerunAttrbiuteEnabled()) {
-			String rerunAttribute = String.format(":%s", propertyHandler.getRerunAttributeName());
-			if (StringUtils.isBlank(attributes)) {
-				attributes = rerunAttribute;
-			} else {
-				attributes = String.format("%s;%s", attributes, rerunAttribute);
-			}
+		return enhanceAttributesWithRerun(attributes, propertyHandler.getConfig());
+	}
+
+	/**
+	 * Method that updates the attributes and adds the rerun attribute of
+	 * {@link RPImporterConfig#getRerunAttribute()}, if there is one
+	 * 
+	 * @param attributes A {@link String} with the attributes
+	 * @param config     A {@link RPImporterConfig} instance
+	 * 
+	 * @return A {@link String} with the updated attributes
+	 */
+	public static String enhanceAttributesWithRerun(String attributes, RPImporterConfig config) {
+		String rerunAttribute = config.getRerunAttribute();
+		if (rerunAttribute == null) {
+			return attributes;
 		}
-		return attributes;
+		return StringUtils.isBlank(attributes) ? rerunAttribute : attributes + ";" + rerunAttribute;
 	}
 }
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the validation of the properties by the {@link ImporterCli}
+ */
+class ImporterCliTest {
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+	private final ImporterCli cli = new ImporterCli(new PrintStream(out, true), new PrintStream(err, true));
+
+	@Test
+	void validatesTheReportPortalSettings() {
+		int exitCode = cli.run("--properties=none.properties", "--validate", "--launch.name=nightly");
+
+		assertEquals(ImporterCli.EXIT_USAGE, exitCode);
+		assertTrue(err.toString().contains("rp.importer.reportPortal.endpoint must not be blank"));
+		assertEquals("", out.toString());
+	}
+
+	@Test
+	void acceptsCompleteSettings() {
+		int exitCode = cli.run("--properties=none.properties", "--validate", "--launch.name=nightly",
+				"--reportPortal.endpoint=http://localhost:8080", "--reportPortal.apiKey=key",
+				"--reportPortal.projectName=project");
+
+		assertEquals(ImporterCli.EXIT_OK, exitCode);
+		assertTrue(out.toString().contains("The properties are valid"));
+	}
+
+	@Test
+	void acceptsABlankEndpointForADryRun() {
+		int exitCode = cli.run("--properties=none.properties", "--validate", "--dry-run", "--launch.name=nightly",
+				"--reportPortal.apiKey=key", "--reportPortal.projectName=project");
+
+		assertEquals(ImporterCli.EXIT_OK, exitCode);
+	}
+}
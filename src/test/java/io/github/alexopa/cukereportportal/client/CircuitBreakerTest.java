@@ -0,0 +1,146 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the transitions of the {@link CircuitBreaker}. The state is observed
+ * through the callers that are paused or let through
+ */
+class CircuitBreakerTest {
+
+	private static final long OPEN_MS = 300;
+	private static final long BLOCKED_MS = 100;
+	private static final long RELEASED_MS = 5000;
+
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void stopCallers() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void staysClosedBelowTheThreshold() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MS);
+		breaker.onFailure();
+		breaker.onFailure();
+
+		assertTrue(acquiresWithin(breaker, BLOCKED_MS));
+	}
+
+	@Test
+	void successResetsTheConsecutiveFailures() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(2, OPEN_MS);
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+
+		assertTrue(acquiresWithin(breaker, BLOCKED_MS));
+	}
+
+	@Test
+	void opensAfterConsecutiveFailures() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(2, OPEN_MS);
+		breaker.onFailure();
+		breaker.onFailure();
+
+		Future<?> caller = acquire(breaker);
+		assertThrows(TimeoutException.class, () -> caller.get(BLOCKED_MS, TimeUnit.MILLISECONDS));
+		// let through as the probe once the open period is over
+		caller.get(RELEASED_MS, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	void closesWhenTheProbeSucceeds() throws Exception {
+		CircuitBreaker breaker = halfOpen();
+		breaker.acquirePermission();
+
+		Future<?> caller = acquire(breaker);
+		assertThrows(TimeoutException.class, () -> caller.get(BLOCKED_MS, TimeUnit.MILLISECONDS));
+		breaker.onSuccess();
+		caller.get(RELEASED_MS, TimeUnit.MILLISECONDS);
+		assertTrue(acquiresWithin(breaker, BLOCKED_MS));
+	}
+
+	@Test
+	void opensAgainWhenTheProbeFails() throws Exception {
+		CircuitBreaker breaker = halfOpen();
+		breaker.acquirePermission();
+		breaker.onFailure();
+
+		Future<?> caller = acquire(breaker);
+		assertThrows(TimeoutException.class, () -> caller.get(BLOCKED_MS, TimeUnit.MILLISECONDS));
+		caller.get(RELEASED_MS, TimeUnit.MILLISECONDS);
+	}
+
+	@Test
+	void releaseLetsTheNextProbeThrough() throws Exception {
+		CircuitBreaker breaker = halfOpen();
+		breaker.acquirePermission();
+		breaker.release();
+
+		assertTrue(acquiresWithin(breaker, BLOCKED_MS));
+		// the circuit is still half-open, with the new probe in flight
+		assertFalse(acquiresWithin(breaker, BLOCKED_MS));
+	}
+
+	@Test
+	void isDisabledWithoutAThreshold() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(0, OPEN_MS);
+		for (int i = 0; i < 10; i++) {
+			breaker.onFailure();
+		}
+
+		assertTrue(acquiresWithin(breaker, BLOCKED_MS));
+	}
+
+	private static CircuitBreaker halfOpen() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MS);
+		breaker.onFailure();
+		Thread.sleep(OPEN_MS + 50);
+		return breaker;
+	}
+
+	private Future<?> acquire(CircuitBreaker breaker) {
+		return callers.submit(() -> {
+			breaker.acquirePermission();
+			return null;
+		});
+	}
+
+	private boolean acquiresWithin(CircuitBreaker breaker, long millis) throws Exception {
+		try {
+			acquire(breaker).get(millis, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		}
+	}
+}
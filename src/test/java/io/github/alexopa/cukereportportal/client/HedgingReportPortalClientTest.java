@@ -0,0 +1,238 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests that a {@link HedgingReportPortalClient} returns the response of a
+ * duplicate call while the first call is stalled, without touching the calling
+ * thread
+ */
+class HedgingReportPortalClientTest {
+
+	private static final int WARM_UP_CALLS = 128;
+	private static final long DUPLICATE_MS = 50;
+	private static final long STALL_MS = 3000;
+
+	private final CountDownLatch stalled = new CountDownLatch(1);
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void release() {
+		stalled.countDown();
+		callers.shutdownNow();
+	}
+
+	@Test
+	void returnsTheDuplicateWhileTheFirstCallIsStalled() {
+		AtomicBoolean abandoned = new AtomicBoolean();
+		FinishClient delegate = new FinishClient(call -> {
+			if (call == 1) {
+				stall();
+				abandoned.set(HedgingReportPortalClient.isCancelled());
+			} else {
+				sleep(DUPLICATE_MS);
+			}
+		});
+		HedgingReportPortalClient client = warmedUp(delegate);
+
+		long start = System.nanoTime();
+		client.finishItem(FinishTestItemProperties.builder().itemUuid("item").build());
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsedMs < STALL_MS / 3, "returned after " + elapsedMs + " ms");
+		assertFalse(Thread.currentThread().isInterrupted());
+		assertEquals(2, delegate.calls.get());
+		// the stalled call finishes in the background and knows it lost
+		stalled.countDown();
+		client.close();
+		assertTrue(awaitTrue(abandoned));
+	}
+
+	@Test
+	void waitsForTheFirstCallWhenTheDuplicateFails() {
+		FinishClient delegate = new FinishClient(call -> {
+			if (call == 1) {
+				sleep(DUPLICATE_MS * 4);
+			} else {
+				throw new IllegalStateException("duplicate failed");
+			}
+		});
+		HedgingReportPortalClient client = warmedUp(delegate);
+
+		client.finishItem(FinishTestItemProperties.builder().itemUuid("item").build());
+
+		assertEquals(2, delegate.calls.get());
+		client.close();
+	}
+
+	@Test
+	void failsWithTheLastFailureWhenBothCallsFail() {
+		FinishClient delegate = new FinishClient(call -> {
+			if (call == 1) {
+				sleep(DUPLICATE_MS * 4);
+				throw new IllegalStateException("first failed");
+			}
+			throw new IllegalStateException("duplicate failed");
+		});
+		HedgingReportPortalClient client = warmedUp(delegate);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> client.finishItem(FinishTestItemProperties.builder().itemUuid("item").build()));
+
+		assertEquals("first failed", e.getMessage());
+		client.close();
+	}
+
+	@Test
+	void keepsTheInterruptOfTheCaller() throws Exception {
+		FinishClient delegate = new FinishClient(call -> stall());
+		HedgingReportPortalClient client = warmedUp(delegate);
+
+		Future<Boolean> caller = callers.submit(() -> {
+			try {
+				client.finishItem(FinishTestItemProperties.builder().itemUuid("item").build());
+				return false;
+			} catch (RPImporterException e) {
+				return Thread.currentThread().isInterrupted();
+			}
+		});
+		while (delegate.calls.get() < 1) {
+			Thread.sleep(10);
+		}
+		callers.shutdownNow();
+
+		assertTrue(caller.get(STALL_MS / 3, TimeUnit.MILLISECONDS));
+		client.close();
+	}
+
+	private static HedgingReportPortalClient warmedUp(FinishClient delegate) {
+		HedgingReportPortalClient client = new HedgingReportPortalClient(delegate, 50, 100);
+		IntConsumer behavior = delegate.behavior;
+		delegate.behavior = call -> sleep(1);
+		for (int i = 0; i < WARM_UP_CALLS; i++) {
+			client.finishItem(FinishTestItemProperties.builder().itemUuid("warm-up").build());
+		}
+		delegate.calls.set(0);
+		delegate.behavior = behavior;
+		return client;
+	}
+
+	/**
+	 * Blocks like a request that is stuck in socket I/O: an interrupt does not end
+	 * it
+	 */
+	private void stall() {
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STALL_MS);
+		while (System.nanoTime() < end) {
+			try {
+				if (stalled.await(end - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					return;
+				}
+			} catch (InterruptedException e) {
+				// ignored, as by blocking I/O
+			}
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean awaitTrue(AtomicBoolean flag) {
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STALL_MS);
+		while (!flag.get() && System.nanoTime() < end) {
+			sleep(10);
+		}
+		return flag.get();
+	}
+
+	/**
+	 * A {@link ReportPortalClient} whose finish item calls behave as given by the
+	 * number of the call
+	 */
+	private static final class FinishClient implements ReportPortalClient {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile IntConsumer behavior;
+
+		private FinishClient(IntConsumer behavior) {
+			this.behavior = behavior;
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			behavior.accept(calls.incrementAndGet());
+		}
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests how a {@link LoadBalancingReportPortalClient} spreads the calls over
+ * its endpoints, and ejects an endpoint that keeps failing
+ */
+class LoadBalancingReportPortalClientTest {
+
+	private static final int CALLS = 200;
+	private static final int EJECTION_THRESHOLD = 3;
+	private static final long EJECTION_MS = 60000;
+
+	@Test
+	void spreadsTheCallsOverTheEndpoints() {
+		ReplicaClient first = new ReplicaClient(null);
+		ReplicaClient second = new ReplicaClient(null);
+		LoadBalancingReportPortalClient client = client(first, second);
+
+		for (int i = 0; i < CALLS; i++) {
+			client.addLog(AddLogProperties.builder().build());
+		}
+
+		assertEquals(CALLS, first.calls.get() + second.calls.get());
+		assertTrue(first.calls.get() > CALLS / 4 && second.calls.get() > CALLS / 4,
+				first.calls + " and " + second.calls + " calls");
+	}
+
+	@Test
+	void ejectsAnEndpointThatKeepsFailing() {
+		ReplicaClient failing = new ReplicaClient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		ReplicaClient healthy = new ReplicaClient(null);
+		LoadBalancingReportPortalClient client = client(failing, healthy);
+
+		int failures = 0;
+		for (int i = 0; i < CALLS; i++) {
+			try {
+				client.finishItem(FinishTestItemProperties.builder().build());
+			} catch (HttpServerErrorException e) {
+				failures++;
+			}
+		}
+
+		assertEquals(EJECTION_THRESHOLD, failures);
+		assertEquals(EJECTION_THRESHOLD, failing.calls.get());
+	}
+
+	@Test
+	void doesNotEjectAnEndpointForAPermanentFailure() {
+		ReplicaClient rejecting = new ReplicaClient(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+		ReplicaClient healthy = new ReplicaClient(null);
+		LoadBalancingReportPortalClient client = client(rejecting, healthy);
+
+		for (int i = 0; i < CALLS; i++) {
+			try {
+				client.finishItem(FinishTestItemProperties.builder().build());
+			} catch (HttpClientErrorException e) {
+				// expected from the rejecting endpoint
+			}
+		}
+
+		assertTrue(rejecting.calls.get() > EJECTION_THRESHOLD, rejecting.calls + " calls");
+	}
+
+	@Test
+	void usesAnEjectedEndpointWhenAllAreEjected() {
+		ReplicaClient first = new ReplicaClient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		ReplicaClient second = new ReplicaClient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		LoadBalancingReportPortalClient client = client(first, second);
+
+		for (int i = 0; i < 2 * EJECTION_THRESHOLD + 1; i++) {
+			assertThrows(HttpServerErrorException.class,
+					() -> client.finishItem(FinishTestItemProperties.builder().build()));
+		}
+
+		assertEquals(2 * EJECTION_THRESHOLD + 1, first.calls.get() + second.calls.get());
+	}
+
+	@Test
+	void prefersTheEndpointWithFewerCallsInProgress() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		ReplicaClient slow = new ReplicaClient(null);
+		ReplicaClient fast = new ReplicaClient(null);
+		LoadBalancingReportPortalClient client = client(slow, fast);
+		// the endpoint of a call cannot be chosen, so calls are sent one by one until
+		// one of them is stuck on the slow endpoint
+		slow.blocking = release;
+		Thread stuck = null;
+		try {
+			while (slow.calls.get() == 0) {
+				Thread caller = new Thread(() -> client.addLog(AddLogProperties.builder().build()));
+				caller.start();
+				caller.join(100);
+				if (caller.isAlive()) {
+					stuck = caller;
+				}
+			}
+			int before = fast.calls.get();
+			for (int i = 0; i < CALLS; i++) {
+				client.addLog(AddLogProperties.builder().build());
+			}
+
+			assertEquals(CALLS, fast.calls.get() - before);
+		} finally {
+			release.countDown();
+			if (stuck != null) {
+				stuck.join(1000);
+			}
+		}
+	}
+
+	private static LoadBalancingReportPortalClient client(ReplicaClient first, ReplicaClient second) {
+		return new LoadBalancingReportPortalClient(List.of(new LoadBalancingReportPortalClient.Endpoint("first", first),
+				new LoadBalancingReportPortalClient.Endpoint("second", second)), EJECTION_THRESHOLD, EJECTION_MS);
+	}
+
+	/**
+	 * A {@link ReportPortalClient} of a replica that counts its calls, and fails
+	 * them with the given failure or blocks them until released
+	 */
+	private static final class ReplicaClient implements ReportPortalClient {
+
+		private final RuntimeException failure;
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile CountDownLatch blocking;
+
+		private ReplicaClient(RuntimeException failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			call();
+			return new StartLaunchResponse();
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			call();
+			return new FinishLaunchResponse();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			call();
+			return new EntryCreatedResponse();
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			call();
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			call();
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			call();
+		}
+
+		private void call() {
+			calls.incrementAndGet();
+			CountDownLatch latch = blocking;
+			if (latch != null) {
+				try {
+					latch.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
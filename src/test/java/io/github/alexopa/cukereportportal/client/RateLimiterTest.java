@@ -0,0 +1,126 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the waits of the {@link RateLimiter}, within a process and through a
+ * shared file
+ */
+class RateLimiterTest {
+
+	private static final int REQUESTS_PER_SECOND = 10;
+	private static final long REQUEST_MS = 1000 / REQUESTS_PER_SECOND;
+	private static final long IMMEDIATE_MS = 50;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void letsABurstOfOneSecondThrough() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(REQUESTS_PER_SECOND, 0, null);
+
+		assertTrue(millis(() -> acquire(limiter, REQUESTS_PER_SECOND)) < IMMEDIATE_MS);
+		assertTrue(millis(() -> acquire(limiter, 1)) >= REQUEST_MS / 2);
+	}
+
+	@Test
+	void limitsTheBytes() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(0, 1000, null);
+		limiter.acquire(1000);
+
+		assertTrue(millis(() -> limiter.acquire(200)) >= 150);
+	}
+
+	@Test
+	void sharesTheLimitsThroughTheFile() throws InterruptedException {
+		Path file = directory.resolve("rate-limit");
+		RateLimiter first = new RateLimiter(REQUESTS_PER_SECOND, 0, file);
+		RateLimiter second = new RateLimiter(REQUESTS_PER_SECOND, 0, file);
+
+		acquire(first, REQUESTS_PER_SECOND);
+
+		assertTrue(millis(() -> acquire(second, 1)) >= REQUEST_MS / 2);
+	}
+
+	@Test
+	void givesBackTheReservationOfAnInterruptedCaller() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(2, 0, null);
+		acquire(limiter, 2);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		Thread waiting = new Thread(() -> {
+			try {
+				limiter.acquire(0);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+		});
+		waiting.start();
+		Thread.sleep(100);
+		waiting.interrupt();
+		waiting.join(1000);
+		assertTrue(interrupted.get());
+
+		// only the reservation of one request is ahead, not of two
+		long waited = millis(() -> acquire(limiter, 1));
+		assertTrue(waited < 750, "waited " + waited + " ms");
+	}
+
+	@Test
+	void ignoresAStaleTimeInTheSharedFile() throws Exception {
+		Path file = directory.resolve("rate-limit");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * Long.BYTES);
+			// a wall clock time, as written by an older version or before a reboot
+			buffer.order(ByteOrder.nativeOrder()).putLong(0,
+					TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) + TimeUnit.HOURS.toNanos(1));
+			buffer.force();
+		}
+		RateLimiter limiter = new RateLimiter(REQUESTS_PER_SECOND, 0, file);
+
+		assertTrue(millis(() -> acquire(limiter, 1)) < IMMEDIATE_MS);
+	}
+
+	private static void acquire(RateLimiter limiter, int requests) throws InterruptedException {
+		for (int i = 0; i < requests; i++) {
+			limiter.acquire(0);
+		}
+	}
+
+	private static long millis(Acquire acquire) throws InterruptedException {
+		long start = System.nanoTime();
+		acquire.run();
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	private interface Acquire {
+		void run() throws InterruptedException;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.ConnectException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests which failures of a call the {@link ResilientReportPortalClient}
+ * retries
+ */
+class ResilientReportPortalClientTest {
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	@Test
+	void retriesAStartCallThatWasRejected() {
+		FailingClient delegate = new FailingClient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE),
+				new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+
+		EntryCreatedResponse response = client(delegate).startItem(StartTestItemProperties.builder().build());
+
+		assertEquals("item", response.getId());
+		assertEquals(3, delegate.calls.get());
+	}
+
+	@Test
+	void retriesAStartCallThatCouldNotConnect() {
+		FailingClient delegate = new FailingClient(
+				new ResourceAccessException("I/O error", new ConnectException("Connection refused")));
+
+		client(delegate).startItem(StartTestItemProperties.builder().build());
+
+		assertEquals(2, delegate.calls.get());
+	}
+
+	@Test
+	void doesNotRetryAStartCallThatMayHaveBeenProcessed() {
+		FailingClient delegate = new FailingClient(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+		assertThrows(HttpServerErrorException.class,
+				() -> client(delegate).startItem(StartTestItemProperties.builder().build()));
+		assertEquals(1, delegate.calls.get());
+	}
+
+	@Test
+	void retriesAFinishCallOnAnyTransientFailure() {
+		FailingClient delegate = new FailingClient(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR),
+				new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+		client(delegate).finishItem(FinishTestItemProperties.builder().build());
+
+		assertEquals(3, delegate.calls.get());
+	}
+
+	@Test
+	void doesNotRetryAPermanentFailure() {
+		FailingClient delegate = new FailingClient(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+		assertThrows(HttpClientErrorException.class,
+				() -> client(delegate).finishItem(FinishTestItemProperties.builder().build()));
+		assertEquals(1, delegate.calls.get());
+	}
+
+	@Test
+	void failsAfterTheLastAttempt() {
+		FailingClient delegate = new FailingClient(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE),
+				new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE),
+				new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertThrows(HttpServerErrorException.class,
+				() -> client(delegate).addLog(AddLogProperties.builder().build()));
+		assertEquals(MAX_ATTEMPTS, delegate.calls.get());
+	}
+
+	private static ResilientReportPortalClient client(ReportPortalClient delegate) {
+		return new ResilientReportPortalClient(delegate,
+				TestProperties.config("rp.importer.retry.maxAttempts", String.valueOf(MAX_ATTEMPTS),
+						"rp.importer.retry.initialBackoffMs", "1", "rp.importer.retry.maxBackoffMs", "1",
+						"rp.importer.circuitBreaker.failureThreshold", "0"));
+	}
+
+	/**
+	 * A {@link ReportPortalClient} that fails its first calls with the given
+	 * failures, and succeeds after that
+	 */
+	private static final class FailingClient implements ReportPortalClient {
+
+		private final RuntimeException[] failures;
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private FailingClient(RuntimeException... failures) {
+			this.failures = failures;
+		}
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			call();
+			return new StartLaunchResponse();
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			call();
+			return new FinishLaunchResponse();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			call();
+			EntryCreatedResponse response = new EntryCreatedResponse();
+			response.setId("item");
+			return response;
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			call();
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			call();
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			call();
+		}
+
+		private void call() {
+			int call = calls.getAndIncrement();
+			if (call < failures.length) {
+				throw failures[call];
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * Tests that {@link RPImporterConfig} rejects blank ReportPortal settings,
+ * unless the import does not call ReportPortal
+ */
+class RPImporterConfigTest {
+
+	@Test
+	void acceptsTheSettingsOfAnImport() {
+		assertDoesNotThrow(() -> TestProperties.handler().getConfig());
+	}
+
+	@Test
+	void listsEveryBlankSetting() {
+		Properties props = new Properties();
+		props.setProperty("rp.importer.reportPortal.endpoint", " ");
+
+		RPImporterException e = assertThrows(RPImporterException.class,
+				() -> TestProperties.handler(props).getConfig());
+
+		assertTrue(e.getMessage().contains("rp.importer.launch.name must not be blank"));
+		assertTrue(e.getMessage().contains("rp.importer.reportPortal.projectName must not be blank"));
+		assertTrue(e.getMessage().contains("rp.importer.reportPortal.apiKey must not be blank"));
+		assertTrue(e.getMessage().contains("rp.importer.reportPortal.endpoint must not be blank"));
+	}
+
+	@Test
+	void acceptsABlankEndpointWithoutReportPortal() {
+		Properties props = TestProperties.valid();
+		props.remove("rp.importer.reportPortal.endpoint");
+
+		assertThrows(RPImporterException.class, () -> TestProperties.handler(props).getConfig());
+		assertDoesNotThrow(() -> TestProperties.handler(props).withoutReportPortal().getConfig());
+		props.setProperty("rp.importer.spool.file", "import.spool");
+		assertDoesNotThrow(() -> TestProperties.handler(props).getConfig());
+	}
+
+	@Test
+	void keepsTheOtherSettingsRequiredWithoutReportPortal() {
+		Properties props = TestProperties.valid();
+		props.remove("rp.importer.reportPortal.endpoint");
+		props.remove("rp.importer.reportPortal.apiKey");
+
+		RPImporterException e = assertThrows(RPImporterException.class,
+				() -> TestProperties.handler(props).withoutReportPortal().getConfig());
+
+		assertTrue(e.getMessage().contains("rp.importer.reportPortal.apiKey"));
+		assertFalse(e.getMessage().contains("rp.importer.reportPortal.endpoint"));
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.config;
+
+import java.util.Properties;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The properties of the tests: a valid configuration, without a properties
+ * file, that a test extends with the properties it exercises
+ */
+@UtilityClass
+public class TestProperties {
+
+	private static final String NO_PROPERTIES_FILE = "none.properties";
+
+	/**
+	 * Returns new properties with the settings that every import requires
+	 * 
+	 * @return A {@link Properties} with the launch name and the ReportPortal
+	 *         endpoint, api key and project
+	 */
+	public static Properties valid() {
+		Properties props = new Properties();
+		props.setProperty(RPImporterProperties.RP_IMPORTER_LAUNCH_NAME.getPropertyName(), "nightly");
+		props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_ENDPOINT.getPropertyName(),
+				"http://localhost:8080");
+		props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_API_KEY.getPropertyName(), "key");
+		props.setProperty(RPImporterProperties.RP_IMPORTER_REPORTPORTAL_PROJECT_NAME.getPropertyName(), "project");
+		return props;
+	}
+
+	/**
+	 * Returns a {@link RPImporterPropertyHandler} of the given properties only,
+	 * ignoring the default properties file
+	 * 
+	 * @param props The {@link Properties} of the handler
+	 * @return A new {@link RPImporterPropertyHandler}
+	 */
+	public static RPImporterPropertyHandler handler(Properties props) {
+		return new RPImporterPropertyHandler(NO_PROPERTIES_FILE, props);
+	}
+
+	/**
+	 * Returns a {@link RPImporterPropertyHandler} of the {@link #valid()}
+	 * properties with the given properties on top
+	 * 
+	 * @param nameValues The names and values of the properties, alternately
+	 * @return A new {@link RPImporterPropertyHandler}
+	 */
+	public static RPImporterPropertyHandler handler(String... nameValues) {
+		Properties props = valid();
+		for (int i = 0; i + 1 < nameValues.length; i += 2) {
+			props.setProperty(nameValues[i], nameValues[i + 1]);
+		}
+		return handler(props);
+	}
+
+	/**
+	 * Returns the {@link RPImporterConfig} of the {@link #valid()} properties
+	 * with the given properties on top
+	 * 
+	 * @param nameValues The names and values of the properties, alternately
+	 * @return The validated {@link RPImporterConfig}
+	 */
+	public static RPImporterConfig config(String... nameValues) {
+		return handler(nameValues).getConfig();
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.distributed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * Tests the leases of a {@link FileSystemWorkQueueStore}. Every store instance
+ * stands for another worker process that shares the directory
+ */
+class FileSystemWorkQueueStoreTest {
+
+	private static final long LONG_LEASE_MS = 60000;
+	private static final long SHORT_LEASE_MS = 50;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void publishesThePlanToTheOtherWorkers() {
+		ImportPlan plan = plan(2);
+		new FileSystemWorkQueueStore(directory).publish(plan);
+
+		assertEquals(Optional.of(plan), new FileSystemWorkQueueStore(directory).readPlan());
+		assertThrows(RPImporterException.class, () -> new FileSystemWorkQueueStore(directory).publish(plan));
+	}
+
+	@Test
+	void claimsNothingBeforeThePlanIsPublished() {
+		FileSystemWorkQueueStore store = new FileSystemWorkQueueStore(directory);
+
+		assertEquals(Optional.empty(), store.claim("worker-1", LONG_LEASE_MS));
+		assertEquals(Optional.empty(), store.readPlan());
+	}
+
+	@Test
+	void leasesEveryUnitToASingleWorker() {
+		new FileSystemWorkQueueStore(directory).publish(plan(2));
+		WorkQueueStore first = new FileSystemWorkQueueStore(directory);
+		WorkQueueStore second = new FileSystemWorkQueueStore(directory);
+
+		WorkLease firstLease = first.claim("worker-1", LONG_LEASE_MS).orElseThrow();
+		WorkLease secondLease = second.claim("worker-2", LONG_LEASE_MS).orElseThrow();
+
+		assertNotEquals(firstLease.unit(), secondLease.unit());
+		assertEquals(1, firstLease.generation());
+		assertEquals(Optional.empty(), new FileSystemWorkQueueStore(directory).claim("worker-3", LONG_LEASE_MS));
+		assertTrue(first.renew(firstLease, LONG_LEASE_MS));
+	}
+
+	@Test
+	void takesOverAnExpiredLease() throws InterruptedException {
+		new FileSystemWorkQueueStore(directory).publish(plan(1));
+		WorkQueueStore stalled = new FileSystemWorkQueueStore(directory);
+		WorkQueueStore other = new FileSystemWorkQueueStore(directory);
+		WorkLease expired = stalled.claim("worker-1", SHORT_LEASE_MS).orElseThrow();
+
+		Thread.sleep(SHORT_LEASE_MS * 4);
+		WorkLease takeover = other.claim("worker-2", LONG_LEASE_MS).orElseThrow();
+
+		assertEquals(expired.unit(), takeover.unit());
+		assertEquals(expired.generation() + 1, takeover.generation());
+		assertFalse(stalled.renew(expired, LONG_LEASE_MS));
+		assertTrue(other.renew(takeover, LONG_LEASE_MS));
+		assertEquals(Optional.empty(), stalled.claim("worker-1", LONG_LEASE_MS));
+	}
+
+	@Test
+	void takesOverAnIncompleteLeaseOnceItIsOlderThanTheLease() throws IOException {
+		new FileSystemWorkQueueStore(directory).publish(plan(1));
+		// a lease that its worker did not finish writing
+		Path incomplete = directory.resolve("units").resolve("0.lease.1");
+		Files.write(incomplete, "worker-1".getBytes(StandardCharsets.UTF_8));
+		WorkQueueStore other = new FileSystemWorkQueueStore(directory);
+
+		assertEquals(Optional.empty(), other.claim("worker-2", LONG_LEASE_MS));
+		Files.setLastModifiedTime(incomplete, FileTime.fromMillis(System.currentTimeMillis() - 2 * LONG_LEASE_MS));
+		WorkLease takeover = other.claim("worker-2", LONG_LEASE_MS).orElseThrow();
+
+		assertEquals(2, takeover.generation());
+		assertTrue(other.renew(takeover, LONG_LEASE_MS));
+	}
+
+	@Test
+	void leavesNoTemporaryLeases() throws IOException {
+		new FileSystemWorkQueueStore(directory).publish(plan(2));
+		WorkQueueStore worker = new FileSystemWorkQueueStore(directory);
+		WorkLease lease = worker.claim("worker-1", LONG_LEASE_MS).orElseThrow();
+		worker.renew(lease, LONG_LEASE_MS);
+
+		try (Stream<Path> files = Files.list(directory.resolve("units"))) {
+			assertEquals(List.of(lease.unit().id() + ".lease.1"),
+					files.map(f -> f.getFileName().toString()).toList());
+		}
+	}
+
+	@Test
+	void doesNotLeaseACompletedUnit() throws InterruptedException {
+		new FileSystemWorkQueueStore(directory).publish(plan(2));
+		WorkQueueStore worker = new FileSystemWorkQueueStore(directory);
+		WorkQueueStore other = new FileSystemWorkQueueStore(directory);
+		WorkLease lease = worker.claim("worker-1", SHORT_LEASE_MS).orElseThrow();
+
+		worker.complete(lease);
+		// completing twice, e.g. after the lease expired, has no effect
+		worker.complete(lease);
+		Thread.sleep(SHORT_LEASE_MS * 4);
+
+		assertEquals(1, other.remaining());
+		WorkLease next = other.claim("worker-2", LONG_LEASE_MS).orElseThrow();
+		assertNotEquals(lease.unit(), next.unit());
+		other.complete(next);
+		assertEquals(0, worker.remaining());
+		assertEquals(Optional.empty(), worker.claim("worker-1", LONG_LEASE_MS));
+	}
+
+	private static ImportPlan plan(int units) {
+		List<WorkUnit> workUnits = new ArrayList<>();
+		for (int i = 0; i < units; i++) {
+			workUnits.add(new WorkUnit(i, "features/checkout.feature", i * 5, (i + 1) * 5));
+		}
+		return new ImportPlan("5f0c8d3e-2a41-4b8e-9c6f-0d7a1e3b2c45",
+				Map.of("features/checkout.feature", "a3b1c2d4-e5f6-4789-8abc-def012345678"), workUnits);
+	}
+}
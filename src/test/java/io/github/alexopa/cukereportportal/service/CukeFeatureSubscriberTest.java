@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+
+/**
+ * Tests that a {@link CukeFeatureSubscriber} completes when the importers of its
+ * features cannot be created, and when its publisher fails
+ */
+class CukeFeatureSubscriberTest {
+
+	private static final int FEATURES = 20;
+	private static final int MAX_IN_FLIGHT = 2;
+
+	@Test
+	void countsAFeatureWhoseImporterFailsAsDone() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CukeFeatureSubscriber subscriber = new CukeFeatureSubscriber(MAX_IN_FLIGHT, Executors.defaultThreadFactory(),
+				f -> {
+					attempts.incrementAndGet();
+					throw new IllegalStateException("no importer for " + f.getName());
+				});
+
+		try (SubmissionPublisher<CukeFeature> publisher = new SubmissionPublisher<>()) {
+			publisher.subscribe(subscriber);
+			for (int i = 0; i < FEATURES; i++) {
+				publisher.submit(feature(i));
+			}
+		}
+
+		subscriber.completion().get(5, TimeUnit.SECONDS);
+		assertEquals(FEATURES, attempts.get());
+		assertEquals(LocalDateTime.of(2024, 1, 1, 0, FEATURES - 1), subscriber.getMaxEndTime());
+	}
+
+	@Test
+	void failsWithTheErrorOfThePublisher() {
+		CukeFeatureSubscriber subscriber = new CukeFeatureSubscriber(MAX_IN_FLIGHT, Executors.defaultThreadFactory(),
+				f -> {
+					throw new IllegalStateException("no importer for " + f.getName());
+				});
+
+		try (SubmissionPublisher<CukeFeature> publisher = new SubmissionPublisher<>()) {
+			publisher.subscribe(subscriber);
+			publisher.submit(feature(0));
+			publisher.closeExceptionally(new IllegalArgumentException("report is broken"));
+		}
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> subscriber.completion().get(5, TimeUnit.SECONDS));
+		assertEquals("report is broken", e.getCause().getMessage());
+	}
+
+	private static CukeFeature feature(int i) {
+		CukeFeature feature = new CukeFeature();
+		feature.setName("feature " + i);
+		feature.setMaxScenarioEndTime(LocalDateTime.of(2024, 1, 1, 0, i));
+		return feature;
+	}
+}
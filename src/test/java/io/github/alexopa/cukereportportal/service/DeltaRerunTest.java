@@ -0,0 +1,175 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.cukereportportal.service.ReportPortalImporter.PendingRun;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests that a delta rerun only keeps the scenarios whose outcome changed since
+ * the initial run, without modifying the features that were read
+ */
+class DeltaRerunTest {
+
+	@Test
+	void removesTheUnchangedScenarios() {
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex.of(testRun(
+				feature("features/cart.feature", CukeStepResult.PASSED, CukeStepResult.PASSED),
+				feature("features/checkout.feature", CukeStepResult.PASSED, CukeStepResult.FAILED),
+				feature("features/search.feature", CukeStepResult.FAILED)));
+		CukeFeature unchanged = feature("features/cart.feature", CukeStepResult.PASSED, CukeStepResult.PASSED);
+		CukeFeature partlyChanged = feature("features/checkout.feature", CukeStepResult.PASSED,
+				CukeStepResult.PASSED);
+		CukeFeature changed = feature("features/search.feature", CukeStepResult.PASSED);
+		CukeTestRun rerun = testRun(unchanged, partlyChanged, changed);
+		List<CukeScenario> partlyChangedScenarios = List.copyOf(partlyChanged.getScenarios());
+
+		PendingRun pending = ReportPortalImporter.removeUnchangedScenarios(rerun, index);
+
+		assertFalse(pending.unchanged());
+		List<CukeFeature> features = pending.testRun().getFeatures();
+		assertEquals(2, features.size());
+		// the feature with a single changed scenario is a copy with that scenario
+		CukeFeature copy = features.get(0);
+		assertNotSame(partlyChanged, copy);
+		assertEquals(partlyChanged.getName(), copy.getName());
+		assertEquals(partlyChanged.getCodeRef(), copy.getCodeRef());
+		assertEquals(List.of(partlyChangedScenarios.get(1)), copy.getScenarios());
+		assertEquals(partlyChangedScenarios, partlyChanged.getScenarios());
+		// a feature whose scenarios all changed is kept as it is
+		assertSame(changed, features.get(1));
+	}
+
+	@Test
+	void importsNoLaunchWhenAllScenariosAreUnchanged() {
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex
+				.of(testRun(feature("features/cart.feature", CukeStepResult.PASSED, CukeStepResult.FAILED)));
+		CukeTestRun rerun = testRun(feature("features/cart.feature", CukeStepResult.PASSED, CukeStepResult.FAILED));
+		RecordingClient client = new RecordingClient();
+
+		PendingRun pending = ReportPortalImporter.removeUnchangedScenarios(rerun, index);
+		CukeTestRun imported = new ReportPortalImporter(TestProperties.handler(), client).importPending(pending);
+
+		assertTrue(pending.unchanged());
+		assertSame(rerun, imported);
+		assertTrue(imported.getFeatures().isEmpty());
+		assertEquals(List.of(), client.calls);
+	}
+
+	private static CukeTestRun testRun(CukeFeature... features) {
+		CukeTestRun testRun = new CukeTestRun();
+		testRun.setFeatures(Stream.of(features).toList());
+		return testRun;
+	}
+
+	/**
+	 * Returns a feature with a scenario for each of the given step results
+	 */
+	private static CukeFeature feature(String codeRef, CukeStepResult... results) {
+		CukeFeature feature = new CukeFeature();
+		feature.setName(codeRef);
+		feature.setCodeRef(codeRef);
+		List<CukeScenario> scenarios = new ArrayList<>();
+		for (int i = 0; i < results.length; i++) {
+			CukeScenario scenario = new CukeScenario();
+			scenario.setName("Scenario " + i);
+			scenario.setLine(3 + 6 * i);
+			scenario.setParent(feature);
+			scenario.setResult(results[i] == CukeStepResult.PASSED ? CukeScenarioResult.PASSED
+					: CukeScenarioResult.FAILED);
+			CukeStep step = new CukeStep();
+			step.setKeyword("Given ");
+			step.setName("a cart with 2 items");
+			step.setStepSection(CukeStepSection.SCENARIO);
+			step.setResult(results[i]);
+			scenario.setScenarioSteps(List.of(step));
+			scenarios.add(scenario);
+		}
+		feature.setScenarios(scenarios);
+		return feature;
+	}
+
+	/**
+	 * A {@link ReportPortalClient} that records the calls it receives
+	 */
+	private static final class RecordingClient implements ReportPortalClient {
+
+		private final List<String> calls = new ArrayList<>();
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			calls.add("startLaunch");
+			return new StartLaunchResponse();
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			calls.add("finishLaunch");
+			return new FinishLaunchResponse();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			calls.add("startItem");
+			return new EntryCreatedResponse();
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			calls.add("finishItem");
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			calls.add("addLog");
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			calls.add("addFileAttachment");
+		}
+	}
+}
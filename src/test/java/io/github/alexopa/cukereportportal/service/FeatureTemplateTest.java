@@ -0,0 +1,348 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMatch;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests that the items imported with a {@link FeatureTemplate} have the same
+ * properties as the ones that were formatted for every item, before the
+ * template existed
+ */
+class FeatureTemplateTest {
+
+	private static final String LAUNCH_UUID = "launch";
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 0);
+	private static final LocalDateTime END = LocalDateTime.of(2024, 1, 1, 10, 5);
+
+	@Test
+	void buildsTheItemsOfEverySectionAsBefore() throws Exception {
+		assertImportedAsBefore(TestProperties.config());
+	}
+
+	@Test
+	void buildsTheItemsOfEverySectionWithTheRerunAttributeAsBefore() throws Exception {
+		RPImporterConfig config = TestProperties.config(
+				RPImporterProperties.RP_IMPORTER_LAUNCH_RERUN_OF.getPropertyName(), "launch-0",
+				RPImporterProperties.RP_IMPORTER_ATTRIBUTES_RERUN_ENABLED.getPropertyName(), "true");
+		assertTrue(StringUtils.isNotBlank(config.getRerunAttribute()));
+
+		assertImportedAsBefore(config);
+	}
+
+	@Test
+	void reusesTheCodeRefOfALine() {
+		CukeFeature feature = feature();
+		FeatureTemplate template = new FeatureTemplate(feature, TestProperties.config());
+
+		assertEquals("features/cart.feature:7", template.codeRef(7));
+		assertSame(template.codeRef(7), template.codeRef(7));
+		// a line that no item of the feature uses is formatted on demand
+		assertEquals("features/cart.feature:99", template.codeRef(99));
+	}
+
+	private static void assertImportedAsBefore(RPImporterConfig config) throws Exception {
+		CukeFeature feature = feature();
+		CukeScenario scenario = feature.getScenarios().get(0);
+		RecordingClient client = new RecordingClient();
+		ImportContext context = new ImportContext(config);
+		try {
+			new CukeFeatureImporter(Optional.empty(), LAUNCH_UUID, feature, client, context).call();
+		} finally {
+			context.close();
+		}
+
+		CukeStep beforeHook = scenario.getBeforeSteps().get(0);
+		CukeStep background = scenario.getBackgroundSteps().get(0);
+		CukeStep step = scenario.getScenarioSteps().get(0);
+		CukeStep beforeStep = step.getBeforeSteps().get(0);
+		CukeStep afterStep = step.getAfterSteps().get(0);
+		CukeStep afterHook = scenario.getAfterSteps().get(0);
+		List<StartTestItemProperties> expectedStarts = List.of(
+				legacyFeature(feature, config),
+				legacyScenario(scenario, "item-1", config),
+				legacyContainer(beforeHook, "item-2"),
+				legacyStep(beforeHook, feature, "item-3"),
+				legacyContainer(background, "item-2"),
+				legacyStep(background, feature, "item-5"),
+				legacyContainer(step, "item-2"),
+				legacyStep(beforeStep, feature, "item-7"),
+				legacyStep(step, feature, "item-7"),
+				legacyStep(afterStep, feature, "item-7"),
+				legacyContainer(afterHook, "item-2"),
+				legacyStep(afterHook, feature, "item-11"));
+		assertEquals(expectedStarts.size(), client.starts.size());
+		for (int i = 0; i < expectedStarts.size(); i++) {
+			assertStart(expectedStarts.get(i), client.starts.get(i), "item-" + (i + 1));
+		}
+
+		List<FinishTestItemProperties> expectedFinishes = List.of(
+				legacyFinish("item-4", START, "PASSED"),
+				legacyFinish("item-3", START, "passed"),
+				legacyFinish("item-6", START, "PASSED"),
+				legacyFinish("item-5", START, "passed"),
+				legacyFinish("item-8", START, "PASSED"),
+				legacyFinish("item-10", START, "PASSED"),
+				legacyFinish("item-9", START, "PASSED"),
+				legacyFinish("item-7", START, "passed"),
+				legacyFinish("item-12", START, "PASSED"),
+				legacyFinish("item-11", START, "passed"),
+				legacyFinish("item-2", START, "PASSED"),
+				legacyFinish("item-1", END, "passed"));
+		assertEquals(expectedFinishes.size(), client.finishes.size());
+		for (int i = 0; i < expectedFinishes.size(); i++) {
+			FinishTestItemProperties expected = expectedFinishes.get(i);
+			FinishTestItemProperties actual = client.finishes.get(i);
+			assertEquals(expected.getLaunchUuid(), actual.getLaunchUuid(), expected.getItemUuid());
+			assertEquals(expected.getItemUuid(), actual.getItemUuid());
+			assertEquals(expected.getEndTime(), actual.getEndTime(), expected.getItemUuid());
+			assertEquals(expected.getStatus(), actual.getStatus(), expected.getItemUuid());
+		}
+	}
+
+	private static void assertStart(StartTestItemProperties expected, StartTestItemProperties actual, String item) {
+		assertEquals(expected.getLaunchUuid(), actual.getLaunchUuid(), item);
+		assertEquals(expected.getParentUuid(), actual.getParentUuid(), item);
+		assertEquals(expected.getName(), actual.getName(), item);
+		assertEquals(expected.getStartTime(), actual.getStartTime(), item);
+		assertEquals(expected.getAttributes(), actual.getAttributes(), item);
+		assertEquals(expected.getType(), actual.getType(), item);
+		assertEquals(expected.getDescription(), actual.getDescription(), item);
+		assertEquals(expected.getCodeRef(), actual.getCodeRef(), item);
+		assertEquals(expected.getHasStats(), actual.getHasStats(), item);
+	}
+
+	// the formatting of the items before the template, kept as the reference
+
+	private static String legacyAttributes(List<String> tags, RPImporterConfig config) {
+		String attributes = tags.stream().collect(Collectors.joining(";"));
+		String rerunAttribute = config.getRerunAttribute();
+		if (rerunAttribute == null) {
+			return attributes;
+		}
+		return StringUtils.isBlank(attributes) ? rerunAttribute : attributes + ";" + rerunAttribute;
+	}
+
+	private static StartTestItemProperties legacyFeature(CukeFeature feature, RPImporterConfig config) {
+		return StartTestItemProperties.builder().launchUuid(LAUNCH_UUID)
+				.name(String.format("Feature: %s", feature.getName())).startTime(date(START))
+				.attributes(legacyAttributes(feature.getTags(), config)).type("STORY")
+				.description(feature.getDescription()).codeRef(feature.getCodeRef()).build();
+	}
+
+	private static StartTestItemProperties legacyScenario(CukeScenario scenario, String featureUuid,
+			RPImporterConfig config) {
+		return StartTestItemProperties.builder().launchUuid(LAUNCH_UUID).parentUuid(featureUuid)
+				.name(String.format("%s: %s", scenario.getType().getText(), scenario.getName()))
+				.startTime(date(START)).attributes(legacyAttributes(scenario.getTags(), config)).type("STEP")
+				.description(scenario.getDescription())
+				.codeRef(String.format("%s:%s", scenario.getParent().getCodeRef(), scenario.getLine())).build();
+	}
+
+	private static StartTestItemProperties legacyContainer(CukeStep step, String scenarioUuid) {
+		return StartTestItemProperties.builder().launchUuid(LAUNCH_UUID).parentUuid(scenarioUuid)
+				.name(legacyContainerName(step)).startTime(date(START)).type(legacyType(step)).hasStats(false)
+				.build();
+	}
+
+	private static StartTestItemProperties legacyStep(CukeStep step, CukeFeature feature, String containerUuid) {
+		return StartTestItemProperties.builder().launchUuid(LAUNCH_UUID).parentUuid(containerUuid)
+				.name(legacyStepName(step)).startTime(date(START)).type(legacyType(step)).hasStats(false)
+				.codeRef(String.format("%s:%s", feature.getCodeRef(), step.getLine())).build();
+	}
+
+	private static FinishTestItemProperties legacyFinish(String itemUuid, LocalDateTime endTime, String status) {
+		return FinishTestItemProperties.builder().launchUuid(LAUNCH_UUID).itemUuid(itemUuid).endTime(date(endTime))
+				.status(status).build();
+	}
+
+	private static String legacyContainerName(CukeStep step) {
+		if (step.getStepSection() == CukeStepSection.BEFORE_SCENARIO) {
+			return "Before Hooks";
+		} else if (step.getStepSection() == CukeStepSection.BACKGROUND) {
+			return "Background";
+		} else if (step.getStepSection() == CukeStepSection.SCENARIO) {
+			return "Scenario";
+		} else if (step.getStepSection() == CukeStepSection.AFTER_SCENARIO) {
+			return "After Hooks";
+		}
+		return "";
+	}
+
+	private static String legacyStepName(CukeStep step) {
+		if (step.getStepSection() == CukeStepSection.BEFORE_SCENARIO) {
+			return String.format("%s: %s", "Before Hook", step.getMatch().getLocation());
+		} else if (step.getStepSection() == CukeStepSection.BEFORE_STEP) {
+			return String.format("%s: %s", "Before Step", step.getMatch().getLocation());
+		} else if (step.getStepSection() == CukeStepSection.AFTER_STEP) {
+			return String.format("%s: %s", "After Step", step.getMatch().getLocation());
+		} else if (step.getStepSection() == CukeStepSection.AFTER_SCENARIO) {
+			return String.format("%s: %s", "After Hook", step.getMatch().getLocation());
+		}
+		return String.format("%s %s", step.getKeyword().trim(), step.getName());
+	}
+
+	private static String legacyType(CukeStep step) {
+		switch (step.getStepSection()) {
+		case BEFORE_SCENARIO:
+			return "before_test";
+		case AFTER_SCENARIO:
+			return "after_test";
+		case BEFORE_STEP:
+			return "before_method";
+		case AFTER_STEP:
+			return "after_method";
+		default:
+			return "test";
+		}
+	}
+
+	private static Date date(LocalDateTime time) {
+		return Date.from(time.toInstant(ZoneOffset.UTC));
+	}
+
+	/**
+	 * Returns a passed feature with a scenario that has a step in every section
+	 */
+	private static CukeFeature feature() {
+		CukeFeature feature = new CukeFeature();
+		feature.setName("Cart");
+		feature.setDescription("Adding items to the cart");
+		feature.setCodeRef("features/cart.feature");
+		feature.setTags(List.of("@cart", "@smoke"));
+		feature.setMinScenarioStartTime(START);
+		feature.setMaxScenarioEndTime(END);
+
+		CukeScenario scenario = new CukeScenario();
+		scenario.setName("Add an item");
+		scenario.setDescription("A single item");
+		scenario.setLine(7);
+		scenario.setTags(List.of("@cart", "@smoke", "@items"));
+		scenario.setStartTimestamp(START);
+		scenario.setResult(CukeScenarioResult.PASSED);
+		scenario.setParent(feature);
+		scenario.setBeforeSteps(List.of(hook(CukeStepSection.BEFORE_SCENARIO, "Hooks.openBrowser()")));
+		scenario.setBackgroundSteps(List.of(step(CukeStepSection.BACKGROUND, 4, "Given ", "an empty cart")));
+		CukeStep step = step(CukeStepSection.SCENARIO, 8, "When ", "I add an item");
+		step.setBeforeSteps(List.of(hook(CukeStepSection.BEFORE_STEP, "Hooks.beforeStep()")));
+		step.setAfterSteps(List.of(hook(CukeStepSection.AFTER_STEP, "Hooks.screenshot()")));
+		scenario.setScenarioSteps(List.of(step));
+		scenario.setAfterSteps(List.of(hook(CukeStepSection.AFTER_SCENARIO, "Hooks.closeBrowser()")));
+		feature.setScenarios(List.of(scenario));
+		return feature;
+	}
+
+	private static CukeStep step(CukeStepSection section, int line, String keyword, String name) {
+		CukeStep step = new CukeStep();
+		step.setStepSection(section);
+		step.setLine(line);
+		step.setKeyword(keyword);
+		step.setName(name);
+		step.setResult(CukeStepResult.PASSED);
+		return step;
+	}
+
+	private static CukeStep hook(CukeStepSection section, String location) {
+		CukeStep hook = new CukeStep();
+		hook.setStepSection(section);
+		CukeMatch match = new CukeMatch();
+		match.setLocation(location);
+		hook.setMatch(match);
+		hook.setResult(CukeStepResult.PASSED);
+		return hook;
+	}
+
+	/**
+	 * A {@link ReportPortalClient} that numbers the started items and records the
+	 * properties of the started and finished items
+	 */
+	private static final class RecordingClient implements ReportPortalClient {
+
+		private final List<StartTestItemProperties> starts = Collections.synchronizedList(new ArrayList<>());
+		private final List<FinishTestItemProperties> finishes = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			EntryCreatedResponse response = new EntryCreatedResponse();
+			synchronized (starts) {
+				starts.add(props);
+				response.setId("item-" + starts.size());
+			}
+			return response;
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			finishes.add(props);
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			// the steps have no logs
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			// the steps have no attachments
+		}
+	}
+}
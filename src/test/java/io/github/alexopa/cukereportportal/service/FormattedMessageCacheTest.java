@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the {@link FormattedMessageCache} is keyed by the instance of a
+ * table or doc string of a deduplicated test run, by its content otherwise, and
+ * bounded by the length of its messages
+ */
+class FormattedMessageCacheTest {
+
+	@Test
+	void formatsARepeatedInstanceOnce() {
+		FormattedMessageCache cache = new FormattedMessageCache(1000, true);
+		List<List<String>> table = List.of(List.of("a", "b"), List.of("1", "2"));
+
+		String first = cache.dataTable(table);
+		String second = cache.dataTable(table);
+
+		assertSame(first, second);
+		assertEquals(1, cache.stats().hitCount());
+	}
+
+	@Test
+	void doesNotCompareTheContentOfTheTables() {
+		FormattedMessageCache cache = new FormattedMessageCache(1000, true);
+		List<List<String>> table = List.of(List.of("a", "b"));
+
+		String first = cache.dataTable(table);
+		String second = cache.dataTable(new ArrayList<>(table));
+
+		assertEquals(first, second);
+		assertEquals(0, cache.stats().hitCount());
+		assertEquals(2, cache.stats().missCount());
+	}
+
+	@Test
+	void comparesTheContentOfTheTablesWithoutDeduplication() {
+		FormattedMessageCache cache = new FormattedMessageCache(1000, false);
+		List<List<String>> table = List.of(List.of("a", "b"));
+
+		String first = cache.dataTable(table);
+		String second = cache.dataTable(new ArrayList<>(table));
+		cache.docString(new String("text"));
+		cache.docString(new String("text"));
+
+		assertSame(first, second);
+		assertEquals(2, cache.stats().hitCount());
+	}
+
+	@Test
+	void doesNotKeepMessagesBeyondItsLength() {
+		FormattedMessageCache cache = new FormattedMessageCache(1000, true);
+		String docString = "x".repeat(5000);
+
+		cache.docString(docString);
+		cache.docString(docString);
+
+		assertEquals(0, cache.stats().hitCount());
+	}
+
+	@Test
+	void isDisabledWithoutALength() {
+		FormattedMessageCache cache = new FormattedMessageCache(0, true);
+		String docString = "text";
+
+		assertEquals("\n\"\"\"\ntext\n\"\"\"\n", cache.docString(docString));
+		cache.docString(docString);
+
+		assertEquals(0, cache.stats().hitCount());
+	}
+}
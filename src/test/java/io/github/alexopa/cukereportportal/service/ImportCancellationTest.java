@@ -0,0 +1,186 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.config.RPImporterProperties;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.LaunchStatus;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests that cancelling an asynchronous import stops the features in progress,
+ * drops the queued ones and finishes the launch as <code>INTERRUPTED</code>
+ */
+class ImportCancellationTest {
+
+	private static final long TIMEOUT_S = 10;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void cancellingAnImportInterruptsTheLaunch() throws Exception {
+		BlockingClient client = new BlockingClient();
+		CukeTestRun testRun = new CukeTestRun();
+		testRun.setMetadata(new CukeMetadata());
+		testRun.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+		testRun.setEndTime(LocalDateTime.of(2024, 1, 1, 1, 0));
+		testRun.setFeatures(IntStream.rangeClosed(1, 3).mapToObj(ImportCancellationTest::feature).toList());
+
+		CompletableFuture<CukeTestRun> result = new ReportPortalImporter(handler(), client)
+				.importReportAsync(testRun, executor);
+		assertTrue(client.featureStarted.await(TIMEOUT_S, TimeUnit.SECONDS));
+		result.cancel(true);
+		client.launchFinished.get(TIMEOUT_S, TimeUnit.SECONDS);
+
+		assertFinishedAsInterrupted(client);
+	}
+
+	@Test
+	void cancellingAPublishedImportInterruptsTheLaunch() throws Exception {
+		BlockingClient client = new BlockingClient();
+		try (SubmissionPublisher<CukeFeature> publisher = new SubmissionPublisher<>(executor, 4)) {
+			CompletableFuture<CukeTestRun> result = new ReportPortalImporter(handler(), client)
+					.importFeatures(publisher, new CukeMetadata(), LocalDateTime.of(2024, 1, 1, 0, 0), executor);
+			// the importer subscribes once the launch is started
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_S);
+			while (!publisher.hasSubscribers() && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			IntStream.rangeClosed(1, 3).mapToObj(ImportCancellationTest::feature).forEach(publisher::submit);
+			assertTrue(client.featureStarted.await(TIMEOUT_S, TimeUnit.SECONDS));
+			result.cancel(true);
+			client.launchFinished.get(TIMEOUT_S, TimeUnit.SECONDS);
+		}
+
+		assertFinishedAsInterrupted(client);
+	}
+
+	private static void assertFinishedAsInterrupted(BlockingClient client) throws InterruptedException {
+		// give a queued feature that was not dropped the time to start
+		Thread.sleep(200);
+		assertEquals(List.of("Feature: feature 1"), client.startedFeatures);
+		assertEquals(1, client.finishes.size());
+		assertEquals(LaunchStatus.INTERRUPTED, client.finishes.get(0).getStatus());
+	}
+
+	/**
+	 * Returns the properties of an import that imports a single feature at a time
+	 */
+	private static RPImporterPropertyHandler handler() {
+		return TestProperties.handler(RPImporterProperties.RP_IMPORTER_THREADS_FEATURES.getPropertyName(), "1");
+	}
+
+	private static CukeFeature feature(int i) {
+		CukeFeature feature = new CukeFeature();
+		feature.setName("feature " + i);
+		feature.setCodeRef("features/" + i + ".feature");
+		feature.setMinScenarioStartTime(LocalDateTime.of(2024, 1, 1, 0, i));
+		feature.setMaxScenarioEndTime(LocalDateTime.of(2024, 1, 1, 0, i + 1));
+		feature.setScenarios(List.of());
+		return feature;
+	}
+
+	/**
+	 * A {@link ReportPortalClient} that blocks the start of every feature until it
+	 * is interrupted, and records the started features and the finished launches
+	 */
+	private static final class BlockingClient implements ReportPortalClient {
+
+		private final List<String> startedFeatures = new CopyOnWriteArrayList<>();
+		private final List<FinishLaunchProperties> finishes = new CopyOnWriteArrayList<>();
+		private final CountDownLatch featureStarted = new CountDownLatch(1);
+		private final CompletableFuture<Void> launchFinished = new CompletableFuture<>();
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			StartLaunchResponse response = new StartLaunchResponse();
+			response.setId(UUID.randomUUID().toString());
+			return response;
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			finishes.add(props);
+			launchFinished.complete(null);
+			return new FinishLaunchResponse();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			startedFeatures.add(props.getName());
+			featureStarted.countDown();
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT_S));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted the start of: " + props.getName(), e);
+			}
+			throw new IllegalStateException("Feature was not cancelled: " + props.getName());
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			// no scenario is imported
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			// no scenario is imported
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			// no scenario is imported
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+
+/**
+ * Tests the waits and the finish calls of an {@link ImportDeadline}
+ */
+class ImportDeadlineTest {
+
+	private static final int THREADS_FEATURES = 2;
+
+	@Test
+	void runsTheFinishCallsOnTheCallerWithoutADeadline() throws Exception {
+		ImportDeadline deadline = new ImportDeadline(config(0, 0));
+
+		assertEquals(Thread.currentThread().getName(), deadline.finish(() -> Thread.currentThread().getName()));
+		assertFalse(deadline.isExpired());
+	}
+
+	@Test
+	void runsTheFinishCallsOnABoundedPool() throws Exception {
+		ImportDeadline deadline = new ImportDeadline(config(60000, 1000));
+		int calls = 3 * (THREADS_FEATURES + 1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<String> threads = new ArrayList<>();
+		ExecutorService callers = Executors.newFixedThreadPool(calls);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < calls; i++) {
+				results.add(callers.submit(() -> deadline.finish(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					return Thread.currentThread().getName();
+				})));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<String> result : results) {
+				threads.add(result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			callers.shutdownNow();
+		}
+
+		assertEquals(THREADS_FEATURES + 1, maxRunning.get());
+		assertTrue(threads.stream().allMatch(t -> t.startsWith("rp-importer-finish-")), threads.toString());
+	}
+
+	@Test
+	void stopsWaitingWhenTheGracePeriodIsOver() {
+		ImportDeadline deadline = new ImportDeadline(config(60000, 100));
+		deadline.expire();
+
+		assertTrue(deadline.isExpired());
+		assertThrows(TimeoutException.class, () -> deadline.await(new CompletableFuture<>()));
+		assertTrue(deadline.isOver());
+		assertTrue(deadline.isIncomplete());
+	}
+
+	@Test
+	void summarizesTheSkippedScenarios() {
+		ImportDeadline deadline = new ImportDeadline(config(60000, 0));
+		CukeFeature feature = new CukeFeature();
+		feature.setName("Checkout");
+		for (int i = 0; i < 25; i++) {
+			CukeScenario scenario = new CukeScenario();
+			scenario.setName("pays " + i);
+			scenario.setParent(feature);
+			feature.getScenarios().add(scenario);
+		}
+
+		deadline.skip(feature);
+
+		assertTrue(deadline.isIncomplete());
+		String summary = deadline.summary();
+		assertTrue(summary.contains("25 scenarios were not imported"), summary);
+		assertTrue(summary.contains("- Checkout: pays 0"), summary);
+		assertTrue(summary.contains("- and 5 more"), summary);
+	}
+
+	private static RPImporterConfig config(int importMs, int graceMs) {
+		return TestProperties.config("rp.importer.threads.features", String.valueOf(THREADS_FEATURES),
+				"rp.importer.deadline.importMs", String.valueOf(importMs), "rp.importer.deadline.graceMs",
+				String.valueOf(graceMs));
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+
+/**
+ * Tests that closing shared {@link ImportPayloads} deletes the attachment
+ * files, also of the screenshots that are still being processed
+ */
+class ImportPayloadsTest {
+
+	private static final int SCREENSHOTS = 20;
+
+	@Test
+	void deletesTheFilesOfPendingAttachmentsOnClose() throws Exception {
+		ImportPayloads payloads = new ImportPayloads(TestProperties.config("rp.importer.images.maxDimension", "100"), true);
+		String png = png();
+		List<CompletableFuture<Path>> files = new ArrayList<>();
+		for (int i = 0; i < SCREENSHOTS; i++) {
+			CukeEmbedding embedding = new CukeEmbedding();
+			embedding.setName("screenshot " + i);
+			embedding.setMimeType("image/png");
+			embedding.setData(png);
+			files.add(payloads.attachment(embedding, "step-" + i));
+		}
+
+		payloads.close();
+
+		for (CompletableFuture<Path> file : files) {
+			Path path = file.get(5, TimeUnit.SECONDS);
+			// the deletion is chained after the future, so it may run just after get
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (Files.exists(path) && System.nanoTime() < end) {
+				Thread.sleep(10);
+			}
+			assertFalse(Files.exists(path), path + " was not deleted");
+		}
+	}
+
+	private static String png() throws IOException {
+		BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return Base64.getEncoder().encodeToString(out.toByteArray());
+	}
+}
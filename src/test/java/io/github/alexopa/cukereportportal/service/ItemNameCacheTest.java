@@ -0,0 +1,68 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the {@link ItemNameCache} reuses the names it formatted, and stops
+ * caching new names once it holds {@link ItemNameCache#MAX_NAMES} of them
+ */
+class ItemNameCacheTest {
+
+	@Test
+	void reusesTheFormattedNames() {
+		ItemNameCache cache = new ItemNameCache();
+
+		String stepName = cache.stepName("Given ", "a cart with 2 items");
+		String hookName = cache.hookName("Before Hook", "Hooks.openBrowser()");
+		String label = cache.embeddingLabel("cart");
+
+		assertEquals("Given a cart with 2 items", stepName);
+		assertEquals("Before Hook: Hooks.openBrowser()", hookName);
+		assertEquals("cart: ", label);
+		assertSame(stepName, cache.stepName(new String("Given "), new String("a cart with 2 items")));
+		assertSame(hookName, cache.hookName("Before Hook", new String("Hooks.openBrowser()")));
+		assertSame(label, cache.embeddingLabel(new String("cart")));
+		// the same location is a different name for another type of hook
+		assertEquals("After Hook: Hooks.openBrowser()", cache.hookName("After Hook", "Hooks.openBrowser()"));
+	}
+
+	@Test
+	void stopsGrowingAtTheMaximumNumberOfNames() {
+		ItemNameCache cache = new ItemNameCache();
+		String first = cache.stepName("Given ", "step 0");
+		for (int i = 1; i < ItemNameCache.MAX_NAMES; i++) {
+			cache.stepName("Given ", "step " + i);
+		}
+
+		String stepName = cache.stepName("When ", "a step after the maximum");
+		String hookName = cache.hookName("Before Hook", "Hooks.afterTheMaximum()");
+
+		// names over the maximum are formatted on every call
+		assertEquals("When a step after the maximum", stepName);
+		assertNotSame(stepName, cache.stepName("When ", "a step after the maximum"));
+		assertEquals("Before Hook: Hooks.afterTheMaximum()", hookName);
+		assertNotSame(hookName, cache.hookName("Before Hook", "Hooks.afterTheMaximum()"));
+		// while the cached ones are still reused
+		assertSame(first, cache.stepName("Given ", "step 0"));
+	}
+}
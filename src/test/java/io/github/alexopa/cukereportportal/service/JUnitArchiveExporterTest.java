@@ -0,0 +1,163 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * Tests that the {@link JUnitArchiveExporter} writes well-formed xml for any
+ * report content, and uploads the archive like the calls of an import
+ */
+class JUnitArchiveExporterTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void removesAnsiEscapeSequences() {
+		assertEquals("expected: 1 but was: 2",
+				JUnitArchiveExporter.xmlText("\u001B[31mexpected: 1\u001B[0m but was: \u001B[1;32m2\u001B[m"));
+	}
+
+	@Test
+	void replacesCharactersThatXmlDoesNotAllow() {
+		assertEquals("a\uFFFDb\uFFFDc\uFFFDd", JUnitArchiveExporter.xmlText("a\u0000b\u0007c\uD800d"));
+	}
+
+	@Test
+	void keepsAllowedText() {
+		String text = "line\n\tindented\r\n<tag> & \"quotes\" \uD83D\uDE00";
+
+		assertSame(text, JUnitArchiveExporter.xmlText(text));
+		assertNull(JUnitArchiveExporter.xmlText(null));
+	}
+
+	@Test
+	void sanitizedTextIsWellFormed() throws Exception {
+		StringWriter out = new StringWriter();
+		XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		xml.writeStartDocument();
+		xml.writeStartElement("failure");
+		xml.writeAttribute("message", JUnitArchiveExporter.xmlText("\u001B[31mfailed\u0001"));
+		xml.writeCharacters(JUnitArchiveExporter.xmlText("stack\u0008trace\u001B[0m"));
+		xml.writeEndElement();
+		xml.writeEndDocument();
+		xml.close();
+
+		DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void skipsFeaturesWithoutScenarios() throws IOException {
+		Path archive = directory.resolve("launch.zip");
+		CukeFeature feature = new CukeFeature();
+		feature.setName("Empty");
+		feature.setScenarios(List.of());
+		CukeTestRun testRun = new CukeTestRun();
+		testRun.setFeatures(List.of(feature));
+
+		new JUnitArchiveExporter(TestProperties.handler("rp.importer.export.archive", archive.toString()))
+				.exportReport(testRun);
+
+		try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+			assertNull(zip.getNextEntry());
+		}
+	}
+
+	@Test
+	void retriesAnUploadThatReportPortalRejected() throws IOException {
+		List<String> requests = new CopyOnWriteArrayList<>();
+
+		upload(attempt -> attempt == 1 ? 503 : 200, requests);
+
+		assertEquals(2, requests.size());
+		String request = requests.get(1);
+		assertTrue(request.startsWith("/api/v1/project/launch/import?launchName=nightly "));
+		assertTrue(request.contains("{\"name\":\"nightly\",\"attributes\":[{\"key\":\"env\",\"value\":\"ci\"},"
+				+ "{\"value\":\"smoke\"}],\"mode\":\"DEFAULT\"}"));
+		assertTrue(request.contains("filename=\"launch.zip\""));
+	}
+
+	@Test
+	void doesNotRetryAnUploadThatReportPortalMayHaveProcessed() {
+		List<String> requests = new CopyOnWriteArrayList<>();
+
+		assertThrows(RPImporterException.class, () -> upload(attempt -> 500, requests));
+		assertEquals(1, requests.size());
+	}
+
+	/**
+	 * Uploads an archive to a local server that answers the given status to every
+	 * attempt, and adds the paths and bodies of the requests it receives to a list
+	 */
+	private void upload(IntUnaryOperator status, List<String> requests) throws IOException {
+		Path archive = directory.resolve("launch.zip");
+		Files.write(archive, new byte[] { 'P', 'K', 5, 6 });
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			requests.add(exchange.getRequestURI() + " "
+					+ new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			byte[] body = "{\"message\":\"imported\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status.applyAsInt(requests.size()), body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		try {
+			new JUnitArchiveExporter(TestProperties.handler("rp.importer.reportPortal.endpoint",
+					"http://localhost:" + server.getAddress().getPort(), "rp.importer.launch.attributes",
+					"env:ci;smoke", "rp.importer.launch.mode", "DEFAULT", "rp.importer.retry.initialBackoffMs", "1",
+					"rp.importer.retry.maxBackoffMs", "1")).uploadArchive(archive);
+		} finally {
+			server.stop(0);
+		}
+	}
+}
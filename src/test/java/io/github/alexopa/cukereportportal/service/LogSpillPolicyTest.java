@@ -0,0 +1,114 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.cukereportportal.service.LogSpillPolicy.Kind;
+import io.github.alexopa.cukereportportal.service.LogSpillPolicy.Spill;
+
+/**
+ * Tests which log messages a {@link LogSpillPolicy} spills, and the lifecycle
+ * of their gzip files
+ */
+class LogSpillPolicyTest {
+
+	private static final int THRESHOLD = 100;
+	private static final int HEAD_CHARS = 10;
+
+	@Test
+	void sendsAShortMessageInline() {
+		LogSpillPolicy policy = new LogSpillPolicy(config(THRESHOLD), false);
+
+		assertEquals(Optional.empty(), policy.spill(Kind.ERROR, "x".repeat(THRESHOLD)));
+	}
+
+	@Test
+	void spillsALongMessageToAGzipFile() throws IOException {
+		LogSpillPolicy policy = new LogSpillPolicy(config(THRESHOLD), false);
+		String message = "0123456789".repeat(THRESHOLD);
+
+		Spill spill = policy.spill(Kind.DOC_STRING, message).orElseThrow();
+
+		assertTrue(spill.head().startsWith("0123456789" + System.lineSeparator()), spill.head());
+		assertTrue(spill.head().contains("1000 characters in total"), spill.head());
+		assertTrue(spill.file().getFileName().toString().endsWith(".txt.gz"));
+		assertEquals(message, read(spill.file()));
+		policy.release(spill);
+		assertFalse(Files.exists(spill.file()));
+	}
+
+	@Test
+	void doesNotSplitASurrogatePairInTheHead() {
+		LogSpillPolicy policy = new LogSpillPolicy(config(THRESHOLD), false);
+		String message = "x".repeat(HEAD_CHARS - 1) + "\uD83D\uDE00".repeat(THRESHOLD);
+
+		Spill spill = policy.spill(Kind.TEXT_EMBEDDING, message).orElseThrow();
+
+		assertTrue(spill.head().startsWith("x".repeat(HEAD_CHARS - 1) + System.lineSeparator()), spill.head());
+		policy.release(spill);
+	}
+
+	@Test
+	void neverSpillsWithoutAThreshold() {
+		LogSpillPolicy policy = new LogSpillPolicy(config(0), false);
+
+		assertEquals(Optional.empty(), policy.spill(Kind.DATA_TABLE, "x".repeat(THRESHOLD * 100)));
+	}
+
+	@Test
+	void sharesTheFileOfARepeatedMessageUntilClosed() {
+		LogSpillPolicy policy = new LogSpillPolicy(config(THRESHOLD), true);
+		String message = "x".repeat(THRESHOLD * 2);
+
+		Spill first = policy.spill(Kind.ERROR, message).orElseThrow();
+		policy.release(first);
+		Spill second = policy.spill(Kind.ERROR, message).orElseThrow();
+
+		assertEquals(first.file(), second.file());
+		assertTrue(Files.exists(first.file()));
+		policy.close();
+		assertFalse(Files.exists(first.file()));
+	}
+
+	private static String read(Path file) throws IOException {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static RPImporterConfig config(int threshold) {
+		String chars = String.valueOf(threshold);
+		return TestProperties.config("rp.importer.logSpill.errorChars", chars, "rp.importer.logSpill.docStringChars",
+				chars, "rp.importer.logSpill.dataTableChars", chars, "rp.importer.logSpill.textEmbeddingChars", chars,
+				"rp.importer.logSpill.headChars", String.valueOf(HEAD_CHARS));
+	}
+}
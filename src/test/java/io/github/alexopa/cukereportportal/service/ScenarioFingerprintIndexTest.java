@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+
+/**
+ * Tests that the {@link ScenarioFingerprintIndex} matches the scenarios of a
+ * rerun by their identity and compares their outcome
+ */
+class ScenarioFingerprintIndexTest {
+
+	private static final String ERROR = "expected 2 items but was 3";
+
+	@Test
+	void findsTheScenariosWithTheSameOutcome() {
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex
+				.of(testRun(CukeStepResult.PASSED, CukeStepResult.FAILED));
+		CukeTestRun rerun = testRun(CukeStepResult.PASSED, CukeStepResult.FAILED);
+		// durations and timestamps change on every run
+		rerun.getFeatures().get(0).getScenarios().forEach(scenario -> {
+			scenario.setStartTimestamp(LocalDateTime.of(2024, 3, 2, 10, 0));
+			scenario.getScenarioSteps().get(0).setDuration(42);
+		});
+
+		assertEquals(2, index.size());
+		assertTrue(rerun.getFeatures().get(0).getScenarios().stream().allMatch(index::isUnchanged));
+	}
+
+	@Test
+	void detectsAChangedStepResult() {
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex.of(testRun(CukeStepResult.FAILED));
+		CukeScenario scenario = scenarios(testRun(CukeStepResult.FAILED)).get(0);
+		scenario.getScenarioSteps().get(0).setResult(CukeStepResult.UNDEFINED);
+
+		assertFalse(index.isUnchanged(scenario));
+	}
+
+	@Test
+	void detectsAChangedErrorMessage() {
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex.of(testRun(CukeStepResult.FAILED));
+		CukeScenario scenario = scenarios(testRun(CukeStepResult.FAILED)).get(0);
+		scenario.getScenarioSteps().get(0).setErrorMessage(ERROR + " at line 12");
+
+		assertFalse(index.isUnchanged(scenario));
+	}
+
+	@Test
+	void keepsTheRowsOfAnOutlineApart() {
+		// the rows of an outline have the same name, on different lines
+		List<CukeScenario> rows = scenarios(testRun(CukeStepResult.PASSED, CukeStepResult.FAILED));
+		ScenarioFingerprintIndex index = ScenarioFingerprintIndex
+				.of(testRun(CukeStepResult.FAILED, CukeStepResult.PASSED));
+
+		assertEquals(rows.get(0).getName(), rows.get(1).getName());
+		assertNotEquals(ScenarioFingerprintIndex.identity(rows.get(0)),
+				ScenarioFingerprintIndex.identity(rows.get(1)));
+		assertEquals(2, index.size());
+		assertFalse(index.isUnchanged(rows.get(0)));
+		assertFalse(index.isUnchanged(rows.get(1)));
+	}
+
+	private static List<CukeScenario> scenarios(CukeTestRun testRun) {
+		return testRun.getFeatures().get(0).getScenarios();
+	}
+
+	/**
+	 * Returns a test run with one feature, that has a row of an outline for each
+	 * of the given step results
+	 */
+	private static CukeTestRun testRun(CukeStepResult... rows) {
+		CukeFeature feature = new CukeFeature();
+		feature.setName("Checkout");
+		feature.setCodeRef("features/checkout.feature");
+		List<CukeScenario> scenarios = new ArrayList<>();
+		for (int i = 0; i < rows.length; i++) {
+			CukeScenario scenario = new CukeScenario();
+			scenario.setName("Pay with card");
+			scenario.setLine(12 + i);
+			scenario.setParent(feature);
+			boolean passed = rows[i] == CukeStepResult.PASSED;
+			scenario.setResult(passed ? CukeScenarioResult.PASSED : CukeScenarioResult.FAILED);
+			CukeStep step = new CukeStep();
+			step.setKeyword("Then ");
+			step.setName("the cart has 2 items");
+			step.setStepSection(CukeStepSection.SCENARIO);
+			step.setResult(rows[i]);
+			step.setErrorMessage(passed ? null : ERROR);
+			scenario.setScenarioSteps(List.of(step));
+			scenarios.add(scenario);
+		}
+		feature.setScenarios(scenarios);
+		CukeTestRun testRun = new CukeTestRun();
+		testRun.setFeatures(List.of(feature));
+		return testRun;
+	}
+}
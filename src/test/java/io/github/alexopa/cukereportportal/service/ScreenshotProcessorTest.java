@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportportal.config.RPImporterConfig;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+
+/**
+ * Tests that the {@link ScreenshotProcessor} downscales and re-encodes png
+ * screenshots as configured, and uploads the original when the processed image
+ * is not smaller or the embedding is not a png
+ */
+class ScreenshotProcessorTest {
+
+	private static final String MAX_DIMENSION = "rp.importer.images.maxDimension";
+	private static final String FORMAT = "rp.importer.images.format";
+	private static final String JPEG_QUALITY = "rp.importer.images.jpegQuality";
+
+	@Test
+	void downscalesALargePngToTheMaxDimension() throws Exception {
+		ScreenshotProcessor.Image image = process(TestProperties.config(MAX_DIMENSION, "100"), noise(400, 300));
+
+		assertEquals("png", image.extension());
+		BufferedImage downscaled = read(image.data());
+		assertEquals(100, downscaled.getWidth());
+		assertEquals(75, downscaled.getHeight());
+	}
+
+	@Test
+	void encodesAJpegWithTheConfiguredQuality() throws Exception {
+		byte[] png = noise(200, 200);
+
+		ScreenshotProcessor.Image low = process(TestProperties.config(FORMAT, "jpeg", JPEG_QUALITY, "10"), png);
+		ScreenshotProcessor.Image high = process(TestProperties.config(FORMAT, "jpeg", JPEG_QUALITY, "90"), png);
+
+		assertEquals("jpg", low.extension());
+		assertEquals("jpg", high.extension());
+		assertTrue(low.data().length < high.data().length,
+				String.format("quality 10 is %d bytes, quality 90 is %d bytes", low.data().length, high.data().length));
+		assertEquals(200, read(low.data()).getWidth());
+	}
+
+	@Test
+	void keepsTheOriginalWhenTheProcessedImageIsNotSmaller() throws Exception {
+		// a blank png is smaller than the headers of a jpeg
+		byte[] png = png(new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB));
+
+		ScreenshotProcessor.Image image = process(TestProperties.config(FORMAT, "jpeg"), png);
+
+		assertEquals("png", image.extension());
+		assertSame(png, image.data());
+	}
+
+	@Test
+	void keepsTheOriginalOfAnUnreadableImage() throws Exception {
+		byte[] data = "not a png".getBytes(StandardCharsets.UTF_8);
+
+		ScreenshotProcessor.Image image = process(TestProperties.config(MAX_DIMENSION, "100"), data);
+
+		assertSame(data, image.data());
+	}
+
+	@Test
+	void passesTheEmbeddingsThatAreNotPngThrough() throws Exception {
+		ImportPayloads payloads = new ImportPayloads(TestProperties.config(MAX_DIMENSION, "100", FORMAT, "jpeg"),
+				false);
+		byte[] json = "{\"cart\":[\"apple\"]}".getBytes(StandardCharsets.UTF_8);
+		CukeEmbedding embedding = new CukeEmbedding();
+		embedding.setName("cart");
+		embedding.setMimeType("application/json");
+		embedding.setData(Base64.getEncoder().encodeToString(json));
+		try {
+			Path file = payloads.attachment(embedding, "step").get(5, TimeUnit.SECONDS);
+			try {
+				assertTrue(file.getFileName().toString().endsWith(".json"), file.toString());
+				assertArrayEquals(json, Files.readAllBytes(file));
+			} finally {
+				payloads.release(file);
+			}
+		} finally {
+			payloads.close();
+		}
+	}
+
+	private static ScreenshotProcessor.Image process(RPImporterConfig config, byte[] png) throws Exception {
+		ScreenshotProcessor processor = new ScreenshotProcessor(config);
+		try {
+			return processor.process(() -> png).get(5, TimeUnit.SECONDS);
+		} finally {
+			processor.close();
+		}
+	}
+
+	/**
+	 * Returns a png of random pixels, which does not compress, so a processed
+	 * image is always smaller
+	 */
+	private static byte[] noise(int width, int height) throws IOException {
+		Random random = new Random(42);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				image.setRGB(x, y, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)).getRGB());
+			}
+		}
+		return png(image);
+	}
+
+	private static byte[] png(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private static BufferedImage read(byte[] data) throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(data));
+	}
+}
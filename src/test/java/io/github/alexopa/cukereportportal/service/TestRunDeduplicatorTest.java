@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeEmbedding;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMatch;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+
+/**
+ * Tests that the {@link TestRunDeduplicator} makes equal values share an
+ * instance, and keeps the lists of the model mutable
+ */
+class TestRunDeduplicatorTest {
+
+	@Test
+	void sharesTheInstancesOfEqualValues() {
+		CukeFeature cart = feature("features/cart.feature");
+		CukeFeature checkout = feature("features/checkout.feature");
+		CukeTestRun testRun = testRun(cart, checkout);
+
+		TestRunDeduplicator.deduplicate(testRun);
+
+		CukeScenario first = cart.getScenarios().get(0);
+		CukeScenario second = checkout.getScenarios().get(0);
+		assertSame(cart.getTags().get(0), checkout.getTags().get(0));
+		assertSame(first.getName(), second.getName());
+		assertSame(first.getTags().get(1), second.getTags().get(1));
+		CukeStep firstStep = first.getScenarioSteps().get(0);
+		CukeStep secondStep = second.getScenarioSteps().get(0);
+		assertSame(firstStep.getKeyword(), secondStep.getKeyword());
+		assertSame(firstStep.getName(), secondStep.getName());
+		assertSame(firstStep.getErrorMessage(), secondStep.getErrorMessage());
+		assertSame(firstStep.getDocString(), secondStep.getDocString());
+		assertSame(firstStep.getMatch().getLocation(), secondStep.getMatch().getLocation());
+		assertSame(firstStep.getEmbeddings().get(0).getMimeType(), secondStep.getEmbeddings().get(0).getMimeType());
+		assertSame(firstStep.getTableData(), secondStep.getTableData());
+		assertSame(first.getBeforeSteps().get(0).getMatch().getLocation(),
+				second.getBeforeSteps().get(0).getMatch().getLocation());
+		// distinct values keep their own instance
+		assertNotSame(cart.getCodeRef(), checkout.getCodeRef());
+		assertEquals("features/checkout.feature", checkout.getCodeRef());
+	}
+
+	@Test
+	void keepsTheListsMutable() {
+		CukeFeature feature = feature("features/cart.feature");
+		CukeTestRun testRun = testRun(feature);
+
+		TestRunDeduplicator.deduplicate(testRun);
+
+		CukeScenario scenario = feature.getScenarios().get(0);
+		feature.getTags().add("@added");
+		scenario.getTags().add("@added");
+		scenario.getScenarioSteps().get(0).getTableData().get(0).add("added");
+		assertEquals(List.of("@cart", "@added"), feature.getTags());
+		assertEquals(List.of("@cart", "@smoke", "@added"), scenario.getTags());
+		assertEquals(List.of("item", "count", "added"), scenario.getScenarioSteps().get(0).getTableData().get(0));
+	}
+
+	private static CukeTestRun testRun(CukeFeature... features) {
+		CukeTestRun testRun = new CukeTestRun();
+		testRun.setFeatures(List.of(features));
+		return testRun;
+	}
+
+	/**
+	 * Returns a feature whose values are new instances, equal to the values of
+	 * every other feature but the code reference. The lists are immutable, like
+	 * the ones of a model that was built with <code>List.of</code>
+	 */
+	private static CukeFeature feature(String codeRef) {
+		CukeFeature feature = new CukeFeature();
+		feature.setCodeRef(new String(codeRef));
+		feature.setTags(List.of(new String("@cart")));
+
+		CukeStep hook = new CukeStep();
+		CukeMatch hookMatch = new CukeMatch();
+		hookMatch.setLocation(new String("Hooks.openBrowser()"));
+		hook.setMatch(hookMatch);
+
+		CukeStep step = new CukeStep();
+		step.setKeyword(new String("Given "));
+		step.setName(new String("a cart with 2 items"));
+		step.setErrorMessage(new String("expected 2 items"));
+		step.setDocString(new String("{}"));
+		CukeMatch match = new CukeMatch();
+		match.setLocation(new String("CartSteps.cartWithItems(int)"));
+		step.setMatch(match);
+		step.setTableData(List.of(List.of(new String("item"), new String("count")),
+				List.of(new String("apple"), new String("2"))));
+		CukeEmbedding embedding = new CukeEmbedding();
+		embedding.setName(new String("cart"));
+		embedding.setMimeType(new String("text/plain"));
+		step.setEmbeddings(List.of(embedding));
+
+		CukeScenario scenario = new CukeScenario();
+		scenario.setName(new String("Add an item"));
+		scenario.setTags(List.of(new String("@cart"), new String("@smoke")));
+		scenario.setBeforeSteps(List.of(hook));
+		scenario.setScenarioSteps(List.of(step));
+		scenario.setParent(feature);
+		feature.setScenarios(List.of(scenario));
+		return feature;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.alexopa.cukereportconverter.model.cuke.CukeFeature;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeMetadata;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenario;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeScenarioResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStep;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepResult;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeStepSection;
+import io.github.alexopa.cukereportconverter.model.cuke.CukeTestRun;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+
+/**
+ * Tests that a {@link TestRunSnapshot} is restored from its file
+ */
+class TestRunSnapshotTest {
+
+	private static final String LAUNCH_UUID = "5f0c8d3e-2a41-4b8e-9c6f-0d7a1e3b2c45";
+	private static final String FEATURE_UUID = "a3b1c2d4-e5f6-4789-8abc-def012345678";
+	private static final String SCENARIO_UUID = "0e9d8c7b-6a5f-4e3d-8c2b-1a0f9e8d7c6b";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsTheRunAndItsItems() {
+		CukeTestRun testRun = testRun();
+		CukeFeature feature = testRun.getFeatures().get(0);
+		TestRunSnapshot snapshot = new TestRunSnapshot();
+		snapshot.recordRun(testRun, LAUNCH_UUID);
+		snapshot.recordFeature(feature, FEATURE_UUID);
+		snapshot.recordScenario(feature.getScenarios().get(0), SCENARIO_UUID);
+		// ids that are not canonical uuids are stored as strings
+		snapshot.recordScenario(feature.getScenarios().get(1), SCENARIO_UUID.toUpperCase());
+
+		TestRunSnapshot read = writeAndRead(snapshot);
+
+		assertEquals(LAUNCH_UUID, read.getLaunchUuid());
+		assertEquals("nightly", read.getName());
+		assertNull(read.getStatus());
+		assertEquals(testRun.getStartTime(), read.getStartTime());
+		assertEquals(testRun.getEndTime(), read.getEndTime());
+		assertEquals(Optional.of(FEATURE_UUID), read.getFeatureItemUuid(feature));
+		assertEquals(Optional.of(SCENARIO_UUID), read.getScenarioItemUuid(feature.getScenarios().get(0)));
+		assertEquals(Optional.of(SCENARIO_UUID.toUpperCase()),
+				read.getScenarioItemUuid(feature.getScenarios().get(1)));
+		assertEquals(2, read.getScenarioCount());
+		assertEquals(LAUNCH_UUID, read.toMetadata().getId());
+		assertEquals("nightly", read.toMetadata().getName());
+	}
+
+	@Test
+	void doesNotFindItemsThatAreNotRecorded() {
+		CukeTestRun testRun = testRun();
+		CukeFeature feature = testRun.getFeatures().get(0);
+		TestRunSnapshot snapshot = new TestRunSnapshot();
+		snapshot.recordRun(testRun, LAUNCH_UUID);
+		snapshot.recordScenario(feature.getScenarios().get(0), SCENARIO_UUID);
+
+		TestRunSnapshot read = writeAndRead(snapshot);
+
+		assertEquals(Optional.empty(), read.getFeatureItemUuid(feature));
+		assertEquals(Optional.empty(), read.getScenarioItemUuid(feature.getScenarios().get(1)));
+	}
+
+	@Test
+	void keepsTheOutcomeOfTheScenarios() {
+		CukeTestRun testRun = testRun();
+		CukeScenario scenario = testRun.getFeatures().get(0).getScenarios().get(0);
+		TestRunSnapshot snapshot = new TestRunSnapshot();
+		snapshot.recordRun(testRun, LAUNCH_UUID);
+		snapshot.recordScenario(scenario, SCENARIO_UUID);
+
+		ScenarioFingerprintIndex index = writeAndRead(snapshot).toFingerprintIndex();
+
+		assertTrue(index.isUnchanged(scenario));
+		scenario.setResult(CukeScenarioResult.FAILED);
+		assertFalse(index.isUnchanged(scenario));
+	}
+
+	@Test
+	void rejectsAFileThatIsNotASnapshot() throws IOException {
+		Path file = directory.resolve("report.json");
+		Files.writeString(file, "{\"features\": []}");
+
+		assertThrows(RPImporterException.class, () -> TestRunSnapshot.read(file));
+	}
+
+	private TestRunSnapshot writeAndRead(TestRunSnapshot snapshot) {
+		Path file = directory.resolve("run.snapshot");
+		snapshot.write(file);
+		return TestRunSnapshot.read(file);
+	}
+
+	private static CukeTestRun testRun() {
+		CukeTestRun testRun = new CukeTestRun();
+		CukeMetadata metadata = new CukeMetadata();
+		metadata.setName("nightly");
+		testRun.setMetadata(metadata);
+		testRun.setStartTime(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123456789));
+		testRun.setEndTime(LocalDateTime.of(2024, 3, 1, 11, 0, 5, 1000));
+
+		CukeFeature feature = new CukeFeature();
+		feature.setName("Checkout");
+		feature.setCodeRef("features/checkout.feature");
+		List<CukeScenario> scenarios = new ArrayList<>();
+		for (int line = 3; line <= 9; line += 6) {
+			CukeScenario scenario = new CukeScenario();
+			scenario.setName("Pay with card");
+			scenario.setLine(line);
+			scenario.setResult(CukeScenarioResult.PASSED);
+			scenario.setParent(feature);
+			CukeStep step = new CukeStep();
+			step.setKeyword("Given ");
+			step.setName("a cart with 2 items");
+			step.setStepSection(CukeStepSection.SCENARIO);
+			step.setResult(CukeStepResult.PASSED);
+			scenario.setScenarioSteps(List.of(step));
+			scenarios.add(scenario);
+		}
+		feature.setScenarios(scenarios);
+		testRun.setFeatures(List.of(feature));
+		return testRun;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests how {@link ReportSources} resolves the report entries, and which
+ * sources are read in place
+ */
+class ReportSourcesTest {
+
+	private static final String REPORT = "[{\"name\":\"feature\"}]";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void resolvesTheReportsOfADirectoryInTheOrderOfTheirPaths() throws IOException {
+		write("b.json");
+		writeGzip("a.json.gz");
+		write("c.txt");
+
+		List<ReportSource> sources = ReportSources.discover(List.of(directory.toString()));
+
+		assertEquals(List.of(name("a.json.gz"), name("b.json")), sources.stream().map(ReportSource::getName).toList());
+	}
+
+	@Test
+	void resolvesAGlobPatternInSubdirectories() throws IOException {
+		Files.createDirectories(directory.resolve("run-1"));
+		Files.createDirectories(directory.resolve("run-2"));
+		write("run-1/cucumber.json");
+		writeGzip("run-2/cucumber.json.gz");
+		write("run-2/other.json");
+
+		List<ReportSource> sources = ReportSources.discover(List.of(directory + "/**/cucumber*"));
+
+		assertEquals(List.of(name("run-1/cucumber.json"), name("run-2/cucumber.json.gz")),
+				sources.stream().map(ReportSource::getName).toList());
+	}
+
+	@Test
+	void ignoresEntriesWithoutReports() {
+		List<ReportSource> sources = ReportSources.discover(
+				List.of(directory.resolve("missing.json").toString(), " ", "missing/*.json", "missing.json"));
+
+		assertTrue(sources.isEmpty());
+	}
+
+	@Test
+	void readsOnlyPlainFilesInPlace() throws IOException {
+		ReportSource plain = ReportSources.of(write("plain.json"));
+		ReportSource compressed = ReportSources.of(writeGzip("compressed.json.gz"));
+		ReportSource stream = ReportSources.of("stream.json",
+				new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(Optional.of(directory.resolve("plain.json")), plain.getPath());
+		assertEquals(Optional.empty(), compressed.getPath());
+		assertEquals(Optional.empty(), stream.getPath());
+	}
+
+	@Test
+	void decompressesAGzipReport() throws IOException {
+		Path file = writeGzip("report.json.gz");
+		ReportSource source = ReportSources.of(file);
+
+		assertEquals(REPORT, read(source));
+		assertEquals(Files.size(file), source.getSize());
+	}
+
+	@Test
+	void readsAStreamOnce() throws IOException {
+		ReportSource source = ReportSources.of("stream.json",
+				new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(REPORT, read(source));
+		assertThrows(IOException.class, source::open);
+	}
+
+	private String name(String file) {
+		return directory.resolve(file).toString();
+	}
+
+	private Path write(String file) throws IOException {
+		return Files.writeString(directory.resolve(file), REPORT);
+	}
+
+	private Path writeGzip(String file) throws IOException {
+		Path path = directory.resolve(file);
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+			out.write(REPORT.getBytes(StandardCharsets.UTF_8));
+		}
+		return path;
+	}
+
+	private static String read(ReportSource source) throws IOException {
+		try (InputStream in = source.open()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * (C) Copyright 2024 Andreas Alexopoulos (https://alexop-a.github.io/)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.github.alexopa.cukereportportal.spool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.alexopa.cukereportportal.client.ReportPortalClient;
+import io.github.alexopa.cukereportportal.config.RPImporterPropertyHandler;
+import io.github.alexopa.cukereportportal.config.TestProperties;
+import io.github.alexopa.cukereportportal.exception.RPImporterException;
+import io.github.alexopa.reportportalclient.model.launch.FinishLaunchProperties;
+import io.github.alexopa.reportportalclient.model.launch.StartLaunchProperties;
+import io.github.alexopa.reportportalclient.model.log.AddFileAttachmentProperties;
+import io.github.alexopa.reportportalclient.model.log.AddLogProperties;
+import io.github.alexopa.reportportalclient.model.testitem.FinishTestItemProperties;
+import io.github.alexopa.reportportalclient.model.testitem.StartTestItemProperties;
+import io.github.alexopa.reportportalclient.rpmodel.EntryCreatedResponse;
+import io.github.alexopa.reportportalclient.rpmodel.FinishLaunchResponse;
+import io.github.alexopa.reportportalclient.rpmodel.StartLaunchResponse;
+
+/**
+ * Tests that a spool written by {@link SpoolRecordingClient} is uploaded by
+ * {@link SpoolReplayer}, and that a failed replay is resumed without sending
+ * the operations that are already done again
+ */
+class SpoolReplayerTest {
+
+	private static final String LAUNCH_UUID = "launch-1";
+	private static final int ITEMS = 50;
+	private static final int LOGS_PER_ITEM = 3;
+	// the launch, every item with its logs, attachment and finish, and the finish
+	// of the launch
+	private static final int OPERATIONS = 2 + ITEMS * (LOGS_PER_ITEM + 3);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replaysEveryOperationOfTheSpool() throws IOException {
+		Path spool = recordSpool();
+		RecordingClient client = new RecordingClient(0);
+
+		String launchUuid = new SpoolReplayer(propertyHandler(), client).replay(spool);
+
+		assertEquals(LAUNCH_UUID, launchUuid);
+		assertEquals(OPERATIONS, client.calls.size());
+		assertEquals(OPERATIONS, client.done.size());
+		for (int i = 0; i < ITEMS; i++) {
+			// the spool references are replaced by the ids of ReportPortal
+			assertTrue(client.done.contains("finishItem item-" + i + " of " + LAUNCH_UUID));
+			assertTrue(client.done.contains("addLog item-" + i + " message-" + i + "-0"));
+			assertTrue(client.done.contains("addFileAttachment item-" + i + " screenshot-" + i));
+		}
+		assertTrue(client.done.contains("finishLaunch " + LAUNCH_UUID));
+		assertArrayEquals(attachment(), client.attachment);
+	}
+
+	@Test
+	void writesTheStringsInlineOnceTheStringTableIsFull() throws IOException {
+		Path spool = recordSpool(ITEMS / 2);
+		RecordingClient client = new RecordingClient(0);
+
+		new SpoolReplayer(propertyHandler(), client).replay(spool);
+
+		assertEquals(OPERATIONS, client.done.size());
+		for (int i = 0; i < ITEMS; i++) {
+			assertTrue(client.calls.contains("startItem item-" + i + " of " + LAUNCH_UUID));
+			assertTrue(client.done.contains("finishItem item-" + i + " of " + LAUNCH_UUID));
+		}
+	}
+
+	@Test
+	void resumesAFailedReplay() throws IOException {
+		Path spool = recordSpool();
+		RecordingClient failing = new RecordingClient(OPERATIONS / 2);
+		assertThrows(RuntimeException.class, () -> new SpoolReplayer(propertyHandler(), failing).replay(spool));
+		assertTrue(failing.done.size() < OPERATIONS);
+
+		RecordingClient resumed = new RecordingClient(0);
+		String launchUuid = new SpoolReplayer(propertyHandler(), resumed).replay(spool);
+
+		assertEquals(LAUNCH_UUID, launchUuid);
+		// no operation is sent twice, and together the replays sent all of them
+		assertTrue(resumed.done.stream().noneMatch(failing.done::contains));
+		assertEquals(OPERATIONS, failing.done.size() + resumed.done.size());
+		assertTrue(resumed.calls.stream().noneMatch(call -> call.startsWith("startLaunch")));
+	}
+
+	@Test
+	void rejectsATruncatedJournal() throws IOException {
+		Path spool = recordSpool();
+		new SpoolReplayer(propertyHandler(), new RecordingClient(0)).replay(spool);
+		Path journal = Paths.get(spool + ".journal");
+		byte[] content = Files.readAllBytes(journal);
+		Files.write(journal, Arrays.copyOf(content, content.length - 2));
+
+		RecordingClient client = new RecordingClient(0);
+		assertThrows(RPImporterException.class, () -> new SpoolReplayer(propertyHandler(), client).replay(spool));
+		assertEquals(List.of(), client.calls);
+	}
+
+	private Path recordSpool() throws IOException {
+		return recordSpool(SpoolFormat.MAX_TABLE_STRINGS);
+	}
+
+	private Path recordSpool(int maxTableStrings) throws IOException {
+		Path attachment = directory.resolve("screenshot.png");
+		Files.write(attachment, attachment());
+		Path spool = directory.resolve("launch.spool");
+		try (SpoolRecordingClient recorder = new SpoolRecordingClient(spool, maxTableStrings)) {
+			String launch = recorder.startLaunch(StartLaunchProperties.builder().name("nightly").build()).getId();
+			for (int i = 0; i < ITEMS; i++) {
+				String item = recorder
+						.startItem(StartTestItemProperties.builder().launchUuid(launch).name("item-" + i).build())
+						.getId();
+				for (int j = 0; j < LOGS_PER_ITEM; j++) {
+					recorder.addLog(AddLogProperties.builder().launchId(launch).itemId(item).level("INFO")
+							.message("message-" + i + "-" + j).build());
+				}
+				recorder.addFileAttachment(AddFileAttachmentProperties.builder().launchUuid(launch).itemUuid(item)
+						.level("INFO").message("screenshot-" + i).fullPath(attachment.toString()).build());
+				recorder.finishItem(
+						FinishTestItemProperties.builder().launchUuid(launch).itemUuid(item).status("PASSED").build());
+			}
+			recorder.finishLaunch(FinishLaunchProperties.builder().launchUuid(launch).build());
+		}
+		// the spool holds a copy of the attachment
+		Files.delete(attachment);
+		return spool;
+	}
+
+	private static byte[] attachment() {
+		byte[] data = new byte[4096];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private static RPImporterPropertyHandler propertyHandler() {
+		return TestProperties.handler("rp.importer.launch.mode", "DEFAULT", "rp.importer.spool.replayThreads", "4");
+	}
+
+	/**
+	 * A {@link ReportPortalClient} that records the calls it receives, and fails
+	 * the call with the given number
+	 */
+	private static final class RecordingClient implements ReportPortalClient {
+
+		private final int failingCall;
+		private final AtomicInteger count = new AtomicInteger();
+		private final List<String> calls = new CopyOnWriteArrayList<>();
+		private final Set<String> done = ConcurrentHashMap.newKeySet();
+		private volatile byte[] attachment;
+
+		private RecordingClient(int failingCall) {
+			this.failingCall = failingCall;
+		}
+
+		@Override
+		public StartLaunchResponse startLaunch(StartLaunchProperties props) {
+			call("startLaunch " + props.getName());
+			StartLaunchResponse response = new StartLaunchResponse();
+			response.setId(LAUNCH_UUID);
+			return response;
+		}
+
+		@Override
+		public FinishLaunchResponse finishLaunch(FinishLaunchProperties props) {
+			call("finishLaunch " + props.getLaunchUuid());
+			return new FinishLaunchResponse();
+		}
+
+		@Override
+		public EntryCreatedResponse startItem(StartTestItemProperties props) {
+			call("startItem " + props.getName() + " of " + props.getLaunchUuid());
+			EntryCreatedResponse response = new EntryCreatedResponse();
+			response.setId(props.getName());
+			return response;
+		}
+
+		@Override
+		public void finishItem(FinishTestItemProperties props) {
+			call("finishItem " + props.getItemUuid() + " of " + props.getLaunchUuid());
+		}
+
+		@Override
+		public void addLog(AddLogProperties props) {
+			call("addLog " + props.getItemId() + " " + props.getMessage());
+		}
+
+		@Override
+		public void addFileAttachment(AddFileAttachmentProperties props) {
+			try {
+				attachment = Files.readAllBytes(Paths.get(props.getFullPath()));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			call("addFileAttachment " + props.getItemUuid() + " " + props.getMessage());
+		}
+
+		private void call(String call) {
+			calls.add(call);
+			if (count.incrementAndGet() == failingCall) {
+				throw new IllegalStateException("ReportPortal is not available");
+			}
+			done.add(call);
+		}
+	}
+}